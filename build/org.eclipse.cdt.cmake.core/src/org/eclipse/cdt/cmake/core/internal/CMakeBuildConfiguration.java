@@ -16,6 +16,7 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +27,7 @@ import org.eclipse.cdt.core.ErrorParserManager;
 import org.eclipse.cdt.core.IConsoleParser;
 import org.eclipse.cdt.core.build.CBuildConfiguration;
 import org.eclipse.cdt.core.build.IToolChain;
+import org.eclipse.cdt.core.build.ScannerInfoCache;
 import org.eclipse.cdt.core.envvar.EnvironmentVariable;
 import org.eclipse.cdt.core.envvar.IEnvironmentVariable;
 import org.eclipse.cdt.core.model.ICModelMarker;
@@ -41,6 +43,7 @@ import org.osgi.service.prefs.BackingStoreException;
 import org.osgi.service.prefs.Preferences;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 
 public class CMakeBuildConfiguration extends CBuildConfiguration {
 
@@ -54,6 +57,9 @@ public class CMakeBuildConfiguration extends CBuildConfiguration {
 
 	private ICMakeToolChainFile toolChainFile;
 
+	// Commands of compile_commands.json by file as processed by the last build
+	private Map<String, String> processedCommands = new HashMap<>();
+
 	public CMakeBuildConfiguration(IBuildConfiguration config, String name) throws CoreException {
 		super(config, name);
 
@@ -305,15 +311,28 @@ public class CMakeBuildConfiguration extends CBuildConfiguration {
 		if (Files.exists(commandsFile)) {
 			List<Job> jobsList = new ArrayList<>();
 			monitor.setTaskName(Messages.CMakeBuildConfiguration_ProcCompJson);
-			try (FileReader reader = new FileReader(commandsFile.toFile())) {
+			try (JsonReader reader = new JsonReader(new FileReader(commandsFile.toFile()))) {
+				// Read one command at a time, the last command for a file wins
 				Gson gson = new Gson();
-				CompileCommand[] commands = gson.fromJson(reader, CompileCommand[].class);
-				Map<String, CompileCommand> dedupedCmds = new HashMap<>();
-				for (CompileCommand command : commands) {
-					dedupedCmds.put(command.getFile(), command);
+				Map<String, String> dedupedCmds = new LinkedHashMap<>();
+				reader.beginArray();
+				while (reader.hasNext()) {
+					CompileCommand command = gson.fromJson(reader, CompileCommand.class);
+					if (command.getFile() != null && command.getCommand() != null) {
+						dedupedCmds.put(command.getFile(), command.getCommand());
+					}
 				}
-				for (CompileCommand command : dedupedCmds.values()) {
-					processLine(command.getCommand(), jobsList);
+				reader.endArray();
+
+				loadScannerInfoCache();
+				ScannerInfoCache scannerInfoCache = getScannerInfoCache();
+				for (Map.Entry<String, String> command : dedupedCmds.entrySet()) {
+					// Skip the commands which did not change since the last build if the scanner info is still there
+					if (command.getValue().equals(processedCommands.get(command.getKey()))
+							&& scannerInfoCache.hasResource(new org.eclipse.core.runtime.Path(command.getKey()).toOSString())) {
+						continue;
+					}
+					processLine(command.getValue(), jobsList);
 				}
 				for (Job j : jobsList) {
 					try {
@@ -323,6 +342,7 @@ public class CMakeBuildConfiguration extends CBuildConfiguration {
 					}
 				}
 				shutdown();
+				processedCommands = dedupedCmds;
 			} catch (IOException e) {
 				throw new CoreException(
 						Activator.errorStatus(String.format(Messages.CMakeBuildConfiguration_ProcCompCmds, project.getName()), e));
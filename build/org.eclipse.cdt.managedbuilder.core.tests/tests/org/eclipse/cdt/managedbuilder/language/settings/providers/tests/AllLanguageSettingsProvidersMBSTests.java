@@ -29,5 +29,6 @@ public class AllLanguageSettingsProvidersMBSTests extends TestSuite {
 		addTestSuite(GCCBuildCommandParserTest.class);
 		addTestSuite(BuiltinSpecsDetectorTest.class);
 		addTestSuite(GCCBuiltinSpecsDetectorTest.class);
+		addTestSuite(BuiltinSpecsCacheTest.class);
 	}
 }
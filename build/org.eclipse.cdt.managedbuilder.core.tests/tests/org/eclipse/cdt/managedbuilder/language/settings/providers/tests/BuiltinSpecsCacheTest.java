@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.managedbuilder.language.settings.providers.tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cdt.core.settings.model.CIncludePathEntry;
+import org.eclipse.cdt.core.settings.model.CMacroEntry;
+import org.eclipse.cdt.core.settings.model.ICLanguageSettingEntry;
+import org.eclipse.cdt.core.settings.model.ICSettingEntry;
+import org.eclipse.cdt.managedbuilder.internal.language.settings.providers.BuiltinSpecsCache;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Test cases for the cache of built-in specs shared by the detectors.
+ */
+public class BuiltinSpecsCacheTest extends TestCase {
+	private static final String DETECTOR_ID = "test.detector.id";
+	private static final String LANG_ID = "test.lang.id";
+	private static final String COMMAND = "gcc -E -P -v -dD spec.c";
+
+	private File fCompiler;
+	private File fCacheFile;
+
+	public static TestSuite suite() {
+		return new TestSuite(BuiltinSpecsCacheTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fCompiler = File.createTempFile("gcc", ".exe");
+		Files.write(fCompiler.toPath(), new byte[] { 1, 2, 3 });
+		fCacheFile = File.createTempFile("builtinSpecs", ".bin");
+		fCacheFile.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fCompiler.delete();
+		fCacheFile.delete();
+	}
+
+	private String getKey(Map<String, String> env) {
+		return BuiltinSpecsCache.getKey(DETECTOR_ID, LANG_ID, COMMAND, fCompiler, env);
+	}
+
+	/**
+	 * Test that the key depends on the compiler and the environment.
+	 */
+	public void testKey() throws Exception {
+		Map<String, String> env = new HashMap<String, String>();
+		env.put("PATH", "/usr/bin");
+		String key = getKey(env);
+		assertNotNull(key);
+		assertEquals(key, getKey(new HashMap<String, String>(env)));
+
+		// the working directory of the configuration does not matter
+		env.put("PWD", "/project/Debug");
+		env.put("CWD", "/project/Debug");
+		assertEquals(key, getKey(env));
+
+		env.put("CPATH", "/opt/include");
+		assertFalse(key.equals(getKey(env)));
+		env.remove("CPATH");
+
+		assertFalse(key.equals(BuiltinSpecsCache.getKey(DETECTOR_ID, LANG_ID, COMMAND + " -std=c++11", fCompiler, env)));
+		assertFalse(key.equals(BuiltinSpecsCache.getKey(DETECTOR_ID, "test.lang.id.1", COMMAND, fCompiler, env)));
+
+		// a rebuilt compiler needs to be run again
+		assertTrue(fCompiler.setLastModified(fCompiler.lastModified() - 10000));
+		assertFalse(key.equals(getKey(env)));
+
+		// a missing compiler is not cached
+		fCompiler.delete();
+		assertNull(getKey(env));
+	}
+
+	/**
+	 * Test storing the entries and reading them in a new session.
+	 */
+	public void testPersistence() throws Exception {
+		List<ICLanguageSettingEntry> entries = new ArrayList<ICLanguageSettingEntry>();
+		entries.add(new CIncludePathEntry("/usr/include", ICSettingEntry.BUILTIN | ICSettingEntry.READONLY));
+		entries.add(new CMacroEntry("__GNUC__", "7", ICSettingEntry.BUILTIN | ICSettingEntry.READONLY));
+		entries.add(new CMacroEntry("__EMPTY__", "", ICSettingEntry.BUILTIN));
+		String key = getKey(new HashMap<String, String>());
+
+		BuiltinSpecsCache cache = new BuiltinSpecsCache(fCacheFile);
+		assertNull(cache.get(key));
+		cache.put(key, DETECTOR_ID, entries);
+		assertEquals(entries, cache.get(key));
+		assertSame(cache.getLock(key), cache.getLock(key));
+
+		assertEquals(entries, new BuiltinSpecsCache(fCacheFile).get(key));
+
+		cache.clear();
+		assertNull(cache.get(key));
+		assertNull(new BuiltinSpecsCache(fCacheFile).get(key));
+	}
+
+	/**
+	 * Test removing the entries of one detector.
+	 */
+	public void testRemove() throws Exception {
+		List<ICLanguageSettingEntry> entries = new ArrayList<ICLanguageSettingEntry>();
+		entries.add(new CIncludePathEntry("/usr/include", ICSettingEntry.BUILTIN));
+		String key = getKey(new HashMap<String, String>());
+		String otherKey = BuiltinSpecsCache.getKey(DETECTOR_ID + ".other", LANG_ID, COMMAND, fCompiler, new HashMap<String, String>());
+
+		BuiltinSpecsCache cache = new BuiltinSpecsCache(fCacheFile);
+		cache.put(key, DETECTOR_ID, entries);
+		cache.put(otherKey, DETECTOR_ID + ".other", entries);
+		cache.remove(DETECTOR_ID);
+		assertNull(cache.get(key));
+		assertEquals(entries, cache.get(otherKey));
+		assertNull(new BuiltinSpecsCache(fCacheFile).get(key));
+		assertEquals(entries, new BuiltinSpecsCache(fCacheFile).get(otherKey));
+	}
+
+	/**
+	 * Test that a damaged cache file is ignored.
+	 */
+	public void testCorrupted() throws Exception {
+		List<ICLanguageSettingEntry> entries = new ArrayList<ICLanguageSettingEntry>();
+		entries.add(new CIncludePathEntry("/usr/include", ICSettingEntry.BUILTIN));
+		String key = getKey(new HashMap<String, String>());
+		new BuiltinSpecsCache(fCacheFile).put(key, DETECTOR_ID, entries);
+
+		byte[] content = Files.readAllBytes(fCacheFile.toPath());
+		Files.write(fCacheFile.toPath(), Arrays.copyOf(content, content.length - 3));
+		BuiltinSpecsCache cache = new BuiltinSpecsCache(fCacheFile);
+		assertNull(cache.get(key));
+		cache.put(key, DETECTOR_ID, entries);
+		assertEquals(entries, new BuiltinSpecsCache(fCacheFile).get(key));
+	}
+}
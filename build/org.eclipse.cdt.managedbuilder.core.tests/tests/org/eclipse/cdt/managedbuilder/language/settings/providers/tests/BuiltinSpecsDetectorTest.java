@@ -45,6 +45,7 @@ import org.eclipse.cdt.internal.core.XmlUtil;
 import org.eclipse.cdt.internal.core.envvar.EnvironmentVariableManager;
 import org.eclipse.cdt.internal.core.envvar.UserDefinedEnvironmentSupplier;
 import org.eclipse.cdt.internal.core.settings.model.CProjectDescriptionManager;
+import org.eclipse.cdt.managedbuilder.internal.language.settings.providers.BuiltinSpecsCache;
 import org.eclipse.cdt.managedbuilder.language.settings.providers.AbstractBuiltinSpecsDetector;
 import org.eclipse.cdt.utils.envvar.StorableEnvironment;
 import org.eclipse.core.resources.IProject;
@@ -217,6 +218,23 @@ public class BuiltinSpecsDetectorTest extends BaseTestCase {
 		}
 	}
 
+	/**
+	 * Mock built-in specs detector which tracks how many times the compiler was run.
+	 */
+	private class MockConsoleBuiltinSpecsDetectorWithRunCount extends MockConsoleBuiltinSpecsDetector {
+		private int runCount = 0;
+
+		@Override
+		protected int runProgramForLanguage(String languageId, String command, String[] envp, URI workingDirectoryURI, OutputStream consoleOut, OutputStream consoleErr, IProgressMonitor monitor) throws CoreException, IOException {
+			runCount++;
+			return super.runProgramForLanguage(languageId, command, envp, workingDirectoryURI, consoleOut, consoleErr, monitor);
+		}
+
+		public int getRunCount() {
+			return runCount;
+		}
+	}
+
 	@Override
 	protected void setUp() throws Exception {
 		super.setUp();
@@ -906,6 +924,65 @@ public class BuiltinSpecsDetectorTest extends BaseTestCase {
 		provider.unregisterListener();
 	}
 
+	/**
+	 * Test that running the same compiler the same way is shared between providers
+	 * and that clearing a provider drops the shared results.
+	 */
+	public void testAbstractBuiltinSpecsDetector_SharedResults() throws Exception {
+		if (BuiltinSpecsCache.getDefault() == null) {
+			// the cache is disabled
+			return;
+		}
+
+		// Create a folder for this test
+		IPath folder = ResourceHelper.createWorkspaceFolder(getName());
+
+		// Create test "compiler"
+		java.io.File compiler = new java.io.File(folder.append("compiler").toOSString());
+		compiler.createNewFile();
+		assertTrue(compiler.exists());
+		String compilerPath = compiler.getAbsolutePath();
+		String providerId = PROVIDER_ID + '.' + getName();
+		List<String> languages = new ArrayList<String>() {{add(LANGUAGE_ID);}};
+		ICLanguageSettingEntry expected = new CMacroEntry("MACRO", "VALUE", ICSettingEntry.BUILTIN | ICSettingEntry.READONLY);
+
+		// Run the first provider
+		MockConsoleBuiltinSpecsDetectorWithRunCount provider = new MockConsoleBuiltinSpecsDetectorWithRunCount();
+		provider.configureProvider(providerId, PROVIDER_NAME, languages, null, null);
+		provider.setCommand('"' + compilerPath + '"' + " arg1");
+		// make sure no results are left from a previous run
+		provider.clear();
+		provider.registerListener(null);
+		waitForProviderToFinish();
+		provider.unregisterListener();
+		assertEquals(1, provider.getRunCount());
+		assertEquals(expected, provider.getSettingEntries(null, null, LANGUAGE_ID).get(0));
+
+		// Check that another provider running the same command reuses the results
+		MockConsoleBuiltinSpecsDetectorWithRunCount provider2 = new MockConsoleBuiltinSpecsDetectorWithRunCount();
+		provider2.configureProvider(providerId, PROVIDER_NAME, languages, null, null);
+		provider2.setCommand('"' + compilerPath + '"' + " arg1");
+		provider2.registerListener(null);
+		waitForProviderToFinish();
+		provider2.unregisterListener();
+		assertEquals(0, provider2.getRunCount());
+		assertEquals(expected, provider2.getSettingEntries(null, null, LANGUAGE_ID).get(0));
+
+		// Check that clearing the provider drops the shared results
+		provider.clear();
+		assertTrue(provider.isEmpty());
+		MockConsoleBuiltinSpecsDetectorWithRunCount provider3 = new MockConsoleBuiltinSpecsDetectorWithRunCount();
+		provider3.configureProvider(providerId, PROVIDER_NAME, languages, null, null);
+		provider3.setCommand('"' + compilerPath + '"' + " arg1");
+		provider3.registerListener(null);
+		waitForProviderToFinish();
+		provider3.unregisterListener();
+		assertEquals(1, provider3.getRunCount());
+		assertEquals(expected, provider3.getSettingEntries(null, null, LANGUAGE_ID).get(0));
+
+		provider3.clear();
+	}
+
 	/**
 	 * Test running a provider after changing the compiler command.
 	 */
@@ -2263,4 +2263,65 @@ public class GCCBuildCommandParserTest extends BaseTestCase {
 		assertEquals(new CIncludePathEntry("/path0", 0), entries.get(0));
 	}
 
+	/**
+	 * Parse many lines in pipelined mode following working directory of the build output.
+	 */
+	public void testPipelined_FollowCWD() throws Exception {
+		// Create model project and accompanied descriptions
+		String projectName = getName();
+		IProject project = ResourceHelper.createCDTProjectWithConfig(projectName);
+		ICConfigurationDescription[] cfgDescriptions = getConfigurationDescriptions(project);
+		ICConfigurationDescription cfgDescription = cfgDescriptions[0];
+
+		final int count = 200;
+		IFolder dir1 = ResourceHelper.createFolder(project, "Dir1");
+		IFolder dir2 = ResourceHelper.createFolder(project, "Dir2");
+		IFile[] files1 = new IFile[count];
+		IFile[] files2 = new IFile[count];
+		for (int i = 0; i < count; i++) {
+			files1[i] = ResourceHelper.createFile(project, "Dir1/file" + i + ".cpp");
+			files2[i] = ResourceHelper.createFile(project, "Dir2/file" + i + ".cpp");
+		}
+		ICLanguageSetting ls = cfgDescription.getLanguageSettingForFile(files1[0].getProjectRelativePath(), true);
+		String languageId = ls.getLanguageId();
+
+		// create GCCBuildCommandParser
+		GCCBuildCommandParser parser = (GCCBuildCommandParser) LanguageSettingsManager.getExtensionProviderCopy(GCC_BUILD_COMMAND_PARSER_EXT, true);
+		ErrorParserManager epm = new ErrorParserManager(project, null);
+
+		// parse lines
+		parser.startup(cfgDescription, epm);
+		epm.pushDirectoryURI(dir1.getLocationURI());
+		for (int i = 0; i < count; i++) {
+			parser.processLine("gcc -I. -DFOO=" + i + " file" + i + ".cpp");
+			parser.processLine("make: Nothing to be done");
+		}
+		epm.popDirectoryURI();
+		epm.pushDirectoryURI(dir2.getLocationURI());
+		for (int i = 0; i < count; i++) {
+			parser.processLine("gcc -I. -DBAR=" + i + " file" + i + ".cpp");
+		}
+		// the last line for a file wins
+		parser.processLine("gcc -DBAR=last file0.cpp");
+		parser.shutdown();
+
+		// check populated entries
+		for (int i = 0; i < count; i++) {
+			List<ICLanguageSettingEntry> entries1 = parser.getSettingEntries(cfgDescription, files1[i], languageId);
+			assertEquals(2, entries1.size());
+			assertEquals(new CIncludePathEntry("/${ProjName}/" + dir1.getProjectRelativePath(), ICSettingEntry.VALUE_WORKSPACE_PATH), entries1.get(0));
+			assertEquals(new CMacroEntry("FOO", Integer.toString(i), 0), entries1.get(1));
+
+			List<ICLanguageSettingEntry> entries2 = parser.getSettingEntries(cfgDescription, files2[i], languageId);
+			if (i == 0) {
+				assertEquals(1, entries2.size());
+				assertEquals(new CMacroEntry("BAR", "last", 0), entries2.get(0));
+			} else {
+				assertEquals(2, entries2.size());
+				assertEquals(new CIncludePathEntry("/${ProjName}/" + dir2.getProjectRelativePath(), ICSettingEntry.VALUE_WORKSPACE_PATH), entries2.get(0));
+				assertEquals(new CMacroEntry("BAR", Integer.toString(i), 0), entries2.get(1));
+			}
+		}
+	}
+
 }
@@ -33,9 +33,11 @@ import org.eclipse.cdt.core.ProblemMarkerInfo;
 import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.resources.ACBuilder;
 import org.eclipse.cdt.core.resources.IConsole;
+import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
 import org.eclipse.cdt.core.settings.model.ICProjectDescription;
 import org.eclipse.cdt.core.settings.model.util.ListComparator;
 import org.eclipse.cdt.internal.core.BuildRunnerHelper;
+import org.eclipse.cdt.internal.core.cdtvariables.VariableResolutionCache;
 import org.eclipse.cdt.managedbuilder.buildmodel.BuildDescriptionManager;
 import org.eclipse.cdt.managedbuilder.buildmodel.IBuildDescription;
 import org.eclipse.cdt.managedbuilder.buildmodel.IBuildStep;
@@ -736,53 +738,66 @@ public class CommonBuilder extends ACBuilder {
 
 		if (status.isBuild()) {
 			IConfiguration cfg = bInfo.getConfiguration();
-
-			if(!builder.isCustomBuilder()){
-				Set<String> set = fBuildSet.getCfgIdSet(bInfo.getProject(), true);
-				if(VERBOSE)
-					outputTrace(bInfo.getProject().getName(), "set: adding cfg " + cfg.getName() + " ( id=" + cfg.getId() + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-				set.add(cfg.getId());
+			VariableResolutionCache cache = VariableResolutionCache.getDefault();
+			ICConfigurationDescription cfgDes = ManagedBuildManager.getDescriptionForConfiguration(cfg);
+			if(cache != null)
+				cache.begin(cfg, cfgDes);
+			try {
+				buildConfiguration(kind, bInfo, status, monitor);
+			} finally {
+				if(cache != null)
+					cache.end(cfg, cfgDes);
 			}
+		}
+		checkCancel(monitor);
+	}
 
-			if(status.isManagedBuildOn()){
-				status = performPrebuildGeneration(kind, bInfo, status, monitor);
-			}
+	private void buildConfiguration(int kind, CfgBuildInfo bInfo, BuildStatus status, IProgressMonitor monitor) throws CoreException{
+		IBuilder builder = bInfo.getBuilder();
+		IConfiguration cfg = bInfo.getConfiguration();
 
-			if(status.isBuild()){
-				try {
-				boolean isClean = builder.getBuildRunner().invokeBuild(
-						kind,
-						bInfo.getProject(),
-						bInfo.getConfiguration(),
-						builder,
-						bInfo.getConsole(),
-						this,
-						this,
-						monitor);
-					if (isClean) {
-						forgetLastBuiltState();
-						cfg.setRebuildState(true);
-					} else {
-						if(status.isManagedBuildOn()){
-							performPostbuildGeneration(kind, bInfo, status, monitor);
-						}
-						cfg.setRebuildState(false);
-					}
-				} catch(CoreException e){
+		if(!builder.isCustomBuilder()){
+			Set<String> set = fBuildSet.getCfgIdSet(bInfo.getProject(), true);
+			if(VERBOSE)
+				outputTrace(bInfo.getProject().getName(), "set: adding cfg " + cfg.getName() + " ( id=" + cfg.getId() + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			set.add(cfg.getId());
+		}
+
+		if(status.isManagedBuildOn()){
+			status = performPrebuildGeneration(kind, bInfo, status, monitor);
+		}
+
+		if(status.isBuild()){
+			try {
+			boolean isClean = builder.getBuildRunner().invokeBuild(
+					kind,
+					bInfo.getProject(),
+					bInfo.getConfiguration(),
+					builder,
+					bInfo.getConsole(),
+					this,
+					this,
+					monitor);
+				if (isClean) {
+					forgetLastBuiltState();
 					cfg.setRebuildState(true);
-					throw e;
+				} else {
+					if(status.isManagedBuildOn()){
+						performPostbuildGeneration(kind, bInfo, status, monitor);
+					}
+					cfg.setRebuildState(false);
 				}
-
-				PropertyManager.getInstance().serialize(cfg);
-			} else if(status.getConsoleMessagesList().size() != 0) {
-				emitMessage(bInfo, concatMessages(status.getConsoleMessagesList()));
+			} catch(CoreException e){
+				cfg.setRebuildState(true);
+				throw e;
 			}
+
+			PropertyManager.getInstance().serialize(cfg);
+		} else if(status.getConsoleMessagesList().size() != 0) {
+			emitMessage(bInfo, concatMessages(status.getConsoleMessagesList()));
 		}
-		checkCancel(monitor);
 	}
 
-
-
 	private String concatMessages(List<String> msgs){
 		int size = msgs.size();
 		if(size == 0){
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.managedbuilder.internal.language.settings.providers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.cdt.core.settings.model.ICLanguageSettingEntry;
+import org.eclipse.cdt.core.settings.model.ICSettingEntry;
+import org.eclipse.cdt.core.settings.model.util.CDataUtil;
+import org.eclipse.cdt.managedbuilder.core.ManagedBuilderCorePlugin;
+
+/**
+ * Workspace wide cache of the entries detected by built-in specs detectors, shared by all projects
+ * and configurations and kept across sessions in the state location of the plug-in.
+ * <p>
+ * The results are keyed by the detector, the language, the resolved command, the identity of the
+ * compiler binary (path, size and modification time) and the environment, such that running the
+ * same compiler in the same way again is answered without starting a process. Concurrent runs
+ * for the same key wait for the first one, see {@link #getLock(String)}.
+ * <p>
+ * Each result records the detector that stored it, such that clearing a detector drops its
+ * results, see {@link #remove(String)}.
+ * <p>
+ * The cache can be disabled by setting the system property <code>CDT_BUILTIN_SPECS_CACHE</code>
+ * to <code>false</code>.
+ */
+public final class BuiltinSpecsCache {
+	private static final String CACHE_FILE = "builtinSpecs.bin"; //$NON-NLS-1$
+	private static final int MAGIC = 0x43425343;
+	private static final int VERSION = 2;
+	private static final int MAX_ENTRIES = 256;
+
+	/** Variables set per configuration by the build environment, they do not affect the compiler. */
+	private static final String[] IGNORED_VARIABLES = { "CWD", "PWD" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("CDT_BUILTIN_SPECS_CACHE", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+	private static BuiltinSpecsCache sDefault;
+
+	/**
+	 * Entries detected for a key together with the detector that stored them.
+	 */
+	private static final class Result {
+		final String fOwner;
+		final List<ICLanguageSettingEntry> fEntries;
+
+		Result(String owner, List<ICLanguageSettingEntry> entries) {
+			fOwner = owner;
+			fEntries = entries;
+		}
+	}
+
+	private final File fFile;
+	private final ConcurrentHashMap<String, Object> fLocks = new ConcurrentHashMap<>();
+	private Map<String, Result> fEntries;
+
+	/**
+	 * Creates a cache stored in the given file.
+	 */
+	public BuiltinSpecsCache(File file) {
+		fFile = file;
+	}
+
+	/**
+	 * Returns the cache in the state location of the plug-in, or <code>null</code> if the cache is
+	 * disabled or the plug-in is not running.
+	 */
+	public static synchronized BuiltinSpecsCache getDefault() {
+		if (!ENABLED)
+			return null;
+		if (sDefault == null) {
+			ManagedBuilderCorePlugin plugin = ManagedBuilderCorePlugin.getDefault();
+			if (plugin == null)
+				return null;
+			try {
+				sDefault = new BuiltinSpecsCache(plugin.getStateLocation().append(CACHE_FILE).toFile());
+			} catch (IllegalStateException e) {
+				return null;
+			}
+		}
+		return sDefault;
+	}
+
+	/**
+	 * Computes the key for a run of a detector.
+	 *
+	 * @param detectorId - id of the detector, should include its class and everything else that
+	 *     affects the entries it detects.
+	 * @param languageId - language ID.
+	 * @param command - resolved command.
+	 * @param compiler - the compiler binary started by the command.
+	 * @param environment - the environment of the command.
+	 * @return the key, or {@code null} if the compiler binary does not exist.
+	 */
+	public static String getKey(String detectorId, String languageId, String command, File compiler,
+			Map<String, String> environment) {
+		if (compiler == null || !compiler.isFile())
+			return null;
+		StringBuilder key = new StringBuilder();
+		key.append(detectorId).append('\n');
+		key.append(languageId).append('\n');
+		key.append(command).append('\n');
+		key.append(compiler.getPath()).append('\n');
+		key.append(compiler.length()).append('\n');
+		key.append(compiler.lastModified()).append('\n');
+		Map<String, String> sorted = new TreeMap<>(environment);
+		for (String name : IGNORED_VARIABLES) {
+			sorted.remove(name);
+		}
+		for (Map.Entry<String, String> var : sorted.entrySet()) {
+			key.append(var.getKey()).append('=').append(var.getValue()).append('\n');
+		}
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the lock to hold while detecting the entries for the given key, such that parallel
+	 * runs for the same key start the compiler once.
+	 */
+	public Object getLock(String key) {
+		Object lock = fLocks.get(key);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = fLocks.putIfAbsent(key, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Returns the entries stored for the key, or {@code null} if there are none.
+	 */
+	public synchronized List<ICLanguageSettingEntry> get(String key) {
+		Result result = getEntries().get(key);
+		return result != null ? result.fEntries : null;
+	}
+
+	/**
+	 * Stores the entries for the key and writes the cache. Failures to write are logged.
+	 *
+	 * @param owner - identifies the detector storing the entries, see {@link #remove(String)}.
+	 */
+	public synchronized void put(String key, String owner, List<ICLanguageSettingEntry> entries) {
+		getEntries().put(key, new Result(owner, Collections.unmodifiableList(new ArrayList<>(entries))));
+		writeLogged();
+	}
+
+	/**
+	 * Removes the entries stored by the given detector and writes the cache.
+	 */
+	public synchronized void remove(String owner) {
+		if (getEntries().values().removeIf(result -> result.fOwner.equals(owner))) {
+			writeLogged();
+		}
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public synchronized void clear() {
+		getEntries().clear();
+		fFile.delete();
+	}
+
+	private Map<String, Result> getEntries() {
+		if (fEntries == null) {
+			fEntries = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+					return size() > MAX_ENTRIES;
+				}
+			};
+			if (fFile.isFile()) {
+				try {
+					read();
+				} catch (IOException e) {
+					// Corrupted or written by another version, the entries are detected again.
+					fEntries.clear();
+				}
+			}
+		}
+		return fEntries;
+	}
+
+	private void read() throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(fFile.toPath())))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return;
+			for (int i = in.readInt(); i > 0; i--) {
+				String key = in.readUTF();
+				String owner = in.readUTF();
+				List<ICLanguageSettingEntry> entries = new ArrayList<>();
+				for (int j = in.readInt(); j > 0; j--) {
+					int kind = in.readInt();
+					String name = in.readUTF();
+					String value = in.readBoolean() ? in.readUTF() : null;
+					int flags = in.readInt();
+					entries.add((ICLanguageSettingEntry) CDataUtil.createEntry(kind, name, value, null, flags));
+				}
+				fEntries.put(key, new Result(owner, Collections.unmodifiableList(entries)));
+			}
+		}
+	}
+
+	private void writeLogged() {
+		try {
+			write();
+		} catch (IOException e) {
+			ManagedBuilderCorePlugin.log(e);
+		}
+	}
+
+	private void write() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(fEntries.size());
+		for (Map.Entry<String, Result> entry : fEntries.entrySet()) {
+			List<ICLanguageSettingEntry> entries = entry.getValue().fEntries;
+			out.writeUTF(entry.getKey());
+			out.writeUTF(entry.getValue().fOwner);
+			out.writeInt(entries.size());
+			for (ICLanguageSettingEntry lse : entries) {
+				out.writeInt(lse.getKind());
+				out.writeUTF(lse.getName());
+				String value = lse.getKind() == ICSettingEntry.MACRO ? lse.getValue() : null;
+				out.writeBoolean(value != null);
+				if (value != null) {
+					out.writeUTF(value);
+				}
+				out.writeInt(lse.getFlags());
+			}
+		}
+		out.flush();
+
+		File folder = fFile.getParentFile();
+		folder.mkdirs();
+		File tmp = File.createTempFile("builtinSpecs", ".tmp", folder); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			Files.write(tmp.toPath(), bytes.toByteArray());
+			Files.move(tmp.toPath(), fFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tmp.delete();
+		}
+	}
+}
@@ -19,10 +19,12 @@ import org.eclipse.cdt.core.cdtvariables.CdtVariableException;
 import org.eclipse.cdt.core.cdtvariables.ICdtVariable;
 import org.eclipse.cdt.core.cdtvariables.ICdtVariableManager;
 import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
+import org.eclipse.cdt.internal.core.cdtvariables.VariableResolutionCache;
 import org.eclipse.cdt.managedbuilder.core.IBuildObject;
 import org.eclipse.cdt.managedbuilder.core.IBuilder;
 import org.eclipse.cdt.managedbuilder.core.IConfiguration;
 import org.eclipse.cdt.managedbuilder.core.IResourceConfiguration;
+import org.eclipse.cdt.managedbuilder.core.IResourceInfo;
 import org.eclipse.cdt.managedbuilder.core.ITool;
 import org.eclipse.cdt.managedbuilder.core.IToolChain;
 import org.eclipse.cdt.managedbuilder.core.ManagedBuildManager;
@@ -31,6 +33,8 @@ import org.eclipse.cdt.managedbuilder.macros.BuildMacroException;
 import org.eclipse.cdt.managedbuilder.macros.IBuildMacro;
 import org.eclipse.cdt.managedbuilder.macros.IBuildMacroProvider;
 import org.eclipse.cdt.managedbuilder.macros.IBuildMacroSupplier;
+import org.eclipse.cdt.managedbuilder.macros.IFileContextData;
+import org.eclipse.cdt.managedbuilder.macros.IOptionContextData;
 import org.eclipse.cdt.utils.cdtvariables.CdtVariableResolver;
 import org.eclipse.cdt.utils.cdtvariables.ICdtVariableSupplier;
 import org.eclipse.cdt.utils.cdtvariables.IVariableSubstitutor;
@@ -46,6 +50,11 @@ import org.eclipse.core.variables.IStringVariable;
 public class BuildMacroProvider implements IBuildMacroProvider, IMacroContextInfoProvider {
 	private static final String PATTERN_MACRO_NAME = "="; //$NON-NLS-1$
 
+	private static final int RESOLVE_STRING = 1;
+	private static final int RESOLVE_STRING_LIST = 2;
+	private static final int RESOLVE_STRING_LIST_VALUES = 3;
+	private static final int RESOLVE_TO_MAKEFILE_FORMAT = 4;
+
 	static private BuildMacroProvider fDefault;
 
 	public static MbsMacroSupplier fMbsMacroSupplier = MbsMacroSupplier.getInstance();
@@ -222,17 +231,8 @@ public class BuildMacroProvider implements IBuildMacroProvider, IMacroContextInf
 	public String resolveValue(String value, String nonexistentMacrosValue,
 			String listDelimiter, int contextType, Object contextData)
 			throws BuildMacroException {
-		IMacroContextInfo info = getMacroContextInfo(contextType,contextData);
-
-		if(info != null){
-			try {
-				return CdtVariableResolver.resolveToString(value,
-						getMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter));
-			} catch (CdtVariableException e) {
-				throw new BuildMacroException(e);
-			}
-		}
-		return value;
+		return (String)resolve(RESOLVE_STRING, value, nonexistentMacrosValue,
+				listDelimiter, contextType, contextData);
 	}
 
 	/* (non-Javadoc)
@@ -242,16 +242,8 @@ public class BuildMacroProvider implements IBuildMacroProvider, IMacroContextInf
 	public String[] resolveStringListValue(String value,
 			String nonexistentMacrosValue, String listDelimiter,
 			int contextType, Object contextData) throws BuildMacroException {
-
-		IMacroContextInfo info = getMacroContextInfo(contextType,contextData);
-		if(info != null){
-			try {
-				return CdtVariableResolver.resolveToStringList(value,getMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter));
-			} catch (CdtVariableException e) {
-				throw new BuildMacroException(e);
-			}
-		}
-		return null;
+		return (String[])resolve(RESOLVE_STRING_LIST, value, nonexistentMacrosValue,
+				listDelimiter, contextType, contextData);
 	}
 
 	/* (non-Javadoc)
@@ -261,17 +253,8 @@ public class BuildMacroProvider implements IBuildMacroProvider, IMacroContextInf
 	public String resolveValueToMakefileFormat(String value,
 			String nonexistentMacrosValue, String listDelimiter,
 			int contextType, Object contextData) throws BuildMacroException {
-
-		IMacroContextInfo info = getMacroContextInfo(contextType,contextData);
-		if(info != null){
-			try {
-				return CdtVariableResolver.resolveToString(value,
-						getBuildfileMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter));
-			} catch (CdtVariableException e) {
-				throw new BuildMacroException(e);
-			}
-		}
-		return null;
+		return (String)resolve(RESOLVE_STRING | RESOLVE_TO_MAKEFILE_FORMAT, value,
+				nonexistentMacrosValue, listDelimiter, contextType, contextData);
 	}
 
 	/* (non-Javadoc)
@@ -281,18 +264,103 @@ public class BuildMacroProvider implements IBuildMacroProvider, IMacroContextInf
 	public String[] resolveStringListValueToMakefileFormat(String value,
 			String nonexistentMacrosValue, String listDelimiter, int contextType, Object contextData)
 			throws BuildMacroException {
+		return (String[])resolve(RESOLVE_STRING_LIST | RESOLVE_TO_MAKEFILE_FORMAT, value,
+				nonexistentMacrosValue, listDelimiter, contextType, contextData);
+	}
 
+	/**
+	 * Resolves the value, the results are memoized while a resolution session is open for the
+	 * configuration of the context, see {@link VariableResolutionCache}.
+	 *
+	 * @param kind - one of the <code>RESOLVE_*</code> constants, optionally combined with
+	 * {@link #RESOLVE_TO_MAKEFILE_FORMAT}
+	 * @param value - a <code>String</code>, or a <code>String[]</code> for {@link #RESOLVE_STRING_LIST_VALUES}
+	 */
+	private Object resolve(int kind, Object value, String nonexistentMacrosValue,
+			String listDelimiter, int contextType, Object contextData) throws BuildMacroException {
+		VariableResolutionCache cache = this == fDefault ? VariableResolutionCache.getDefault() : null;
+		IConfiguration cfg = null;
+		Object key = null;
+		if(cache != null && value != null){
+			cfg = getConfiguration(contextData);
+			if(cache.isActive(cfg)){
+				key = VariableResolutionCache.key(kind, value instanceof String[] ? ((String[])value).clone() : value,
+						nonexistentMacrosValue, listDelimiter, contextType, getContextKey(contextData));
+				Object cached = cache.get(cfg, key);
+				if(cached != VariableResolutionCache.NOT_FOUND)
+					return cached instanceof String[] ? ((String[])cached).clone() : cached;
+			}
+		}
+
+		Object result = null;
 		IMacroContextInfo info = getMacroContextInfo(contextType,contextData);
 		if(info != null){
+			IVariableSubstitutor substitutor = (kind & RESOLVE_TO_MAKEFILE_FORMAT) != 0 ?
+					getBuildfileMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter) :
+					getMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter);
 			try {
-				return CdtVariableResolver.resolveToStringList(value,getBuildfileMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter));
+				switch(kind & ~RESOLVE_TO_MAKEFILE_FORMAT){
+				case RESOLVE_STRING:
+					result = CdtVariableResolver.resolveToString((String)value, substitutor);
+					break;
+				case RESOLVE_STRING_LIST:
+					result = CdtVariableResolver.resolveToStringList((String)value, substitutor);
+					break;
+				case RESOLVE_STRING_LIST_VALUES:
+					result = CdtVariableResolver.resolveStringListValues((String[])value, substitutor, true);
+					break;
+				}
 			} catch (CdtVariableException e) {
 				throw new BuildMacroException(e);
 			}
+		} else if(kind == RESOLVE_STRING){
+			result = value;
 		}
+
+		if(key != null)
+			cache.put(cfg, key, result instanceof String[] ? ((String[])result).clone() : result);
+		return result;
+	}
+
+	/**
+	 * @return the configuration the context belongs to, or <code>null</code>
+	 */
+	private static IConfiguration getConfiguration(Object contextData){
+		if(contextData instanceof IFileContextData)
+			contextData = ((IFileContextData)contextData).getOptionContextData();
+		if(contextData instanceof IOptionContextData)
+			contextData = ((IOptionContextData)contextData).getParent();
+		if(contextData instanceof IBuilder)
+			contextData = ((IBuilder)contextData).getParent();
+		if(contextData instanceof ITool)
+			contextData = ((ITool)contextData).getParent();
+		if(contextData instanceof IToolChain)
+			return ((IToolChain)contextData).getParent();
+		if(contextData instanceof IResourceInfo)
+			return ((IResourceInfo)contextData).getParent();
+		if(contextData instanceof IConfiguration)
+			return (IConfiguration)contextData;
 		return null;
 	}
 
+	/**
+	 * @return an object that is equal for the context data objects created for the same
+	 * file or option, such that their resolutions can be shared
+	 */
+	private static Object getContextKey(Object contextData){
+		if(contextData instanceof IFileContextData){
+			IFileContextData fileContext = (IFileContextData)contextData;
+			return VariableResolutionCache.key(fileContext.getInputFileLocation(),
+					fileContext.getOutputFileLocation(), getContextKey(fileContext.getOptionContextData()));
+		}
+		if(contextData instanceof IOptionContextData){
+			IOptionContextData optionContext = (IOptionContextData)contextData;
+			return VariableResolutionCache.key(optionContext.getOption(),
+					optionContext.getOptionCategory(), optionContext.getParent());
+		}
+		return contextData;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.cdt.managedbuilder.macros.IBuildMacroProvider#isStringListValue(java.lang.String)
 	 */
@@ -376,16 +444,8 @@ public class BuildMacroProvider implements IBuildMacroProvider, IMacroContextInf
 	 */
 	@Override
 	public String[] resolveStringListValues(String[] value, String nonexistentMacrosValue, String listDelimiter, int contextType, Object contextData) throws BuildMacroException {
-		IMacroContextInfo info = getMacroContextInfo(contextType,contextData);
-		if(info != null){
-			try {
-				return CdtVariableResolver.resolveStringListValues(value,
-						getMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter), true);
-			} catch (CdtVariableException e) {
-				throw new BuildMacroException(e);
-			}
-		}
-		return null;
+		return (String[])resolve(RESOLVE_STRING_LIST_VALUES, value, nonexistentMacrosValue,
+				listDelimiter, contextType, contextData);
 	}
 
 	/* (non-Javadoc)
@@ -393,16 +453,8 @@ public class BuildMacroProvider implements IBuildMacroProvider, IMacroContextInf
 	 */
 	@Override
 	public String[] resolveStringListValuesToMakefileFormat(String[] value, String nonexistentMacrosValue, String listDelimiter, int contextType, Object contextData) throws BuildMacroException {
-		IMacroContextInfo info = getMacroContextInfo(contextType,contextData);
-		if(info != null){
-			try {
-				return CdtVariableResolver.resolveStringListValues(value,
-						getBuildfileMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter), true);
-			} catch (CdtVariableException e) {
-				throw new BuildMacroException(e);
-			}
-		}
-		return null;
+		return (String[])resolve(RESOLVE_STRING_LIST_VALUES | RESOLVE_TO_MAKEFILE_FORMAT, value,
+				nonexistentMacrosValue, listDelimiter, contextType, contextData);
 	}
 
 	/**
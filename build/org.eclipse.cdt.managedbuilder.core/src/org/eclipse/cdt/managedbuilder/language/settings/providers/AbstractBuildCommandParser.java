@@ -11,8 +11,19 @@
 
 package org.eclipse.cdt.managedbuilder.language.settings.providers;
 
+import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,10 +32,14 @@ import org.eclipse.cdt.core.IMarkerGenerator;
 import org.eclipse.cdt.core.errorparsers.RegexErrorParser;
 import org.eclipse.cdt.core.errorparsers.RegexErrorPattern;
 import org.eclipse.cdt.core.language.settings.providers.ILanguageSettingsProvider;
+import org.eclipse.cdt.core.language.settings.providers.IWorkingDirectoryTracker;
 import org.eclipse.cdt.core.language.settings.providers.LanguageSettingsManager;
+import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
 import org.eclipse.cdt.core.settings.model.ICLanguageSettingEntry;
+import org.eclipse.cdt.managedbuilder.core.ManagedBuilderCorePlugin;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
 
 /**
  * Abstract class for providers parsing compiler option from build command when present in build output.
@@ -81,12 +96,84 @@ public abstract class AbstractBuildCommandParser extends AbstractLanguageSetting
 	};
 	private static final int FILE_GROUP = 2;
 
+	/**
+	 * Parsing the options of the compiler command lines in parallel, see {@link #isPipelined()},
+	 * can be disabled by setting the system property <code>CDT_PIPELINED_BUILD_OUTPUT_PARSING</code>
+	 * to <code>false</code>.
+	 */
+	private static final boolean PIPELINED = Boolean.parseBoolean(System.getProperty("CDT_PIPELINED_BUILD_OUTPUT_PARSING", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+	/** Maximum number of command lines being parsed ahead of the build output. */
+	private static final int MAX_PENDING_LINES = 512;
+	private static ExecutorService pipelineExecutor = null;
+
 	// cached value from properties, do not need to use in equals() and hashCode()
 	private ResourceScope resourceScope = null;
 	
 	// Used to handle line continuations in the build output.
 	private String partialLine;
 
+	// compiled COMPILER_COMMAND_PATTERN_TEMPLATES and the compiler pattern they were made for
+	private String compiledCompilerPattern = null;
+	private Pattern[] compilerCommandPatterns = null;
+	private int compilerCommandFileGroup;
+
+	// command lines being parsed in pipelined mode, in order of the build output
+	private Deque<PendingLine> pendingLines = null;
+
+	/**
+	 * Command line of the build output resolved to the resource, waiting for its options to be parsed
+	 * in pipelined mode.
+	 */
+	private static class PendingLine {
+		private final String line;
+		private final String resourceName;
+		private final IResource resource;
+		private final String languageId;
+		private final URI mappedRootURI;
+		private final URI buildDirURI;
+		private Future<ParsedOptions> future;
+
+		private PendingLine(AbstractBuildCommandParser parser, String line) {
+			this.line = line;
+			this.resourceName = parser.parsedResourceName;
+			this.resource = parser.currentResource;
+			this.languageId = parser.currentLanguageId;
+			this.mappedRootURI = parser.currentMappedRootURI;
+			this.buildDirURI = parser.currentBuildDirURI;
+		}
+	}
+
+	/**
+	 * Options of a command line and the names and values parsed from them by the option parsers
+	 * up to the first one which is a match.
+	 */
+	private static class ParsedOptions {
+		private final List<String> options;
+		private final String[][][] matches;
+
+		private ParsedOptions(String line, AbstractOptionParser[] optionParsers) {
+			options = tokenizeOptions(line);
+			matches = new String[options.size()][][];
+			for (int i = 0; i < matches.length; i++) {
+				String option = options.get(i);
+				String[][] optionMatches = new String[optionParsers.length][];
+				int j = 0;
+				while (j < optionParsers.length) {
+					try {
+						optionMatches[j] = optionParsers[j].parse(option);
+					} catch (Throwable e) {
+						// leave it to setOptionEntries() to run the parser again and report the exception
+						break;
+					}
+					if (optionMatches[j++] != null) {
+						break;
+					}
+				}
+				matches[i] = j < optionMatches.length ? Arrays.copyOf(optionMatches, j) : optionMatches;
+			}
+		}
+	}
+
 	/**
 	 * The compiler command pattern without specifying compiler options.
 	 * The options are intended to be handled with option parsers,
@@ -215,24 +302,46 @@ public abstract class AbstractBuildCommandParser extends AbstractLanguageSetting
 			return null;
 		}
 
-		for (String template : COMPILER_COMMAND_PATTERN_TEMPLATES) {
-			String pattern = makePattern(template);
-			Matcher fileMatcher = Pattern.compile(pattern).matcher(line);
+		for (Pattern pattern : getCompilerCommandPatterns()) {
+			Matcher fileMatcher = pattern.matcher(line);
 			if (fileMatcher.matches()) {
-				int fileGroup = adjustFileGroup();
-				String sourceFileName = fileMatcher.group(fileGroup);
+				String sourceFileName = fileMatcher.group(compilerCommandFileGroup);
 				return sourceFileName;
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Compiled search patterns for compiler command, see {@link #makePattern(String)}.
+	 * The patterns are compiled again when compiler pattern changes or on {@link #startup}.
+	 */
+	private Pattern[] getCompilerCommandPatterns() {
+		String compilerPattern = getCompilerPattern();
+		if (compilerCommandPatterns == null || !compilerPattern.equals(compiledCompilerPattern)) {
+			Pattern[] patterns = new Pattern[COMPILER_COMMAND_PATTERN_TEMPLATES.length];
+			for (int i = 0; i < patterns.length; i++) {
+				patterns[i] = Pattern.compile(makePattern(COMPILER_COMMAND_PATTERN_TEMPLATES[i]));
+			}
+			compilerCommandFileGroup = adjustFileGroup();
+			compiledCompilerPattern = compilerPattern;
+			compilerCommandPatterns = patterns;
+		}
+		return compilerCommandPatterns;
+	}
+
 	@Override
 	protected List<String> parseOptions(String line) {
 		if (line == null || (currentResource == null && resourceScope != ResourceScope.PROJECT)) {
 			return null;
 		}
+		return tokenizeOptions(line);
+	}
 
+	/**
+	 * Split command line into options with their arguments.
+	 */
+	private static List<String> tokenizeOptions(String line) {
 		List<String> options = new ArrayList<String>();
 		Matcher optionMatcher = OPTIONS_PATTERN.matcher(line);
 		while (optionMatcher.find()) {
@@ -255,6 +364,33 @@ public abstract class AbstractBuildCommandParser extends AbstractLanguageSetting
 		}
 	}
 
+	/**
+	 * Whether the options of the compiler command lines can be parsed in parallel with the build output.
+	 * In pipelined mode the resource and the language of a line are still determined in order of the
+	 * build output, the options are parsed by worker threads and the entries are set in the same order
+	 * when the results are ready, at the latest on {@link #shutdown()}.
+	 * <p>
+	 * Parsers must not enable this mode unless {@link #parseOptions(String)} and the option parsers
+	 * do not depend on the state of the provider.
+	 *
+	 * @return {@code true} to parse the options in parallel, {@code false} by default.
+	 * @since 8.6
+	 */
+	protected boolean isPipelined() {
+		return false;
+	}
+
+	@Override
+	public void startup(ICConfigurationDescription cfgDescription, IWorkingDirectoryTracker cwdTracker) throws CoreException {
+		super.startup(cfgDescription, cwdTracker);
+		// file extensions of the patterns could have changed since the last build
+		compilerCommandPatterns = null;
+		pendingLines = null;
+		if (PIPELINED && isPipelined() && Runtime.getRuntime().availableProcessors() > 1) {
+			pendingLines = new ArrayDeque<PendingLine>();
+		}
+	}
+
 	@Override
 	public void shutdown() {
 		// If there's an unprocessed partial line (because the last line of the build output ended
@@ -263,6 +399,12 @@ public abstract class AbstractBuildCommandParser extends AbstractLanguageSetting
 			processLine(partialLine);
 			partialLine = null;
 		}
+		if (pendingLines != null) {
+			while (!pendingLines.isEmpty()) {
+				setPendingLineEntries(pendingLines.removeFirst());
+			}
+			pendingLines = null;
+		}
 		
 		serializeLanguageSettingsInBackground();
 		super.shutdown();
@@ -271,8 +413,74 @@ public abstract class AbstractBuildCommandParser extends AbstractLanguageSetting
 	@Override
 	public boolean processLine(String line) {
 		line = handleLineContinuation(line);
+		if (pendingLines != null) {
+			if (line != null) {
+				submitLine(line);
+			}
+			return false;
+		}
 		return super.processLine(line);
 	}
+
+	/**
+	 * Determine resource and language of the line and pass the line over for parsing the options
+	 * in pipelined mode. Entries of the lines parsed in the meantime are set in order.
+	 */
+	private void submitLine(String line) {
+		parsedResourceName = parseResourceName(line);
+		if (resolveCurrentLine() && (currentResource != null || resourceScope == ResourceScope.PROJECT)) {
+			final PendingLine pendingLine = new PendingLine(this, line);
+			final AbstractOptionParser[] optionParsers = getOptionParsers();
+			pendingLine.future = getPipelineExecutor().submit(() -> new ParsedOptions(pendingLine.line, optionParsers));
+			pendingLines.addLast(pendingLine);
+		}
+		while (!pendingLines.isEmpty() && (pendingLines.size() > MAX_PENDING_LINES || pendingLines.getFirst().future.isDone())) {
+			setPendingLineEntries(pendingLines.removeFirst());
+		}
+	}
+
+	/**
+	 * Set the entries of a line processed in pipelined mode, waiting for its options to be parsed if necessary.
+	 */
+	private void setPendingLineEntries(PendingLine pendingLine) {
+		ParsedOptions parsedOptions;
+		try {
+			parsedOptions = pendingLine.future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			parsedOptions = new ParsedOptions(pendingLine.line, getOptionParsers());
+		} catch (ExecutionException e) {
+			ManagedBuilderCorePlugin.log(e);
+			return;
+		}
+
+		parsedResourceName = pendingLine.resourceName;
+		currentResource = pendingLine.resource;
+		currentLanguageId = pendingLine.languageId;
+		currentMappedRootURI = pendingLine.mappedRootURI;
+		currentBuildDirURI = pendingLine.buildDirURI;
+		setOptionEntries(parsedOptions.options, parsedOptions.matches);
+	}
+
+	private static synchronized ExecutorService getPipelineExecutor() {
+		if (pipelineExecutor == null) {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private int count;
+
+						@Override
+						public synchronized Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "CDT Build Output Parser " + ++count); //$NON-NLS-1$
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			pipelineExecutor = executor;
+		}
+		return pipelineExecutor;
+	}
 	
 	/**
 	 * Handle line continuations ('\' at the end of a line, indicating that the next line is a
@@ -46,11 +46,13 @@ import org.eclipse.cdt.core.resources.IConsole;
 import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
 import org.eclipse.cdt.core.settings.model.ICLanguageSettingEntry;
 import org.eclipse.cdt.core.settings.model.ICProjectDescription;
+import org.eclipse.cdt.core.settings.model.ICSettingEntry;
 import org.eclipse.cdt.internal.core.BuildRunnerHelper;
 import org.eclipse.cdt.internal.core.XmlUtil;
 import org.eclipse.cdt.internal.core.envvar.EnvironmentVariableManager;
 import org.eclipse.cdt.managedbuilder.core.ManagedBuilderCorePlugin;
 import org.eclipse.cdt.managedbuilder.internal.core.ManagedMakeMessages;
+import org.eclipse.cdt.managedbuilder.internal.language.settings.providers.BuiltinSpecsCache;
 import org.eclipse.cdt.utils.CommandLineUtil;
 import org.eclipse.cdt.utils.PathUtil;
 import org.eclipse.cdt.utils.envvar.IEnvironmentChangeEvent;
@@ -487,7 +489,8 @@ public abstract class AbstractBuiltinSpecsDetector extends AbstractLanguageSetti
 			public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
 				isExecuted = false;
 				if (!isEmpty()) {
-					clear();
+					// Keep the shared results, the environment is checked by their keys.
+					clearEntries();
 					serializeLanguageSettings(currentCfgDescription);
 				}
 				IStatus status;
@@ -560,7 +563,7 @@ public abstract class AbstractBuiltinSpecsDetector extends AbstractLanguageSetti
 					List<ICLanguageSettingEntry> oldEntries = getSettingEntries(currentCfgDescription, null, languageId);
 					try {
 						startupForLanguage(languageId);
-						runForLanguage(new SubProgressMonitor(monitor, TICKS_RUN_FOR_ONE_LANGUAGE));
+						runForLanguageCached(new SubProgressMonitor(monitor, TICKS_RUN_FOR_ONE_LANGUAGE));
 					} catch (Exception e) {
 						IStatus s = new Status(IStatus.ERROR, ManagedBuilderCorePlugin.PLUGIN_ID, IStatus.ERROR, "Error running Builtin Specs Detector", e); //$NON-NLS-1$
 						ManagedBuilderCorePlugin.log(s);
@@ -632,6 +635,88 @@ public abstract class AbstractBuiltinSpecsDetector extends AbstractLanguageSetti
 		currentLanguageId = null;
 	}
 
+	/**
+	 * Run built-in specs command for one language unless the same compiler was run the same way
+	 * before, by this or another provider. See {@link BuiltinSpecsCache}.
+	 *
+	 * @param monitor - progress monitor in the initial state where {@link IProgressMonitor#beginTask(String, int)}
+	 *    has not been called yet.
+	 */
+	private void runForLanguageCached(IProgressMonitor monitor) throws CoreException {
+		BuiltinSpecsCache cache = BuiltinSpecsCache.getDefault();
+		String key = null;
+		if (cache != null && currentCommandResolved != null && environmentMap != null) {
+			String detectorId = getCacheOwner() + '#' + isResolvingPaths;
+			key = BuiltinSpecsCache.getKey(detectorId, currentLanguageId, currentCommandResolved,
+					findCompiler(currentCommandResolved), environmentMap);
+		}
+		if (key == null) {
+			runForLanguage(monitor);
+			return;
+		}
+
+		synchronized (cache.getLock(key)) {
+			List<ICLanguageSettingEntry> entries = cache.get(key);
+			if (entries != null) {
+				detectedSettingEntries.addAll(entries);
+				if (monitor != null) {
+					monitor.done();
+				}
+				return;
+			}
+			runForLanguage(monitor);
+			if (!detectedSettingEntries.isEmpty() && isProjectIndependent(detectedSettingEntries)) {
+				cache.put(key, getCacheOwner(), detectedSettingEntries);
+			}
+		}
+	}
+
+	/**
+	 * Identifies the results of this detector in the {@link BuiltinSpecsCache}.
+	 */
+	private String getCacheOwner() {
+		return getClass().getName() + '#' + getId();
+	}
+
+	/**
+	 * Find the compiler binary started by the command.
+	 *
+	 * @return the canonical file of the compiler or {@code null} if not found.
+	 */
+	private java.io.File findCompiler(String command) {
+		String[] cmdArray = CommandLineUtil.argumentsToArray(command);
+		if (cmdArray == null || cmdArray.length == 0)
+			return null;
+		IPath location = new Path(cmdArray[0]);
+		if (!location.isAbsolute()) {
+			location = PathUtil.findProgramLocation(cmdArray[0], environmentMap.get(ENV_PATH));
+		}
+		if (location == null)
+			return null;
+		try {
+			return new java.io.File(location.toOSString()).getCanonicalFile();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Check that the entries can be shared with other projects, i.e. no entry refers to
+	 * a location in the workspace or the current project.
+	 */
+	private boolean isProjectIndependent(List<ICLanguageSettingEntry> entries) {
+		IPath projectLocation = currentProject != null ? currentProject.getLocation() : null;
+		for (ICLanguageSettingEntry entry : entries) {
+			if ((entry.getFlags() & ICSettingEntry.VALUE_WORKSPACE_PATH) != 0)
+				return false;
+			if (projectLocation != null && entry.getKind() != ICSettingEntry.MACRO
+					&& projectLocation.isPrefixOf(new Path(entry.getName()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Run built-in specs command for one language.
 	 *
@@ -928,8 +1013,22 @@ public abstract class AbstractBuiltinSpecsDetector extends AbstractLanguageSetti
 		return !isExecuted && super.isEmpty();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Also drops the results of this detector shared with other projects, such that the compiler
+	 * is run again.
+	 */
 	@Override
 	public void clear() {
+		clearEntries();
+		BuiltinSpecsCache cache = BuiltinSpecsCache.getDefault();
+		if (cache != null) {
+			cache.remove(getCacheOwner());
+		}
+	}
+
+	private void clearEntries() {
 		super.clear();
 		isExecuted = false;
 	}
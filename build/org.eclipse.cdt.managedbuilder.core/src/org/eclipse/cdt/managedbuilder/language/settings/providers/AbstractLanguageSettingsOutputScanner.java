@@ -84,6 +84,22 @@ public abstract class AbstractLanguageSettingsOutputScanner extends LanguageSett
 	protected String parsedResourceName = null;
 	protected boolean isResolvingPaths = true;
 
+	/**
+	 * URI of directory where the build is happening. This URI could point to a remote file-system
+	 * for remote builds. Most often it is the same file-system as for currentResource but
+	 * it can be different file-system (and different URI schema).
+	 */
+	URI currentBuildDirURI = null;
+
+	/**
+	 * Where source tree starts if mapped. This kind of mapping is useful for example in cases when
+	 * the absolute path to the source file on the remote system is simulated inside a project in the
+	 * workspace.
+	 * This URI is rooted on the same file-system where currentResource resides. In general this file-system
+	 * (or even URI schema) does not have to match that of buildDirURI.
+	 */
+	URI currentMappedRootURI = null;
+
 	/** @since 8.2 */
 	protected EFSExtensionProvider efsProvider = null;
 
@@ -124,8 +140,8 @@ public abstract class AbstractLanguageSettingsOutputScanner extends LanguageSett
 	 */
 	protected static abstract class AbstractOptionParser {
 		private final int kind;
-		private final String patternStr;
 		private final Pattern pattern;
+		private final Pattern optionPattern;
 		private final String nameExpression;
 		private final String valueExpression;
 		private final int extraFlag;
@@ -144,12 +160,13 @@ public abstract class AbstractLanguageSettingsOutputScanner extends LanguageSett
 		 */
 		public AbstractOptionParser(int kind, String pattern, String nameExpression, String valueExpression, int extraFlag) {
 			this.kind = kind;
-			this.patternStr = pattern;
 			this.nameExpression = nameExpression;
 			this.valueExpression = valueExpression;
 			this.extraFlag = extraFlag;
 
 			this.pattern = Pattern.compile(pattern);
+			// get rid of extra text at the end (for example file name could be confused for an argument)
+			this.optionPattern = Pattern.compile("(" + pattern + ").*"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 
 		/**
@@ -200,17 +217,29 @@ public abstract class AbstractLanguageSettingsOutputScanner extends LanguageSett
 		 *    or {@code false} otherwise.
 		 */
 		public boolean parseOption(String optionString) {
-			// get rid of extra text at the end (for example file name could be confused for an argument)
-			@SuppressWarnings("nls")
-			String option = optionString.replaceFirst("(" + patternStr + ").*", "$1");
+			String[] parsed = parse(optionString);
+			if (parsed != null) {
+				parsedName = parsed[0];
+				parsedValue = parsed[1];
+			}
+			return parsed != null;
+		}
+
+		/**
+		 * Parse a portion of input string representing a single option, the same way as
+		 * {@link #parseOption(String)} but without keeping the result in the parser.
+		 * Safe to call from several threads.
+		 *
+		 * @return name and value of the option or {@code null} if the option is not a match.
+		 */
+		String[] parse(String optionString) {
+			String option = optionPattern.matcher(optionString).replaceFirst("$1"); //$NON-NLS-1$
 
 			Matcher matcher = pattern.matcher(option);
-			boolean isMatch = matcher.matches();
-			if (isMatch) {
-				parsedName = parseStr(matcher, nameExpression);
-				parsedValue = parseStr(matcher, valueExpression);
+			if (matcher.matches()) {
+				return new String[] { parseStr(matcher, nameExpression), parseStr(matcher, valueExpression) };
 			}
-			return isMatch;
+			return null;
 		}
 	}
 
@@ -418,83 +447,111 @@ public abstract class AbstractLanguageSettingsOutputScanner extends LanguageSett
 		parsedResourceName = null;
 		currentLanguageId = null;
 		currentResource = null;
+		currentBuildDirURI = null;
+		currentMappedRootURI = null;
 		cwdTracker = null;
 	}
 
 	@Override
 	public boolean processLine(String line) {
 		parsedResourceName = parseResourceName(line);
+		if (!resolveCurrentLine()) {
+			return false;
+		}
+
+		List<String> options = parseOptions(line);
+		if (options != null) {
+			setOptionEntries(options, null);
+		}
+		return false;
+	}
+
+	/**
+	 * Determine resource, language and build directory of the line being processed
+	 * from {@link #parsedResourceName}.
+	 *
+	 * @return {@code true} if the language is in scope of the provider, {@code false} otherwise.
+	 */
+	boolean resolveCurrentLine() {
 		currentResource = findResource(parsedResourceName);
+		currentBuildDirURI = null;
+		currentMappedRootURI = null;
 
 		currentLanguageId = determineLanguage();
 		if (!isLanguageInScope(currentLanguageId)) {
 			return false;
 		}
 
-		/**
-		 * URI of directory where the build is happening. This URI could point to a remote file-system
-		 * for remote builds. Most often it is the same file-system as for currentResource but
-		 * it can be different file-system (and different URI schema).
-		 */
-		URI buildDirURI = null;
-
-		/**
-		 * Where source tree starts if mapped. This kind of mapping is useful for example in cases when
-		 * the absolute path to the source file on the remote system is simulated inside a project in the
-		 * workspace.
-		 * This URI is rooted on the same file-system where currentResource resides. In general this file-system
-		 * (or even URI schema) does not have to match that of buildDirURI.
-		 */
-		URI mappedRootURI = null;
-
 		if (isResolvingPaths) {
-			mappedRootURI = getMappedRootURI(currentResource, parsedResourceName);
-			buildDirURI = getBuildDirURI(mappedRootURI);
+			currentMappedRootURI = getMappedRootURI(currentResource, parsedResourceName);
+			currentBuildDirURI = getBuildDirURI(currentMappedRootURI);
 		}
+		return true;
+	}
+
+	/**
+	 * Create language settings entries out of the options of the line being processed and set them
+	 * for the current resource.
+	 *
+	 * @param options - options parsed from the line.
+	 * @param matches - name and value parsed from each option by the option parsers, {@code null}
+	 *    where the parser is not a match. The parsers beyond the length of the array for an option
+	 *    are run here, pass {@code null} to run all of them here.
+	 */
+	void setOptionEntries(List<String> options, String[][][] matches) {
+		URI buildDirURI = currentBuildDirURI;
+		URI mappedRootURI = currentMappedRootURI;
 
 		List<ICLanguageSettingEntry> entries = new ArrayList<ICLanguageSettingEntry>();
 
-		List<String> options = parseOptions(line);
-		if (options != null) {
-			AbstractOptionParser[] optionParsers = getOptionParsers();
-			for (String option : options) {
-				for (AbstractOptionParser optionParser : optionParsers) {
-					try {
-						if (optionParser.parseOption(option)) {
-							ICLanguageSettingEntry entry = null;
-							if (isResolvingPaths && (optionParser.isForFile() || optionParser.isForFolder())) {
-								URI baseURI = mappedRootURI;
-								if (buildDirURI != null && !new Path(optionParser.parsedName).isAbsolute()) {
-									if (mappedRootURI != null) {
-										baseURI = efsProvider.append(mappedRootURI, buildDirURI.getPath());
-									} else {
-										baseURI = buildDirURI;
-									}
+		AbstractOptionParser[] optionParsers = getOptionParsers();
+		for (int i = 0; i < options.size(); i++) {
+			String option = options.get(i);
+			for (int j = 0; j < optionParsers.length; j++) {
+				AbstractOptionParser optionParser = optionParsers[j];
+				try {
+					String[] parsed;
+					if (matches != null && j < matches[i].length) {
+						parsed = matches[i][j];
+					} else if (optionParser.parseOption(option)) {
+						parsed = new String[] { optionParser.parsedName, optionParser.parsedValue };
+					} else {
+						parsed = null;
+					}
+					if (parsed != null) {
+						String parsedName = parsed[0];
+						ICLanguageSettingEntry entry = null;
+						if (isResolvingPaths && (optionParser.isForFile() || optionParser.isForFolder())) {
+							URI baseURI = mappedRootURI;
+							if (buildDirURI != null && !new Path(parsedName).isAbsolute()) {
+								if (mappedRootURI != null) {
+									baseURI = efsProvider.append(mappedRootURI, buildDirURI.getPath());
+								} else {
+									baseURI = buildDirURI;
 								}
-								entry = createResolvedPathEntry(optionParser, optionParser.parsedName, 0, baseURI);
-							} else {
-								entry = optionParser.createEntry(optionParser.parsedName, optionParser.parsedValue, 0);
 							}
+							entry = createResolvedPathEntry(optionParser, parsedName, 0, baseURI);
+						} else {
+							entry = optionParser.createEntry(parsedName, parsed[1], 0);
+						}
 
-							if (entry != null && !entries.contains(entry)) {
-								entries.add(entry);
-								break;
-							}
+						if (entry != null && !entries.contains(entry)) {
+							entries.add(entry);
+							break;
 						}
-					} catch (Throwable e) {
-						@SuppressWarnings("nls")
-						String msg = "Exception trying to parse option [" + option + "], class " + getClass().getSimpleName();
-						ManagedBuilderCorePlugin.log(new Status(IStatus.ERROR, ManagedBuilderCorePlugin.PLUGIN_ID, msg, e));
 					}
+				} catch (Throwable e) {
+					@SuppressWarnings("nls")
+					String msg = "Exception trying to parse option [" + option + "], class " + getClass().getSimpleName();
+					ManagedBuilderCorePlugin.log(new Status(IStatus.ERROR, ManagedBuilderCorePlugin.PLUGIN_ID, msg, e));
 				}
 			}
-			if (entries.size() > 0) {
-				setSettingEntries(entries);
-			} else {
-				setSettingEntries(null);
-			}
 		}
-		return false;
+		if (entries.size() > 0) {
+			setSettingEntries(entries);
+		} else {
+			setSettingEntries(null);
+		}
 	}
 
 	/**
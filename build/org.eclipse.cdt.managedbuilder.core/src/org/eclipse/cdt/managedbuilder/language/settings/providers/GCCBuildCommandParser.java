@@ -56,6 +56,12 @@ public class GCCBuildCommandParser extends AbstractBuildCommandParser implements
 		return optionParsers;
 	}
 
+	@Override
+	protected boolean isPipelined() {
+		// subclasses could keep state between the lines
+		return getClass() == GCCBuildCommandParser.class;
+	}
+
 	@Override
 	public GCCBuildCommandParser cloneShallow() throws CloneNotSupportedException {
 		return (GCCBuildCommandParser) super.cloneShallow();
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.build;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.cdt.core.parser.ExtendedScannerInfo;
+import org.eclipse.cdt.core.parser.IExtendedScannerInfo;
+import org.eclipse.cdt.core.testplugin.ResourceHelper;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ScannerInfoCacheTest extends TestCase {
+	private static final List<String> COMMAND_A = Arrays.asList("gcc", "-Iinc", "-DA=1", "-c");
+	private static final List<String> COMMAND_B = Arrays.asList("gcc", "-Iinc", "-DA=1", "-O2", "-c");
+
+	private File fFile;
+	private IFile fSource1;
+	private IFile fSource2;
+	private IFile fSource3;
+
+	public static Test suite() {
+		return new TestSuite(ScannerInfoCacheTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		IProject project = ResourceHelper.createProject(getName());
+		fSource1 = ResourceHelper.createFile(project, "a.c");
+		fSource2 = ResourceHelper.createFile(project, "b.c");
+		fSource3 = ResourceHelper.createFile(project, "c.c");
+		fFile = File.createTempFile("infoCache", ".bin");
+		fFile.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fFile.delete();
+		ResourceHelper.cleanUp(getName());
+	}
+
+	private static IExtendedScannerInfo info() {
+		return new ExtendedScannerInfo(Collections.singletonMap("A", "1"), new String[] { "/usr/include", "inc" },
+				null, new String[] { "config.h" }, null);
+	}
+
+	private static ScannerInfoCache newCache() {
+		ScannerInfoCache cache = new ScannerInfoCache();
+		cache.initCache();
+		return cache;
+	}
+
+	private static void assertInfo(IExtendedScannerInfo info) {
+		assertNotNull(info);
+		assertEquals(Collections.singletonMap("A", "1"), info.getDefinedSymbols());
+		assertTrue(Arrays.equals(new String[] { "/usr/include", "inc" }, info.getIncludePaths()));
+		assertTrue(Arrays.equals(new String[] { "config.h" }, info.getIncludeFiles()));
+		assertEquals(0, info.getMacroFiles().length);
+	}
+
+	public void testLoad() throws Exception {
+		ScannerInfoCache cache = newCache();
+		cache.addScannerInfo(COMMAND_A, info(), fSource1);
+		cache.addScannerInfo(COMMAND_B, info(), fSource2);
+		cache.addResource(COMMAND_A, fSource3);
+		cache.save(fFile);
+
+		ScannerInfoCache loaded = ScannerInfoCache.load(fFile);
+		assertTrue(loaded.hasCommand(COMMAND_A));
+		assertTrue(loaded.hasResource(COMMAND_A, fSource3));
+		assertInfo(loaded.getScannerInfo(fSource1));
+		assertInfo(loaded.getScannerInfo(COMMAND_B));
+		// Both commands refer to the same tables.
+		assertSame(loaded.getScannerInfo(COMMAND_A).getIncludePaths(),
+				loaded.getScannerInfo(COMMAND_B).getIncludePaths());
+	}
+
+	public void testAppend() throws Exception {
+		ScannerInfoCache cache = newCache();
+		cache.addScannerInfo(COMMAND_A, info(), fSource1);
+		cache.save(fFile);
+		long length = fFile.length();
+
+		cache = ScannerInfoCache.load(fFile);
+		cache.addScannerInfo(COMMAND_B, info(), fSource2);
+		cache.removeResource(fSource1);
+		cache.save(fFile);
+		assertTrue(fFile.length() > length);
+
+		ScannerInfoCache loaded = ScannerInfoCache.load(fFile);
+		assertFalse(loaded.hasCommand(COMMAND_A));
+		assertNull(loaded.getScannerInfo(fSource1));
+		assertInfo(loaded.getScannerInfo(fSource2));
+	}
+
+	public void testTruncated() throws Exception {
+		ScannerInfoCache cache = newCache();
+		cache.addScannerInfo(COMMAND_A, info(), fSource1);
+		cache.save(fFile);
+		cache.addScannerInfo(COMMAND_B, info(), fSource2);
+		cache.save(fFile);
+
+		// An incomplete write keeps the records before it.
+		try (RandomAccessFile file = new RandomAccessFile(fFile, "rw")) {
+			file.setLength(file.length() - 3);
+		}
+		ScannerInfoCache loaded = ScannerInfoCache.load(fFile);
+		assertInfo(loaded.getScannerInfo(fSource1));
+		assertNull(loaded.getScannerInfo(fSource2));
+		loaded.addScannerInfo(COMMAND_B, info(), fSource2);
+		loaded.save(fFile);
+		assertInfo(ScannerInfoCache.load(fFile).getScannerInfo(fSource2));
+	}
+
+	public void testOtherFormat() throws Exception {
+		Files.write(fFile.toPath(), "{\"commands\":[]}".getBytes());
+		ScannerInfoCache loaded = ScannerInfoCache.load(fFile);
+		assertFalse(loaded.hasCommand(COMMAND_A));
+		loaded.addScannerInfo(COMMAND_A, info(), fSource1);
+		loaded.save(fFile);
+		assertInfo(ScannerInfoCache.load(fFile).getScannerInfo(fSource1));
+	}
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.eclipse.cdt.internal.core.BinaryMetadataCache;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class BinaryMetadataCacheTest extends TestCase {
+	private File fFolder;
+	private File fBinary;
+	private BinaryMetadataCache fCache;
+
+	public static Test suite() {
+		return new TestSuite(BinaryMetadataCacheTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fFolder = Files.createTempDirectory("binaryCache").toFile();
+		fBinary = File.createTempFile("binary", ".so");
+		Files.write(fBinary.toPath(), new byte[] { 0x7f, 'E', 'L', 'F', 1, 2, 3 });
+		fCache = new BinaryMetadataCache(fFolder);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fCache.clear();
+		fFolder.delete();
+		fBinary.delete();
+	}
+
+	private static byte[] bytes(String... strings) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			for (String str : strings) {
+				BinaryMetadataCache.putString(out, str);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	public void testSections() throws Exception {
+		String path = fBinary.getPath();
+		assertNull(fCache.get(path, "a"));
+		fCache.put(path, BinaryMetadataCache.getStamp(path), "a", bytes("x", null));
+		fCache.put(path, BinaryMetadataCache.getStamp(path), "b", bytes("\u00e4y"));
+
+		ByteBuffer a = fCache.get(path, "a");
+		assertEquals("x", BinaryMetadataCache.getString(a));
+		assertNull(BinaryMetadataCache.getString(a));
+		assertFalse(a.hasRemaining());
+		assertEquals("\u00e4y", BinaryMetadataCache.getString(fCache.get(path, "b")));
+		assertNull(fCache.get(path, "c"));
+
+		// A new instance reads the stored entry.
+		assertEquals("x", BinaryMetadataCache.getString(new BinaryMetadataCache(fFolder).get(path, "a")));
+	}
+
+	public void testTouched() throws Exception {
+		String path = fBinary.getPath();
+		fCache.put(path, BinaryMetadataCache.getStamp(path), "a", bytes("x"));
+		assertTrue(fBinary.setLastModified(fBinary.lastModified() - 10000));
+		assertEquals("x", BinaryMetadataCache.getString(fCache.get(path, "a")));
+		assertEquals("x", BinaryMetadataCache.getString(new BinaryMetadataCache(fFolder).get(path, "a")));
+	}
+
+	public void testModified() throws Exception {
+		String path = fBinary.getPath();
+		fCache.put(path, BinaryMetadataCache.getStamp(path), "a", bytes("x"));
+		long modified = fBinary.lastModified();
+		Files.write(fBinary.toPath(), new byte[] { 0x7f, 'E', 'L', 'F', 3, 2, 1 });
+		assertTrue(fBinary.setLastModified(modified - 10000));
+		assertNull(fCache.get(path, "a"));
+
+		Files.write(fBinary.toPath(), new byte[] { 0x7f, 'E', 'L', 'F' });
+		assertTrue(fBinary.setLastModified(modified));
+		assertNull(fCache.get(path, "a"));
+	}
+
+	public void testCorrupted() throws Exception {
+		String path = fBinary.getPath();
+		fCache.put(path, BinaryMetadataCache.getStamp(path), "a", bytes("x"));
+		File[] entries = fFolder.listFiles();
+		assertEquals(1, entries.length);
+		byte[] content = Files.readAllBytes(entries[0].toPath());
+		Files.write(entries[0].toPath(), Arrays.copyOf(content, content.length - 2));
+		assertNull(fCache.get(path, "a"));
+		fCache.put(path, BinaryMetadataCache.getStamp(path), "a", bytes("y"));
+		assertEquals("y", BinaryMetadataCache.getString(fCache.get(path, "a")));
+	}
+
+	public void testChangedWhileRead() throws Exception {
+		String path = fBinary.getPath();
+		BinaryMetadataCache.Stamp stamp = BinaryMetadataCache.getStamp(path);
+		Files.write(fBinary.toPath(), new byte[] { 0x7f, 'E', 'L', 'F', 3, 2, 1, 0 });
+		fCache.put(path, stamp, "a", bytes("x"));
+		assertNull(fCache.get(path, "a"));
+		assertEquals(0, fFolder.list().length);
+		fCache.put(path, null, "a", bytes("x"));
+		assertNull(fCache.get(path, "a"));
+	}
+
+	public void testCount() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0 });
+		assertEquals(2, BinaryMetadataCache.getCount(buffer, 4));
+		buffer.rewind();
+		try {
+			BinaryMetadataCache.getCount(buffer, 8);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			BinaryMetadataCache.getCount(ByteBuffer.wrap(new byte[] { -1, -1, -1, -1 }), 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils;
+
+import java.io.File;
+
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.cdt.utils.debug.dwarf.DwarfAddr2line;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Checks that the tools configured for a binary parser take precedence over the in-process ones.
+ */
+public class DefaultGnuToolFactoryTest extends TestCase {
+	/** Stands in for a vendor tool, echoes the symbols it is given. */
+	private static final String ECHO_TOOL = "/bin/cat";
+
+	public static Test suite() {
+		return new TestSuite(DefaultGnuToolFactoryTest.class);
+	}
+
+	private static IPath getDebugExecutable() throws Exception {
+		return new Path(CTestPlugin.getDefault().getFileInPlugin(new Path("resources/exe/x86_64/o.g/exe_g"))
+				.getAbsolutePath());
+	}
+
+	public void testDefaultAddr2line() throws Exception {
+		if (!DwarfAddr2line.isEnabled())
+			return;
+		DefaultGnuToolFactory factory = new DefaultGnuToolFactory(null) {
+			@Override
+			protected IPath getAddr2linePath() {
+				return new Path("addr2line");
+			}
+		};
+		Addr2line addr2line = factory.getAddr2line(getDebugExecutable());
+		assertTrue(addr2line instanceof DwarfAddr2line);
+		addr2line.dispose();
+	}
+
+	public void testConfiguredAddr2line() throws Exception {
+		if (!new File(ECHO_TOOL).canExecute())
+			return;
+		DefaultGnuToolFactory factory = new DefaultGnuToolFactory(null) {
+			@Override
+			protected IPath getAddr2linePath() {
+				return new Path(ECHO_TOOL);
+			}
+		};
+		Addr2line addr2line = factory.getAddr2line(getDebugExecutable());
+		assertNotNull(addr2line);
+		assertFalse(addr2line instanceof DwarfAddr2line);
+		addr2line.dispose();
+	}
+
+	public void testDefaultCPPFilt() throws Exception {
+		if (!ItaniumDemangler.isEnabled())
+			return;
+		DefaultGnuToolFactory factory = new DefaultGnuToolFactory(null) {
+			@Override
+			protected IPath getCPPFiltPath() {
+				return new Path("c++filt");
+			}
+		};
+		CPPFilt cppfilt = factory.getCPPFilt();
+		assertNotNull(cppfilt);
+		assertEquals("f()", cppfilt.getFunction("_Z1fv"));
+		cppfilt.dispose();
+	}
+
+	public void testConfiguredCPPFilt() throws Exception {
+		if (!new File(ECHO_TOOL).canExecute())
+			return;
+		DefaultGnuToolFactory factory = new DefaultGnuToolFactory(null) {
+			@Override
+			protected IPath getCPPFiltPath() {
+				return new Path(ECHO_TOOL);
+			}
+		};
+		CPPFilt cppfilt = factory.getCPPFilt();
+		assertNotNull(cppfilt);
+		assertEquals("_Z1fv", cppfilt.getFunction("_Z1fv"));
+		cppfilt.dispose();
+	}
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.core.runtime.Path;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Compares the output of {@link ItaniumDemangler} with the one of c++filt.
+ */
+public class ItaniumDemanglerTest extends TestCase {
+
+	public static Test suite() {
+		return new TestSuite(ItaniumDemanglerTest.class);
+	}
+
+	public void testCorpus() throws Exception {
+		List<String> lines = Files.readAllLines(CTestPlugin.getDefault()
+				.getFileInPlugin(new Path("resources/demangler/cxxfilt.txt")).toPath(), StandardCharsets.UTF_8);
+		ItaniumDemangler demangler = new ItaniumDemangler();
+		StringBuilder failures = new StringBuilder();
+		int count = 0;
+		for (String line : lines) {
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			int tab = line.indexOf('\t');
+			String mangled = line.substring(0, tab);
+			String expected = line.substring(tab + 1);
+			String actual = demangler.demangle(mangled);
+			if (!expected.equals(actual)) {
+				failures.append(mangled).append("\n  expected: ").append(expected)
+						.append("\n  actual:   ").append(actual).append('\n');
+			}
+			count++;
+		}
+		assertTrue(count > 1000);
+		assertEquals("", failures.toString());
+	}
+
+	public void testNotMangled() {
+		ItaniumDemangler demangler = new ItaniumDemangler();
+		assertEquals("main", demangler.demangle("main"));
+		assertEquals("_start", demangler.demangle("_start"));
+		assertEquals("_Z", demangler.demangle("_Z"));
+		assertEquals("_Zfoo", demangler.demangle("_Zfoo"));
+		assertEquals("", demangler.demangle(""));
+	}
+
+	public void testWords() {
+		ItaniumDemangler demangler = new ItaniumDemangler();
+		assertEquals("f()@plt", demangler.demangle("_Z1fv@plt"));
+		assertEquals("f(int) g()", demangler.demangle("_Z1fi _Z1gv"));
+		assertEquals(".f()", demangler.demangle("._Z1fv"));
+	}
+
+	public void testStripUnderscore() {
+		assertEquals("A::f()", new ItaniumDemangler(true).demangle("__ZN1A1fEv"));
+		assertEquals("__ZN1A1fEv", new ItaniumDemangler().demangle("__ZN1A1fEv"));
+		assertEquals("_main", new ItaniumDemangler(true).demangle("_main"));
+	}
+
+	public void testBatch() {
+		String[] result = new ItaniumDemangler().demangle(new String[] { "_Z1fv", "main", "_Z1fv", "_ZN1AD2Ev" });
+		assertEquals(4, result.length);
+		assertEquals("f()", result[0]);
+		assertEquals("main", result[1]);
+		assertEquals("f()", result[2]);
+		assertEquals("A::~A()", result[3]);
+	}
+
+	public void testMalformed() {
+		ItaniumDemangler demangler = new ItaniumDemangler();
+		StringBuilder deep = new StringBuilder("_Z1f");
+		for (int i = 0; i < 100000; i++) {
+			deep.append('P');
+		}
+		deep.append('i');
+		assertEquals(deep.toString(), demangler.demangle(deep.toString()));
+		assertEquals("_Z1fS0_", demangler.demangle("_Z1fS0_"));
+		assertEquals("_Z1fIiEvT0_", demangler.demangle("_Z1fIiEvT0_"));
+		assertEquals("_ZN1A", demangler.demangle("_ZN1A"));
+	}
+
+	public void testCPPFilt() throws Exception {
+		CPPFilt cppfilt = new CPPFilt(new ItaniumDemangler());
+		try {
+			assertEquals("A::f() const", cppfilt.getFunction("_ZNK1A1fEv"));
+			String[] result = cppfilt.getFunctions(new String[] { "_Z1fi", "x" });
+			assertEquals("f(int)", result[0]);
+			assertEquals("x", result[1]);
+		} finally {
+			cppfilt.dispose();
+		}
+	}
+}
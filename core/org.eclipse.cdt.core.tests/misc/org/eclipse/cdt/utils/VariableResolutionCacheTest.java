@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils;
+
+import org.eclipse.cdt.internal.core.cdtvariables.VariableResolutionCache;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class VariableResolutionCacheTest extends TestCase {
+	private final Object fConfiguration = new Object();
+	private final Object fDescription = new Object();
+	private VariableResolutionCache fCache;
+
+	public static Test suite() {
+		return new TestSuite(VariableResolutionCacheTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fCache = new VariableResolutionCache();
+	}
+
+	public void testNoSession() {
+		Object key = VariableResolutionCache.key("value", "${ProjName}");
+		fCache.put(fConfiguration, key, "project");
+		assertSame(VariableResolutionCache.NOT_FOUND, fCache.get(fConfiguration, key));
+		assertEquals(0, fCache.getEntryCount());
+	}
+
+	public void testSession() {
+		fCache.begin(fConfiguration, fDescription);
+		Object key = VariableResolutionCache.key("value", "${ProjName}");
+		assertSame(VariableResolutionCache.NOT_FOUND, fCache.get(fConfiguration, key));
+		fCache.put(fConfiguration, key, "project");
+		fCache.put(fConfiguration, VariableResolutionCache.key("value", "${Undefined}"), null);
+
+		// The configuration and its description share the results, arrays are compared by elements.
+		assertEquals("project", fCache.get(fDescription, VariableResolutionCache.key("value", "${ProjName}")));
+		assertNull(fCache.get(fConfiguration, VariableResolutionCache.key("value", "${Undefined}")));
+		fCache.put(fDescription, VariableResolutionCache.key("list", new String[] { "a", "b" }), "a b");
+		assertEquals("a b", fCache.get(fConfiguration, VariableResolutionCache.key("list", new String[] { "a", "b" })));
+		assertEquals(3, fCache.getEntryCount());
+		assertEquals(3, fCache.getHitCount());
+		assertEquals(1, fCache.getMissCount());
+
+		fCache.end(fConfiguration, fDescription);
+		assertFalse(fCache.isActive(fConfiguration));
+		assertFalse(fCache.isActive(fDescription));
+		assertSame(VariableResolutionCache.NOT_FOUND, fCache.get(fConfiguration, key));
+	}
+
+	public void testNestedSessions() {
+		Object key = VariableResolutionCache.key("value", "${ConfigName}");
+		fCache.begin(fConfiguration, fDescription);
+		fCache.begin(fConfiguration, fDescription);
+		fCache.put(fConfiguration, key, "Debug");
+		fCache.end(fConfiguration, fDescription);
+		assertEquals("Debug", fCache.get(fConfiguration, key));
+		fCache.end(fConfiguration, fDescription);
+		assertSame(VariableResolutionCache.NOT_FOUND, fCache.get(fConfiguration, key));
+	}
+
+	public void testInvalidate() {
+		Object key = VariableResolutionCache.key("value", "${ConfigName}");
+		fCache.begin(fConfiguration);
+		fCache.put(fConfiguration, key, "Debug");
+		fCache.invalidate();
+		assertTrue(fCache.isActive(fConfiguration));
+		assertSame(VariableResolutionCache.NOT_FOUND, fCache.get(fConfiguration, key));
+		assertEquals(1, fCache.getInvalidationCount());
+
+		fCache.resetStatistics();
+		assertEquals(0, fCache.getHitCount());
+		assertEquals(0, fCache.getMissCount());
+		assertEquals(0, fCache.getInvalidationCount());
+		fCache.end(fConfiguration);
+	}
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils.debug.dwarf;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.eclipse.core.runtime.Path;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Runs hand written line number programs through {@link DwarfLineTableBuilder} and checks
+ * the lookups of the resulting {@link DwarfLineTable}.
+ */
+public class DwarfLineTableTest extends TestCase {
+
+	public static Test suite() {
+		return new TestSuite(DwarfLineTableTest.class);
+	}
+
+	/** Writes a DWARF 2 line number program in little endian byte order. */
+	private static class ProgramWriter {
+		final ByteArrayOutputStream program = new ByteArrayOutputStream();
+
+		void uleb(long value) {
+			do {
+				int b = (int) (value & 0x7f);
+				value >>>= 7;
+				program.write(value != 0 ? b | 0x80 : b);
+			} while (value != 0);
+		}
+
+		void sleb(long value) {
+			while (true) {
+				int b = (int) (value & 0x7f);
+				value >>= 7;
+				if ((value == 0 && (b & 0x40) == 0) || (value == -1 && (b & 0x40) != 0)) {
+					program.write(b);
+					return;
+				}
+				program.write(b | 0x80);
+			}
+		}
+
+		void setAddress(long address) {
+			program.write(0);
+			uleb(9);
+			program.write(DwarfConstants.DW_LNE_set_address);
+			for (int i = 0; i < 8; i++) {
+				program.write((int) (address >>> (i * 8)));
+			}
+		}
+
+		void endSequence() {
+			program.write(0);
+			uleb(1);
+			program.write(DwarfConstants.DW_LNE_end_sequence);
+		}
+
+		void advanceLine(int delta) {
+			program.write(DwarfConstants.DW_LNS_advance_line);
+			sleb(delta);
+		}
+
+		void advancePc(int delta) {
+			program.write(DwarfConstants.DW_LNS_advance_pc);
+			uleb(delta);
+		}
+
+		void setFile(int file) {
+			program.write(DwarfConstants.DW_LNS_set_file);
+			uleb(file);
+		}
+
+		void copy() {
+			program.write(DwarfConstants.DW_LNS_copy);
+		}
+
+		ByteBuffer toSection(String[] dirs, String[] files, int[] fileDirs) {
+			ByteArrayOutputStream header = new ByteArrayOutputStream();
+			header.write(1); // minimum_instruction_length
+			header.write(1); // default_is_stmt
+			header.write(-5); // line_base
+			header.write(14); // line_range
+			header.write(13); // opcode_base
+			header.write(new byte[] { 0, 1, 1, 1, 1, 0, 0, 0, 1, 0, 0, 1 }, 0, 12);
+			for (String dir : dirs) {
+				writeString(header, dir);
+			}
+			header.write(0);
+			for (int i = 0; i < files.length; i++) {
+				writeString(header, files[i]);
+				header.write(fileDirs[i]);
+				header.write(0);
+				header.write(0);
+			}
+			header.write(0);
+
+			int headerLength = header.size();
+			int unitLength = 2 + 4 + headerLength + program.size();
+			ByteBuffer section = ByteBuffer.allocate(4 + unitLength).order(ByteOrder.LITTLE_ENDIAN);
+			section.putInt(unitLength);
+			section.putShort((short) 2);
+			section.putInt(headerLength);
+			section.put(header.toByteArray());
+			section.put(program.toByteArray());
+			section.flip();
+			return section;
+		}
+
+		private static void writeString(ByteArrayOutputStream out, String s) {
+			byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+			out.write(bytes, 0, bytes.length);
+			out.write(0);
+		}
+	}
+
+	private static String osPath(String path) {
+		return new Path(path).toOSString();
+	}
+
+	public void testLookup() throws Exception {
+		ProgramWriter writer = new ProgramWriter();
+		// A sequence at a higher address first, the table must order the sequences.
+		writer.setAddress(0x2000);
+		writer.advanceLine(9);
+		writer.copy();
+		writer.advancePc(4);
+		writer.setFile(2);
+		writer.advanceLine(5);
+		writer.copy();
+		writer.advancePc(4);
+		writer.endSequence();
+		writer.setAddress(0x1000);
+		writer.copy();
+		writer.advancePc(0x10);
+		writer.endSequence();
+		ByteBuffer section = writer.toSection(new String[] { "inc" }, //$NON-NLS-1$
+				new String[] { "a.c", "b.h" }, new int[] { 0, 1 }); //$NON-NLS-1$ //$NON-NLS-2$
+
+		DwarfLineTable table = new DwarfLineTableBuilder(section, null, null, true,
+				Collections.singletonMap(Long.valueOf(0), "/work")).build(); //$NON-NLS-1$
+		String a = osPath("/work/a.c"); //$NON-NLS-1$
+		String b = osPath("/work/inc/b.h"); //$NON-NLS-1$
+
+		assertNull(table.getFileName(0xfff));
+		assertEquals(a, table.getFileName(0x1000));
+		assertEquals(1, table.getLineNumber(0x1000));
+		assertEquals(a, table.getFileName(0x100f));
+		assertNull(table.getFileName(0x1010));
+		assertEquals(0, table.getLineNumber(0x1010));
+		assertNull(table.getFileName(0x1fff));
+		assertEquals(a, table.getFileName(0x2000));
+		assertEquals(10, table.getLineNumber(0x2003));
+		assertEquals(b, table.getFileName(0x2004));
+		assertEquals(15, table.getLineNumber(0x2007));
+		assertNull(table.getFileName(0x2008));
+		assertNull(table.getFileName(-1L));
+	}
+
+	public void testSpecialOpcodes() throws Exception {
+		ProgramWriter writer = new ProgramWriter();
+		writer.setAddress(0x400000);
+		writer.copy();
+		// Special opcode: address advance 2, line advance 3 with line_base -5 and line_range 14.
+		writer.program.write(13 + (3 - (-5)) + 2 * 14);
+		writer.advancePc(2);
+		writer.endSequence();
+		ByteBuffer section = writer.toSection(new String[0], new String[] { "/abs/m.c" }, //$NON-NLS-1$
+				new int[] { 0 });
+
+		DwarfLineTable table = new DwarfLineTableBuilder(section, null, null, true,
+				Collections.<Long, String>emptyMap()).build();
+		assertEquals(3, table.getRowCount());
+		assertEquals(1, table.getLineNumber(0x400001));
+		assertEquals(4, table.getLineNumber(0x400002));
+		assertEquals(osPath("/abs/m.c"), table.getFileName(0x400003)); //$NON-NLS-1$
+		assertEquals(0, table.getLineNumber(0x400004));
+		assertEquals(1, table.getFileNames().length);
+	}
+}
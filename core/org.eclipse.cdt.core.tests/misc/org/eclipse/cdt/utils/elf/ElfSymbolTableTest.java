@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils.elf;
+
+import java.util.PrimitiveIterator;
+
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.core.runtime.Path;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Compares the symbols decoded by {@link ElfSymbolTable} with the ones loaded by {@link Elf}.
+ */
+public class ElfSymbolTableTest extends TestCase {
+
+	public static Test suite() {
+		return new TestSuite(ElfSymbolTableTest.class);
+	}
+
+	private Elf open(String resource) throws Exception {
+		return new Elf(CTestPlugin.getDefault().getFileInPlugin(new Path(resource)).getAbsolutePath());
+	}
+
+	private void checkSameSymbols(String resource) throws Exception {
+		Elf elf = open(resource);
+		try {
+			elf.loadSymbols();
+			Elf.Symbol[] expected = elf.getSymtabSymbols();
+			ElfSymbolTable table = elf.getSymbolTable(Elf.Section.SHT_SYMTAB);
+			assertNotNull(table);
+			assertEquals(expected.length, table.getCount());
+
+			PrimitiveIterator.OfInt byAddress = table.streamByAddress().iterator();
+			for (Elf.Symbol symbol : expected) {
+				Elf.Symbol actual = table.createSymbol(byAddress.nextInt());
+				assertEquals(symbol.toString(), actual.toString());
+				assertEquals(symbol.st_value, actual.st_value);
+				assertEquals(symbol.st_size, actual.st_size);
+				assertEquals(symbol.st_info, actual.st_info);
+				assertEquals(symbol.st_shndx, actual.st_shndx);
+			}
+			assertFalse(byAddress.hasNext());
+
+			for (Elf.Symbol symbol : expected) {
+				long address = symbol.st_value.getValue().longValue();
+				int found = table.findSymbol(address + 1);
+				assertEquals(elf.getSymbol(symbol.st_value.add(1)).st_value.getValue().longValue(), table.getValue(found));
+			}
+		} finally {
+			elf.dispose();
+		}
+	}
+
+	public void testLittleEndian() throws Exception {
+		checkSameSymbols("resources/exe/x86/o.g/exe_g");
+		checkSameSymbols("resources/testlib/x86/so.g/libtestlib_g.so");
+	}
+
+	public void testBigEndian() throws Exception {
+		checkSameSymbols("resources/exe/ppc/be.g/exe_g");
+	}
+
+	public void testFindByName() throws Exception {
+		Elf elf = open("resources/exe/x86/o.g/exe_g");
+		try {
+			ElfSymbolTable table = elf.getSymbolTable(Elf.Section.SHT_SYMTAB);
+			int main = table.findSymbol("main");
+			assertTrue(main >= 0);
+			assertEquals("main", table.getName(main));
+			assertEquals(Elf.Symbol.STT_FUNC, table.getType(main));
+			assertEquals(-1, table.findSymbol("mai"));
+			assertEquals(-1, table.findSymbol("no_such_symbol"));
+		} finally {
+			elf.dispose();
+		}
+	}
+}
@@ -25,10 +25,12 @@ import org.eclipse.cdt.core.settings.model.CMacroFileEntry;
 import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
 import org.eclipse.cdt.core.settings.model.ICLanguageSettingEntry;
 import org.eclipse.cdt.core.settings.model.ICSettingEntry;
+import org.eclipse.cdt.core.settings.model.util.CDataUtil;
 import org.eclipse.cdt.core.testplugin.CModelMock;
 import org.eclipse.cdt.core.testplugin.ResourceHelper;
 import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
 import org.eclipse.cdt.internal.core.XmlUtil;
+import org.eclipse.cdt.internal.core.language.settings.providers.LanguageSettingsSerializableStorage;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
@@ -1669,4 +1671,87 @@ public class LanguageSettingsSerializableProviderTests extends BaseTestCase {
 		assertEquals(unsortedEntries.size(), actual.size());
 	}
 
+	/**
+	 * Lists of entries used by several resources are serialized once, if enabled.
+	 */
+	public void testSharedEntriesDOM() throws Exception {
+		boolean share = LanguageSettingsSerializableStorage.isShareEntries();
+		LanguageSettingsSerializableStorage.setShareEntries(true);
+		try {
+			checkSharedEntriesDOM();
+		} finally {
+			LanguageSettingsSerializableStorage.setShareEntries(share);
+		}
+	}
+
+	/**
+	 * By default the entries of each resource are written inline, readable by older versions.
+	 */
+	public void testSharedEntriesDisabledDOM() throws Exception {
+		List<ICLanguageSettingEntry> commonEntries = new ArrayList<ICLanguageSettingEntry>();
+		commonEntries.add(new CIncludePathEntry("common/include", 0));
+		IFile file1 = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path("/Project/file1.c"));
+		IFile file2 = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path("/Project/file2.c"));
+
+		LanguageSettingsSerializableProvider provider = new LanguageSettingsSerializableProvider(PROVIDER_1, PROVIDER_NAME_1);
+		provider.setSettingEntries(null, file1, LANG_ID, commonEntries);
+		provider.setSettingEntries(null, file2, LANG_ID, commonEntries);
+
+		Document doc = XmlUtil.newDocument();
+		Element rootElement = XmlUtil.appendElement(doc, ELEM_TEST);
+		provider.serialize(rootElement);
+		String xmlString = XmlUtil.toString(doc);
+		assertFalse(xmlString.contains("shared-entries"));
+		assertTrue(xmlString.indexOf("common/include") != xmlString.lastIndexOf("common/include"));
+	}
+
+	private void checkSharedEntriesDOM() throws Exception {
+		// sample entries
+		List<ICLanguageSettingEntry> commonEntries = new ArrayList<ICLanguageSettingEntry>();
+		commonEntries.add(new CIncludePathEntry("common/include", 0));
+		commonEntries.add(new CMacroEntry("COMMON", "1", 0));
+		List<ICLanguageSettingEntry> uniqueEntries = new ArrayList<ICLanguageSettingEntry>();
+		uniqueEntries.add(new CIncludePathEntry("unique/include", 0));
+
+		final int count = 100;
+		IFile[] files = new IFile[count];
+		for (int i = 0; i < count; i++) {
+			files[i] = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path("/Project/file" + i + ".c"));
+		}
+
+		Element elementProvider;
+		{
+			// create a provider with the same entries for most resources
+			LanguageSettingsSerializableProvider provider = new LanguageSettingsSerializableProvider(PROVIDER_1, PROVIDER_NAME_1);
+			for (int i = 1; i < count; i++) {
+				provider.setSettingEntries(null, files[i], LANG_ID, new ArrayList<ICLanguageSettingEntry>(commonEntries));
+			}
+			provider.setSettingEntries(null, files[0], LANG_ID, uniqueEntries);
+			// the resources share the list and its entries
+			List<ICLanguageSettingEntry> shared = provider.getSettingEntries(null, files[1], LANG_ID);
+			assertSame(shared, provider.getSettingEntries(null, files[count - 1], LANG_ID));
+			assertSame(shared, LanguageSettingsStorage.getPooledList(new ArrayList<ICLanguageSettingEntry>(commonEntries)));
+			assertSame(shared.get(0), CDataUtil.createCIncludePathEntry("common/include", 0));
+
+			Document doc = XmlUtil.newDocument();
+			Element rootElement = XmlUtil.appendElement(doc, ELEM_TEST);
+			elementProvider = provider.serialize(rootElement);
+			String xmlString = XmlUtil.toString(doc);
+			// the shared entries are written once
+			assertEquals(xmlString.indexOf("common/include"), xmlString.lastIndexOf("common/include"));
+			assertTrue(xmlString.contains("unique/include"));
+			assertTrue(xmlString.contains("file" + (count - 1) + ".c"));
+		}
+		{
+			// re-load and check language settings of the newly loaded provider
+			LanguageSettingsSerializableProvider provider = new LanguageSettingsSerializableProvider(elementProvider);
+			assertEquals(uniqueEntries, provider.getSettingEntries(null, files[0], LANG_ID));
+			List<ICLanguageSettingEntry> shared = provider.getSettingEntries(null, files[1], LANG_ID);
+			assertEquals(commonEntries, shared);
+			for (int i = 1; i < count; i++) {
+				assertSame(shared, provider.getSettingEntries(null, files[i], LANG_ID));
+			}
+		}
+	}
+
 }
@@ -61,6 +61,9 @@ public class AllCoreTests {
 		suite.addTest(AsmModelBuilderTest.suite());
 		suite.addTest(CModelBuilderBugsTest.suite());
 		suite.addTest(Bug311189.suite());
+		suite.addTest(IncrementalModelBuilderTests.suite());
+		suite.addTest(CModelCacheTests.suite());
+		suite.addTest(BinaryDiscoveryTests.suite());
 
 		suite.addTest(AllLanguageSettingsProvidersCoreTests.suite());
         return suite;
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.model.tests;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.model.BinaryRunner;
+import org.eclipse.cdt.internal.core.model.CModelManager;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Measures the time taken by searching a build tree with many object files and shared
+ * libraries for binaries, sequentially and concurrently. The second concurrent search
+ * profits from the sizes and modification times stored by the first one.
+ * <p>
+ * The size of the build tree can be adjusted with the system property
+ * {@code cdt.benchmark.binaries}.
+ * <p>
+ * n.b. this is intentionally not added to any test suite
+ */
+public class BinaryDiscoveryBenchmark extends BaseTestCase {
+	private static final int BINARIES = Integer.getInteger("cdt.benchmark.binaries", 4000);
+	private static final int PER_FOLDER = 100;
+
+	private ICProject cproject;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cproject= CProjectHelper.createCProject("BinaryDiscoveryBenchmark" + System.currentTimeMillis(), "none", IPDOMManager.ID_NO_INDEXER);
+		String[] resources= { "resources/exe/x86/o.g/main.o", "resources/testlib/x86/so.g/libtestlib_g.so" };
+		IFolder folder= null;
+		for (int i = 0; i < BINARIES; i++) {
+			if (i % PER_FOLDER == 0) {
+				folder= cproject.getProject().getFolder("obj" + i / PER_FOLDER);
+				folder.create(true, true, npm());
+				// Sources and other files are rejected before they are read.
+				TestSourceReader.createFile(folder, "Makefile", "all:\n");
+			}
+			String resource= resources[i % 2];
+			try (InputStream in= new FileInputStream(CTestPlugin.getDefault().getFileInPlugin(new Path(resource)))) {
+				folder.getFile("file" + i + (i % 2 == 0 ? ".o" : ".so")).create(in, true, npm());
+			}
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		BinaryRunner.setConcurrentDiscovery(false);
+		if (cproject != null) {
+			CProjectHelper.delete(cproject);
+		}
+		super.tearDown();
+	}
+
+	public void testDiscovery() throws Exception {
+		System.out.println("Searching " + BINARIES + " binaries:");
+		report("sequential", false);
+		report("concurrent", true);
+		report("concurrent, unchanged", true);
+	}
+
+	private void report(String label, boolean concurrent) throws Exception {
+		BinaryRunner.setConcurrentDiscovery(concurrent);
+		CModelManager.getDefault().removeBinaryRunner(cproject);
+		long start= System.nanoTime();
+		int count= cproject.getBinaryContainer().getBinaries().length;
+		System.out.println(String.format("  %-22s %8.1f ms  %6d binaries", label, (System.nanoTime() - start) / 1e6, count));
+	}
+}
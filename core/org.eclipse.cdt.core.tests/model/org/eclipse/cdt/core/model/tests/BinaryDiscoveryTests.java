@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.model.tests;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.model.IArchive;
+import org.eclipse.cdt.core.model.IBinary;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.model.BinaryRunner;
+import org.eclipse.cdt.internal.core.model.CModelManager;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.Path;
+
+import junit.framework.Test;
+
+/**
+ * Tests that the concurrent recognition of binaries finds the same binaries as the sequential one.
+ */
+public class BinaryDiscoveryTests extends BaseTestCase {
+	private ICProject fCProject;
+
+	public static Test suite() {
+		return suite(BinaryDiscoveryTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fCProject= CProjectHelper.createCProject(getName(), "none", IPDOMManager.ID_NO_INDEXER);
+		copy("resources/exe/x86/o.g/main.o", "main.o");
+		copy("resources/exe/x86/o.g/exe_g", "exe_g");
+		copy("resources/exe/ppc/be.g/exe_g", "ppc_exe_g");
+		copy("resources/testlib/x86/so.g/libtestlib_g.so", "libtestlib_g.so");
+		copy("resources/testlib/x86/a.g/libtestlib_g.a", "libtestlib_g.a");
+		TestSourceReader.createFile(fCProject.getProject(), "main.c", "int main() { return 0; }\n");
+		TestSourceReader.createFile(fCProject.getProject(), "notes", "not a binary\n");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		BinaryRunner.setConcurrentDiscovery(false);
+		CProjectHelper.delete(fCProject);
+		super.tearDown();
+	}
+
+	private void copy(String resource, String name) throws Exception {
+		IFile file= fCProject.getProject().getFile(name);
+		try (InputStream in= new FileInputStream(CTestPlugin.getDefault().getFileInPlugin(new Path(resource)))) {
+			file.create(in, true, npm());
+		}
+	}
+
+	/**
+	 * Searches the project for binaries and returns the names of the binaries and archives.
+	 */
+	private Set<String> discover(boolean concurrent) throws Exception {
+		BinaryRunner.setConcurrentDiscovery(concurrent);
+		CModelManager.getDefault().removeBinaryRunner(fCProject);
+		Set<String> names= new TreeSet<>();
+		for (IBinary binary : fCProject.getBinaryContainer().getBinaries()) {
+			names.add(binary.getElementName());
+		}
+		for (IArchive archive : fCProject.getArchiveContainer().getArchives()) {
+			names.add(archive.getElementName());
+		}
+		return names;
+	}
+
+	public void testSameBinariesAsSequential() throws Exception {
+		Set<String> sequential= discover(false);
+		assertTrue(sequential.contains("exe_g"));
+		assertTrue(sequential.contains("libtestlib_g.a"));
+		assertFalse(sequential.contains("notes"));
+		assertEquals(sequential, discover(true));
+	}
+
+	public void testUnchangedFilesAreFoundAgain() throws Exception {
+		Set<String> first= discover(true);
+		// The second search uses the sizes and modification times stored by the first one.
+		assertEquals(first, discover(true));
+		fCProject.getProject().getFile("exe_g").delete(true, npm());
+		first.remove("exe_g");
+		assertEquals(first, discover(true));
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.model.tests;
+
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.model.ICContainer;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.model.IParent;
+import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.model.CModelCache;
+import org.eclipse.cdt.internal.core.model.CModelManager;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Navigates the tree of a large project the way the C/C++ Projects view does when folders
+ * and files are expanded, and reports the time taken along with the statistics of the
+ * C model caches.
+ * <p>
+ * The size of the project can be adjusted with the system properties
+ * {@code cdt.benchmark.folders} and {@code cdt.benchmark.files} (per folder).
+ * <p>
+ * n.b. this is intentionally not added to any test suite
+ */
+public class CModelCacheBenchmark extends BaseTestCase {
+	private static final int FOLDERS = Integer.getInteger("cdt.benchmark.folders", 100);
+	private static final int FILES = Integer.getInteger("cdt.benchmark.files", 100);
+	private static final int PASSES = 3;
+
+	private ICProject cproject;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cproject= CProjectHelper.createCCProject("CModelCacheBenchmark" + System.currentTimeMillis(), "bin", IPDOMManager.ID_NO_INDEXER);
+		IProject project= cproject.getProject();
+		for (int d = 0; d < FOLDERS; d++) {
+			IFolder folder= project.getFolder("dir" + d);
+			folder.create(true, true, null);
+			for (int f = 0; f < FILES; f++) {
+				StringBuilder buf= new StringBuilder();
+				buf.append("#include <stdio.h>\n");
+				buf.append("struct S").append(f).append(" {\n  int a;\n  int b;\n  void method(int x);\n};\n");
+				for (int i = 0; i < 10; i++) {
+					buf.append("int func").append(f).append('_').append(i).append("(int x) { return x * ").append(i).append("; }\n");
+				}
+				TestSourceReader.createFile(folder, "file" + f + ".cpp", buf.toString());
+			}
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (cproject != null) {
+			cproject.getProject().delete(IResource.FORCE | IResource.ALWAYS_DELETE_PROJECT_CONTENT, new NullProgressMonitor());
+		}
+		super.tearDown();
+	}
+
+	public void testNavigation() throws Exception {
+		CModelManager manager= CModelManager.getDefault();
+		System.out.println("Navigating " + FOLDERS * FILES + " files in " + FOLDERS + " folders:");
+		for (int pass = 0; pass < PASSES; pass++) {
+			CModelCache.Statistics files= manager.getCacheStatistics(ICElement.C_UNIT);
+			CModelCache.Statistics children= manager.getCacheStatistics(ICElement.C_FUNCTION);
+			long start= System.nanoTime();
+			int count= 0;
+			for (ICElement element : cproject.getChildren()) {
+				if (element instanceof ICContainer) {
+					count += expand((ICContainer) element);
+				}
+			}
+			long time= System.nanoTime() - start;
+			CModelCache.Statistics filesAfter= manager.getCacheStatistics(ICElement.C_UNIT);
+			CModelCache.Statistics childrenAfter= manager.getCacheStatistics(ICElement.C_FUNCTION);
+			System.out.println(String.format(
+					"  pass %d: %8.1f ms  %7d elements  files: %6d hits %6d misses %6d evictions  children: %7d hits %6d misses  retained %d of %d KB",
+					pass, time / 1e6, count,
+					filesAfter.getHits() - files.getHits(), filesAfter.getMisses() - files.getMisses(),
+					filesAfter.getEvictions() - files.getEvictions(),
+					childrenAfter.getHits() - children.getHits(), childrenAfter.getMisses() - children.getMisses(),
+					manager.getFileCacheSpace(), manager.getFileCacheLimit()));
+		}
+	}
+
+	/**
+	 * Expands a folder and all files in it, returns the number of elements shown.
+	 */
+	private int expand(ICContainer container) throws Exception {
+		int count= 0;
+		for (ICElement element : container.getChildren()) {
+			count++;
+			if (element instanceof ITranslationUnit) {
+				for (ICElement child : ((ITranslationUnit) element).getChildren()) {
+					count++;
+					if (child instanceof IParent) {
+						count += ((IParent) child).getChildren().length;
+					}
+				}
+			} else if (element instanceof ICContainer) {
+				count += expand((ICContainer) element);
+			}
+		}
+		return count;
+	}
+}
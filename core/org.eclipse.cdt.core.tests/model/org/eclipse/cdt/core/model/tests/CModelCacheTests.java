@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.model.tests;
+
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.model.ISourceReference;
+import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.model.CModelCache;
+import org.eclipse.cdt.internal.core.model.CModelManager;
+
+import junit.framework.Test;
+
+/**
+ * Tests for the accounting and the statistics of the cache of the C model.
+ */
+public class CModelCacheTests extends BaseTestCase {
+	private static final int MB = 1024;
+
+	private static class TestCache extends CModelCache {
+		TestCache(int limit) {
+			super(limit);
+		}
+
+		void adjust(double freeHeapRatio) {
+			adjustFileCacheLimit(freeHeapRatio);
+		}
+	}
+
+	private ICProject fCProject;
+
+	public static Test suite() {
+		return suite(CModelCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fCProject= CProjectHelper.createCCProject(getName(), null, IPDOMManager.ID_NO_INDEXER);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		CProjectHelper.delete(fCProject);
+		super.tearDown();
+	}
+
+	private ITranslationUnit createFile(String name, int functions) throws Exception {
+		StringBuilder buf= new StringBuilder();
+		for (int i = 0; i < functions; i++) {
+			buf.append("int function").append(i).append("(int a, int b) { return a + b; }\n");
+		}
+		return (ITranslationUnit) CoreModel.getDefault().create(
+				TestSourceReader.createFile(fCProject.getProject(), name, buf.toString()));
+	}
+
+	public void testHitsAndMisses() throws Exception {
+		ITranslationUnit tu= createFile("test.cpp", 1);
+		CModelManager manager= CModelManager.getDefault();
+		CModelCache.Statistics before= manager.getCacheStatistics(ICElement.C_UNIT);
+		tu.getChildren();
+		CModelCache.Statistics afterOpen= manager.getCacheStatistics(ICElement.C_UNIT);
+		assertTrue(afterOpen.getMisses() > before.getMisses());
+		tu.getChildren();
+		CModelCache.Statistics afterAccess= manager.getCacheStatistics(ICElement.C_UNIT);
+		assertTrue(afterAccess.getHits() > afterOpen.getHits());
+		assertEquals(afterOpen.getMisses(), afterAccess.getMisses());
+
+		before= manager.getCacheStatistics(ICElement.C_FUNCTION);
+		((ISourceReference) tu.getChildren()[0]).getSourceRange();
+		assertTrue(manager.getCacheStatistics(ICElement.C_FUNCTION).getHits() > before.getHits());
+	}
+
+	public void testSpaceDependsOnContent() throws Exception {
+		CModelManager manager= CModelManager.getDefault();
+		ITranslationUnit small= createFile("small.cpp", 1);
+		ITranslationUnit large= createFile("large.cpp", 2000);
+
+		int space= manager.getFileCacheSpace();
+		small.getChildren();
+		int smallSpace= manager.getFileCacheSpace() - space;
+		space= manager.getFileCacheSpace();
+		large.getChildren();
+		int largeSpace= manager.getFileCacheSpace() - space;
+		assertTrue(smallSpace >= 1);
+		// 2000 functions with handles, infos and source positions take at least 200 bytes each.
+		assertTrue(largeSpace >= 400);
+
+		large.close();
+		assertEquals(space, manager.getFileCacheSpace());
+		assertTrue(manager.getFileCacheSpace() <= manager.getFileCacheLimit());
+	}
+
+	public void testLimitFollowsFreeHeap() throws Exception {
+		TestCache cache= new TestCache(64 * MB);
+		assertEquals(64 * MB, cache.getFileCacheLimit());
+		// Plenty of memory, the limit stays.
+		cache.adjust(0.9);
+		assertEquals(64 * MB, cache.getFileCacheLimit());
+		// Memory is short, the limit is lowered to half of the used space, but not below the minimum.
+		cache.adjust(0.05);
+		assertEquals(4 * MB, cache.getFileCacheLimit());
+		cache.adjust(0.05);
+		assertEquals(4 * MB, cache.getFileCacheLimit());
+		// Neither short nor plenty, the limit stays.
+		cache.adjust(0.2);
+		assertEquals(4 * MB, cache.getFileCacheLimit());
+		// Memory is available again, the limit is raised step by step.
+		cache.adjust(0.5);
+		assertEquals(8 * MB, cache.getFileCacheLimit());
+		for (int i = 0; i < 10; i++) {
+			cache.adjust(0.5);
+		}
+		assertEquals(64 * MB, cache.getFileCacheLimit());
+	}
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.model.tests;
+
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.IBuffer;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.core.model.IWorkingCopy;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.model.IncrementalModelBuilder;
+import org.eclipse.cdt.internal.core.model.WorkingCopy;
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Measures the time taken by reconciling a large working copy while typing into the body of
+ * a function, with and without incremental updates of the model.
+ * <p>
+ * The size of the file can be adjusted with the system property {@code cdt.benchmark.lines}.
+ * <p>
+ * n.b. this is intentionally not added to any test suite
+ */
+public class IncrementalModelBuilderBenchmark extends BaseTestCase {
+	private static final int LINES = Integer.getInteger("cdt.benchmark.lines", 30000);
+	private static final int KEYSTROKES = 50;
+
+	private ICProject cproject;
+	private IWorkingCopy workingCopy;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cproject= CProjectHelper.createCCProject("IncrementalModelBuilderBenchmark" + System.currentTimeMillis(), "bin", IPDOMManager.ID_NO_INDEXER);
+		StringBuilder buf= new StringBuilder();
+		buf.append("#define LIMIT 100\n");
+		for (int i = 0; buf.length() < LINES * 20; i++) {
+			buf.append("namespace ns").append(i % 10).append(" {\n");
+			buf.append("struct S").append(i).append(" {\n  int field;\n  int method(int a, int b);\n};\n");
+			buf.append("}\n");
+			buf.append("int ns").append(i % 10).append("::S").append(i).append("::method(int a, int b) {\n");
+			buf.append("  return a + b + field;\n}\n");
+			buf.append("static int func").append(i).append("(int x) {\n");
+			buf.append("  for (int i = 0; i < LIMIT; i++) {\n    x += i;\n  }\n  return x;\n}\n");
+		}
+		IFile file= TestSourceReader.createFile(cproject.getProject(), "large.cpp", buf.toString());
+		workingCopy= ((ITranslationUnit) CoreModel.getDefault().create(file)).getWorkingCopy();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		IncrementalModelBuilder.setEnabled(true);
+		if (workingCopy != null) {
+			workingCopy.destroy();
+		}
+		if (cproject != null) {
+			CProjectHelper.delete(cproject);
+		}
+		super.tearDown();
+	}
+
+	public void testTyping() throws Exception {
+		long full= type(false);
+		long incremental= type(true);
+		IncrementalModelBuilder builder= ((WorkingCopy) workingCopy).getIncrementalModelBuilder();
+		System.out.println(String.format(
+				"Reconcile after typing into a file with %d lines: full %8.3f ms  incremental %8.3f ms (%d of %d declarations reused)",
+				LINES, full / 1e6, incremental / 1e6, builder.getReusedDeclarationCount(),
+				builder.getReusedDeclarationCount() + builder.getBuiltDeclarationCount()));
+	}
+
+	/**
+	 * Types into the body of a function in the middle of the file, reconciling after each
+	 * keystroke. Returns the average time taken by a reconcile in nanoseconds.
+	 */
+	private long type(boolean incremental) throws Exception {
+		IncrementalModelBuilder.setEnabled(incremental);
+		IBuffer buffer= workingCopy.getBuffer();
+		String contents= buffer.getContents();
+		int offset= contents.indexOf("    x += i;\n", contents.length() / 2) + "    x += i".length();
+		// Build the model for the current mode once before measuring.
+		buffer.replace(offset, 0, " ");
+		workingCopy.reconcile();
+		long start= System.nanoTime();
+		for (int i = 0; i < KEYSTROKES; i++) {
+			buffer.replace(++offset, 0, i % 2 == 0 ? "+" : "1");
+			workingCopy.reconcile();
+		}
+		return (System.nanoTime() - start) / KEYSTROKES;
+	}
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.model.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ElementChangedEvent;
+import org.eclipse.cdt.core.model.IBuffer;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICElementDelta;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.model.IElementChangedListener;
+import org.eclipse.cdt.core.model.IParent;
+import org.eclipse.cdt.core.model.ISourceRange;
+import org.eclipse.cdt.core.model.ISourceReference;
+import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.core.model.IWorkingCopy;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.model.IncrementalModelBuilder;
+import org.eclipse.cdt.internal.core.model.WorkingCopy;
+import org.eclipse.core.resources.IFile;
+
+import junit.framework.Test;
+
+/**
+ * Tests for the incremental update of the model of a working copy on reconcile.
+ */
+public class IncrementalModelBuilderTests extends BaseTestCase implements IElementChangedListener {
+	private static final String CONTENTS=
+			"#define MAX 10\n" +
+			"struct S {\n" +
+			"  int field;\n" +
+			"  void method();\n" +
+			"};\n" +
+			"int global = MAX;\n" +
+			"void f1() {\n" +
+			"  int a = 1;\n" +
+			"}\n" +
+			"void f2(int p) {\n" +
+			"  p++;\n" +
+			"}\n" +
+			"namespace ns {\n" +
+			"  int inner();\n" +
+			"  int inner2() { return 0; }\n" +
+			"}\n" +
+			"void S::method() {\n" +
+			"  field= 0;\n" +
+			"}\n" +
+			"void f3();\n";
+
+	private ICProject fCProject;
+	private IWorkingCopy fWorkingCopy;
+	private final List<ICElementDelta> fDeltas= new ArrayList<>();
+
+	public static Test suite() {
+		return suite(IncrementalModelBuilderTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IncrementalModelBuilder.setEnabled(true);
+		fCProject= CProjectHelper.createCCProject(getName(), null, IPDOMManager.ID_NO_INDEXER);
+		IFile file= TestSourceReader.createFile(fCProject.getProject(), "test.cpp", CONTENTS);
+		ITranslationUnit tu= (ITranslationUnit) CoreModel.getDefault().create(file);
+		fWorkingCopy= tu.getWorkingCopy();
+		fWorkingCopy.getChildren();
+		CoreModel.getDefault().addElementChangedListener(this);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		CoreModel.getDefault().removeElementChangedListener(this);
+		fWorkingCopy.destroy();
+		CProjectHelper.delete(fCProject);
+		IncrementalModelBuilder.setEnabled(true);
+		super.tearDown();
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		if (event.getType() == ElementChangedEvent.POST_RECONCILE) {
+			fDeltas.add(event.getDelta());
+		}
+	}
+
+	private IncrementalModelBuilder getBuilder() {
+		IncrementalModelBuilder builder= ((WorkingCopy) fWorkingCopy).getIncrementalModelBuilder();
+		assertNotNull(builder);
+		return builder;
+	}
+
+	private void replace(String before, String oldText, String newText) throws Exception {
+		IBuffer buffer= fWorkingCopy.getBuffer();
+		int offset= buffer.getContents().indexOf(before + oldText) + before.length();
+		assertTrue(offset >= before.length());
+		buffer.replace(offset, oldText.length(), newText);
+	}
+
+	private void reconcile() throws Exception {
+		fDeltas.clear();
+		fWorkingCopy.reconcile();
+	}
+
+	/**
+	 * Describes the elements of the working copy along with their positions.
+	 */
+	private String describeModel() throws Exception {
+		StringBuilder buf= new StringBuilder();
+		describe(fWorkingCopy, "", buf);
+		return buf.toString();
+	}
+
+	private static void describe(ICElement element, String indent, StringBuilder buf) throws Exception {
+		buf.append(indent).append(element.getElementType()).append(' ').append(element.getElementName());
+		if (element instanceof ISourceReference) {
+			ISourceReference ref= (ISourceReference) element;
+			ISourceRange range= ref.getSourceRange();
+			buf.append(" [").append(ref.getIndex()).append("] ");
+			buf.append(range.getStartPos()).append(',').append(range.getLength()).append(' ');
+			buf.append(range.getIdStartPos()).append(',').append(range.getIdLength()).append(' ');
+			buf.append(range.getStartLine()).append('-').append(range.getEndLine());
+		}
+		buf.append('\n');
+		if (element instanceof IParent) {
+			for (ICElement child : ((IParent) element).getChildren()) {
+				describe(child, indent + "  ", buf);
+			}
+		}
+	}
+
+	/**
+	 * Checks that the model matches the one created by a full build.
+	 */
+	private void assertSameAsFullBuild() throws Exception {
+		String incremental= describeModel();
+		IncrementalModelBuilder.setEnabled(false);
+		try {
+			fWorkingCopy.getBuffer().append(" ");
+			reconcile();
+			assertEquals(incremental, describeModel());
+		} finally {
+			IncrementalModelBuilder.setEnabled(true);
+		}
+	}
+
+	private static ICElementDelta findDelta(ICElementDelta delta, String name) {
+		if (delta.getElement().getElementName().equals(name) && delta.getElement().getElementType() != ICElement.C_UNIT)
+			return delta;
+		for (ICElementDelta child : delta.getAffectedChildren()) {
+			ICElementDelta result= findDelta(child, name);
+			if (result != null)
+				return result;
+		}
+		return null;
+	}
+
+	private ICElementDelta getReconcileDelta() {
+		assertEquals(1, fDeltas.size());
+		return fDeltas.get(0);
+	}
+
+	public void testEditInFunctionBody() throws Exception {
+		replace("int a = ", "1", "42");
+		reconcile();
+		assertEquals(1, getBuilder().getBuiltDeclarationCount());
+		assertEquals(7, getBuilder().getReusedDeclarationCount());
+		ICElementDelta delta= getReconcileDelta();
+		assertEquals(0, delta.getAddedChildren().length);
+		assertEquals(0, delta.getRemovedChildren().length);
+		assertNull(findDelta(delta, "f2"));
+		assertSameAsFullBuild();
+	}
+
+	public void testSubsequentEdits() throws Exception {
+		replace("p", "++", "--");
+		replace("int a = 1;", "", "\n  a++;\n");
+		reconcile();
+		// The edit spans two functions, the definition of the method is rebuilt as well.
+		assertEquals(3, getBuilder().getBuiltDeclarationCount());
+		replace("field= ", "0", "1");
+		reconcile();
+		assertEquals(1, getBuilder().getBuiltDeclarationCount());
+		assertSameAsFullBuild();
+	}
+
+	public void testAddDeclaration() throws Exception {
+		replace("}\n", "void f2", "int added;\nvoid f2");
+		reconcile();
+		ICElementDelta delta= getReconcileDelta();
+		ICElementDelta added= findDelta(delta, "added");
+		assertNotNull(added);
+		assertEquals(ICElementDelta.ADDED, added.getKind());
+		assertNull(findDelta(delta, "f1"));
+		assertNull(findDelta(delta, "inner"));
+		assertSameAsFullBuild();
+	}
+
+	public void testRemoveDeclaration() throws Exception {
+		replace("", "void f3();\n", "");
+		reconcile();
+		ICElementDelta delta= getReconcileDelta();
+		ICElementDelta removed= findDelta(delta, "f3");
+		assertNotNull(removed);
+		assertEquals(ICElementDelta.REMOVED, removed.getKind());
+		assertSameAsFullBuild();
+	}
+
+	public void testChangeOfNamespaceMember() throws Exception {
+		replace("int inner", "()", "(int)");
+		reconcile();
+		assertEquals(2, getBuilder().getBuiltDeclarationCount());
+		ICElementDelta delta= getReconcileDelta();
+		assertNotNull(findDelta(delta, "ns"));
+		assertNull(findDelta(delta, "inner2"));
+		assertSameAsFullBuild();
+	}
+
+	public void testEditOfDirective() throws Exception {
+		replace("#define MAX ", "10", "20");
+		reconcile();
+		assertEquals(0, getBuilder().getReusedDeclarationCount());
+		assertSameAsFullBuild();
+	}
+
+	public void testEditOutsideOfFunctionBodyRebuildsQualifiedNames() throws Exception {
+		replace("int global = ", "MAX", "MAX + 1");
+		reconcile();
+		assertEquals(2, getBuilder().getBuiltDeclarationCount());
+		assertSameAsFullBuild();
+	}
+
+	public void testDisabled() throws Exception {
+		IncrementalModelBuilder.setEnabled(false);
+		assertNull(((WorkingCopy) fWorkingCopy).getIncrementalModelBuilder());
+		replace("int a = ", "1", "42");
+		reconcile();
+		ICElementDelta delta= getReconcileDelta();
+		assertEquals(0, delta.getAddedChildren().length);
+		assertEquals(0, delta.getRemovedChildren().length);
+	}
+}
@@ -273,6 +273,42 @@ public class CProjectDescriptionStorageTests extends BaseTestCase {
 		}
 	}
 
+	/**
+	 * Tests that configurations other than the active one, whose settings are copied on demand,
+	 * and descriptions restored from a snapshot of a touched .cproject provide all settings.
+	 * @throws Exception
+	 */
+	public void testReloadedConfigurations() throws Exception {
+		IProject project = cProj.getProject();
+		ICProjectDescription projDesc = CoreModel.getDefault().getProjectDescription(project, true);
+		ICConfigurationDescription active = projDesc.getActiveConfiguration();
+		active.getStorage("Temp_testing_storage", true);
+		ICConfigurationDescription other = projDesc.createConfiguration("other.id", "other", active);
+		CoreModel.getDefault().setProjectDescription(project, projDesc);
+
+		File cproj = project.getFile(".cproject").getLocation().toFile();
+		for (int i = 0; i < 2; i++) {
+			// Touch the file, the second load uses the snapshot of the unchanged content.
+			cproj.setLastModified(System.currentTimeMillis() - 10000 * (i + 1));
+			project.close(null);
+			project.open(null);
+
+			projDesc = CoreModel.getDefault().getProjectDescription(project, false);
+			assertEquals(2, projDesc.getConfigurations().length);
+			assertEquals(active.getId(), projDesc.getActiveConfiguration().getId());
+			other = projDesc.getConfigurationById("other.id");
+			assertNotNull(other);
+			assertTrue(other.isReadOnly());
+			assertNotNull(other.getRootFolderDescription());
+			assertNotNull(other.getBuildSetting());
+			assertEquals(projDesc.getActiveConfiguration().getSourceEntries().length, other.getSourceEntries().length);
+			assertNotNull(other.getStorage("Temp_testing_storage", false));
+
+			ICProjectDescription writable = CoreModel.getDefault().getProjectDescription(project, true);
+			assertNotNull(writable.getConfigurationById("other.id").getRootFolderDescription());
+		}
+	}
+
 	/*
 	 *
 	 * Helper methods for external modifications
@@ -143,6 +143,7 @@ import org.eclipse.cdt.core.parser.IProblem;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTNameBase;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPBasicType;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPClassType;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPFunctionType;
@@ -154,6 +155,7 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInternalBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.OverloadableOperator;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPSemantics;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.OverloadResolutionCache;
 import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
 import org.eclipse.cdt.internal.core.parser.ParserException;
 
@@ -12681,4 +12683,39 @@ public class AST2CPPTests extends AST2CPPTestBase {
 		helper.assertVariableType("v_b", CPPBasicType.UNSIGNED_LONG_LONG);
 		helper.assertVariableType("v_c", CPPBasicType.LONG_LONG);
 	}
+
+	//	struct S {};
+	//	void f(int);
+	//	void f(double);
+	//	void f(S);
+	//	namespace ns {
+	//		struct A {};
+	//		void f(A);
+	//	}
+	//	void test(S s, int i, int j, double d, double e, ns::A a, ns::A b) {
+	//		f(i);
+	//		f(j);
+	//		f(d);
+	//		f(e);
+	//		f(s);
+	//		f(a);
+	//		f(b);
+	//	}
+	public void testOverloadResolutionCache() throws Exception {
+		BindingAssertionHelper helper = getAssertionHelper();
+		ICPPFunction fInt = helper.assertNonProblem("f(int)", 1);
+		ICPPFunction fDouble = helper.assertNonProblem("f(double)", 1);
+		ICPPFunction fS = helper.assertNonProblem("f(S)", 1);
+		ICPPFunction fA = helper.assertNonProblem("f(A)", 1);
+		assertSame(fInt, helper.assertNonProblem("f(i)", 1));
+		assertSame(fInt, helper.assertNonProblem("f(j)", 1));
+		assertSame(fDouble, helper.assertNonProblem("f(d)", 1));
+		assertSame(fDouble, helper.assertNonProblem("f(e)", 1));
+		assertSame(fS, helper.assertNonProblem("f(s)", 1));
+		assertSame(fA, helper.assertNonProblem("f(a)", 1));
+		assertSame(fA, helper.assertNonProblem("f(b)", 1));
+		OverloadResolutionCache cache =
+				((CPPASTTranslationUnit) helper.getTranslationUnit()).getOverloadResolutionCache();
+		assertTrue(cache.getHits() >= 3);
+	}
 }
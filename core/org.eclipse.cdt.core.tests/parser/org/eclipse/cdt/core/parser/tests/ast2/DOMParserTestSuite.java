@@ -60,6 +60,7 @@ public class DOMParserTestSuite extends TestCase {
 		suite.addTest(AccessControlTests.suite());
 		suite.addTest(VariableReadWriteFlagsTest.suite());
 		suite.addTest(AST2CPPAttributeTests.suite());
+		suite.addTest(TypeInterningTests.suite());
 		// C++14 tests
 		suite.addTest(VariableTemplateTests.suite());
 		suite.addTestSuite(ReturnTypeDeductionTests.class);
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IBasicType.Kind;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.parser.ParserLanguage;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPBasicType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPFunctionType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPPointerType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPQualifierType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPReferenceType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.TypeInterner;
+
+/**
+ * Compares the cost of {@link IType#isSameType(IType)} on independently built types with
+ * the cost on interned types.
+ *
+ * n.b. this is intentionally not added to any test suite at the moment
+ */
+public class TypeInterningBenchmark extends AST2CPPTestBase {
+	private static final int TYPES = 1000;
+	private static final int ROUNDS = 200;
+
+	public TypeInterningBenchmark() {
+	}
+
+	public TypeInterningBenchmark(String name) {
+		super(name);
+	}
+
+	private static IType createType(int i) {
+		IType t = new CPPBasicType(Kind.eInt, 0);
+		t = new CPPQualifierType(t, true, false);
+		t = new CPPPointerType(t);
+		t = new CPPPointerType(t, i % 2 == 0, false, false);
+		IType[] params = { new CPPReferenceType(t, false), t, new CPPBasicType(Kind.eChar, 0) };
+		return new CPPFunctionType(new CPPPointerType(t), params);
+	}
+
+	public void testIsSameTypeThroughput() throws Exception {
+		IASTTranslationUnit tu = parse("", ParserLanguage.CPP);
+		TypeInterner interner = ((CPPASTTranslationUnit) tu).getTypeInterner();
+		IType[] plain = new IType[TYPES];
+		IType[] interned = new IType[TYPES];
+		for (int i = 0; i < TYPES; i++) {
+			plain[i] = createType(i);
+			interned[i] = interner.internType(createType(i));
+		}
+
+		long plainTime = measure(plain);
+		long internedTime = measure(interned);
+		System.out.println("isSameType on " + TYPES * TYPES * ROUNDS + " pairs: " //$NON-NLS-1$ //$NON-NLS-2$
+				+ plainTime + " ms plain, " + internedTime + " ms interned, " //$NON-NLS-1$ //$NON-NLS-2$
+				+ interner.size() + " distinct types."); //$NON-NLS-1$
+	}
+
+	private static long measure(IType[] types) {
+		long start = System.currentTimeMillis();
+		int same = 0;
+		for (int r = 0; r < ROUNDS; r++) {
+			for (IType a : types) {
+				for (IType b : types) {
+					if (a.isSameType(b))
+						same++;
+				}
+			}
+		}
+		assertEquals(types.length * types.length / 2 * ROUNDS, same);
+		return System.currentTimeMillis() - start;
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import org.eclipse.cdt.core.dom.ast.IFunction;
+import org.eclipse.cdt.core.dom.ast.IVariable;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.TypeInterner;
+
+import junit.framework.TestSuite;
+
+/**
+ * Tests for {@link TypeInterner}.
+ */
+public class TypeInterningTests extends AST2CPPTestBase {
+
+	public TypeInterningTests() {
+	}
+
+	public TypeInterningTests(String name) {
+		super(name);
+	}
+
+	public static TestSuite suite() {
+		return suite(TypeInterningTests.class);
+	}
+
+	//	int* a;
+	//	int* b;
+	//	const int* c;
+	//	int* const d = 0;
+	//	const int* e;
+	public void testPointerTypes() throws Exception {
+		BindingAssertionHelper helper = getAssertionHelper();
+		IVariable a = helper.assertNonProblem("a;", 1);
+		IVariable b = helper.assertNonProblem("b;", 1);
+		IVariable c = helper.assertNonProblem("c;", 1);
+		IVariable d = helper.assertNonProblem("d =", 1);
+		IVariable e = helper.assertNonProblem("e;", 1);
+		assertSame(a.getType(), b.getType());
+		assertSame(c.getType(), e.getType());
+		assertNotSame(a.getType(), c.getType());
+		assertNotSame(a.getType(), d.getType());
+		assertFalse(a.getType().isSameType(c.getType()));
+	}
+
+	//	struct A {};
+	//	void f(const A&, int*, ...);
+	//	void g(const A&, int*, ...);
+	//	void h(const A&, int*);
+	public void testFunctionTypes() throws Exception {
+		BindingAssertionHelper helper = getAssertionHelper();
+		IFunction f = helper.assertNonProblem("f(", 1);
+		IFunction g = helper.assertNonProblem("g(", 1);
+		IFunction h = helper.assertNonProblem("h(", 1);
+		assertSame(f.getType(), g.getType());
+		assertNotSame(f.getType(), h.getType());
+		assertSame(f.getType().getParameterTypes()[0], h.getType().getParameterTypes()[0]);
+	}
+
+	//	typedef int MyInt;
+	//	MyInt* a;
+	//	int* b;
+	public void testTypedefsAreNotMerged() throws Exception {
+		BindingAssertionHelper helper = getAssertionHelper();
+		IVariable a = helper.assertNonProblem("a;", 1);
+		IVariable b = helper.assertNonProblem("b;", 1);
+		assertNotSame(a.getType(), b.getType());
+		assertTrue(a.getType().isSameType(b.getType()));
+	}
+
+	//	int* a;
+	//	int* b;
+	public void testStatistics() throws Exception {
+		BindingAssertionHelper helper = getAssertionHelper();
+		helper.assertNonProblem("a;", 1);
+		helper.assertNonProblem("b;", 1);
+		TypeInterner interner = ((CPPASTTranslationUnit) helper.getTranslationUnit()).getTypeInterner();
+		assertTrue(interner.getHits() > 0);
+		assertTrue(interner.size() > 0);
+	}
+}
@@ -50,6 +50,14 @@ public class FunctionTests extends TestBase {
 	public void testRecursion() throws Exception {
 		assertEvaluationEquals(55);
 	}
+
+	// constexpr int fib(int n) { return n < 2 ? n : fib(n - 1) + fib(n - 2); }
+
+	// constexpr int x = fib(22);
+	public void testMemoizedRecursion() throws Exception {
+		// Without memoization the evaluation exceeds the step limit.
+		assertEvaluationEquals(17711);
+	}
 	
 	// constexpr int helper(int n) { 
 	//   int m = 5;
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.cdt.core.parser.ParserLanguage;
+
+/**
+ * A set of translation units used by {@link ParserThroughputBenchmark}. The generated corpora
+ * include the vendored headers from {@code resources/parser/benchmark}.
+ */
+public class BenchmarkCorpus {
+	public static final String STL_HEADER = "mini_stl.h";
+	public static final String MACRO_HEADER = "c_macros.h";
+
+	private final String fName;
+	private final File fDirectory;
+	private final ParserLanguage fLanguage;
+	private final List<File> fSources;
+
+	public BenchmarkCorpus(String name, File directory, ParserLanguage language, List<File> sources) {
+		fName = name;
+		fDirectory = directory;
+		fLanguage = language;
+		fSources = Collections.unmodifiableList(sources);
+	}
+
+	public String getName() {
+		return fName;
+	}
+
+	/**
+	 * Returns the directory of the corpus, it is used as include path.
+	 */
+	public File getDirectory() {
+		return fDirectory;
+	}
+
+	public ParserLanguage getLanguage() {
+		return fLanguage;
+	}
+
+	public List<File> getSources() {
+		return fSources;
+	}
+
+	public long getSize() {
+		long size = 0;
+		for (File file : fSources) {
+			size += file.length();
+		}
+		return size;
+	}
+
+	/**
+	 * Collects the sources of an existing directory, e.g. a checkout of a real project.
+	 * Files ending with {@code .c} are parsed as C, all others as C++.
+	 */
+	public static BenchmarkCorpus fromDirectory(File dir) {
+		List<File> sources = new ArrayList<>();
+		collectSources(dir, sources);
+		Collections.sort(sources);
+		boolean allC = !sources.isEmpty();
+		for (File file : sources) {
+			if (!file.getName().endsWith(".c")) {
+				allC = false;
+				break;
+			}
+		}
+		return new BenchmarkCorpus(dir.getName(), dir, allC ? ParserLanguage.C : ParserLanguage.CPP, sources);
+	}
+
+	private static void collectSources(File dir, List<File> sources) {
+		File[] files = dir.listFiles();
+		if (files == null)
+			return;
+		for (File file : files) {
+			if (file.isDirectory()) {
+				collectSources(file, sources);
+			} else {
+				String name = file.getName();
+				if (name.endsWith(".c") || name.endsWith(".cpp") || name.endsWith(".cc") || name.endsWith(".cxx")) {
+					sources.add(file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates translation units that use containers, algorithms, lambdas and stream
+	 * operators from the vendored standard library subset.
+	 */
+	public static BenchmarkCorpus generateStlHeavy(File resources, File target, int files) throws IOException {
+		File dir = prepare(target, "stl-heavy", resources, STL_HEADER);
+		List<File> sources = new ArrayList<>();
+		for (int i = 0; i < files; i++) {
+			File file = new File(dir, "stl" + i + ".cpp");
+			try (Writer w = new FileWriter(file)) {
+				w.write("#include \"" + STL_HEADER + "\"\n\n");
+				w.write("namespace app" + i + " {\n");
+				for (int c = 0; c < 8; c++) {
+					String cls = "Record" + c;
+					w.write("struct " + cls + " {\n");
+					w.write("\tint id;\n\tstd::string name;\n\tstd::vector<double> values;\n");
+					w.write("\tstd::map<std::string, std::vector<int> > index;\n");
+					w.write("\tbool operator<(const " + cls + "& o) const { return id < o.id; }\n");
+					w.write("};\n\n");
+					w.write("std::ostream& operator<<(std::ostream& os, const " + cls + "& r) {\n");
+					w.write("\treturn os << r.id << ' ' << r.name << ' ' << r.values.size();\n}\n\n");
+					w.write("double total" + c + "(const std::vector<" + cls + ">& records) {\n");
+					w.write("\tdouble sum = 0;\n");
+					w.write("\tfor (const " + cls + "& r : records)\n");
+					w.write("\t\tsum += std::accumulate(r.values.begin(), r.values.end(), 0.0);\n");
+					w.write("\treturn sum;\n}\n\n");
+					w.write("void process" + c + "(std::vector<" + cls + ">& records, std::map<int, std::string>& names) {\n");
+					w.write("\tstd::sort(records.begin(), records.end());\n");
+					w.write("\tauto it = std::find_if(records.begin(), records.end(), [](const " + cls
+							+ "& r) { return r.values.empty(); });\n");
+					w.write("\tif (it != records.end())\n\t\tstd::cout << *it << std::endl;\n");
+					w.write("\tstd::vector<int> ids(records.size());\n");
+					w.write("\tstd::transform(records.begin(), records.end(), ids.begin(), [](const " + cls
+							+ "& r) { return r.id; });\n");
+					w.write("\tfor (int id : ids) {\n");
+					w.write("\t\tstd::cout << id << ' ' << names[id] << std::endl;\n");
+					w.write("\t\tnames.insert(std::make_pair(id + 1, names[id]));\n\t}\n");
+					w.write("\tstd::unique_ptr<" + cls + "> copy = std::make_unique<" + cls + ">(records.front());\n");
+					w.write("\tstd::cout << copy->name << \" \" << copy->id << \" \" << total" + c
+							+ "(records) << std::endl;\n");
+					w.write("\tstd::list<std::pair<int, std::string> > pairs;\n");
+					w.write("\tfor (auto& entry : names)\n\t\tpairs.push_back(std::make_pair(entry.first, entry.second));\n");
+					w.write("\tpairs.sort(std::less<std::pair<int, std::string> >());\n}\n\n");
+				}
+				w.write("} // namespace app" + i + "\n");
+			}
+			sources.add(file);
+		}
+		return new BenchmarkCorpus("stl-heavy", dir, ParserLanguage.CPP, sources);
+	}
+
+	/**
+	 * Generates C translation units dominated by macro expansion: X-macro tables, token
+	 * pasting, nested function-like and variadic macros.
+	 */
+	public static BenchmarkCorpus generateMacroHeavy(File resources, File target, int files) throws IOException {
+		File dir = prepare(target, "macro-heavy-c", resources, MACRO_HEADER);
+		List<File> sources = new ArrayList<>();
+		for (int i = 0; i < files; i++) {
+			File file = new File(dir, "macros" + i + ".c");
+			try (Writer w = new FileWriter(file)) {
+				w.write("#include \"" + MACRO_HEADER + "\"\n\n");
+				w.write("#define OPCODES(X) \\\n");
+				for (int op = 0; op < 64; op++) {
+					w.write("\tX(OP_" + op + ", " + op + ", \"op" + op + "\", " + (op % 4) + ")"
+							+ (op < 63 ? " \\\n" : "\n\n"));
+				}
+				w.write("#define AS_ENUM(name, code, text, argc) name = code,\n");
+				w.write("#define AS_NAME(name, code, text, argc) [code] = text,\n");
+				w.write("#define AS_ARGC(name, code, text, argc) [code] = argc,\n");
+				w.write("#define AS_CASE(name, code, text, argc) case name: LOG_DEBUG(\"%s/%d\", text, argc); "
+						+ "return handle_##name(r, CLAMP(argc, 0, 3));\n\n");
+				w.write("enum opcode { OPCODES(AS_ENUM) OP_COUNT };\n");
+				w.write("static const char *opcode_names[] = { OPCODES(AS_NAME) };\n");
+				w.write("static const int opcode_argc[] = { OPCODES(AS_ARGC) };\n\n");
+				w.write("struct record {\n\tint id;\n\tlong flags;\n\tunsigned mask;\n\tstruct list_head link;\n");
+				w.write("\tchar name[32];\n};\n\n");
+				w.write("DECLARE_ACCESSORS(int, id)\nDECLARE_ACCESSORS(long, flags)\nDECLARE_ACCESSORS(unsigned, mask)\n\n");
+				w.write("#define DECLARE_HANDLER(name, code, text, argc) \\\n");
+				w.write("\tstatic int handle_##name(struct record *r, int n) { \\\n");
+				w.write("\t\tCHECK(r != 0, -1); \\\n");
+				w.write("\t\tset_flags(r, get_flags(r) | BIT(code % 32)); \\\n");
+				w.write("\t\tset_mask(r, ALIGN_UP(get_mask(r) + n, 8) & GENMASK(15, 2)); \\\n");
+				w.write("\t\treturn FIELD_GET(0xf0, get_mask(r)); \\\n\t}\n");
+				w.write("OPCODES(DECLARE_HANDLER)\n\n");
+				w.write("#define DECLARE_CONST(x) static const int CONCAT(k, x) = ARRAY_SIZE(opcode_names) + x;\n");
+				w.write("REPEAT_16(DECLARE_CONST, " + (i % 9 + 1) + ")\n\n");
+				w.write("int dispatch" + i + "(struct record *r, enum opcode op) {\n");
+				w.write("\tLOG_INFO(\"dispatch %s (%d args)\", opcode_names[op], opcode_argc[op]);\n");
+				w.write("\tswitch (op) {\n\tOPCODES(AS_CASE)\n\tdefault:\n\t\tbreak;\n\t}\n\treturn -1;\n}\n\n");
+				w.write("int walk" + i + "(struct list_head *head) {\n\tstruct record *pos;\n\tint n = 0;\n");
+				w.write("\tlist_for_each_entry(pos, head, struct record, link) {\n");
+				w.write("\t\tn += dispatch" + i + "(pos, (enum opcode) (get_id(pos) % OP_COUNT));\n");
+				w.write("\t\tLOG_WARN(\"%s\", STRINGIFY(walk" + i + "));\n\t}\n\treturn n;\n}\n");
+			}
+			sources.add(file);
+		}
+		return new BenchmarkCorpus("macro-heavy-c", dir, ParserLanguage.C, sources);
+	}
+
+	/**
+	 * Generates translation units with deeply nested and recursive template instantiations:
+	 * type lists, compile time recursion and nested class templates.
+	 */
+	public static BenchmarkCorpus generateDeepTemplates(File resources, File target, int files, int depth)
+			throws IOException {
+		File dir = prepare(target, "deep-templates", resources, STL_HEADER);
+		List<File> sources = new ArrayList<>();
+		for (int i = 0; i < files; i++) {
+			File file = new File(dir, "templates" + i + ".cpp");
+			try (Writer w = new FileWriter(file)) {
+				w.write("#include \"" + STL_HEADER + "\"\n\n");
+				w.write("namespace meta" + i + " {\n");
+				w.write("template<typename... Ts> struct type_list {};\n\n");
+				w.write("template<typename L, typename T> struct push_back;\n");
+				w.write("template<typename... Ts, typename T>\n");
+				w.write("struct push_back<type_list<Ts...>, T> { typedef type_list<Ts..., T> type; };\n\n");
+				w.write("template<int N> struct make_list {\n");
+				w.write("\ttypedef typename push_back<typename make_list<N - 1>::type, std::integral_constant<int, N> >::type type;\n");
+				w.write("};\n");
+				w.write("template<> struct make_list<0> { typedef type_list<> type; };\n\n");
+				w.write("template<typename L> struct length;\n");
+				w.write("template<typename... Ts> struct length<type_list<Ts...> > "
+						+ ": std::integral_constant<int, sizeof...(Ts)> {};\n\n");
+				w.write("template<int N> struct fib {\n");
+				w.write("\tstatic constexpr long value = fib<N - 1>::value + fib<N - 2>::value;\n};\n");
+				w.write("template<> struct fib<1> { static constexpr long value = 1; };\n");
+				w.write("template<> struct fib<0> { static constexpr long value = 0; };\n\n");
+				w.write("template<typename T, int N> struct nest {\n");
+				w.write("\ttypedef std::pair<typename nest<T, N - 1>::type, std::vector<T> > type;\n};\n");
+				w.write("template<typename T> struct nest<T, 0> { typedef T type; };\n\n");
+				w.write("template<typename T, typename = void> struct has_size : std::false_type {};\n");
+				w.write("template<typename T> struct has_size<T, typename std::enable_if<"
+						+ "sizeof(&T::size) != 0>::type> : std::true_type {};\n\n");
+				for (int d = 1; d <= depth; d++) {
+					w.write("typedef make_list<" + d + ">::type list" + d + ";\n");
+					w.write("static_assert(length<list" + d + ">::value == " + d + ", \"length\");\n");
+					w.write("constexpr long fib" + d + " = fib<" + Math.min(d, 40) + ">::value;\n");
+					w.write("typedef nest<int, " + Math.min(d, 12) + ">::type nested" + d + ";\n");
+					w.write("nested" + d + " value" + d + ";\n");
+					w.write("auto second" + d + " = value" + d + ".second.size();\n");
+				}
+				w.write("static_assert(has_size<std::vector<int> >::value, \"has_size\");\n");
+				w.write("} // namespace meta" + i + "\n");
+			}
+			sources.add(file);
+		}
+		return new BenchmarkCorpus("deep-templates", dir, ParserLanguage.CPP, sources);
+	}
+
+	private static File prepare(File target, String name, File resources, String header) throws IOException {
+		File dir = new File(target, name);
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Cannot create " + dir);
+		Files.copy(new File(resources, header).toPath(), new File(dir, header).toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		return dir;
+	}
+}
@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.cdt.core.dom.ILinkage;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.gnu.c.GCCLanguage;
+import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
+import org.eclipse.cdt.core.dom.parser.AbstractCLikeLanguage;
+import org.eclipse.cdt.core.dom.parser.IScannerExtensionConfiguration;
+import org.eclipse.cdt.core.dom.parser.c.GCCScannerExtensionConfiguration;
+import org.eclipse.cdt.core.dom.parser.cpp.GPPScannerExtensionConfiguration;
+import org.eclipse.cdt.core.index.URIRelativeLocationConverter;
+import org.eclipse.cdt.core.model.ILanguage;
+import org.eclipse.cdt.core.parser.EndOfFileException;
+import org.eclipse.cdt.core.parser.FileContent;
+import org.eclipse.cdt.core.parser.IParserLogService;
+import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.core.parser.NullLogService;
+import org.eclipse.cdt.core.parser.ParserLanguage;
+import org.eclipse.cdt.core.parser.ScannerInfo;
+import org.eclipse.cdt.core.parser.tests.scanner.FileCodeReaderFactory;
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.cdt.internal.core.indexer.FileEncodingRegistry;
+import org.eclipse.cdt.internal.core.indexer.ILanguageMapper;
+import org.eclipse.cdt.internal.core.indexer.StandaloneFastIndexer;
+import org.eclipse.cdt.internal.core.parser.scanner.CPreprocessor;
+import org.eclipse.cdt.internal.core.pdom.dom.IPDOMLinkageFactory;
+import org.eclipse.cdt.internal.core.pdom.dom.c.PDOMCLinkageFactory;
+import org.eclipse.cdt.internal.core.pdom.dom.cpp.PDOMCPPLinkageFactory;
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+import junit.framework.TestCase;
+
+/**
+ * Measures the throughput of the preprocessor, the parser with and without binding resolution
+ * and of writing a scratch PDOM, over generated and vendored corpora. For every corpus and
+ * phase the tokens per second, the allocation rate and the heap retained by the ASTs are
+ * reported, so that different versions of CDT can be compared.
+ * <p>
+ * The benchmark runs without a workspace. It can be started as a JUnit test or by means of
+ * {@link #main(String[])}, directories passed as arguments are measured in addition to the
+ * generated corpora. The size of the corpora and the number of iterations can be adjusted with
+ * the system properties {@code benchmark.files}, {@code benchmark.depth},
+ * {@code benchmark.warmup} and {@code benchmark.iterations}.
+ *
+ * n.b. this is intentionally not added to any test suite
+ */
+public class ParserThroughputBenchmark extends TestCase {
+	private static final IParserLogService LOG = new NullLogService();
+	private static final String RESOURCES = "resources/parser/benchmark";
+
+	private enum Phase {
+		PREPROCESS("preprocessor"),
+		PARSE("parser"),
+		RESOLVE("parser+bindings"),
+		INDEX("pdom writer");
+
+		final String fLabel;
+
+		Phase(String label) {
+			fLabel = label;
+		}
+	}
+
+	private static class Result {
+		long fNanos;
+		long fAllocatedBytes;
+		long fRetainedBytes = -1;
+	}
+
+	private final int fWarmup = Integer.getInteger("benchmark.warmup", 2);
+	private final int fIterations = Integer.getInteger("benchmark.iterations", 5);
+	private final PrintStream fOut;
+	private File fScratch;
+
+	public ParserThroughputBenchmark() {
+		this(System.out);
+	}
+
+	public ParserThroughputBenchmark(PrintStream out) {
+		super("testThroughput");
+		fOut = out;
+	}
+
+	public static void main(String[] args) throws Exception {
+		ParserThroughputBenchmark benchmark = new ParserThroughputBenchmark();
+		List<BenchmarkCorpus> corpora = benchmark.createCorpora();
+		for (String arg : args) {
+			corpora.add(BenchmarkCorpus.fromDirectory(new File(arg)));
+		}
+		try {
+			benchmark.run(corpora);
+		} finally {
+			benchmark.deleteScratch();
+		}
+	}
+
+	public void testThroughput() throws Exception {
+		try {
+			run(createCorpora());
+		} finally {
+			deleteScratch();
+		}
+	}
+
+	private List<BenchmarkCorpus> createCorpora() throws IOException {
+		int files = Integer.getInteger("benchmark.files", 20);
+		int depth = Integer.getInteger("benchmark.depth", 30);
+		File resources = findResources();
+		fScratch = java.nio.file.Files.createTempDirectory("cdt-benchmark").toFile();
+		List<BenchmarkCorpus> corpora = new ArrayList<>();
+		corpora.add(BenchmarkCorpus.generateStlHeavy(resources, fScratch, files));
+		corpora.add(BenchmarkCorpus.generateMacroHeavy(resources, fScratch, files));
+		corpora.add(BenchmarkCorpus.generateDeepTemplates(resources, fScratch, files, depth));
+		return corpora;
+	}
+
+	private static File findResources() throws IOException {
+		CTestPlugin plugin = CTestPlugin.getDefault();
+		if (plugin != null) {
+			URL url = FileLocator.find(plugin.getBundle(), new Path(RESOURCES), null);
+			if (url != null)
+				return new File(FileLocator.toFileURL(url).getFile());
+		}
+		File dir = new File(System.getProperty("benchmark.resources", RESOURCES));
+		if (!dir.isDirectory())
+			throw new IOException("Vendored corpus not found, set benchmark.resources to " + RESOURCES);
+		return dir;
+	}
+
+	private void deleteScratch() {
+		if (fScratch != null) {
+			delete(fScratch);
+			fScratch = null;
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	public void run(List<BenchmarkCorpus> corpora) throws Exception {
+		fOut.println("CDT parser throughput, " + fWarmup + " warm-up and " + fIterations + " measured iterations");
+		fOut.println(String.format("%-16s %-16s %6s %9s %10s %10s %12s %10s %10s",
+				"corpus", "phase", "files", "kB", "tokens", "ms", "tokens/s", "MB/s alloc", "MB retained"));
+		for (BenchmarkCorpus corpus : corpora) {
+			long tokens = countTokens(corpus);
+			for (Phase phase : Phase.values()) {
+				for (int i = 0; i < fWarmup; i++) {
+					measure(corpus, phase, false);
+				}
+				Result total = new Result();
+				for (int i = 0; i < fIterations; i++) {
+					Result r = measure(corpus, phase, i == fIterations - 1);
+					total.fNanos += r.fNanos;
+					total.fAllocatedBytes += r.fAllocatedBytes;
+					if (r.fRetainedBytes >= 0)
+						total.fRetainedBytes = r.fRetainedBytes;
+				}
+				report(corpus, phase, tokens, total);
+			}
+		}
+	}
+
+	private void report(BenchmarkCorpus corpus, Phase phase, long tokens, Result total) {
+		double seconds = total.fNanos / 1e9 / fIterations;
+		double allocRate = total.fAllocatedBytes < 0 ? -1 : total.fAllocatedBytes / 1e6 / fIterations / seconds;
+		fOut.println(String.format("%-16s %-16s %6d %9d %10d %10.1f %12.0f %10.1f %10s",
+				corpus.getName(), phase.fLabel, corpus.getSources().size(), corpus.getSize() / 1024, tokens,
+				seconds * 1000, tokens / seconds, allocRate,
+				total.fRetainedBytes < 0 ? "-" : String.format("%.1f", total.fRetainedBytes / 1e6)));
+	}
+
+	private Result measure(BenchmarkCorpus corpus, Phase phase, boolean measureRetained) throws Exception {
+		long baseHeap = measureRetained ? usedHeap() : 0;
+		List<IASTTranslationUnit> asts = new ArrayList<>();
+		Result result = new Result();
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		switch (phase) {
+		case PREPROCESS:
+			countTokens(corpus);
+			break;
+		case PARSE:
+		case RESOLVE:
+			for (File file : corpus.getSources()) {
+				IASTTranslationUnit ast = parse(corpus, file);
+				if (phase == Phase.RESOLVE)
+					resolveNames(ast);
+				if (measureRetained)
+					asts.add(ast);
+			}
+			break;
+		case INDEX:
+			index(corpus);
+			break;
+		}
+		result.fNanos = System.nanoTime() - start;
+		long allocatedAfter = allocatedBytes();
+		result.fAllocatedBytes = allocated < 0 ? -1 : allocatedAfter - allocated;
+		if (measureRetained && !asts.isEmpty()) {
+			result.fRetainedBytes = Math.max(0, usedHeap() - baseHeap);
+			asts.clear();
+		}
+		return result;
+	}
+
+	private static IScannerInfo createScannerInfo(BenchmarkCorpus corpus) {
+		Map<String, String> macros = new HashMap<>();
+		macros.put("__GNUC__", "7");
+		macros.put("__GNUC_MINOR__", "3");
+		macros.put("__SIZEOF_INT__", "4");
+		macros.put("__SIZEOF_LONG__", "8");
+		macros.put("__SIZEOF_POINTER__", "8");
+		if (corpus.getLanguage() == ParserLanguage.CPP)
+			macros.put("__cplusplus", "201402L");
+		return new ScannerInfo(macros, new String[] { corpus.getDirectory().getAbsolutePath() });
+	}
+
+	private static AbstractCLikeLanguage getLanguage(ParserLanguage lang) {
+		return lang == ParserLanguage.C ? GCCLanguage.getDefault() : GPPLanguage.getDefault();
+	}
+
+	private static long countTokens(BenchmarkCorpus corpus) {
+		IScannerInfo info = createScannerInfo(corpus);
+		IScannerExtensionConfiguration config = corpus.getLanguage() == ParserLanguage.C ?
+				GCCScannerExtensionConfiguration.getInstance(info) :
+				GPPScannerExtensionConfiguration.getInstance(info);
+		long count = 0;
+		for (File file : corpus.getSources()) {
+			FileContent content = FileContent.createForExternalFileLocation(file.getAbsolutePath());
+			CPreprocessor cpp = new CPreprocessor(content, info, corpus.getLanguage(), LOG, config,
+					FileCodeReaderFactory.getInstance());
+			try {
+				while (cpp.nextToken().getType() != IToken.tEND_OF_INPUT) {
+					count++;
+				}
+			} catch (EndOfFileException e) {
+			}
+		}
+		return count;
+	}
+
+	private static IASTTranslationUnit parse(BenchmarkCorpus corpus, File file) throws Exception {
+		FileContent content = FileContent.createForExternalFileLocation(file.getAbsolutePath());
+		return getLanguage(corpus.getLanguage()).getASTTranslationUnit(content, createScannerInfo(corpus),
+				FileCodeReaderFactory.getInstance(), null, ILanguage.OPTION_NO_IMAGE_LOCATIONS, LOG);
+	}
+
+	private static void resolveNames(IASTTranslationUnit ast) {
+		ast.accept(new ASTVisitor() {
+			{
+				shouldVisitNames = true;
+			}
+
+			@Override
+			public int visit(IASTName name) {
+				name.resolveBinding();
+				return PROCESS_CONTINUE;
+			}
+		});
+	}
+
+	private static void index(final BenchmarkCorpus corpus) throws Exception {
+		File pdomFile = File.createTempFile("benchmark", ".pdom");
+		try {
+			Map<String, IPDOMLinkageFactory> factories = new HashMap<>();
+			factories.put(ILinkage.C_LINKAGE_NAME, new PDOMCLinkageFactory());
+			factories.put(ILinkage.CPP_LINKAGE_NAME, new PDOMCPPLinkageFactory());
+			ILanguageMapper mapper = new ILanguageMapper() {
+				@Override
+				public ILanguage getLanguage(String file) {
+					return ParserThroughputBenchmark.getLanguage(corpus.getLanguage());
+				}
+			};
+			StandaloneFastIndexer indexer = new StandaloneFastIndexer(pdomFile,
+					new URIRelativeLocationConverter(corpus.getDirectory().toURI()), factories,
+					createScannerInfo(corpus), new FileEncodingRegistry("UTF-8"), mapper, LOG);
+			List<String> paths = new ArrayList<>();
+			for (File file : corpus.getSources()) {
+				paths.add(file.getAbsolutePath());
+			}
+			indexer.rebuild(paths, new NullProgressMonitor());
+		} finally {
+			pdomFile.delete();
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread, or -1 if the JVM cannot
+	 * report it. The value is read through the platform MBean server, the extended thread
+	 * bean of the JDK is not accessible to the bundle.
+	 */
+	private static long allocatedBytes() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME);
+			if (!Boolean.TRUE.equals(server.getAttribute(name, "ThreadAllocatedMemorySupported"))
+					|| !Boolean.TRUE.equals(server.getAttribute(name, "ThreadAllocatedMemoryEnabled"))) {
+				return -1;
+			}
+			Object bytes = server.invoke(name, "getThreadAllocatedBytes",
+					new Object[] { Thread.currentThread().getId() }, new String[] { long.class.getName() });
+			return bytes instanceof Long ? (Long) bytes : -1;
+		} catch (JMException e) {
+			return -1;
+		}
+	}
+}
@@ -95,6 +95,12 @@ public class EmptyIndexFragment implements IIndexFragment {
 		return IIndexFragmentInclude.EMPTY_FRAGMENT_INCLUDES_ARRAY;
 	}
 
+	@Override
+	public IIndexFragmentInclude[] findIncludedByTransitively(IIndexFragmentFile file)
+			throws CoreException {
+		return IIndexFragmentInclude.EMPTY_FRAGMENT_INCLUDES_ARRAY;
+	}
+
 	@Override
 	public IIndexFragmentName[] findNames(IBinding binding,	int flags) {
 		return IIndexFragmentName.EMPTY_NAME_ARRAY;
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.index.CIndex;
+import org.eclipse.cdt.internal.core.index.FragmentQueryExecutor;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentName;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+
+import junit.framework.Test;
+
+/**
+ * Tests distributing index queries across the fragments of an index.
+ */
+public class FragmentQueryExecutorTest extends BaseTestCase {
+	private boolean fWasEnabled;
+
+	public static Test suite() {
+		return suite(FragmentQueryExecutorTest.class);
+	}
+
+	/**
+	 * A fragment that records whether it was read-locked while being queried, and on which thread.
+	 */
+	private static class RecordingFragment extends EmptyIndexFragment {
+		final AtomicInteger fLockCount= new AtomicInteger();
+		final Set<Thread> fQueryThreads= Collections.synchronizedSet(new HashSet<Thread>());
+		volatile boolean fQueriedWithoutLock;
+
+		@Override
+		public void acquireReadLock() throws InterruptedException {
+			fLockCount.incrementAndGet();
+		}
+
+		@Override
+		public void releaseReadLock() {
+			fLockCount.decrementAndGet();
+		}
+
+		@Override
+		public IIndexFragmentName[] findNames(IBinding binding, int flags) {
+			if (fLockCount.get() <= 0)
+				fQueriedWithoutLock= true;
+			fQueryThreads.add(Thread.currentThread());
+			return IIndexFragmentName.EMPTY_NAME_ARRAY;
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fWasEnabled= FragmentQueryExecutor.isEnabled();
+		FragmentQueryExecutor.setEnabled(true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		FragmentQueryExecutor.setEnabled(fWasEnabled);
+		super.tearDown();
+	}
+
+	private static IIndexFragment[] createFragments(int count) {
+		IIndexFragment[] fragments= new IIndexFragment[count];
+		for (int i = 0; i < count; i++) {
+			fragments[i]= new RecordingFragment();
+		}
+		return fragments;
+	}
+
+	private static int indexOf(IIndexFragment[] fragments, IIndexFragment fragment) {
+		for (int i = 0; i < fragments.length; i++) {
+			if (fragments[i] == fragment)
+				return i;
+		}
+		return -1;
+	}
+
+	public void testResultsAreStoredInFragmentOrder() throws Exception {
+		final IIndexFragment[] fragments= createFragments(8);
+		Integer[] results= new Integer[fragments.length];
+		FragmentQueryExecutor.run(fragments, (fragment, monitor) -> {
+			int i= indexOf(fragments, fragment);
+			try {
+				// Let the later fragments finish first.
+				Thread.sleep(5 * (fragments.length - i));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return i;
+		}, results, true, SubMonitor.convert(new NullProgressMonitor()));
+		for (int i = 0; i < results.length; i++) {
+			assertEquals(Integer.valueOf(i), results[i]);
+		}
+	}
+
+	public void testFirstFailureIsRethrown() throws Exception {
+		final IIndexFragment[] fragments= createFragments(6);
+		Integer[] results= new Integer[fragments.length];
+		try {
+			FragmentQueryExecutor.run(fragments, (fragment, monitor) -> {
+				int i= indexOf(fragments, fragment);
+				if (i >= 2)
+					throw new CoreException(new Status(IStatus.ERROR, "test", String.valueOf(i)));
+				return i;
+			}, results, true, SubMonitor.convert(null));
+			fail("Expected a CoreException");
+		} catch (CoreException e) {
+			assertEquals("2", e.getStatus().getMessage());
+		}
+	}
+
+	public void testQueriesRunUnderReadLockOfCaller() throws Exception {
+		IIndexFragment[] fragments= createFragments(6);
+		CIndex index= new CIndex(fragments);
+		index.acquireReadLock();
+		try {
+			for (int i = 0; i < 20; i++) {
+				assertEquals(0, index.findNames(null, IIndex.FIND_ALL_OCCURRENCES).length);
+			}
+		} finally {
+			index.releaseReadLock();
+		}
+		for (IIndexFragment fragment : fragments) {
+			assertFalse(((RecordingFragment) fragment).fQueriedWithoutLock);
+		}
+	}
+
+	public void testQueriesWithoutReadLockRunOnCallingThread() throws Exception {
+		IIndexFragment[] fragments= createFragments(6);
+		CIndex index= new CIndex(fragments);
+		for (int i = 0; i < 20; i++) {
+			assertEquals(0, index.findNames(null, IIndex.FIND_ALL_OCCURRENCES).length);
+		}
+		for (IIndexFragment fragment : fragments) {
+			assertEquals(Collections.singleton(Thread.currentThread()),
+					((RecordingFragment) fragment).fQueryThreads);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.settings.model.CSourceEntry;
+import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
+import org.eclipse.cdt.core.settings.model.ICProjectDescription;
+import org.eclipse.cdt.core.settings.model.ICProjectDescriptionPreferences;
+import org.eclipse.cdt.core.settings.model.ICSourceEntry;
+import org.eclipse.cdt.core.settings.model.extension.impl.CDefaultConfigurationData;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.QualifiedName;
+
+import junit.framework.TestSuite;
+
+/**
+ * Tests for the snapshots of the index kept for the configurations that are not active.
+ */
+public class IndexConfigurationSnapshotTest extends IndexTestBase {
+	private static final QualifiedName DB_NAME= new QualifiedName(CCorePlugin.PLUGIN_ID, "pdomName");
+
+	private final CCorePlugin core= CCorePlugin.getDefault();
+	private ICProject fProject;
+	private ICConfigurationDescription fCfg1;
+	private ICConfigurationDescription fCfg2;
+
+	public IndexConfigurationSnapshotTest(String name) {
+		super(name);
+	}
+
+	public static TestSuite suite() {
+		return suite(IndexConfigurationSnapshotTest.class);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fProject != null) {
+			CProjectHelper.delete(fProject);
+		}
+		super.tearDown();
+	}
+
+	private static QualifiedName snapshotProperty(ICConfigurationDescription cfg) {
+		return new QualifiedName(CCorePlugin.PLUGIN_ID, "pdomSnapshot:" + cfg.getId());
+	}
+
+	private ICConfigurationDescription newCfg(ICProjectDescription des, String config) throws Exception {
+		CDefaultConfigurationData data= new CDefaultConfigurationData("project." + config, config + " name", null);
+		data.initEmptyData();
+		return des.createConfiguration(CCorePlugin.DEFAULT_PROVIDER_ID, data);
+	}
+
+	private void changeActiveConfiguration(ICConfigurationDescription cfg) throws Exception {
+		ICProjectDescription pd= core.getProjectDescription(fProject.getProject());
+		pd.setActiveConfiguration(pd.getConfigurationById(cfg.getId()));
+		core.setProjectDescription(fProject.getProject(), pd);
+		waitForIndexer(fProject);
+	}
+
+	private void checkIndexed(String var) throws Exception {
+		IIndex index= CCorePlugin.getIndexManager().getIndex(fProject);
+		index.acquireReadLock();
+		try {
+			assertEquals(1, index.findBindings(var.toCharArray(), IndexFilter.ALL, npm()).length);
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+
+	/**
+	 * Creates a project with two configurations, the first one is active and indexed.
+	 */
+	private IProject createProject() throws Exception {
+		fProject= CProjectHelper.createCCProject("IndexConfigurationSnapshotTest", null, IPDOMManager.ID_NO_INDEXER);
+		IProject project= fProject.getProject();
+		TestSourceReader.createFile(project, "a.cpp", "int a;");
+
+		ICProjectDescription pd= core.getProjectDescription(project);
+		fCfg1= newCfg(pd, "config1");
+		fCfg2= newCfg(pd, "config2");
+		pd.setConfigurationRelations(ICProjectDescriptionPreferences.CONFIGS_LINK_SETTINGS_AND_ACTIVE);
+		pd.setActiveConfiguration(fCfg1);
+		core.setProjectDescription(project, pd);
+		CCorePlugin.getIndexManager().setIndexerId(fProject, IPDOMManager.ID_FAST_INDEXER);
+		waitForIndexer(fProject);
+		checkIndexed("a");
+		return project;
+	}
+
+	public void testSwitchConfiguration() throws Exception {
+		IProject project= createProject();
+		String dbName1= project.getPersistentProperty(DB_NAME);
+
+		// A pure switch changes no configuration, the index of the first one is kept and the second
+		// one is indexed from scratch.
+		changeActiveConfiguration(fCfg2);
+		String dbName2= project.getPersistentProperty(DB_NAME);
+		assertFalse(dbName1.equals(dbName2));
+		assertEquals(dbName1, project.getPersistentProperty(snapshotProperty(fCfg1)));
+		checkIndexed("a");
+
+		// Switching back swaps the snapshots.
+		changeActiveConfiguration(fCfg1);
+		assertEquals(dbName1, project.getPersistentProperty(DB_NAME));
+		assertEquals(dbName2, project.getPersistentProperty(snapshotProperty(fCfg2)));
+		assertNull(project.getPersistentProperty(snapshotProperty(fCfg1)));
+		checkIndexed("a");
+	}
+
+	public void testSwitchFromOtherConfiguration() throws Exception {
+		IProject project= createProject();
+		String dbName1= project.getPersistentProperty(DB_NAME);
+
+		// The index is not kept for a configuration it was not built for.
+		CCoreInternals.getPDOMManager().switchConfiguration(fProject, fCfg2.getId(), fCfg1.getId());
+		waitForIndexer(fProject);
+		assertFalse(dbName1.equals(project.getPersistentProperty(DB_NAME)));
+		assertNull(project.getPersistentProperty(snapshotProperty(fCfg2)));
+		assertNull(project.getPersistentProperty(snapshotProperty(fCfg1)));
+		checkIndexed("a");
+	}
+
+	public void testChangeInactiveConfiguration() throws Exception {
+		IProject project= createProject();
+		String dbName1= project.getPersistentProperty(DB_NAME);
+		changeActiveConfiguration(fCfg2);
+		assertEquals(dbName1, project.getPersistentProperty(snapshotProperty(fCfg1)));
+
+		// Changes that do not affect the index keep the snapshot.
+		ICProjectDescription pd= core.getProjectDescription(project);
+		pd.getConfigurationById(fCfg1.getId()).setDescription("changed");
+		core.setProjectDescription(project, pd);
+		waitForIndexer(fProject);
+		assertEquals(dbName1, project.getPersistentProperty(snapshotProperty(fCfg1)));
+
+		// Changing the settings of the inactive configuration drops its snapshot.
+		pd= core.getProjectDescription(project);
+		ICConfigurationDescription cfg1= pd.getConfigurationById(fCfg1.getId());
+		ICSourceEntry entry= cfg1.getSourceEntries()[0];
+		cfg1.setSourceEntries(new ICSourceEntry[] {
+				new CSourceEntry(entry.getName(), new IPath[] { new Path("excluded") }, entry.getFlags())
+		});
+		core.setProjectDescription(project, pd);
+		waitForIndexer(fProject);
+		assertNull(project.getPersistentProperty(snapshotProperty(fCfg1)));
+
+		changeActiveConfiguration(fCfg1);
+		assertFalse(dbName1.equals(project.getPersistentProperty(DB_NAME)));
+		checkIndexed("a");
+	}
+}
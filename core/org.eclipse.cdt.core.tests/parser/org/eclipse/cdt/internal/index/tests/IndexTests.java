@@ -35,8 +35,10 @@ public class IndexTests extends TestSuite {
 		suite.addTest(IndexNamesTests.suite());
 		suite.addTest(TeamSharedIndexTest.suite());
 		suite.addTest(IndexProviderManagerTest.suite());
+		suite.addTest(IndexConfigurationSnapshotTest.suite());
 		suite.addTest(IndexMultiVariantHeaderTest.suite());
 		suite.addTest(IndexMultiFileTest.suite());
+		suite.addTest(FragmentQueryExecutorTest.suite());
 
 		// C++14 index test suites
 		suite.addTestSuite(ReturnTypeDeductionIndexTests.class);
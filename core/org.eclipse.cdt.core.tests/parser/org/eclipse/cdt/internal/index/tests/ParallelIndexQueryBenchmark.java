@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexManager;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.index.FragmentQueryExecutor;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Compares the time taken by queries on an index spanning many projects, with and without
+ * distributing the queries across the index fragments of the projects. Each project refers
+ * to a common base project, the index consists of one fragment per project.
+ * <p>
+ * The size of the workspace can be adjusted with the system properties
+ * {@code cdt.benchmark.projects} and {@code cdt.benchmark.classes}.
+ * <p>
+ * n.b. this is intentionally not added to any test suite
+ */
+public class ParallelIndexQueryBenchmark extends BaseTestCase {
+	private static final int PROJECTS = Integer.getInteger("cdt.benchmark.projects", 8);
+	private static final int CLASSES = Integer.getInteger("cdt.benchmark.classes", 400);
+	private static final int ITERATIONS = 20;
+
+	private final List<ICProject> fProjects = new ArrayList<>();
+	private IIndex fIndex;
+	private IIndexFile fBaseHeader;
+
+	private interface Query {
+		int run() throws Exception;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		ProjectBuilder pb = new ProjectBuilder("base_" + getName(), true);
+		pb.addFile("base.h", "class Base {}; void baseFunc(Base& b);\n");
+		ICProject base = pb.create();
+		fProjects.add(base);
+
+		for (int p = 0; p < PROJECTS; p++) {
+			pb = new ProjectBuilder("proj" + p + "_" + getName(), true);
+			pb.addDependency(base.getProject());
+			for (int f = 0; f < 4; f++) {
+				pb.addFile("file" + f + ".cpp", generateSource(base.getProject().getName(), p, f));
+			}
+			fProjects.add(pb.create());
+		}
+
+		ICProject[] projects = fProjects.toArray(new ICProject[fProjects.size()]);
+		fIndex = CCorePlugin.getIndexManager().getIndex(projects, IIndexManager.ADD_DEPENDENCIES);
+		fIndex.acquireReadLock();
+		IFile header = base.getProject().getFile(new Path("base.h"));
+		IIndexFileLocation location = IndexLocationFactory.getWorkspaceIFL(header);
+		fBaseHeader = fIndex.getFiles(location)[0];
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fIndex != null) {
+			fIndex.releaseReadLock();
+			fIndex = null;
+		}
+		for (ICProject project : fProjects) {
+			project.getProject().delete(true, true, new NullProgressMonitor());
+		}
+		fProjects.clear();
+		super.tearDown();
+	}
+
+	private static String generateSource(String baseProject, int project, int file) {
+		StringBuilder buf = new StringBuilder();
+		buf.append("#include \"../").append(baseProject).append("/base.h\"\n");
+		buf.append("namespace ns").append(project).append(" {\n");
+		for (int c = 0; c < CLASSES; c++) {
+			String name = "Class" + file + "_" + c;
+			buf.append("class ").append(name).append(" : public Base {\n");
+			buf.append("public:\n  int field;\n  void method").append(c).append("() { baseFunc(*this); }\n");
+			buf.append("};\n");
+		}
+		buf.append("}\n");
+		return buf.toString();
+	}
+
+	public void testParallelQueries() throws Exception {
+		final IBinding base = fIndex.findBindings("Base".toCharArray(), IndexFilter.ALL, npm())[0];
+		final IBinding baseFunc = fIndex.findBindings("baseFunc".toCharArray(), IndexFilter.ALL, npm())[0];
+		final Pattern pattern = Pattern.compile("Class[0-9]_1.*");
+
+		System.out.println("Index queries on " + (PROJECTS + 1) + " projects with " + CLASSES * 4 +
+				" classes each:");
+		measure("findBindings(Pattern)", () ->
+				fIndex.findBindings(pattern, false, IndexFilter.ALL, npm()).length);
+		measure("findBindings(char[])", () ->
+				fIndex.findBindings("baseFunc".toCharArray(), false, IndexFilter.ALL, npm()).length);
+		measure("findBindingsForPrefix", () ->
+				fIndex.findBindingsForPrefix("Class1".toCharArray(), false, IndexFilter.ALL, npm()).length);
+		measure("findReferences", () -> fIndex.findReferences(baseFunc).length);
+		measure("findNames", () -> fIndex.findNames(base, IIndex.FIND_ALL_OCCURRENCES).length);
+		measure("findIncludedBy", () -> fIndex.findIncludedBy(fBaseHeader).length);
+	}
+
+	private void measure(String label, Query query) throws Exception {
+		boolean wasEnabled = FragmentQueryExecutor.isEnabled();
+		try {
+			long[] times = new long[2];
+			int[] counts = new int[2];
+			for (int mode = 0; mode < 2; mode++) {
+				FragmentQueryExecutor.setEnabled(mode == 1);
+				query.run();  // Warm up.
+				long start = System.nanoTime();
+				for (int i = 0; i < ITERATIONS; i++) {
+					counts[mode] = query.run();
+				}
+				times[mode] = (System.nanoTime() - start) / ITERATIONS;
+			}
+			assertEquals(label, counts[0], counts[1]);
+			System.out.println(String.format("  %-24s %6d results  sequential %8.2f ms  parallel %8.2f ms",
+					label, counts[0], times[0] / 1e6, times[1] / 1e6));
+		} finally {
+			FragmentQueryExecutor.setEnabled(wasEnabled);
+		}
+	}
+}
@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.pdom.tests;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import junit.framework.Test;
 
 import org.eclipse.cdt.core.CCorePlugin;
@@ -64,6 +67,26 @@ public class IncludesTests extends PDOMTestBase {
 		assertEquals(9, allIncludedBy.length); // i.e. all of them
 	}
 
+	public void testIncludedByTransitively() throws Exception {
+		IResource loc = project.getProject().findMember("I2.h");
+		IIndexFile file = getIndexFile((IFile) loc);
+		// Following the includes level by level yields the same includers.
+		Set<String> expected = getIncluderLocations(index.findIncludedBy(file, 100));
+		IIndexInclude[] allIncludedBy = index.findIncludedBy(file, IIndex.DEPTH_INFINITE);
+		assertEquals(expected.size(), allIncludedBy.length);
+		assertEquals(expected, getIncluderLocations(allIncludedBy));
+		// Repeated queries are answered from the cached include graph.
+		assertEquals(expected, getIncluderLocations(index.findIncludedBy(file, IIndex.DEPTH_INFINITE)));
+	}
+
+	private Set<String> getIncluderLocations(IIndexInclude[] includes) throws CoreException {
+		Set<String> result = new HashSet<>();
+		for (IIndexInclude include : includes) {
+			result.add(include.getIncludedByLocation().getFullPath());
+		}
+		return result;
+	}
+
 	public void testIncludes() throws Exception {
 		IResource loc = project.getProject().findMember("I1.cpp");
 		IIndexFile file = getIndexFile((IFile) loc);
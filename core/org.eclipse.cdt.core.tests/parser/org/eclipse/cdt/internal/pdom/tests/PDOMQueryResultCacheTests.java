@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.PDOMQueryResultCache;
+import org.eclipse.cdt.internal.core.pdom.PDOMQueryResultCache.Key;
+
+import junit.framework.Test;
+
+/**
+ * Tests for the cache of name based query results of the PDOM.
+ */
+public class PDOMQueryResultCacheTests extends BaseTestCase {
+	private PDOMQueryResultCache cache;
+
+	public static Test suite() {
+		return suite(PDOMQueryResultCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cache = new PDOMQueryResultCache();
+	}
+
+	private static Key exact(String name) {
+		return PDOMQueryResultCache.forBindings(name.toCharArray(), false, true, IndexFilter.ALL_DECLARED);
+	}
+
+	private static Key prefix(String prefix) {
+		return PDOMQueryResultCache.forPrefix(prefix.toCharArray(), false, false, false, IndexFilter.ALL);
+	}
+
+	private void write(String... changedNames) {
+		cache.beginWrite();
+		for (String name : changedNames) {
+			cache.bindingChanged(name.toCharArray());
+		}
+		cache.endWrite(false);
+	}
+
+	public void testHitsAndMisses() throws Exception {
+		assertNull(cache.get(exact("a")));
+		cache.put(exact("a"), new String[] { "a" });
+		String[] result = cache.get(exact("a"));
+		assertEquals(1, result.length);
+		// Changes to the returned array do not affect the cache.
+		result[0] = null;
+		assertEquals("a", cache.<String>get(exact("a"))[0]);
+		assertNull(cache.get(exact("b")));
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate(), 0.0);
+	}
+
+	public void testKeysIncludeFilterAndOptions() throws Exception {
+		cache.put(exact("a"), new String[0]);
+		assertNull(cache.get(PDOMQueryResultCache.forBindings("a".toCharArray(), false, true, IndexFilter.ALL)));
+		assertNull(cache.get(PDOMQueryResultCache.forBindings("a".toCharArray(), true, true, IndexFilter.ALL_DECLARED)));
+		assertNotNull(cache.get(PDOMQueryResultCache.forBindings("a".toCharArray(), false, true,
+				IndexFilter.getDeclaredBindingFilter(-1, false))));
+	}
+
+	public void testFiltersWithStateAreNotCached() throws Exception {
+		IndexFilter filter = new IndexFilter() {};
+		assertNull(PDOMQueryResultCache.forBindings("a".toCharArray(), false, true, filter));
+		assertNull(PDOMQueryResultCache.forPrefix("a".toCharArray(), false, true, false, filter));
+	}
+
+	public void testInvalidationByChangedNames() throws Exception {
+		cache.put(exact("alpha"), new String[0]);
+		cache.put(exact("beta"), new String[0]);
+		cache.put(prefix("al"), new String[0]);
+		cache.put(prefix("be"), new String[0]);
+		cache.put(PDOMQueryResultCache.forNames("gamma".toCharArray(), 42, 0), new String[0]);
+
+		write("Alpine");
+		assertNotNull(cache.get(exact("alpha")));
+		assertNull(cache.get(prefix("al")));
+		assertNotNull(cache.get(prefix("be")));
+
+		write("BETA");
+		assertNull(cache.get(exact("beta")));
+		assertNull(cache.get(prefix("be")));
+		assertNotNull(cache.get(PDOMQueryResultCache.forNames("gamma".toCharArray(), 42, 0)));
+
+		write("gamma");
+		assertNull(cache.get(PDOMQueryResultCache.forNames("gamma".toCharArray(), 42, 0)));
+		assertNotNull(cache.get(exact("alpha")));
+	}
+
+	public void testCacheIsBypassedWhileWriting() throws Exception {
+		cache.put(exact("a"), new String[0]);
+		cache.beginWrite();
+		assertNull(cache.get(exact("a")));
+		cache.put(exact("b"), new String[0]);
+		cache.endWrite(false);
+		assertNotNull(cache.get(exact("a")));
+		assertNull(cache.get(exact("b")));
+
+		cache.beginWrite();
+		cache.endWrite(true);
+		assertNull(cache.get(exact("a")));
+	}
+
+	public void testSizeIsBounded() throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			cache.put(exact("n" + i), new String[i % 10]);
+		}
+		assertTrue(cache.size() < 1000);
+		assertTrue(cache.getEvictions() > 0);
+		assertNotNull(cache.get(exact("n999")));
+		assertNull(cache.get(exact("n0")));
+	}
+}
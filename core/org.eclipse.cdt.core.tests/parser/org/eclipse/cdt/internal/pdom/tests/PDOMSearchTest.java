@@ -11,8 +11,11 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.pdom.tests;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import junit.framework.Test;
@@ -34,6 +37,7 @@ import org.eclipse.cdt.core.parser.util.StringUtil;
 import org.eclipse.cdt.internal.core.CCoreInternals;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMNameTrigramIndex;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -287,6 +291,69 @@ public class PDOMSearchTest extends PDOMTestBase {
 		assertEquals(offset("main.cpp", "int var;") + 4, loc.getNodeOffset()); // character offset
 	}
 
+	public void testRegularExpressions() throws Exception {
+		IBinding[] fields = pdom.findBindings(Pattern.compile("CLASS1.", Pattern.CASE_INSENSITIVE), false,
+				INDEX_FILTER, NULL_MONITOR);
+		assertEquals(2, fields.length);
+		Arrays.sort(fields, BINDING_COMPARATOR);
+		assertEquals("namespace1::Class1::class1x", getQualifiedName(fields[0]));
+		assertEquals("namespace1::Class1::class1y", getQualifiedName(fields[1]));
+
+		Pattern[] patterns = { Pattern.compile("namespace1"), Pattern.compile(".*lass2") };
+		IBinding[] classes = pdom.findBindings(patterns, true, INDEX_FILTER, NULL_MONITOR);
+		assertEquals(1, classes.length);
+		assertEquals("namespace1::Class2", getQualifiedName(classes[0]));
+
+		patterns = new Pattern[] { Pattern.compile("Class1"), Pattern.compile(".*lass2") };
+		classes = pdom.findBindings(patterns, false, INDEX_FILTER, NULL_MONITOR);
+		assertEquals(1, classes.length);
+		assertEquals("namespace1::Class1::Class2", getQualifiedName(classes[0]));
+	}
+
+	public void testRegularExpressionsWithAndWithoutTrigramIndex() throws Exception {
+		String[][] queries = { { ".*lass1.*" }, { ".*lass.*" }, { "Cla?ss[0-9]" }, { "~Class.*" },
+				{ ".*", "Class.*" }, { "namespace1", "Class.*" }, { "namespace.*", ".*lass2" } };
+		for (String[] query : queries) {
+			for (boolean isFullyQualified : new boolean[] { false, true }) {
+				Pattern[] patterns = new Pattern[query.length];
+				Pattern[] unindexedPatterns = new Pattern[query.length];
+				for (int i = 0; i < query.length; i++) {
+					patterns[i] = Pattern.compile(query[i]);
+					// An alternative prevents the use of the index.
+					unindexedPatterns[i] = Pattern.compile(i < query.length - 1 ? query[i] : query[i] + "|(?!)");
+				}
+				assertEquals(Arrays.toString(query),
+						getQualifiedNames(pdom.findBindings(unindexedPatterns, isFullyQualified, INDEX_FILTER, NULL_MONITOR)),
+						getQualifiedNames(pdom.findBindings(patterns, isFullyQualified, INDEX_FILTER, NULL_MONITOR)));
+			}
+		}
+	}
+
+	public void testRequiredLiteralsOfPatterns() throws Exception {
+		assertEquals("[Class]", requiredLiterals("Class.*"));
+		assertEquals("[Cla, sic]", requiredLiterals("Clas?sic"));
+		assertEquals("[lass, tmp]", requiredLiterals(".*lass[0-9]+tmp"));
+		assertEquals("[Cla, sses]", requiredLiterals("Cla(ss|ss2)sses"));
+		assertEquals("[a.b]", requiredLiterals("a\\.b"));
+		assertEquals("[]", requiredLiterals("Class1|Class2"));
+		assertEquals("[]", requiredLiterals("\\QClass\\E"));
+		assertEquals("[]", requiredLiterals("(?x)C l a s s"));
+		assertEquals("[Cla]", requiredLiterals("Clas{0,1}"));
+	}
+
+	private static String requiredLiterals(String regex) {
+		return Arrays.toString(PDOMNameTrigramIndex.getRequiredLiterals(Pattern.compile(regex)));
+	}
+
+	private String getQualifiedNames(IBinding[] bindings) throws CoreException {
+		List<String> names = new ArrayList<>();
+		for (IBinding binding : bindings) {
+			names.add(getQualifiedName(binding));
+		}
+		Collections.sort(names);
+		return names.toString();
+	}
+
 	/**
 	 * Returns the fully qualified name for a given binding.
 	 */
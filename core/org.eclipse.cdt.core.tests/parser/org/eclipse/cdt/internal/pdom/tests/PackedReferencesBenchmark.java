@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMFile;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMName;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Measures the latency of queries for the references to a binding with many references, with
+ * the packed storage of the references and with the linked list of references running through
+ * the names. The latter is what queries did before references were packed.
+ * <p>
+ * The size of the project can be adjusted with the system properties
+ * {@code cdt.benchmark.files} and {@code cdt.benchmark.references}.
+ * <p>
+ * n.b. this is intentionally not added to any test suite
+ */
+public class PackedReferencesBenchmark extends BaseTestCase {
+	private static final int FILES = Integer.getInteger("cdt.benchmark.files", 200);
+	private static final int REFERENCES = Integer.getInteger("cdt.benchmark.references", 100);
+	private static final int ITERATIONS = 20;
+
+	private ICProject cproject;
+	private PDOM pdom;
+
+	private interface Query {
+		int run() throws Exception;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cproject= CProjectHelper.createCCProject("PackedReferencesBenchmark" + System.currentTimeMillis(), "bin", IPDOMManager.ID_FAST_INDEXER);
+		IProject project= cproject.getProject();
+		TestSourceReader.createFile(project, "log.h", "void log(int);\n");
+		for (int f = 0; f < FILES; f++) {
+			StringBuilder buf= new StringBuilder();
+			buf.append("#include \"log.h\"\n");
+			buf.append("void func").append(f).append("() {\n");
+			for (int i = 0; i < REFERENCES; i++) {
+				buf.append("  log(").append(i).append(");\n");
+			}
+			buf.append("}\n");
+			TestSourceReader.createFile(project, "file" + f + ".cpp", buf.toString());
+		}
+		CCorePlugin.getIndexManager().reindex(cproject);
+		waitForIndexer(cproject);
+		pdom= (PDOM) CCoreInternals.getPDOMManager().getPDOM(cproject);
+		pdom.acquireReadLock();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (pdom != null) {
+			pdom.releaseReadLock();
+		}
+		if (cproject != null) {
+			cproject.getProject().delete(IResource.FORCE | IResource.ALWAYS_DELETE_PROJECT_CONTENT, new NullProgressMonitor());
+		}
+		super.tearDown();
+	}
+
+	public void testReferenceQueries() throws Exception {
+		final PDOMBinding binding= (PDOMBinding) pdom.findBindings(new char[][] {"log".toCharArray()},
+				IndexFilter.ALL_DECLARED, npm())[0];
+		assertTrue(binding.hasPackedReferences());
+		IIndexFile[] files= pdom.getAllFiles();
+		final PDOMFile file= (PDOMFile) files[files.length / 2];
+
+		System.out.println("Queries for " + FILES * REFERENCES + " references in " + FILES + " files:");
+		measure("all references",
+				() -> pdom.findNames(binding, IIndexFragment.FIND_REFERENCES).length,
+				() -> {
+					int count= 0;
+					for (PDOMName name= binding.getFirstReference(); name != null; name= name.getNextInBinding()) {
+						if (!name.isPotentialMatch()) {
+							count++;
+						}
+					}
+					return count;
+				});
+		measure("references in a file",
+				() -> pdom.findReferences(binding, (IIndexFragmentFile) file).length,
+				() -> {
+					int count= 0;
+					for (PDOMName name= binding.getFirstReference(); name != null; name= name.getNextInBinding()) {
+						if (!name.isPotentialMatch() && name.getFileRecord() == file.getRecord()) {
+							count++;
+						}
+					}
+					return count;
+				});
+	}
+
+	private void measure(String label, Query packed, Query list) throws Exception {
+		Query[] queries= { list, packed };
+		long[] times= new long[2];
+		int[] counts= new int[2];
+		for (int mode = 0; mode < 2; mode++) {
+			queries[mode].run();  // Warm up.
+			long start= System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				counts[mode]= queries[mode].run();
+			}
+			times[mode]= (System.nanoTime() - start) / ITERATIONS;
+		}
+		assertEquals(label, counts[0], counts[1]);
+		System.out.println(String.format("  %-24s %6d results  linked list %8.3f ms  packed %8.3f ms",
+				label, counts[0], times[0] / 1e6, times[1] / 1e6));
+	}
+}
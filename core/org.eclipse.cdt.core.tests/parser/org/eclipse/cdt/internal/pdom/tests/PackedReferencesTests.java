@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMFile;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMName;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMReferenceIndex;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import junit.framework.Test;
+
+/**
+ * Tests for the packed storage of the references to bindings with many references.
+ */
+public class PackedReferencesTests extends BaseTestCase {
+	private static final int FILES = 12;
+
+	private ICProject cproject;
+	private PDOM pdom;
+
+	public static Test suite() {
+		return suite(PackedReferencesTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cproject= CProjectHelper.createCCProject("PackedReferencesTests" + System.currentTimeMillis(), "bin", IPDOMManager.ID_FAST_INDEXER);
+		waitForIndexer(cproject);
+		pdom= (PDOM) CCoreInternals.getPDOMManager().getPDOM(cproject);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (cproject != null) {
+			cproject.getProject().delete(IResource.FORCE | IResource.ALWAYS_DELETE_PROJECT_CONTENT, new NullProgressMonitor());
+		}
+		super.tearDown();
+	}
+
+	private static String source(int file, int references) {
+		StringBuilder buf= new StringBuilder();
+		buf.append("#include \"log.h\"\n");
+		buf.append("void func").append(file).append("() {\n");
+		for (int i = 0; i < references; i++) {
+			buf.append("  log(").append(i).append(");\n");
+		}
+		buf.append("}\n");
+		return buf.toString();
+	}
+
+	private IFile createSource(int file, int references) throws Exception {
+		return TestSourceReader.createFile(cproject.getProject(), "file" + file + ".cpp", source(file, references));
+	}
+
+	private void reindex() throws Exception {
+		CCorePlugin.getIndexManager().reindex(cproject);
+		waitForIndexer(cproject);
+	}
+
+	public void testReferencesArePacked() throws Exception {
+		TestSourceReader.createFile(cproject.getProject(), "log.h", "void log(int);\n");
+		for (int i = 0; i < FILES; i++) {
+			createSource(i, 40);
+		}
+		reindex();
+		assertTrue(checkReferences(FILES * 40).hasPackedReferences());
+	}
+
+	public void testFewReferencesAreNotPacked() throws Exception {
+		TestSourceReader.createFile(cproject.getProject(), "log.h", "void log(int);\n");
+		createSource(0, PDOMReferenceIndex.PACK_THRESHOLD - 1);
+		reindex();
+		assertFalse(checkReferences(PDOMReferenceIndex.PACK_THRESHOLD - 1).hasPackedReferences());
+	}
+
+	public void testPackedReferencesAreUpdated() throws Exception {
+		TestSourceReader.createFile(cproject.getProject(), "log.h", "void log(int);\n");
+		IFile[] files= new IFile[FILES];
+		for (int i = 0; i < FILES; i++) {
+			files[i]= createSource(i, 40);
+		}
+		reindex();
+		assertTrue(checkReferences(FILES * 40).hasPackedReferences());
+
+		// Changing files replaces their references.
+		int count= FILES * 40;
+		for (int i = 0; i < FILES; i += 3) {
+			files[i]= TestSourceReader.createFile(cproject.getProject(), files[i].getName(), source(i, 10 + i));
+			count += 10 + i - 40;
+		}
+		waitForIndexer(cproject);
+		assertTrue(checkReferences(count).hasPackedReferences());
+
+		// Removing files discards the packed references once there are few enough of them.
+		for (int i = 2; i < FILES; i++) {
+			count -= i % 3 == 0 ? 10 + i : 40;
+			files[i].delete(true, npm());
+		}
+		waitForIndexer(cproject);
+		assertFalse(checkReferences(count).hasPackedReferences());
+
+		// Adding files packs the references again.
+		for (int i = 2; i < FILES; i++) {
+			files[i]= createSource(i, 40);
+			count += 40;
+		}
+		waitForIndexer(cproject);
+		assertTrue(checkReferences(count).hasPackedReferences());
+	}
+
+	/**
+	 * Compares the references obtained from the PDOM with the linked list of references of the
+	 * binding, both for the binding as a whole and for each file.
+	 */
+	private PDOMBinding checkReferences(int expectedCount) throws Exception {
+		pdom.acquireReadLock();
+		try {
+			IIndexBinding[] bindings= pdom.findBindings(new char[][] {"log".toCharArray()}, IndexFilter.ALL_DECLARED, npm());
+			assertEquals(1, bindings.length);
+			PDOMBinding binding= (PDOMBinding) bindings[0];
+			List<String> expected= new ArrayList<>();
+			for (PDOMName name= binding.getFirstReference(); name != null; name= name.getNextInBinding()) {
+				expected.add(getKey(name));
+			}
+			Collections.sort(expected);
+			assertEquals(expectedCount, expected.size());
+			assertEquals(expectedCount, binding.getReferenceCount());
+			assertEquals(expected, getKeys(pdom.findNames(binding, IIndexFragment.FIND_REFERENCES)));
+
+			for (IIndexFile file : pdom.getAllFiles()) {
+				String prefix= ((PDOMFile) file).getRecord() + ":";
+				List<String> expectedInFile= new ArrayList<>();
+				for (String key : expected) {
+					if (key.startsWith(prefix)) {
+						expectedInFile.add(key);
+					}
+				}
+				assertEquals(expectedInFile, getKeys(pdom.findReferences(binding, (IIndexFragmentFile) file)));
+			}
+			return binding;
+		} finally {
+			pdom.releaseReadLock();
+		}
+	}
+
+	private static String getKey(PDOMName name) throws Exception {
+		return name.getFileRecord() + ":" + name.getNodeOffset();
+	}
+
+	private static List<String> getKeys(IIndexName[] names) throws Exception {
+		List<String> keys= new ArrayList<>();
+		for (IIndexName name : names) {
+			keys.add(getKey((PDOMName) name));
+		}
+		Collections.sort(keys);
+		return keys;
+	}
+}
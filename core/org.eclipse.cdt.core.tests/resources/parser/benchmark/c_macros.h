@@ -0,0 +1,74 @@
+#ifndef C_MACROS_H
+#define C_MACROS_H
+
+typedef unsigned long size_t;
+
+#define CONCAT_(a, b) a##b
+#define CONCAT(a, b) CONCAT_(a, b)
+#define STRINGIFY_(x) #x
+#define STRINGIFY(x) STRINGIFY_(x)
+
+#define ARRAY_SIZE(a) (sizeof(a) / sizeof((a)[0]))
+#define MIN(a, b) ((a) < (b) ? (a) : (b))
+#define MAX(a, b) ((a) > (b) ? (a) : (b))
+#define CLAMP(x, lo, hi) MIN(MAX(x, lo), hi)
+#define ALIGN_UP(x, a) (((x) + ((a) - 1)) & ~((a) - 1))
+#define BIT(n) (1UL << (n))
+#define GENMASK(h, l) (((~0UL) << (l)) & (~0UL >> (sizeof(long) * 8 - 1 - (h))))
+#define FIELD_GET(mask, reg) (((reg) & (mask)) >> __builtin_ctzl(mask))
+
+#define LOG_LEVEL_ERROR 0
+#define LOG_LEVEL_WARN 1
+#define LOG_LEVEL_INFO 2
+#define LOG_LEVEL_DEBUG 3
+#ifndef LOG_LEVEL
+#define LOG_LEVEL LOG_LEVEL_INFO
+#endif
+
+int log_printf(int level, const char *file, int line, const char *fmt, ...);
+#define LOG(level, ...) \
+	do { \
+		if ((level) <= LOG_LEVEL) \
+			log_printf(level, __FILE__, __LINE__, __VA_ARGS__); \
+	} while (0)
+#define LOG_ERROR(...) LOG(LOG_LEVEL_ERROR, __VA_ARGS__)
+#define LOG_WARN(...) LOG(LOG_LEVEL_WARN, __VA_ARGS__)
+#define LOG_INFO(...) LOG(LOG_LEVEL_INFO, __VA_ARGS__)
+#define LOG_DEBUG(...) LOG(LOG_LEVEL_DEBUG, __VA_ARGS__)
+
+#define CHECK(cond, ret) \
+	do { \
+		if (!(cond)) { \
+			LOG_ERROR("check failed: %s", STRINGIFY(cond)); \
+			return ret; \
+		} \
+	} while (0)
+
+#define container_of(ptr, type, member) \
+	((type *)((char *)(ptr) - __builtin_offsetof(type, member)))
+
+struct list_head {
+	struct list_head *next, *prev;
+};
+
+#define LIST_HEAD_INIT(name) { &(name), &(name) }
+#define list_entry(ptr, type, member) container_of(ptr, type, member)
+#define list_for_each(pos, head) \
+	for (pos = (head)->next; pos != (head); pos = pos->next)
+#define list_for_each_entry(pos, head, type, member) \
+	for (pos = list_entry((head)->next, type, member); \
+	     &pos->member != (head); \
+	     pos = list_entry(pos->member.next, type, member))
+
+#define DECLARE_GETTER(type, field) \
+	static inline type CONCAT(get_, field)(const struct record *r) { return r->field; }
+#define DECLARE_SETTER(type, field) \
+	static inline void CONCAT(set_, field)(struct record *r, type v) { r->field = v; }
+#define DECLARE_ACCESSORS(type, field) DECLARE_GETTER(type, field) DECLARE_SETTER(type, field)
+
+#define REPEAT_2(m, x) m(x##0) m(x##1)
+#define REPEAT_4(m, x) REPEAT_2(m, x##0) REPEAT_2(m, x##1)
+#define REPEAT_8(m, x) REPEAT_4(m, x##0) REPEAT_4(m, x##1)
+#define REPEAT_16(m, x) REPEAT_8(m, x##0) REPEAT_8(m, x##1)
+
+#endif /* C_MACROS_H */
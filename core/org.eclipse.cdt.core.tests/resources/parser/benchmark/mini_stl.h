@@ -0,0 +1,419 @@
+#ifndef MINI_STL_H
+#define MINI_STL_H
+
+typedef unsigned long size_t;
+typedef long ptrdiff_t;
+
+namespace std {
+
+template<typename T, T v>
+struct integral_constant {
+	static constexpr T value = v;
+	typedef T value_type;
+	typedef integral_constant type;
+	constexpr operator value_type() const { return value; }
+};
+typedef integral_constant<bool, true> true_type;
+typedef integral_constant<bool, false> false_type;
+
+template<typename T, typename U> struct is_same : false_type {};
+template<typename T> struct is_same<T, T> : true_type {};
+
+template<typename T> struct remove_reference { typedef T type; };
+template<typename T> struct remove_reference<T&> { typedef T type; };
+template<typename T> struct remove_reference<T&&> { typedef T type; };
+
+template<typename T> struct remove_const { typedef T type; };
+template<typename T> struct remove_const<const T> { typedef T type; };
+
+template<typename T> struct is_integral : false_type {};
+template<> struct is_integral<int> : true_type {};
+template<> struct is_integral<long> : true_type {};
+template<> struct is_integral<unsigned> : true_type {};
+template<> struct is_integral<char> : true_type {};
+
+template<bool B, typename T = void> struct enable_if {};
+template<typename T> struct enable_if<true, T> { typedef T type; };
+
+template<bool B, typename T, typename F> struct conditional { typedef T type; };
+template<typename T, typename F> struct conditional<false, T, F> { typedef F type; };
+
+template<typename T>
+constexpr T&& forward(typename remove_reference<T>::type& t) noexcept {
+	return static_cast<T&&>(t);
+}
+
+template<typename T>
+constexpr typename remove_reference<T>::type&& move(T&& t) noexcept {
+	return static_cast<typename remove_reference<T>::type&&>(t);
+}
+
+template<typename T>
+void swap(T& a, T& b) {
+	T tmp = move(a);
+	a = move(b);
+	b = move(tmp);
+}
+
+template<typename T1, typename T2>
+struct pair {
+	typedef T1 first_type;
+	typedef T2 second_type;
+	T1 first;
+	T2 second;
+	pair() : first(), second() {}
+	pair(const T1& a, const T2& b) : first(a), second(b) {}
+	template<typename U1, typename U2>
+	pair(const pair<U1, U2>& p) : first(p.first), second(p.second) {}
+};
+
+template<typename T1, typename T2>
+pair<T1, T2> make_pair(T1 a, T2 b) {
+	return pair<T1, T2>(a, b);
+}
+
+template<typename T1, typename T2>
+bool operator==(const pair<T1, T2>& a, const pair<T1, T2>& b) {
+	return a.first == b.first && a.second == b.second;
+}
+
+template<typename T1, typename T2>
+bool operator<(const pair<T1, T2>& a, const pair<T1, T2>& b) {
+	return a.first < b.first || (!(b.first < a.first) && a.second < b.second);
+}
+
+template<typename T>
+struct less {
+	bool operator()(const T& a, const T& b) const { return a < b; }
+};
+
+template<typename T>
+class allocator {
+public:
+	typedef T value_type;
+	typedef T* pointer;
+	typedef const T* const_pointer;
+	typedef T& reference;
+	typedef const T& const_reference;
+	typedef size_t size_type;
+	template<typename U> struct rebind { typedef allocator<U> other; };
+	pointer allocate(size_type n);
+	void deallocate(pointer p, size_type n);
+	template<typename U, typename... Args>
+	void construct(U* p, Args&&... args);
+	template<typename U>
+	void destroy(U* p);
+};
+
+struct input_iterator_tag {};
+struct forward_iterator_tag : input_iterator_tag {};
+struct bidirectional_iterator_tag : forward_iterator_tag {};
+struct random_access_iterator_tag : bidirectional_iterator_tag {};
+
+template<typename It>
+struct iterator_traits {
+	typedef typename It::iterator_category iterator_category;
+	typedef typename It::value_type value_type;
+	typedef typename It::difference_type difference_type;
+	typedef typename It::pointer pointer;
+	typedef typename It::reference reference;
+};
+
+template<typename T>
+struct iterator_traits<T*> {
+	typedef random_access_iterator_tag iterator_category;
+	typedef T value_type;
+	typedef ptrdiff_t difference_type;
+	typedef T* pointer;
+	typedef T& reference;
+};
+
+template<typename It>
+typename iterator_traits<It>::difference_type distance(It first, It last) {
+	typename iterator_traits<It>::difference_type n = 0;
+	for (; first != last; ++first)
+		++n;
+	return n;
+}
+
+template<typename T, typename Alloc = allocator<T> >
+class vector {
+public:
+	typedef T value_type;
+	typedef Alloc allocator_type;
+	typedef size_t size_type;
+	typedef T& reference;
+	typedef const T& const_reference;
+	typedef T* iterator;
+	typedef const T* const_iterator;
+
+	vector() : fBegin(0), fEnd(0), fCap(0) {}
+	explicit vector(size_type n);
+	vector(size_type n, const T& value);
+	vector(const vector& other);
+	vector(vector&& other) noexcept;
+	~vector();
+	vector& operator=(const vector& other);
+
+	iterator begin() { return fBegin; }
+	iterator end() { return fEnd; }
+	const_iterator begin() const { return fBegin; }
+	const_iterator end() const { return fEnd; }
+	size_type size() const { return fEnd - fBegin; }
+	bool empty() const { return fBegin == fEnd; }
+	reference operator[](size_type i) { return fBegin[i]; }
+	const_reference operator[](size_type i) const { return fBegin[i]; }
+	reference front() { return *fBegin; }
+	reference back() { return *(fEnd - 1); }
+	void push_back(const T& value);
+	void push_back(T&& value);
+	template<typename... Args>
+	reference emplace_back(Args&&... args);
+	void pop_back() { --fEnd; }
+	void reserve(size_type n);
+	void resize(size_type n);
+	void clear() { fEnd = fBegin; }
+	iterator insert(const_iterator pos, const T& value);
+	iterator erase(const_iterator pos);
+
+private:
+	T* fBegin;
+	T* fEnd;
+	T* fCap;
+};
+
+template<typename T>
+struct list_node {
+	list_node* next;
+	list_node* prev;
+	T value;
+};
+
+template<typename T>
+class list_iterator {
+public:
+	typedef bidirectional_iterator_tag iterator_category;
+	typedef T value_type;
+	typedef ptrdiff_t difference_type;
+	typedef T* pointer;
+	typedef T& reference;
+	explicit list_iterator(list_node<T>* n) : fNode(n) {}
+	reference operator*() const { return fNode->value; }
+	pointer operator->() const { return &fNode->value; }
+	list_iterator& operator++() { fNode = fNode->next; return *this; }
+	list_iterator& operator--() { fNode = fNode->prev; return *this; }
+	bool operator==(const list_iterator& o) const { return fNode == o.fNode; }
+	bool operator!=(const list_iterator& o) const { return fNode != o.fNode; }
+private:
+	list_node<T>* fNode;
+};
+
+template<typename T, typename Alloc = allocator<T> >
+class list {
+public:
+	typedef T value_type;
+	typedef list_iterator<T> iterator;
+	typedef size_t size_type;
+	iterator begin();
+	iterator end();
+	size_type size() const;
+	void push_back(const T& value);
+	void push_front(const T& value);
+	template<typename Compare>
+	void sort(Compare comp);
+};
+
+template<typename K, typename V>
+struct map_node {
+	map_node* left;
+	map_node* right;
+	map_node* parent;
+	pair<const K, V> value;
+};
+
+template<typename K, typename V>
+class map_iterator {
+public:
+	typedef bidirectional_iterator_tag iterator_category;
+	typedef pair<const K, V> value_type;
+	typedef ptrdiff_t difference_type;
+	typedef value_type* pointer;
+	typedef value_type& reference;
+	reference operator*() const { return fNode->value; }
+	pointer operator->() const { return &fNode->value; }
+	map_iterator& operator++();
+	bool operator==(const map_iterator& o) const { return fNode == o.fNode; }
+	bool operator!=(const map_iterator& o) const { return fNode != o.fNode; }
+private:
+	map_node<K, V>* fNode;
+};
+
+template<typename K, typename V, typename Compare = less<K>,
+		typename Alloc = allocator<pair<const K, V> > >
+class map {
+public:
+	typedef K key_type;
+	typedef V mapped_type;
+	typedef pair<const K, V> value_type;
+	typedef map_iterator<K, V> iterator;
+	typedef size_t size_type;
+	iterator begin();
+	iterator end();
+	iterator find(const K& key);
+	size_type count(const K& key) const;
+	size_type size() const;
+	V& operator[](const K& key);
+	pair<iterator, bool> insert(const value_type& value);
+	size_type erase(const K& key);
+};
+
+template<typename C>
+struct char_traits {
+	typedef C char_type;
+	static size_t length(const C* s) {
+		size_t n = 0;
+		while (s[n])
+			++n;
+		return n;
+	}
+	static int compare(const C* a, const C* b, size_t n);
+};
+
+template<typename C, typename Traits = char_traits<C>, typename Alloc = allocator<C> >
+class basic_string {
+public:
+	typedef C value_type;
+	typedef size_t size_type;
+	typedef C* iterator;
+	typedef const C* const_iterator;
+	static const size_type npos = static_cast<size_type>(-1);
+	basic_string();
+	basic_string(const C* s);
+	basic_string(const basic_string& other);
+	basic_string(basic_string&& other) noexcept;
+	basic_string& operator=(const basic_string& other);
+	basic_string& operator+=(const basic_string& other);
+	basic_string& operator+=(C c);
+	const C* c_str() const;
+	size_type size() const;
+	size_type length() const { return size(); }
+	bool empty() const { return size() == 0; }
+	iterator begin();
+	iterator end();
+	size_type find(const basic_string& s, size_type pos = 0) const;
+	basic_string substr(size_type pos, size_type n = npos) const;
+	int compare(const basic_string& other) const;
+};
+
+template<typename C, typename T, typename A>
+basic_string<C, T, A> operator+(const basic_string<C, T, A>& a, const basic_string<C, T, A>& b);
+template<typename C, typename T, typename A>
+bool operator==(const basic_string<C, T, A>& a, const basic_string<C, T, A>& b);
+template<typename C, typename T, typename A>
+bool operator<(const basic_string<C, T, A>& a, const basic_string<C, T, A>& b);
+
+typedef basic_string<char> string;
+
+class ostream {
+public:
+	ostream& operator<<(int v);
+	ostream& operator<<(long v);
+	ostream& operator<<(unsigned v);
+	ostream& operator<<(double v);
+	ostream& operator<<(bool v);
+	ostream& operator<<(const void* p);
+	ostream& operator<<(ostream& (*manip)(ostream&));
+};
+ostream& operator<<(ostream& os, char c);
+ostream& operator<<(ostream& os, const char* s);
+template<typename C, typename T, typename A>
+ostream& operator<<(ostream& os, const basic_string<C, T, A>& s);
+ostream& endl(ostream& os);
+extern ostream cout;
+extern ostream cerr;
+
+template<typename T>
+struct default_delete {
+	void operator()(T* p) const { delete p; }
+};
+
+template<typename T, typename D = default_delete<T> >
+class unique_ptr {
+public:
+	typedef T* pointer;
+	typedef T element_type;
+	unique_ptr() : fPtr(0) {}
+	explicit unique_ptr(T* p) : fPtr(p) {}
+	unique_ptr(unique_ptr&& o) noexcept : fPtr(o.release()) {}
+	~unique_ptr() { if (fPtr) D()(fPtr); }
+	unique_ptr& operator=(unique_ptr&& o) noexcept;
+	T& operator*() const { return *fPtr; }
+	T* operator->() const { return fPtr; }
+	T* get() const { return fPtr; }
+	T* release() { T* p = fPtr; fPtr = 0; return p; }
+	explicit operator bool() const { return fPtr != 0; }
+private:
+	T* fPtr;
+};
+
+template<typename T, typename... Args>
+unique_ptr<T> make_unique(Args&&... args) {
+	return unique_ptr<T>(new T(forward<Args>(args)...));
+}
+
+template<typename It, typename F>
+F for_each(It first, It last, F f) {
+	for (; first != last; ++first)
+		f(*first);
+	return f;
+}
+
+template<typename It, typename P>
+It find_if(It first, It last, P pred) {
+	for (; first != last; ++first) {
+		if (pred(*first))
+			return first;
+	}
+	return last;
+}
+
+template<typename It, typename T>
+It find(It first, It last, const T& value) {
+	for (; first != last; ++first) {
+		if (*first == value)
+			return first;
+	}
+	return last;
+}
+
+template<typename It, typename Out, typename F>
+Out transform(It first, It last, Out out, F f) {
+	for (; first != last; ++first, ++out)
+		*out = f(*first);
+	return out;
+}
+
+template<typename It, typename T>
+T accumulate(It first, It last, T init) {
+	for (; first != last; ++first)
+		init = init + *first;
+	return init;
+}
+
+template<typename It, typename Compare>
+void sort(It first, It last, Compare comp);
+
+template<typename It>
+void sort(It first, It last) {
+	sort(first, last, less<typename iterator_traits<It>::value_type>());
+}
+
+template<typename T>
+const T& min(const T& a, const T& b) { return b < a ? b : a; }
+
+template<typename T>
+const T& max(const T& a, const T& b) { return a < b ? b : a; }
+
+} // namespace std
+
+#endif // MINI_STL_H
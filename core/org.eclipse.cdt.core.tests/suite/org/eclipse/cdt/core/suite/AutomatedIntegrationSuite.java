@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.eclipse.cdt.core.suite;
 
+import org.eclipse.cdt.core.build.ScannerInfoCacheTest;
 import org.eclipse.cdt.core.cdescriptor.tests.CDescriptorOldTests;
 import org.eclipse.cdt.core.cdescriptor.tests.CDescriptorTests;
 import org.eclipse.cdt.core.envvar.IEnvironmentVariableManagerTests;
@@ -31,13 +32,19 @@ import org.eclipse.cdt.core.preferences.tests.TestScopeOfBuildConfigResourceChan
 import org.eclipse.cdt.core.resources.tests.RefreshScopeTests;
 import org.eclipse.cdt.internal.index.tests.IndexTests;
 import org.eclipse.cdt.internal.pdom.tests.PDOMTests;
+import org.eclipse.cdt.utils.BinaryMetadataCacheTest;
 import org.eclipse.cdt.utils.ByteUtilsTest;
 import org.eclipse.cdt.utils.CdtVariableResolverTest;
 import org.eclipse.cdt.utils.CommandLineUtilTest;
+import org.eclipse.cdt.utils.DefaultGnuToolFactoryTest;
 import org.eclipse.cdt.utils.FindProgramLocationTest;
+import org.eclipse.cdt.utils.ItaniumDemanglerTest;
 import org.eclipse.cdt.utils.StorableCdtVariablesTest;
 import org.eclipse.cdt.utils.UNCPathConverterTest;
+import org.eclipse.cdt.utils.VariableResolutionCacheTest;
 import org.eclipse.cdt.utils.WeakHashSetTest;
+import org.eclipse.cdt.utils.debug.dwarf.DwarfLineTableTest;
+import org.eclipse.cdt.utils.elf.ElfSymbolTableTest;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -85,11 +92,18 @@ public class AutomatedIntegrationSuite extends TestSuite {
 		suite.addTest(RewriteTests.suite());
 		suite.addTest(CdtVariableResolverTest.suite());
 		suite.addTest(StorableCdtVariablesTest.suite());
+		suite.addTest(VariableResolutionCacheTest.suite());
 		suite.addTest(CommandLineUtilTest.suite());
 		suite.addTest(WeakHashSetTest.suite());
 		suite.addTest(FindProgramLocationTest.suite());
 		suite.addTest(EFSExtensionTests.suite());
 		suite.addTest(ByteUtilsTest.suite());
+		suite.addTest(ElfSymbolTableTest.suite());
+		suite.addTest(DwarfLineTableTest.suite());
+		suite.addTest(ItaniumDemanglerTest.suite());
+		suite.addTest(DefaultGnuToolFactoryTest.suite());
+		suite.addTest(BinaryMetadataCacheTest.suite());
+		suite.addTest(ScannerInfoCacheTest.suite());
 		suite.addTest(UNCPathConverterTest.suite());
 		suite.addTest(TestScopeOfBuildConfigResourceChangesPreference.suite());
 
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.cdt.core.language.settings.providers;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -18,10 +19,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.RandomAccess;
 import java.util.Set;
 
 import org.eclipse.cdt.core.settings.model.ICLanguageSettingEntry;
 import org.eclipse.cdt.core.settings.model.ICSettingEntry;
+import org.eclipse.cdt.core.settings.model.util.CDataUtil;
 import org.eclipse.cdt.internal.core.WeakHashSet;
 import org.eclipse.cdt.internal.core.WeakHashSetSynchronized;
 
@@ -43,6 +46,49 @@ public class LanguageSettingsStorage implements Cloneable {
 	 */
 	private static WeakHashSet<List<ICLanguageSettingEntry>> listPool = new WeakHashSetSynchronized<List<ICLanguageSettingEntry>>();
 
+	/**
+	 * Immutable list of pooled entries as kept in the pool. The hash code is computed once, so that
+	 * looking up a list shared by many resources does not iterate the entries again and again.
+	 */
+	private static final class PooledList extends AbstractList<ICLanguageSettingEntry> implements RandomAccess {
+		private final ICLanguageSettingEntry[] fEntries;
+		private final int fHashCode;
+		private final boolean fSorted;
+
+		PooledList(List<ICLanguageSettingEntry> entries, boolean sorted) {
+			fEntries = new ICLanguageSettingEntry[entries.size()];
+			for (int i = 0; i < fEntries.length; i++) {
+				fEntries[i] = CDataUtil.getPooledEntry(entries.get(i));
+			}
+			fHashCode = super.hashCode();
+			fSorted = sorted;
+		}
+
+		@Override
+		public ICLanguageSettingEntry get(int index) {
+			return fEntries[index];
+		}
+
+		@Override
+		public int size() {
+			return fEntries.length;
+		}
+
+		@Override
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this)
+				return true;
+			if (obj instanceof PooledList && ((PooledList) obj).fHashCode != fHashCode)
+				return false;
+			return super.equals(obj);
+		}
+	}
+
 	/**
 	 * Returns the list of setting entries for the given resource and language.
 	 * <br> Note that this list is <b>unmodifiable</b>.
@@ -107,7 +153,13 @@ public class LanguageSettingsStorage implements Cloneable {
 					langMap = new HashMap<String, List<ICLanguageSettingEntry>>();
 					fStorage.put(languageId, langMap);
 				}
-				List<ICLanguageSettingEntry> sortedEntries = getPooledList(sortEntries(entries), false);
+				List<ICLanguageSettingEntry> sortedEntries;
+				if (entries instanceof PooledList && ((PooledList) entries).fSorted) {
+					// the list is shared with other resources, it is sorted and pooled already
+					sortedEntries = ((PooledList) entries);
+				} else {
+					sortedEntries = getPooledList(sortEntries(entries), true);
+				}
 				langMap.put(rcProjectPath, sortedEntries);
 			} else {
 				// reduct the empty maps in the tables
@@ -164,14 +216,14 @@ public class LanguageSettingsStorage implements Cloneable {
 	}
 
 	/**
-	 * Find and return the equal list of entries from the pool.
+	 * Find and return the equal list of entries from the pool. The entries of a list added to the pool
+	 * are pooled as well, see {@link CDataUtil#getPooledEntry(ICSettingEntry)}.
 	 *
 	 * @param entries - list of entries to pool.
-	 * @param copy - specify {@code true} to copy the list in order to prevent
-	 *    back-door modification on the original list changes.
+	 * @param sorted - specify {@code true} if the entries are sorted by {@link #sortEntries(List)}.
 	 * @return returns the list of entries from the pool.
 	 */
-	private static List<ICLanguageSettingEntry> getPooledList(List<ICLanguageSettingEntry> entries, boolean copy) {
+	private static List<ICLanguageSettingEntry> getPooledList(List<ICLanguageSettingEntry> entries, boolean sorted) {
 		if (entries == null)
 			return null;
 
@@ -184,11 +236,8 @@ public class LanguageSettingsStorage implements Cloneable {
 			return getPooledEmptyList();
 		}
 
-		if (copy) {
-			entries = new ArrayList<ICLanguageSettingEntry>(entries);
-		}
-		pooledList = Collections.unmodifiableList(entries);
-		return listPool.add(pooledList);
+		// the list is copied to prevent back-door modification on the original list changes
+		return listPool.add(new PooledList(entries, sorted));
 	}
 
 	/**
@@ -198,7 +247,7 @@ public class LanguageSettingsStorage implements Cloneable {
 	 * @return returns the list of entries from the pool.
 	 */
 	public static List<ICLanguageSettingEntry> getPooledList(List<ICLanguageSettingEntry> entries) {
-		return getPooledList(entries, true);
+		return getPooledList(entries, false);
 	}
 
 	/**
@@ -11,6 +11,7 @@
 package org.eclipse.cdt.internal.core.language.settings.providers;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,6 +34,9 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 	private static final String ATTR_LANGUAGE_ID = "id"; //$NON-NLS-1$
 	private static final String ELEM_RESOURCE = "resource"; //$NON-NLS-1$
 	private static final String ATTR_PROJECT_PATH = "project-relative-path"; //$NON-NLS-1$
+	private static final String ELEM_SHARED_ENTRIES = "shared-entries"; //$NON-NLS-1$
+	private static final String ATTR_SHARED_ID = "id"; //$NON-NLS-1$
+	private static final String ATTR_SHARED_ENTRIES = "shared-entries"; //$NON-NLS-1$
 
 	private static final String ELEM_ENTRY = LanguageSettingsExtensionManager.ELEM_ENTRY;
 	private static final String ATTR_ENTRY_KIND = LanguageSettingsExtensionManager.ATTR_ENTRY_KIND;
@@ -40,6 +44,25 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 	private static final String ATTR_ENTRY_VALUE = LanguageSettingsExtensionManager.ATTR_ENTRY_VALUE;
 	private static final String ELEM_ENTRY_FLAG = LanguageSettingsExtensionManager.ELEM_ENTRY_FLAG;
 
+	/**
+	 * Whether lists of entries used by several resources are written once and referenced by the
+	 * resources. Older versions do not understand the references and lose such entries, so the
+	 * sharing has to be turned on by setting the system property
+	 * <code>CDT_SHARED_LANGUAGE_SETTINGS</code> to <code>true</code>. The shared format is always read.
+	 */
+	private static volatile boolean sShareEntries = Boolean.parseBoolean(System.getProperty("CDT_SHARED_LANGUAGE_SETTINGS", "false")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Enables or disables writing lists of entries used by several resources once.
+	 */
+	public static void setShareEntries(boolean share) {
+		sShareEntries = share;
+	}
+
+	public static boolean isShareEntries() {
+		return sShareEntries;
+	}
+
 	/**
 	 * Serialize the provider entries under parent XML element.
 	 *
@@ -47,31 +70,72 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 	 */
 	public void serializeEntries(Element elementProvider) {
 		synchronized (fStorage) {
+			Map<List<ICLanguageSettingEntry>, String> sharedIds = sShareEntries ? serializeSharedEntries(elementProvider) : null;
 			for (Entry<String, Map<String, List<ICLanguageSettingEntry>>> entryLang : fStorage.entrySet()) {
-				serializeLanguage(elementProvider, entryLang.getKey(), entryLang.getValue());
+				serializeLanguage(elementProvider, entryLang.getKey(), entryLang.getValue(), sharedIds);
+			}
+		}
+	}
+
+	/**
+	 * Serialize the lists of entries used by more than one resource.
+	 *
+	 * @return map of the serialized lists to their ids.
+	 */
+	private Map<List<ICLanguageSettingEntry>, String> serializeSharedEntries(Element parentElement) {
+		// the lists are pooled, so that equal lists are found quickly
+		Map<List<ICLanguageSettingEntry>, Integer> counts = new HashMap<List<ICLanguageSettingEntry>, Integer>();
+		for (Map<String, List<ICLanguageSettingEntry>> langMap : fStorage.values()) {
+			for (Entry<String, List<ICLanguageSettingEntry>> entryRc : langMap.entrySet()) {
+				List<ICLanguageSettingEntry> rcList = entryRc.getValue();
+				if (entryRc.getKey() != null && !rcList.isEmpty()) {
+					Integer count = counts.get(rcList);
+					counts.put(rcList, count == null ? 1 : count + 1);
+				}
+			}
+		}
+
+		Map<List<ICLanguageSettingEntry>, String> sharedIds = new HashMap<List<ICLanguageSettingEntry>, String>();
+		for (Map<String, List<ICLanguageSettingEntry>> langMap : fStorage.values()) {
+			for (List<ICLanguageSettingEntry> rcList : langMap.values()) {
+				Integer count = counts.get(rcList);
+				if (count != null && count > 1 && !sharedIds.containsKey(rcList)) {
+					String id = Integer.toString(sharedIds.size());
+					Element elementShared = XmlUtil.appendElement(parentElement, ELEM_SHARED_ENTRIES, new String[] {ATTR_SHARED_ID, id});
+					serializeSettingEntries(elementShared, rcList);
+					sharedIds.put(rcList, id);
+				}
 			}
 		}
+		return sharedIds;
 	}
 
 	/**
 	 * Serialize the provider entries for a given language list.
 	 */
-	private void serializeLanguage(Element parentElement, String langId, Map<String, List<ICLanguageSettingEntry>> langMap) {
+	private void serializeLanguage(Element parentElement, String langId, Map<String, List<ICLanguageSettingEntry>> langMap,
+			Map<List<ICLanguageSettingEntry>, String> sharedIds) {
 		if (langId!=null) {
 			Element elementLanguage = XmlUtil.appendElement(parentElement, ELEM_LANGUAGE, new String[] {ATTR_LANGUAGE_ID, langId});
 			parentElement = elementLanguage;
 		}
 		for (Entry<String, List<ICLanguageSettingEntry>> entryRc : langMap.entrySet()) {
-			serializeResource(parentElement, entryRc.getKey(), entryRc.getValue());
+			serializeResource(parentElement, entryRc.getKey(), entryRc.getValue(), sharedIds);
 		}
 	}
 
 	/**
 	 * Serialize the provider entries for a given resource list.
 	 */
-	private void serializeResource(Element parentElement, String rcProjectPath, List<ICLanguageSettingEntry> rcList) {
+	private void serializeResource(Element parentElement, String rcProjectPath, List<ICLanguageSettingEntry> rcList,
+			Map<List<ICLanguageSettingEntry>, String> sharedIds) {
 		if (rcProjectPath!=null) {
 			Element elementRc = XmlUtil.appendElement(parentElement, ELEM_RESOURCE, new String[] {ATTR_PROJECT_PATH, rcProjectPath});
+			String sharedId = sharedIds != null ? sharedIds.get(rcList) : null;
+			if (sharedId != null) {
+				elementRc.setAttribute(ATTR_SHARED_ENTRIES, sharedId);
+				return;
+			}
 			parentElement = elementRc;
 		}
 		serializeSettingEntries(parentElement, rcList);
@@ -111,6 +175,7 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 	 */
 	public void loadEntries(Element providerNode) {
 		List<ICLanguageSettingEntry> settings = new ArrayList<ICLanguageSettingEntry>();
+		Map<String, List<ICLanguageSettingEntry>> sharedEntries = loadSharedEntries(providerNode);
 		NodeList nodes = providerNode.getChildNodes();
 		for (int i=0;i<nodes.getLength();i++) {
 			Node elementNode = nodes.item(i);
@@ -118,9 +183,9 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 				continue;
 
 			if (ELEM_LANGUAGE.equals(elementNode.getNodeName())) {
-				loadLanguageElement(elementNode, null);
+				loadLanguageElement(elementNode, null, sharedEntries);
 			} else if (ELEM_RESOURCE.equals(elementNode.getNodeName())) {
-				loadResourceElement(elementNode, null, null);
+				loadResourceElement(elementNode, null, null, sharedEntries);
 			} else if (ELEM_ENTRY.equals(elementNode.getNodeName())) {
 				ICLanguageSettingEntry entry = loadSettingEntry(elementNode);
 				if (entry!=null) {
@@ -134,6 +199,35 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 		}
 	}
 
+	/**
+	 * Load the lists of entries shared by several resources.
+	 *
+	 * @return map of the shared lists by their ids.
+	 */
+	private Map<String, List<ICLanguageSettingEntry>> loadSharedEntries(Element providerNode) {
+		Map<String, List<ICLanguageSettingEntry>> sharedEntries = new HashMap<String, List<ICLanguageSettingEntry>>();
+		NodeList nodes = providerNode.getChildNodes();
+		for (int i=0;i<nodes.getLength();i++) {
+			Node elementNode = nodes.item(i);
+			if (elementNode.getNodeType() != Node.ELEMENT_NODE || !ELEM_SHARED_ENTRIES.equals(elementNode.getNodeName()))
+				continue;
+
+			List<ICLanguageSettingEntry> settings = new ArrayList<ICLanguageSettingEntry>();
+			NodeList entryNodes = elementNode.getChildNodes();
+			for (int j=0;j<entryNodes.getLength();j++) {
+				Node entryNode = entryNodes.item(j);
+				if (entryNode.getNodeType() == Node.ELEMENT_NODE && ELEM_ENTRY.equals(entryNode.getNodeName())) {
+					ICLanguageSettingEntry entry = loadSettingEntry(entryNode);
+					if (entry!=null) {
+						settings.add(entry);
+					}
+				}
+			}
+			sharedEntries.put(XmlUtil.determineAttributeValue(elementNode, ATTR_SHARED_ID), settings);
+		}
+		return sharedEntries;
+	}
+
 	/**
 	 * Load a setting entry from XML element.
 	 */
@@ -165,7 +259,7 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 	/**
 	 * Load entries defined in language element.
 	 */
-	private void loadLanguageElement(Node parentNode, String cfgId) {
+	private void loadLanguageElement(Node parentNode, String cfgId, Map<String, List<ICLanguageSettingEntry>> sharedEntries) {
 		String langId = XmlUtil.determineAttributeValue(parentNode, ATTR_LANGUAGE_ID);
 		if (langId.length() == 0) {
 			langId=null;
@@ -179,7 +273,7 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 				continue;
 
 			if (ELEM_RESOURCE.equals(elementNode.getNodeName())) {
-				loadResourceElement(elementNode, cfgId, langId);
+				loadResourceElement(elementNode, cfgId, langId, sharedEntries);
 			} else if (ELEM_ENTRY.equals(elementNode.getNodeName())) {
 				ICLanguageSettingEntry entry = loadSettingEntry(elementNode);
 				if (entry!=null) {
@@ -196,9 +290,20 @@ public class LanguageSettingsSerializableStorage extends LanguageSettingsStorage
 	/**
 	 * Load entries defined in resource element.
 	 */
-	private void loadResourceElement(Node parentNode, String cfgId, String langId) {
+	private void loadResourceElement(Node parentNode, String cfgId, String langId, Map<String, List<ICLanguageSettingEntry>> sharedEntries) {
 		String rcProjectPath = XmlUtil.determineAttributeValue(parentNode, ATTR_PROJECT_PATH);
 
+		String sharedId = XmlUtil.determineAttributeValue(parentNode, ATTR_SHARED_ENTRIES);
+		List<ICLanguageSettingEntry> shared = sharedEntries.get(sharedId);
+		if (shared != null) {
+			if (shared.size() > 0) {
+				setSettingEntries(rcProjectPath, langId, shared);
+				// keep the pooled list, the other resources use it without sorting and pooling it again
+				sharedEntries.put(sharedId, getSettingEntries(rcProjectPath, langId));
+			}
+			return;
+		}
+
 		List<ICLanguageSettingEntry> settings = new ArrayList<ICLanguageSettingEntry>();
 		NodeList nodes = parentNode.getChildNodes();
 		for (int i=0;i<nodes.getLength();i++) {
@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.IBinaryParser;
+import org.eclipse.cdt.core.IBinaryParser.IBinaryFile;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Recognizes the binaries among the candidate files found by a {@link BinaryRunner} on a
+ * small pool of threads and adds them to the binary and archive containers of the project
+ * in batches, such that the first binaries show up before the entire project is searched.
+ * <p>
+ * The headers of the candidates are read through memory mappings (except on Windows, where
+ * a mapped file cannot be deleted until the mapping is garbage collected) and passed to
+ * {@link IBinaryParser#isBinary(byte[], IPath)}, which checks for the magic numbers of ELF,
+ * PE, Mach-O or whatever formats the configured parsers support.
+ * <p>
+ * The size and modification time of every candidate are stored in the plugin's state location
+ * together with the id of the parser that recognized it. On the next search, unchanged files
+ * that are not binaries are skipped without being read, and unchanged binaries are handed to
+ * the parser that recognized them before.
+ */
+final class BinaryDiscovery {
+	private static final int MAX_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+	private static final int QUEUE_SIZE = 256;
+	/** Number of binaries that are added to the containers at once. */
+	static final int BATCH_SIZE = 64;
+	private static final String STATE_FOLDER = "binaryRunner"; //$NON-NLS-1$
+	private static final String STATE_VERSION = "1"; //$NON-NLS-1$
+	private static final String NO_PARSER = "-"; //$NON-NLS-1$
+	private static final boolean USE_MAPPING = !Platform.OS_WIN32.equals(Platform.getOS());
+
+	/**
+	 * Size, modification time and the id of the recognizing parser of a candidate.
+	 */
+	private static final class FileState {
+		final long fSize;
+		final long fModified;
+		final String fParserId;
+
+		FileState(long size, long modified, String parserId) {
+			fSize= size;
+			fModified= modified;
+			fParserId= parserId;
+		}
+	}
+
+	private static final class Result {
+		final IFile fFile;
+		final IBinaryFile fBinary;
+
+		Result(IFile file, IBinaryFile binary) {
+			fFile= file;
+			fBinary= binary;
+		}
+	}
+
+	/**
+	 * Receives the elements created for a batch of binaries.
+	 */
+	interface IBatchListener {
+		void binariesAdded(ICElement[] elements);
+	}
+
+	private final ICProject fCProject;
+	private final BinaryParserConfig[] fParsers;
+	private final int fHintSize;
+	private final IProgressMonitor fMonitor;
+	private final IBatchListener fListener;
+	private final Map<String, FileState> fOldStates;
+	private final Map<String, FileState> fNewStates= new HashMap<>();
+	private final LinkedBlockingQueue<Result> fResults= new LinkedBlockingQueue<>();
+
+	private int fSkipped;
+	private int fParsed;
+
+	BinaryDiscovery(ICProject cproject, BinaryParserConfig[] parsers, IProgressMonitor monitor,
+			IBatchListener listener) {
+		fCProject= cproject;
+		fParsers= parsers;
+		fHintSize= CModelManager.getDefault().getHintBufferSize(parsers);
+		fMonitor= monitor;
+		fListener= listener;
+		fOldStates= readState();
+	}
+
+	/**
+	 * Recognizes the binaries among the given candidates and adds them to the containers.
+	 */
+	void run(List<IFile> candidates) {
+		ThreadPoolExecutor executor= new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 1, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), new ThreadFactory() {
+					private int fCount;
+
+					@Override
+					public synchronized Thread newThread(Runnable runnable) {
+						Thread thread= new Thread(runnable, "CDT Binary Discovery " + ++fCount); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		int pending= 0;
+		List<Result> batch= new ArrayList<>(BATCH_SIZE);
+		try {
+			for (IFile file : candidates) {
+				if (fMonitor.isCanceled())
+					return;
+				fMonitor.worked(1);
+				final String key= file.getProjectRelativePath().toString();
+				final FileState oldState= fOldStates.get(key);
+				if (oldState != null && NO_PARSER.equals(oldState.fParserId) && isUnchanged(file, oldState)) {
+					synchronized (fNewStates) {
+						fNewStates.put(key, oldState);
+					}
+					fSkipped++;
+					continue;
+				}
+				try {
+					executor.execute(() -> fResults.add(new Result(file, recognize(file, key, oldState))));
+					pending++;
+				} catch (RejectedExecutionException e) {
+					// The executor is shut down only below.
+				}
+				pending-= drain(batch);
+			}
+			while (pending > 0 && !fMonitor.isCanceled()) {
+				Result result= fResults.poll(100, TimeUnit.MILLISECONDS);
+				if (result != null) {
+					pending--;
+					add(batch, result);
+				}
+			}
+			publish(batch);
+			if (!fMonitor.isCanceled()) {
+				writeState();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Adds the results available so far to the batch, publishing it whenever it is full.
+	 * Returns the number of results taken.
+	 */
+	private int drain(List<Result> batch) {
+		int count= 0;
+		Result result;
+		while ((result= fResults.poll()) != null) {
+			add(batch, result);
+			count++;
+		}
+		return count;
+	}
+
+	private void add(List<Result> batch, Result result) {
+		if (result.fBinary == null)
+			return;
+		batch.add(result);
+		if (batch.size() >= BATCH_SIZE) {
+			publish(batch);
+		}
+	}
+
+	private void publish(List<Result> batch) {
+		if (batch.isEmpty())
+			return;
+		CModelManager factory= CModelManager.getDefault();
+		List<ICElement> elements= new ArrayList<>(batch.size());
+		for (Result result : batch) {
+			// Creating the element adds it to the {Archive,Binary}Container.
+			ICElement element= factory.create(result.fFile, result.fBinary, fCProject);
+			if (element != null) {
+				elements.add(element);
+			}
+		}
+		batch.clear();
+		if (!elements.isEmpty()) {
+			fListener.binariesAdded(elements.toArray(new ICElement[elements.size()]));
+		}
+	}
+
+	/**
+	 * Returns the binary for the given file, or {@code null} if it is not a binary. Runs on
+	 * a worker thread.
+	 */
+	private IBinaryFile recognize(IFile file, String key, FileState oldState) {
+		CModelManager factory= CModelManager.getDefault();
+		if (!factory.hasBinaryFileName(file))
+			return null;
+		IPath location= file.getLocation();
+		if (location == null) {
+			// Not in the local file system.
+			return factory.createBinaryFile(file);
+		}
+		File ioFile= location.toFile();
+		try {
+			BasicFileAttributes attributes= Files.readAttributes(ioFile.toPath(), BasicFileAttributes.class);
+			long size= attributes.size();
+			long modified= attributes.lastModifiedTime().toMillis();
+			if (size == 0 || !attributes.isRegularFile())
+				return null;
+
+			BinaryParserConfig[] parsers= fParsers;
+			if (oldState != null && oldState.fSize == size && oldState.fModified == modified) {
+				parsers= preferParser(oldState.fParserId);
+			}
+			byte[] header= readHeader(ioFile, (int) Math.min(size, fHintSize));
+			IBinaryFile binary= factory.createBinaryFile(location, parsers, header);
+			synchronized (fNewStates) {
+				fNewStates.put(key, new FileState(size, modified, binary == null ? NO_PARSER : getParserId(binary)));
+				fParsed++;
+			}
+			return binary;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static byte[] readHeader(File file, int length) throws IOException {
+		byte[] header= new byte[length];
+		try (FileChannel channel= FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (USE_MAPPING) {
+				channel.map(FileChannel.MapMode.READ_ONLY, 0, length).get(header);
+			} else {
+				ByteBuffer buffer= ByteBuffer.wrap(header);
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// Read until the header is complete or the end of the file is reached.
+				}
+			}
+		}
+		return header;
+	}
+
+	/**
+	 * Returns the parsers with the one of the given id moved to the front.
+	 */
+	private BinaryParserConfig[] preferParser(String id) {
+		for (int i = 0; i < fParsers.length; i++) {
+			if (fParsers[i].getId().equals(id)) {
+				BinaryParserConfig[] result= fParsers.clone();
+				System.arraycopy(fParsers, 0, result, 1, i);
+				result[0]= fParsers[i];
+				return result;
+			}
+		}
+		return fParsers;
+	}
+
+	private String getParserId(IBinaryFile binary) {
+		IBinaryParser parser= binary.getBinaryParser();
+		for (BinaryParserConfig config : fParsers) {
+			try {
+				if (config.getBinaryParser() == parser) {
+					return config.getId();
+				}
+			} catch (CoreException e) {
+			}
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	private static boolean isUnchanged(IFile file, FileState state) {
+		IPath location= file.getLocation();
+		if (location == null)
+			return false;
+		File ioFile= location.toFile();
+		return ioFile.length() == state.fSize && ioFile.lastModified() == state.fModified;
+	}
+
+	/**
+	 * Returns the number of candidates that were skipped, because they were unchanged and
+	 * not recognized as binaries by the previous search.
+	 */
+	int getSkippedCount() {
+		return fSkipped;
+	}
+
+	/**
+	 * Returns the number of candidates whose headers were examined.
+	 */
+	int getParsedCount() {
+		synchronized (fNewStates) {
+			return fParsed;
+		}
+	}
+
+	private File getStateFile() {
+		return CCorePlugin.getDefault().getStateLocation().append(STATE_FOLDER)
+				.append(fCProject.getElementName() + ".txt").toFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the ids of the configured parsers, the stored states are only valid for the same
+	 * configuration.
+	 */
+	private String getConfiguration() {
+		StringBuilder buf= new StringBuilder(STATE_VERSION);
+		for (BinaryParserConfig config : fParsers) {
+			buf.append('\t').append(config.getId());
+		}
+		return buf.toString();
+	}
+
+	private Map<String, FileState> readState() {
+		Map<String, FileState> states= new HashMap<>();
+		File file= getStateFile();
+		if (!file.isFile())
+			return states;
+		try (BufferedReader reader= Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			if (!getConfiguration().equals(reader.readLine()))
+				return states;
+			String line;
+			while ((line= reader.readLine()) != null) {
+				String[] fields= line.split("\t", 4); //$NON-NLS-1$
+				if (fields.length == 4) {
+					String parserId= fields[2];
+					states.put(fields[3], new FileState(Long.parseLong(fields[0]), Long.parseLong(fields[1]), parserId));
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			states.clear();
+		}
+		return states;
+	}
+
+	private void writeState() {
+		File file= getStateFile();
+		file.getParentFile().mkdirs();
+		try (BufferedWriter writer= Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(getConfiguration());
+			writer.newLine();
+			synchronized (fNewStates) {
+				for (Map.Entry<String, FileState> entry : fNewStates.entrySet()) {
+					FileState state= entry.getValue();
+					writer.write(state.fSize + "\t" + state.fModified + "\t" + state.fParserId + "\t" + entry.getKey()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					writer.newLine();
+				}
+			}
+		} catch (IOException e) {
+			CCorePlugin.log(e);
+		}
+	}
+
+	/**
+	 * Deletes the stored states of the files of the given project.
+	 */
+	static void deleteState(String projectName) {
+		CCorePlugin plugin= CCorePlugin.getDefault();
+		if (plugin != null) {
+			plugin.getStateLocation().append(STATE_FOLDER).append(projectName + ".txt").toFile().delete(); //$NON-NLS-1$
+		}
+	}
+}
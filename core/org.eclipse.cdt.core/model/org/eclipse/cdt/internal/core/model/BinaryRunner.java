@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 QNX Software Systems and others.
+ * Copyright (c) 2000, 2018 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,9 @@
 package org.eclipse.cdt.internal.core.model;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.IBinaryParser.IBinaryFile;
 import org.eclipse.cdt.core.model.CModelException;
@@ -40,11 +43,27 @@ import org.eclipse.core.runtime.content.IContentTypeManager;
 import org.eclipse.core.runtime.jobs.Job;
 
 public class BinaryRunner {
+	/**
+	 * Whether binaries are recognized concurrently by {@link BinaryDiscovery}, can be turned
+	 * on with the system property {@code CDT_CONCURRENT_BINARY_DISCOVERY=true}.
+	 */
+	private static volatile boolean sConcurrentDiscovery=
+			Boolean.parseBoolean(System.getProperty("CDT_CONCURRENT_BINARY_DISCOVERY", "false")); //$NON-NLS-1$ //$NON-NLS-2$
 
 	class BinaryRunnerOperation extends CModelOperation {
+		private final ICElement[] fAddedElements;
 
 		BinaryRunnerOperation(ICProject cproj) {
+			this(cproj, null);
+		}
+
+		/**
+		 * Creates an operation that reports the given binaries as added, or all children of
+		 * the containers if {@code addedElements} is {@code null}.
+		 */
+		BinaryRunnerOperation(ICProject cproj, ICElement[] addedElements) {
 			super(cproj);
+			fAddedElements = addedElements;
 		}
 
 		/* (non-Javadoc)
@@ -65,6 +84,20 @@ public class BinaryRunner {
 			ICElement root = factory.getCModel();
 			CElementDelta cdelta = new CElementDelta(root);
 			cdelta.changed(cproj, ICElementDelta.F_CONTENT);
+			if (fAddedElements != null) {
+				for (IParent container : containers) {
+					int added = countAdded((ICElement) container);
+					if (added > 0 && container.getChildren().length == added) {
+						// The container appears with this batch.
+						cdelta.added((ICElement) container);
+					}
+				}
+				for (ICElement element : fAddedElements) {
+					cdelta.added(element);
+				}
+				addDelta(cdelta);
+				return;
+			}
 			for (IParent container : containers) {
 				if (fMonitor.isCanceled()) {
 					return;
@@ -80,6 +113,16 @@ public class BinaryRunner {
 			addDelta(cdelta);
 		}
 
+		private int countAdded(ICElement container) {
+			boolean archives = container instanceof ArchiveContainer;
+			int count = 0;
+			for (ICElement element : fAddedElements) {
+				if ((element.getElementType() == ICElement.C_ARCHIVE) == archives) {
+					count++;
+				}
+			}
+			return count;
+		}
 	}
 
 	private final ICProject cproject;
@@ -117,12 +160,23 @@ public class BinaryRunner {
 
 						// traverse project, but only if at least one binary parser is configured
 						BinaryParserConfig[] parsers = CModelManager.getDefault().getBinaryParser(cproject.getProject());
-						if (parsers.length > 0) {
-							cproject.getProject().accept(new Visitor(monitor), IContainer.INCLUDE_PHANTOMS);
+						boolean concurrent = sConcurrentDiscovery && parsers.length > 0;
+						if (concurrent) {
+							List<IFile> candidates = new ArrayList<>();
+							cproject.getProject().accept(new Visitor(monitor, candidates), IContainer.INCLUDE_PHANTOMS);
+							if (!monitor.isCanceled()) {
+								discover(parsers, candidates, monitor);
+							}
+						} else if (parsers.length > 0) {
+							cproject.getProject().accept(new Visitor(monitor, null), IContainer.INCLUDE_PHANTOMS);
 						}
 
 						if (!monitor.isCanceled()) {
-							CModelOperation op = new BinaryRunnerOperation(cproject);
+							// The binaries found concurrently were reported in batches, the final delta
+							// still tells that the previous children are gone.
+							CModelOperation op = concurrent ?
+									new BinaryRunnerOperation(cproject, new ICElement[0]) :
+									new BinaryRunnerOperation(cproject);
 							op.runOperation(monitor);
 						}
 					}
@@ -140,6 +194,31 @@ public class BinaryRunner {
 		return job;
 	}
 
+	/**
+	 * Recognizes the binaries among the candidates concurrently and reports them in batches.
+	 */
+	private void discover(BinaryParserConfig[] parsers, List<IFile> candidates, final IProgressMonitor monitor) {
+		BinaryDiscovery discovery = new BinaryDiscovery(cproject, parsers, monitor, elements -> {
+			try {
+				new BinaryRunnerOperation(cproject, elements).runOperation(monitor);
+			} catch (CModelException e) {
+				CCorePlugin.log(e);
+			}
+		});
+		discovery.run(candidates);
+	}
+
+	/**
+	 * Enables or disables the concurrent recognition of binaries.
+	 */
+	public static void setConcurrentDiscovery(boolean enabled) {
+		sConcurrentDiscovery = enabled;
+	}
+
+	public static boolean isConcurrentDiscovery() {
+		return sConcurrentDiscovery;
+	}
+
 	public void start() {
 		synchronized (runnerJob) {
 			if (!isStopped) {
@@ -176,9 +255,15 @@ public class BinaryRunner {
 		private final IProgressMonitor vMonitor;
 		private final IProject project;
 		private final IContentType textContentType;
+		private final List<IFile> candidates;
 
-		public Visitor(IProgressMonitor monitor) {
+		/**
+		 * @param candidates receives the candidate files, or {@code null} to have them
+		 *     recognized right away.
+		 */
+		public Visitor(IProgressMonitor monitor, List<IFile> candidates) {
 			vMonitor = monitor;
+			this.candidates = candidates;
 			this.project = cproject.getProject();
 			IContentTypeManager mgr = Platform.getContentTypeManager();
 			textContentType = mgr.getContentType("org.eclipse.core.runtime.text"); //$NON-NLS-1$
@@ -222,6 +307,10 @@ public class BinaryRunner {
 				for (IOutputEntry entrie : entries) {
 					if (isOnOutputEntry(entrie, path)) {
 						IFile file = (IFile) proxy.requestResource();
+						if (candidates != null) {
+							candidates.add(file);
+							return true;
+						}
 						CModelManager factory = CModelManager.getDefault();
 						IBinaryFile bin = factory.createBinaryFile(file);
 						if (bin != null) {
@@ -103,6 +103,7 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 	private ASTAccessVisibility fCurrentVisibility;
 	private Stack<ASTAccessVisibility> fVisibilityStack;
 	private HashMap<ISourceReference, int[]> fEqualElements;
+	private IncrementalModelBuilder.Update fUpdate;
 
 	/**
 	 * Create a model builder for the given translation unit.
@@ -142,6 +143,12 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 			}
 			parseFlags |= ITranslationUnit.AST_SKIP_TRIVIAL_EXPRESSIONS_IN_AGGREGATE_INITIALIZERS;
 			parseFlags |= ITranslationUnit.AST_PARSE_INACTIVE_CODE;
+			if (fTranslationUnit instanceof WorkingCopy) {
+				IncrementalModelBuilder builder= ((WorkingCopy) fTranslationUnit).getIncrementalModelBuilder();
+				if (builder != null) {
+					fUpdate= builder.beginUpdate(fTranslationUnit);
+				}
+			}
 			final IASTTranslationUnit ast;
 			try {
 				ast= fTranslationUnit.getAST(index, parseFlags, fProgressMonitor);
@@ -162,6 +169,9 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 
 			checkCanceled();
 			startTime= System.currentTimeMillis();
+			if (fUpdate != null) {
+				fUpdate.setAST(ast);
+			}
 			buildModel(ast);
 			elementInfo.setIsStructureKnown(true);
 			if (DEBUG) {
@@ -222,7 +232,7 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 		final IASTDeclaration[] declarations= ast.getDeclarations(true);
 		for (IASTDeclaration declaration : declarations) {
 			if (isLocalToFile(declaration)) {
-				createDeclaration(fTranslationUnit, declaration);
+				createReusableDeclaration(fTranslationUnit, declaration);
 			}
 		}
 		fEqualElements.clear();
@@ -240,6 +250,9 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 				}
 				return delta;
 			}});
+		if (fUpdate != null) {
+			fUpdate.finish(fNewElements);
+		}
 
 		if (isCanceled()) {
 			return;
@@ -314,6 +327,51 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 		return element;
 	}
 
+	/**
+	 * Creates the elements for a declaration of a translation unit, namespace or linkage
+	 * specification, reusing the elements of the previous model if possible.
+	 */
+	private void createReusableDeclaration(Parent parent, IASTDeclaration declaration) throws CModelException, DOMException {
+		if (fUpdate == null || declaration instanceof ICPPASTNamespaceDefinition
+				|| declaration instanceof ICPPASTLinkageSpecification) {
+			createDeclaration(parent, declaration);
+			return;
+		}
+		final ICElement[] reusable= fUpdate.findReusableElements(parent, declaration);
+		if (reusable != null && canReuse(reusable) && fUpdate.reuseElements(declaration, reusable, fNewElements)) {
+			for (ICElement element : reusable) {
+				fEqualElements.put((ISourceReference) element, new int[] {0});
+				parent.addChild(element);
+			}
+			return;
+		}
+		final List<ICElement> children= getElementInfo(parent).internalGetChildren();
+		final int first= children.size();
+		createDeclaration(parent, declaration);
+		fUpdate.recordDeclaration(parent, declaration, children.subList(first, children.size()));
+	}
+
+	/**
+	 * Checks whether elements of the previous model can be added to the new model without
+	 * changing their handles.
+	 */
+	private boolean canReuse(ICElement[] elements) {
+		for (ICElement element : elements) {
+			if (!(element instanceof SourceManipulation) || ((SourceManipulation) element).getIndex() != 0
+					|| fEqualElements.containsKey(element)) {
+				return false;
+			}
+		}
+		for (int i = 0; i < elements.length; i++) {
+			for (int j = 0; j < i; j++) {
+				if (elements[i].equals(elements[j])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	private void createDeclaration(Parent parent, IASTDeclaration declaration) throws CModelException, DOMException {
 		if (declaration instanceof IASTFunctionDefinition) {
 			createFunctionDefinition(parent, (IASTFunctionDefinition) declaration, false);
@@ -423,7 +481,7 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 		IASTDeclaration[] declarations= linkageDeclaration.getDeclarations(true);
 		for (IASTDeclaration declaration : declarations) {
 			if (linkageDeclaration.getFileLocation() != null || isLocalToFile(declaration)) {
-				createDeclaration(parent, declaration);
+				createReusableDeclaration(parent, declaration);
 			}
 		}
 	}
@@ -526,7 +584,7 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 		IASTDeclaration[] nsDeclarations= declaration.getDeclarations(true);
 		for (IASTDeclaration nsDeclaration : nsDeclarations) {
 			if (declaration.getFileLocation() != null || isLocalToFile(nsDeclaration)) {
-				createDeclaration(element, nsDeclaration);
+				createReusableDeclaration(element, nsDeclaration);
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2012 IBM Corporation and others.
+ * Copyright (c) 2002, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,12 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.model;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.cdt.core.model.ICElement;
@@ -19,6 +24,13 @@ import org.eclipse.cdt.internal.core.util.OverflowingLRUCache;
 
 /**
  * The cache of C elements to their respective info.
+ * <p>
+ * The infos of files are held in an LRU cache, whose size is measured in kilobytes of the
+ * approximate memory retained by the infos of the files and of all of their children, rather
+ * than in the number of files. Evicting a file from the cache closes it and thereby removes
+ * the infos of its children, too. The limit of the cache is a fraction of the maximum heap
+ * size, configurable with the system property {@code CDT_MODEL_CACHE_PERCENT}. It is
+ * lowered while the heap is running full and raised again once memory becomes available.
  *
  * This class is similar to the JDT CModelCache class.
  */
@@ -28,6 +40,64 @@ public class CModelCache {
 	public static final int FILE_CACHE_SIZE = 2000;
 	public static final int CHILDREN_CACHE_SIZE = FILE_CACHE_SIZE * 20;
 
+	/** Percentage of the maximum heap size that may be used by the infos of files. */
+	private static final int HEAP_PERCENT = Integer.getInteger("CDT_MODEL_CACHE_PERCENT", 10); //$NON-NLS-1$
+	/** Lower bound for the limit of the file cache, in kilobytes. */
+	static final int MIN_FILE_CACHE_KB = 4 * 1024;
+	/** Number of files put into the cache between checks of the heap usage. */
+	private static final int HEAP_CHECK_INTERVAL = 256;
+	/** The limit is lowered when less than this fraction of the heap is free after garbage collection. */
+	private static final double LOW_HEAP = 0.15;
+	/** The limit is raised again when more than this fraction of the heap is free. */
+	private static final double AMPLE_HEAP = 0.3;
+
+	// Approximate sizes of the objects retained by an element, in bytes.
+	private static final int ELEMENT_BYTES = 56;
+	private static final int INFO_BYTES = 80;
+	private static final int SOURCE_INFO_BYTES = 56;
+	private static final int REFERENCE_BYTES = 4;
+	private static final int MAP_ENTRY_BYTES = 32;
+
+	/**
+	 * Hit, miss and eviction counts of one of the caches.
+	 */
+	public static final class Statistics {
+		long fHits;
+		long fMisses;
+		long fEvictions;
+
+		Statistics() {
+		}
+
+		Statistics(Statistics other) {
+			fHits = other.fHits;
+			fMisses = other.fMisses;
+			fEvictions = other.fEvictions;
+		}
+
+		public long getHits() {
+			return fHits;
+		}
+
+		public long getMisses() {
+			return fMisses;
+		}
+
+		public long getEvictions() {
+			return fEvictions;
+		}
+
+		public double getHitRate() {
+			long total = fHits + fMisses;
+			return total == 0 ? 0 : (double) fHits / total;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + fHits + " misses=" + fMisses + " evictions=" + fEvictions; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
 	/**
 	 * Cache of open projects and roots.
 	 */
@@ -48,11 +118,42 @@ public class CModelCache {
 	 */
 	protected Map<ICElement, Object> childrenCache;
 
+	private final Statistics fProjectStatistics = new Statistics();
+	private final Statistics fFolderStatistics = new Statistics();
+	private final Statistics fFileStatistics = new Statistics();
+	private final Statistics fChildrenStatistics = new Statistics();
+
+	/** Limit of the file cache in kilobytes, when there is no shortage of memory. */
+	private final int fBaseFileCacheLimit;
+	private int fPutsSinceHeapCheck;
+
 	public CModelCache() {
+		this((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 1024 * HEAP_PERCENT / 100));
+	}
+
+	/**
+	 * Creates a cache whose file cache is limited to the given number of kilobytes.
+	 */
+	protected CModelCache(int fileCacheLimit) {
 		this.projectAndRootCache = new HashMap<ICElement, Object>(PROJ_CACHE_SIZE);
 		this.folderCache = new HashMap<ICElement, Object>(FOLDER_CACHE_SIZE);
-		this.fileCache = new ElementCache<Object>(FILE_CACHE_SIZE);
+		this.fileCache = new ElementCache<Object>(FILE_CACHE_SIZE) {
+			@Override
+			protected int spaceFor(Object key, Object value) {
+				return (int) Math.min(Integer.MAX_VALUE, (estimateRetainedBytes((ICElement) key, value) + 1023) / 1024);
+			}
+
+			@Override
+			protected boolean close(LRUCacheEntry<IOpenable, Object> entry) {
+				if (!super.close(entry))
+					return false;
+				fFileStatistics.fEvictions++;
+				return true;
+			}
+		};
 		this.childrenCache = new HashMap<ICElement, Object>(CHILDREN_CACHE_SIZE); // average 20 children per openable
+		fBaseFileCacheLimit = Math.max(MIN_FILE_CACHE_KB, fileCacheLimit);
+		this.fileCache.setSpaceLimit(fBaseFileCacheLimit);
 	}
 
 	public double openableFillingRatio() {
@@ -66,16 +167,25 @@ public class CModelCache {
 		switch (element.getElementType()) {
 		case ICElement.C_MODEL:
 		case ICElement.C_PROJECT:
-			return this.projectAndRootCache.get(element);
+			return count(fProjectStatistics, this.projectAndRootCache.get(element));
 		case ICElement.C_CCONTAINER:
-			return this.folderCache.get(element);
+			return count(fFolderStatistics, this.folderCache.get(element));
 		case ICElement.C_ARCHIVE:
 		case ICElement.C_BINARY:
 		case ICElement.C_UNIT:
-			return this.fileCache.get(element);
+			return count(fFileStatistics, this.fileCache.get(element));
 		default:
-			return this.childrenCache.get(element);
+			return count(fChildrenStatistics, this.childrenCache.get(element));
+		}
+	}
+
+	private static Object count(Statistics statistics, Object info) {
+		if (info == null) {
+			statistics.fMisses++;
+		} else {
+			statistics.fHits++;
 		}
+		return info;
 	}
 
 	/**
@@ -100,6 +210,9 @@ public class CModelCache {
 
 	/**
 	 * Remember the info for the element.
+	 * <p>
+	 * The size of the info of a file is estimated when it is put into the cache, the infos of
+	 * its children must already be in the cache at that time.
 	 */
 	protected void putInfo(ICElement element, Object info) {
 		switch (element.getElementType()) {
@@ -113,6 +226,10 @@ public class CModelCache {
 		case ICElement.C_ARCHIVE:
 		case ICElement.C_BINARY:
 		case ICElement.C_UNIT:
+			if (++fPutsSinceHeapCheck >= HEAP_CHECK_INTERVAL) {
+				fPutsSinceHeapCheck = 0;
+				adjustFileCacheLimit(getFreeHeapRatio());
+			}
 			this.fileCache.put((IOpenable)element, info);
 			break;
 		default:
@@ -141,4 +258,104 @@ public class CModelCache {
 			this.childrenCache.remove(element);
 		}
 	}
+
+	/**
+	 * Returns the statistics of the cache holding the infos of elements of the given type.
+	 */
+	public Statistics getStatistics(int elementType) {
+		switch (elementType) {
+		case ICElement.C_MODEL:
+		case ICElement.C_PROJECT:
+			return new Statistics(fProjectStatistics);
+		case ICElement.C_CCONTAINER:
+			return new Statistics(fFolderStatistics);
+		case ICElement.C_ARCHIVE:
+		case ICElement.C_BINARY:
+		case ICElement.C_UNIT:
+			return new Statistics(fFileStatistics);
+		default:
+			return new Statistics(fChildrenStatistics);
+		}
+	}
+
+	/**
+	 * Returns the approximate memory retained by the infos of files and their children,
+	 * in kilobytes.
+	 */
+	public int getFileCacheSpace() {
+		return this.fileCache.getCurrentSpace();
+	}
+
+	/**
+	 * Returns the current limit for the memory retained by the infos of files and their
+	 * children, in kilobytes.
+	 */
+	public int getFileCacheLimit() {
+		return this.fileCache.getSpaceLimit();
+	}
+
+	/**
+	 * Adapts the limit of the file cache to the given fraction of free heap. The limit is
+	 * halved while memory is short, and doubled up to its initial value while there is
+	 * plenty of memory.
+	 */
+	protected void adjustFileCacheLimit(double freeHeapRatio) {
+		int limit = this.fileCache.getSpaceLimit();
+		if (freeHeapRatio < LOW_HEAP) {
+			limit = Math.max(MIN_FILE_CACHE_KB, Math.min(limit, this.fileCache.getCurrentSpace()) / 2);
+		} else if (freeHeapRatio > AMPLE_HEAP && limit < fBaseFileCacheLimit) {
+			limit = (int) Math.min(fBaseFileCacheLimit, 2L * limit);
+		}
+		if (limit != this.fileCache.getSpaceLimit()) {
+			this.fileCache.setSpaceLimit(limit);
+		}
+	}
+
+	/**
+	 * Returns the fraction of the heap that was free after the last garbage collection.
+	 */
+	protected double getFreeHeapRatio() {
+		long used = 0;
+		long max = 0;
+		List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+		for (MemoryPoolMXBean pool : pools) {
+			if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+				MemoryUsage usage = pool.getCollectionUsage();
+				if (usage != null && usage.getMax() > 0) {
+					used += usage.getUsed();
+					max += usage.getMax();
+				}
+			}
+		}
+		if (max == 0) {
+			Runtime runtime = Runtime.getRuntime();
+			used = runtime.totalMemory() - runtime.freeMemory();
+			max = runtime.maxMemory();
+		}
+		return 1.0 - (double) used / max;
+	}
+
+	/**
+	 * Estimates the memory retained by the handle and the info of an element along with the
+	 * infos of its children, as far as they are not opened separately.
+	 */
+	long estimateRetainedBytes(ICElement element, Object info) {
+		long size = ELEMENT_BYTES + 2L * element.getElementName().length();
+		if (info instanceof CElementInfo) {
+			List<ICElement> children = ((CElementInfo) info).internalGetChildren();
+			synchronized (children) {
+				size += INFO_BYTES + REFERENCE_BYTES * children.size();
+				for (ICElement child : children) {
+					Object childInfo = this.childrenCache.get(child);
+					if (childInfo != null) {
+						size += MAP_ENTRY_BYTES + estimateRetainedBytes(child, childInfo);
+					}
+				}
+			}
+			if (info instanceof SourceManipulationInfo) {
+				size += SOURCE_INFO_BYTES;
+			}
+		}
+		return size;
+	}
 }
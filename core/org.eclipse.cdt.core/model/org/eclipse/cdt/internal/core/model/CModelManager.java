@@ -49,6 +49,7 @@ import org.eclipse.cdt.core.model.ICModel;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.IElementChangedListener;
 import org.eclipse.cdt.core.model.IIncludeReference;
+import org.eclipse.cdt.core.model.IOpenable;
 import org.eclipse.cdt.core.model.IParent;
 import org.eclipse.cdt.core.model.IProblemRequestor;
 import org.eclipse.cdt.core.model.ISourceRoot;
@@ -674,35 +675,8 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 			return null;
 		}
 
-		// Only if file has no extension, has an extension that is an integer
-		// or is a binary file content type
-		String ext = file.getFileExtension();
-		if (ext != null && ext.length() > 0) {
-			// shared libraries often have a version number
-			// strip version extension: libc.so.3.2.1 -> libc.so
-			IPath baseFileName = new Path(file.getName());
-			outer: do {
-				for (int i = 0; i < ext.length(); ++i) {
-					if (!Character.isDigit(ext.charAt(i))) {
-						break outer;
-					}
-				}
-				// extension is a number -> remove it
-				baseFileName = baseFileName.removeFileExtension();
-				ext = baseFileName.getFileExtension();
-			} while (ext != null && ext.length() > 0);
-			final IContentTypeManager ctm = Platform.getContentTypeManager();
-			final IContentType ctbin = ctm.getContentType(CCorePlugin.CONTENT_TYPE_BINARYFILE);
-			final IContentType[] cts = ctm.findContentTypesFor(baseFileName.toString());
-			if (cts.length > 0) {
-				boolean isBinary= false;
-				for (int i=0; !isBinary && i < cts.length; i++) {
-					isBinary = cts[i].isKindOf(ctbin);
-				}
-				if (!isBinary) {
-					return null;
-				}
-			}
+		if (!hasBinaryFileName(file)) {
+			return null;
 		}
 
 		URI fileUri = file.getLocationURI();
@@ -723,18 +697,7 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 			//return null;
 		}
 
-		int hints = 0;
-
-		for (BinaryParserConfig parser2 : parsers) {
-			IBinaryParser parser = null;
-			try {
-				parser = parser2.getBinaryParser();
-				if (parser.getHintBufferSize() > hints) {
-					hints = Math.max(hints, parser.getHintBufferSize());
-				}
-			} catch (CoreException e) {
-			}
-		}
+		int hints = getHintBufferSize(parsers);
 		byte[] bytes = new byte[hints];
 		if (hints > 0) {
 			InputStream is = null;
@@ -766,8 +729,70 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 			}
 		}
 
-		IPath location = file.getLocation();
+		return createBinaryFile(file.getLocation(), parsers, bytes);
+	}
+
+	/**
+	 * Checks whether the name of a file allows for it to be a binary: it has no extension,
+	 * an extension that is a number or an extension of a binary content type.
+	 */
+	boolean hasBinaryFileName(IFile file) {
+		String ext = file.getFileExtension();
+		if (ext != null && ext.length() > 0) {
+			// shared libraries often have a version number
+			// strip version extension: libc.so.3.2.1 -> libc.so
+			IPath baseFileName = new Path(file.getName());
+			outer: do {
+				for (int i = 0; i < ext.length(); ++i) {
+					if (!Character.isDigit(ext.charAt(i))) {
+						break outer;
+					}
+				}
+				// extension is a number -> remove it
+				baseFileName = baseFileName.removeFileExtension();
+				ext = baseFileName.getFileExtension();
+			} while (ext != null && ext.length() > 0);
+			final IContentTypeManager ctm = Platform.getContentTypeManager();
+			final IContentType ctbin = ctm.getContentType(CCorePlugin.CONTENT_TYPE_BINARYFILE);
+			final IContentType[] cts = ctm.findContentTypesFor(baseFileName.toString());
+			if (cts.length > 0) {
+				boolean isBinary= false;
+				for (int i=0; !isBinary && i < cts.length; i++) {
+					isBinary = cts[i].isKindOf(ctbin);
+				}
+				if (!isBinary) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of bytes from the start of a file the given parsers need for
+	 * recognizing a binary.
+	 */
+	int getHintBufferSize(BinaryParserConfig[] parsers) {
+		int hints = 0;
 
+		for (BinaryParserConfig parser2 : parsers) {
+			IBinaryParser parser = null;
+			try {
+				parser = parser2.getBinaryParser();
+				if (parser.getHintBufferSize() > hints) {
+					hints = Math.max(hints, parser.getHintBufferSize());
+				}
+			} catch (CoreException e) {
+			}
+		}
+		return hints;
+	}
+
+	/**
+	 * Returns the binary recognized by the first of the given parsers that accepts the file
+	 * with the given location and header, or {@code null}.
+	 */
+	IBinaryFile createBinaryFile(IPath location, BinaryParserConfig[] parsers, byte[] bytes) {
 		for (BinaryParserConfig parser2 : parsers) {
 			try {
 				IBinaryParser parser = parser2.getBinaryParser();
@@ -1273,6 +1298,14 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 		return this.cache.peekAtInfo(element);
 	}
 
+	/**
+	 *  Returns the info for this element as stored in the cache, ignoring infos
+	 *  that are being built by the current thread.
+	 */
+	protected synchronized Object peekAtCachedInfo(ICElement element) {
+		return this.cache.peekAtInfo(element);
+	}
+
 	/*
 	 * Puts the infos in the given map (keys are ICElements and values are CElementInfos)
 	 * in the C model cache in an atomic way.
@@ -1295,8 +1328,16 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 			}
 		}
 
+		// Put the infos of openables last, their size is estimated from the infos of their children.
 		for (Map.Entry<ICElement, CElementInfo> element : newElements.entrySet()) {
-			this.cache.putInfo(element.getKey(), element.getValue());
+			if (!(element.getKey() instanceof IOpenable)) {
+				this.cache.putInfo(element.getKey(), element.getValue());
+			}
+		}
+		for (Map.Entry<ICElement, CElementInfo> element : newElements.entrySet()) {
+			if (element.getKey() instanceof IOpenable) {
+				this.cache.putInfo(element.getKey(), element.getValue());
+			}
 		}
 	}
 
@@ -1327,6 +1368,30 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 		this.cache.removeInfo(element);
 	}
 
+	/**
+	 * Returns the hit, miss and eviction counts of the cache holding the infos of elements
+	 * of the given type.
+	 */
+	public synchronized CModelCache.Statistics getCacheStatistics(int elementType) {
+		return this.cache.getStatistics(elementType);
+	}
+
+	/**
+	 * Returns the approximate memory retained by the infos of open files and their children,
+	 * in kilobytes.
+	 */
+	public synchronized int getFileCacheSpace() {
+		return this.cache.getFileCacheSpace();
+	}
+
+	/**
+	 * Returns the limit for the memory retained by the infos of open files and their children,
+	 * in kilobytes.
+	 */
+	public synchronized int getFileCacheLimit() {
+		return this.cache.getFileCacheLimit();
+	}
+
 	/**
 	 * Returns the temporary cache for newly opened elements for the current thread.
 	 * Creates it if not already created.
@@ -1406,6 +1471,7 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 		binaryParsersMap.remove(project);
 		// Stop the binary runner for this project
 		removeBinaryRunner(project);
+		BinaryDiscovery.deleteState(project.getName());
 	}
 
 	private void preCloseProject(IProject project) {
@@ -0,0 +1,538 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
+import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTExpression;
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTInitializer;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorStatement;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTQualifiedName;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICElementDelta;
+import org.eclipse.cdt.core.model.IParent;
+
+/**
+ * Allows {@link CModelBuilder2} to update the model of a working copy while the user types,
+ * rather than building it from scratch on every reconcile.
+ * <p>
+ * The edits applied to the buffer of the working copy since its model was last built are
+ * merged into a single region. The next build still parses the entire file, since C and C++
+ * cannot be reliably parsed in parts, but the elements of declarations lying entirely outside
+ * of the edited region are taken over from the previous model with their positions adjusted.
+ * Only the declarations intersecting the edit are built anew, and the delta for the reconcile
+ * is computed by comparing the rebuilt elements with their predecessors, instead of comparing
+ * the entire old and new trees.
+ * <p>
+ * The elements of a declaration are taken over, if the previous build has seen a declaration
+ * with the same text and the same structure in the same namespace. Nothing is taken over when
+ * the edit touches a preprocessor directive, since that may change the meaning of the entire
+ * remainder of the file. The elements of declarations with qualified names depend on the
+ * resolution of the qualifiers, they are taken over only if the edit is confined to the body
+ * of a function.
+ * <p>
+ * Incremental updates are enabled by default, they can be disabled by setting the system
+ * property {@code CDT_INCREMENTAL_MODEL_BUILDER} to {@code false}.
+ */
+public final class IncrementalModelBuilder {
+	private static volatile boolean sEnabled=
+			!"false".equals(System.getProperty("CDT_INCREMENTAL_MODEL_BUILDER")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/** Maximum depth up to which the structure of a declaration is compared. */
+	private static final int FINGERPRINT_DEPTH= 4;
+
+	/** Marks offsets at which the previous build has seen more than one declaration. */
+	private static final Record AMBIGUOUS= new Record(null, 0, 0, 0, 0, false, false, null);
+
+	/**
+	 * A declaration seen by a build, along with the elements created for it.
+	 */
+	private static final class Record {
+		final ICElement fParent;
+		final int fOffset;
+		final int fLength;
+		final int fStartLine;
+		final int fFingerprint;
+		final boolean fDependsOnLookup;
+		final boolean fIsFunctionDefinition;
+		final ICElement[] fElements;
+
+		Record(ICElement parent, int offset, int length, int startLine, int fingerprint,
+				boolean dependsOnLookup, boolean isFunctionDefinition, ICElement[] elements) {
+			fParent= parent;
+			fOffset= offset;
+			fLength= length;
+			fStartLine= startLine;
+			fFingerprint= fingerprint;
+			fDependsOnLookup= dependsOnLookup;
+			fIsFunctionDefinition= isFunctionDefinition;
+			fElements= elements;
+		}
+
+		boolean contains(int start, int end) {
+			return fOffset < start && end < fOffset + fLength;
+		}
+	}
+
+	/**
+	 * Updates the model for a single build, see {@link IncrementalModelBuilder#beginUpdate}.
+	 */
+	final class Update {
+		private final TranslationUnit fTranslationUnit;
+		private final TreeMap<Integer, Record> fOldRecords;
+		private final int[] fOldDirectives;
+		private final int fEditStart;
+		private final int fEditEnd;
+		private final int fEditDelta;
+		private final boolean fComputeDelta;
+
+		private final TreeMap<Integer, Record> fNewRecords= new TreeMap<>();
+		private int[] fNewDirectives= NO_DIRECTIVES;
+		private final Set<ICElement> fReused= Collections.newSetFromMap(new IdentityHashMap<ICElement, Boolean>());
+		private boolean fCanReuse;
+		private boolean fBodyOnlyEdit;
+
+		private IASTDeclaration fLastDeclaration;
+		private int fLastFingerprint;
+		private boolean fLastDependsOnLookup;
+
+		private int fReusedCount;
+		private int fBuiltCount;
+
+		Update(TranslationUnit tu, TreeMap<Integer, Record> oldRecords, int[] oldDirectives,
+				int editStart, int editEnd, int editDelta, boolean computeDelta) {
+			fTranslationUnit= tu;
+			fOldRecords= oldRecords;
+			fOldDirectives= oldDirectives;
+			fEditStart= editStart;
+			fEditEnd= editEnd;
+			fEditDelta= editDelta;
+			fComputeDelta= computeDelta;
+		}
+
+		/**
+		 * Examines the AST the model is built from and decides whether elements of the
+		 * previous model can be reused.
+		 */
+		void setAST(IASTTranslationUnit ast) {
+			final int oldEditEnd= fEditEnd - fEditDelta;
+			fCanReuse= fOldRecords != null && fEditStart >= 0
+					&& !intersectsDirective(fOldDirectives, fEditStart, oldEditEnd);
+
+			List<IASTPreprocessorStatement> directives= new ArrayList<>();
+			for (IASTPreprocessorStatement statement : ast.getAllPreprocessorStatements()) {
+				if (statement.isPartOfTranslationUnitFile() && statement.getFileLocation() != null) {
+					directives.add(statement);
+				}
+			}
+			fNewDirectives= new int[2 * directives.size()];
+			for (int i = 0; i < directives.size(); i++) {
+				IASTFileLocation location= directives.get(i).getFileLocation();
+				fNewDirectives[2 * i]= location.getNodeOffset();
+				fNewDirectives[2 * i + 1]= location.getNodeOffset() + location.getNodeLength();
+			}
+			if (!fCanReuse || intersectsDirective(fNewDirectives, fEditStart, fEditEnd)) {
+				fCanReuse= false;
+				return;
+			}
+
+			// Check whether the edit is confined to the body of a function, before and after.
+			Map.Entry<Integer, Record> entry= fOldRecords.floorEntry(fEditStart);
+			if (entry != null && entry.getValue().fIsFunctionDefinition
+					&& entry.getValue().contains(fEditStart, oldEditEnd)) {
+				IASTNode node= ast.getNodeSelector(null).findEnclosingNode(fEditStart, fEditEnd - fEditStart);
+				for (; node != null; node= node.getParent()) {
+					if (node instanceof IASTCompoundStatement && node.getParent() instanceof IASTFunctionDefinition) {
+						IASTFileLocation location= node.getFileLocation();
+						fBodyOnlyEdit= location != null && location.getNodeOffset() < fEditStart
+								&& fEditEnd < location.getNodeOffset() + location.getNodeLength();
+						break;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the elements of the previous model that can be reused for the given
+		 * declaration, or {@code null} if the declaration has to be built.
+		 */
+		ICElement[] findReusableElements(ICElement parent, IASTDeclaration declaration) {
+			if (!fCanReuse)
+				return null;
+			final IASTFileLocation location= declaration.getFileLocation();
+			if (location == null)
+				return null;
+			final int offset= location.getNodeOffset();
+			final int length= location.getNodeLength();
+			if (offset <= fEditEnd && offset + length >= fEditStart)
+				return null;
+			final int oldOffset= offset < fEditStart ? offset : offset - fEditDelta;
+			final Record record= fOldRecords.get(oldOffset);
+			if (record == null || record == AMBIGUOUS || record.fLength != length || !record.fParent.equals(parent))
+				return null;
+			computeFingerprint(declaration);
+			if (record.fFingerprint != fLastFingerprint || (fLastDependsOnLookup && !fBodyOnlyEdit))
+				return null;
+			return record.fElements;
+		}
+
+		/**
+		 * Moves the infos of the given elements of the previous model and of all of their
+		 * descendants to the new elements, adjusting their positions to the location of the
+		 * declaration. Returns {@code false}, if the infos are no longer available.
+		 */
+		boolean reuseElements(IASTDeclaration declaration, ICElement[] elements,
+				Map<ICElement, CElementInfo> newElements) {
+			final IASTFileLocation location= declaration.getFileLocation();
+			final Record record= fOldRecords.get(location.getNodeOffset() < fEditStart ?
+					location.getNodeOffset() : location.getNodeOffset() - fEditDelta);
+			final int shift= location.getNodeOffset() - record.fOffset;
+			final int lineShift= location.getStartingLineNumber() - record.fStartLine;
+
+			final Map<ICElement, CElementInfo> infos= new HashMap<>();
+			for (ICElement element : elements) {
+				if (!collectInfos(element, infos)) {
+					return false;
+				}
+			}
+			if (shift != 0 || lineShift != 0) {
+				for (CElementInfo info : infos.values()) {
+					if (info instanceof SourceManipulationInfo) {
+						final SourceManipulationInfo sourceInfo= (SourceManipulationInfo) info;
+						sourceInfo.setPos(sourceInfo.getStartPos() + shift, sourceInfo.getLength());
+						sourceInfo.setIdPos(sourceInfo.getIdStartPos() + shift, sourceInfo.getIdLength());
+						sourceInfo.setLines(sourceInfo.getStartLine() + lineShift, sourceInfo.getEndLine() + lineShift);
+					}
+				}
+			}
+			newElements.putAll(infos);
+			Collections.addAll(fReused, elements);
+			addRecord(record.fParent, location, elements);
+			fReusedCount++;
+			return true;
+		}
+
+		private boolean collectInfos(ICElement element, Map<ICElement, CElementInfo> infos) {
+			final CElementInfo info= (CElementInfo) CModelManager.getDefault().peekAtCachedInfo(element);
+			if (info == null)
+				return false;
+			infos.put(element, info);
+			if (element instanceof IParent) {
+				for (ICElement child : info.getChildren()) {
+					if (!collectInfos(child, infos)) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Records the elements created for a declaration, such that the next build can reuse them.
+		 */
+		void recordDeclaration(ICElement parent, IASTDeclaration declaration, List<ICElement> elements) {
+			final IASTFileLocation location= declaration.getFileLocation();
+			fBuiltCount++;
+			if (location != null) {
+				computeFingerprint(declaration);
+				addRecord(parent, location, elements.toArray(new ICElement[elements.size()]));
+			}
+		}
+
+		private void addRecord(ICElement parent, IASTFileLocation location, ICElement[] elements) {
+			final Record record= new Record(parent, location.getNodeOffset(), location.getNodeLength(),
+					location.getStartingLineNumber(), fLastFingerprint, fLastDependsOnLookup,
+					fLastDeclaration instanceof IASTFunctionDefinition, elements);
+			if (fNewRecords.put(record.fOffset, record) != null) {
+				fNewRecords.put(record.fOffset, AMBIGUOUS);
+			}
+		}
+
+		private void computeFingerprint(IASTDeclaration declaration) {
+			if (declaration != fLastDeclaration) {
+				fLastDependsOnLookup= false;
+				fLastFingerprint= computeFingerprint(declaration, 0);
+				fLastDeclaration= declaration;
+			}
+		}
+
+		/**
+		 * Computes a hash of the structure of a declaration, ignoring statements and
+		 * expressions. Also determines whether the declaration involves qualified names.
+		 */
+		private int computeFingerprint(IASTNode node, int depth) {
+			if (node instanceof ICPPASTQualifiedName) {
+				fLastDependsOnLookup= true;
+			}
+			int hash= node.getClass().getName().hashCode();
+			if (depth < FINGERPRINT_DEPTH) {
+				for (IASTNode child : node.getChildren()) {
+					if (child instanceof IASTStatement || child instanceof IASTExpression
+							|| child instanceof IASTInitializer) {
+						continue;
+					}
+					hash= 31 * hash + computeFingerprint(child, depth + 1);
+				}
+			}
+			return hash;
+		}
+
+		/**
+		 * Called when the model has been built. Keeps the information needed for the next
+		 * update and computes the delta, if requested.
+		 */
+		void finish(Map<ICElement, CElementInfo> newElements) {
+			CElementDelta delta= null;
+			if (fComputeDelta) {
+				delta= new CElementDelta(fTranslationUnit);
+				delta.fineGrained();
+				final CElementInfo oldInfo= (CElementInfo) CModelManager.getDefault().peekAtCachedInfo(fTranslationUnit);
+				final CElementInfo newInfo= newElements.get(fTranslationUnit);
+				if (newInfo != null) {
+					compareChildren(delta, oldInfo == null ? NO_ELEMENTS : oldInfo.getChildren(),
+							newInfo.getChildren(), newElements);
+				}
+			}
+			finishUpdate(this, delta);
+		}
+
+		/**
+		 * Adds the differences between the old and the new children of an element to the delta.
+		 * Reused elements are known to be unchanged and are only considered for determining
+		 * changes of the order.
+		 */
+		private void compareChildren(CElementDelta delta, ICElement[] oldChildren, ICElement[] newChildren,
+				Map<ICElement, CElementInfo> newElements) {
+			final Map<ICElement, ICElement> unmatched= new HashMap<>();
+			for (ICElement oldChild : oldChildren) {
+				if (!fReused.contains(oldChild)) {
+					unmatched.put(oldChild, oldChild);
+				}
+			}
+			if (unmatched.isEmpty() && oldChildren.length == newChildren.length) {
+				boolean allReused= true;
+				for (int i = 0; allReused && i < newChildren.length; i++) {
+					allReused= newChildren[i] == oldChildren[i];
+				}
+				if (allReused) {
+					return;
+				}
+			}
+			final Set<ICElement> added= new HashSet<>();
+			for (ICElement newChild : newChildren) {
+				if (fReused.contains(newChild))
+					continue;
+				final ICElement oldChild= unmatched.remove(newChild);
+				if (oldChild == null) {
+					delta.added(newChild);
+					added.add(newChild);
+				} else {
+					compareElements(delta, oldChild, newChild, newElements);
+				}
+			}
+			for (ICElement removed : unmatched.keySet()) {
+				delta.removed(removed);
+			}
+
+			// Report elements whose predecessor has changed, ignoring additions and removals.
+			final Map<ICElement, ICElement> oldPrevious= new HashMap<>();
+			ICElement previous= null;
+			for (ICElement oldChild : oldChildren) {
+				if (!unmatched.containsKey(oldChild)) {
+					oldPrevious.put(oldChild, previous);
+					previous= oldChild;
+				}
+			}
+			previous= null;
+			for (ICElement newChild : newChildren) {
+				if (!added.contains(newChild)) {
+					final ICElement expected= oldPrevious.get(newChild);
+					if (expected == null ? previous != null : !expected.equals(previous)) {
+						delta.changed(newChild, ICElementDelta.F_REORDER);
+					}
+					previous= newChild;
+				}
+			}
+		}
+
+		private void compareElements(CElementDelta delta, ICElement oldElement, ICElement newElement,
+				Map<ICElement, CElementInfo> newElements) {
+			final CElementInfo oldInfo= (CElementInfo) CModelManager.getDefault().peekAtCachedInfo(oldElement);
+			final CElementInfo newInfo= newElements.get(newElement);
+			if (oldInfo instanceof SourceManipulationInfo && newInfo instanceof SourceManipulationInfo) {
+				final SourceManipulationInfo oldSourceInfo= (SourceManipulationInfo) oldInfo;
+				final SourceManipulationInfo newSourceInfo= (SourceManipulationInfo) newInfo;
+				if (oldSourceInfo.getModifiers() != newSourceInfo.getModifiers()) {
+					delta.changed(newElement, ICElementDelta.F_MODIFIERS);
+				}
+				if (!oldSourceInfo.hasSameContentsAs(newSourceInfo)) {
+					delta.changed(newElement, ICElementDelta.F_CONTENT);
+				}
+			}
+			if (newElement instanceof IParent && oldInfo != null && newInfo != null) {
+				compareChildren(delta, oldInfo.getChildren(), newInfo.getChildren(), newElements);
+			}
+		}
+
+		/**
+		 * Returns the number of declarations for which elements of the previous model were reused.
+		 */
+		int getReusedCount() {
+			return fReusedCount;
+		}
+
+		/**
+		 * Returns the number of declarations for which elements were built.
+		 */
+		int getBuiltCount() {
+			return fBuiltCount;
+		}
+	}
+
+	private static final int[] NO_DIRECTIVES= {};
+	private static final ICElement[] NO_ELEMENTS= {};
+
+	// Region edited since the model was last built, in the coordinates of the current text.
+	private int fEditStart= -1;
+	private int fEditEnd;
+	private int fEditDelta;
+
+	private TreeMap<Integer, Record> fRecords;
+	private int[] fDirectives= NO_DIRECTIVES;
+
+	private boolean fDeltaRequested;
+	private CElementDelta fDelta;
+
+	private int fReusedCount;
+	private int fBuiltCount;
+
+	/**
+	 * Enables or disables incremental updates, for use by tests and benchmarks.
+	 */
+	public static void setEnabled(boolean enabled) {
+		sEnabled= enabled;
+	}
+
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	/**
+	 * Called when text of the buffer has been replaced.
+	 *
+	 * @param offset the offset of the replaced text
+	 * @param length the length of the replaced text
+	 * @param textLength the length of the replacement
+	 */
+	public synchronized void textChanged(int offset, int length, int textLength) {
+		final int delta= textLength - length;
+		if (fEditStart < 0) {
+			fEditStart= offset;
+			fEditEnd= offset + textLength;
+			fEditDelta= delta;
+			return;
+		}
+		final int end;
+		if (fEditEnd <= offset) {
+			end= fEditEnd;
+		} else if (fEditEnd >= offset + length) {
+			end= fEditEnd + delta;
+		} else {
+			end= offset + textLength;
+		}
+		fEditStart= Math.min(fEditStart, offset);
+		fEditEnd= Math.max(end, offset + textLength);
+		fEditDelta+= delta;
+	}
+
+	/**
+	 * Starts a build of the model. The edits recorded so far are attributed to this build.
+	 */
+	synchronized Update beginUpdate(TranslationUnit tu) {
+		final Update update= new Update(tu, fRecords, fDirectives, fEditStart, fEditEnd, fEditDelta, fDeltaRequested);
+		fRecords= null;
+		fDirectives= NO_DIRECTIVES;
+		fEditStart= -1;
+		fEditEnd= fEditDelta= 0;
+		return update;
+	}
+
+	synchronized void finishUpdate(Update update, CElementDelta delta) {
+		if (fEditStart < 0) {
+			fRecords= update.fNewRecords;
+			fDirectives= update.fNewDirectives;
+		} else {
+			// The buffer was changed while the model was built, the positions of the
+			// declarations may or may not include the change.
+			fRecords= null;
+			fDirectives= NO_DIRECTIVES;
+		}
+		fReusedCount= update.getReusedCount();
+		fBuiltCount= update.getBuiltCount();
+		if (update.fComputeDelta) {
+			fDelta= delta;
+		}
+	}
+
+	/**
+	 * Requests the delta between the current model and the model produced by the next build.
+	 */
+	synchronized void requestDelta() {
+		fDeltaRequested= true;
+		fDelta= null;
+	}
+
+	/**
+	 * Returns the delta requested by {@link #requestDelta()}, or {@code null} if the model
+	 * has not been built since.
+	 */
+	synchronized CElementDelta takeDelta() {
+		final CElementDelta delta= fDelta;
+		fDeltaRequested= false;
+		fDelta= null;
+		return delta;
+	}
+
+	/**
+	 * Returns the number of declarations whose elements were reused by the last build.
+	 */
+	public synchronized int getReusedDeclarationCount() {
+		return fReusedCount;
+	}
+
+	/**
+	 * Returns the number of declarations whose elements were created by the last build.
+	 */
+	public synchronized int getBuiltDeclarationCount() {
+		return fBuiltCount;
+	}
+
+	private static boolean intersectsDirective(int[] directives, int start, int end) {
+		for (int i = 0; i < directives.length; i += 2) {
+			if (directives[i] <= end && directives[i + 1] >= start) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ package org.eclipse.cdt.internal.core.model;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.model.CModelException;
 import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICElementDelta;
 import org.eclipse.cdt.core.model.ICModelStatus;
 import org.eclipse.cdt.core.model.ICModelStatusConstants;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -51,22 +52,38 @@ public class ReconcileWorkingCopyOperation extends CModelOperation {
 	
 		WorkingCopy workingCopy = getWorkingCopy();
 		boolean wasConsistent = workingCopy.isConsistent();
-		CElementDeltaBuilder deltaBuilder = null;
+		CElementDelta delta = null;
 	
 		try {
 			if (!wasConsistent || forceProblemDetection || fComputeAST) {
-				// create the delta builder (this remembers the current content of the tu)
-				deltaBuilder = new CElementDeltaBuilder(workingCopy);
-				
-				// update the element infos with the content of the working copy
-				fAST= workingCopy.makeConsistent(fComputeAST, fMonitor);
+				IncrementalModelBuilder incrementalBuilder = workingCopy.getIncrementalModelBuilder();
+				if (incrementalBuilder != null && workingCopy.isOpen()) {
+					// the model builder computes the delta while updating the element infos
+					incrementalBuilder.requestDelta();
+					fAST= workingCopy.makeConsistent(fComputeAST, fMonitor);
+					delta = incrementalBuilder.takeDelta();
+					if (delta == null) {
+						delta = new CElementDelta(workingCopy);
+						if (!wasConsistent || fComputeAST) {
+							// the model was not built incrementally
+							delta.changed(workingCopy, ICElementDelta.F_CONTENT);
+						}
+					}
+				} else {
+					// create the delta builder (this remembers the current content of the tu)
+					CElementDeltaBuilder deltaBuilder = new CElementDeltaBuilder(workingCopy);
+
+					// update the element infos with the content of the working copy
+					fAST= workingCopy.makeConsistent(fComputeAST, fMonitor);
 
-				deltaBuilder.buildDeltas();
+					deltaBuilder.buildDeltas();
+					delta = deltaBuilder.delta;
+				}
 
 				// register the deltas
-				if (deltaBuilder.delta != null) {
-					if (!wasConsistent || forceProblemDetection || deltaBuilder.delta.getAffectedChildren().length > 0) {
-						addReconcileDelta(workingCopy, deltaBuilder.delta);
+				if (delta != null) {
+					if (!wasConsistent || forceProblemDetection || delta.getAffectedChildren().length > 0) {
+						addReconcileDelta(workingCopy, delta);
 					}
 				}
 			}
@@ -18,6 +18,7 @@ import java.net.URI;
 import java.util.ArrayList;
 
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.model.BufferChangedEvent;
 import org.eclipse.cdt.core.model.CModelException;
 import org.eclipse.cdt.core.model.IBuffer;
 import org.eclipse.cdt.core.model.ICElement;
@@ -27,6 +28,7 @@ import org.eclipse.cdt.core.model.IProblemRequestor;
 import org.eclipse.cdt.core.model.ISourceReference;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.core.model.IWorkingCopy;
+import org.eclipse.cdt.core.model.LanguageManager;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
@@ -51,6 +53,11 @@ public class WorkingCopy extends TranslationUnit implements IWorkingCopy {
 	 */
 	protected int useCount = 1;
 
+	/**
+	 * Allows for updating the model incrementally, created when the model is first built.
+	 */
+	private IncrementalModelBuilder incrementalModelBuilder;
+
 	/**
 	 * Creates a working copy of this element.
 	 */
@@ -120,6 +127,34 @@ public class WorkingCopy extends TranslationUnit implements IWorkingCopy {
 		}
 	}
 
+	@Override
+	public void bufferChanged(BufferChangedEvent event) {
+		super.bufferChanged(event);
+		IncrementalModelBuilder builder;
+		synchronized (this) {
+			builder = incrementalModelBuilder;
+		}
+		if (builder != null && !event.getBuffer().isClosed()) {
+			String text = event.getText();
+			builder.textChanged(event.getOffset(), event.getLength(), text == null ? 0 : text.length());
+		}
+	}
+
+	/**
+	 * Returns the object keeping track of the changes to this working copy that allow for
+	 * updating its model incrementally, or {@code null} if the model cannot be updated
+	 * incrementally.
+	 */
+	public synchronized IncrementalModelBuilder getIncrementalModelBuilder() {
+		if (!IncrementalModelBuilder.isEnabled()
+				|| LanguageManager.getInstance().getContributedModelBuilderFor(this) != null) {
+			incrementalModelBuilder = null;
+		} else if (incrementalModelBuilder == null) {
+			incrementalModelBuilder = new IncrementalModelBuilder();
+		}
+		return incrementalModelBuilder;
+	}
+
 	@Override
 	public boolean exists() {
 		// Working copy always exists in the model until it is destroyed.
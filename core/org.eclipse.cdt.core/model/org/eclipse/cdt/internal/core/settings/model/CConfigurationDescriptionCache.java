@@ -109,6 +109,9 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 	private boolean fInitializing;
 	private ICConfigurationDescription fBaseDescription;
 	private ICSourceEntry[] fResolvedSourceEntries;
+	/** Set while the settings of a loaded configuration have not been copied from its data yet. */
+	private volatile boolean fCopyDeferred;
+	private Thread fCopyingThread;
 
 	CConfigurationDescriptionCache(ICStorageElement storage, CProjectDescription parent) throws CoreException {
 		super(null);
@@ -123,10 +126,20 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 	}
 
 	public boolean isInitializing() {
-		return fInitializing;
+		return fInitializing || fCopyingThread == Thread.currentThread();
 	}
 
 	void loadData() throws CoreException {
+		loadData(false);
+	}
+
+	/**
+	 * Loads the data of the configuration from its provider. With <code>deferCopy</code> the
+	 * settings are copied from the data when they are first accessed. The configuration still
+	 * finishes initialization together with the project description, see
+	 * {@link #doneInitialization()}.
+	 */
+	void loadData(boolean deferCopy) throws CoreException {
 		if(fDataLoadded)
 			return;
 
@@ -147,6 +160,14 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 			setLanguageSettingProviders(providers);
 		}
 
+		if (deferCopy) {
+			fCopyDeferred = true;
+		} else {
+			copySettings();
+		}
+	}
+
+	private void copySettings() {
 		copySettingsFrom(fData, true);
 
 		fSpecSettings.reconcileExtensionSettings(true);
@@ -156,6 +177,28 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 //		fInitializing = false;
 	}
 
+	/**
+	 * Copies the settings of a configuration loaded with deferred copying. Calls from the copying
+	 * thread return immediately, they see the configuration as during initialization. Only the
+	 * settings are copied here, the data provider has been notified when the project description
+	 * finished loading.
+	 */
+	private void ensureSettingsCopied() {
+		if (!fCopyDeferred)
+			return;
+		synchronized (this) {
+			if (!fCopyDeferred || fCopyingThread == Thread.currentThread())
+				return;
+			fCopyingThread = Thread.currentThread();
+			try {
+				copySettings();
+			} finally {
+				fCopyingThread = null;
+				fCopyDeferred = false;
+			}
+		}
+	}
+
 	CConfigurationDescriptionCache(ICConfigurationDescription baseDescription, CConfigurationData base, CConfigurationDescriptionCache baseCache, CConfigurationSpecSettings settingsBase, CProjectDescription parent, ICStorageElement rootEl) throws CoreException {
 		super(base.getId(), base.getName(), null);
 		fInitializing = true;
@@ -211,6 +254,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 	}
 
 	public StorableCdtVariables getCachedVariables(){
+		ensureSettingsCopied();
 		return fMacros;
 	}
 
@@ -254,6 +298,48 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 		fBuildData = (CBuildData)bs;
 	}
 
+	@Override
+	public String getDescription() {
+		ensureSettingsCopied();
+		return super.getDescription();
+	}
+
+	@Override
+	public CResourceData[] getResourceDatas() {
+		ensureSettingsCopied();
+		return super.getResourceDatas();
+	}
+
+	@Override
+	public CFolderData getRootFolderData() {
+		ensureSettingsCopied();
+		return super.getRootFolderData();
+	}
+
+	@Override
+	public CResourceData getResourceData(IPath path) {
+		ensureSettingsCopied();
+		return super.getResourceData(path);
+	}
+
+	@Override
+	public CTargetPlatformData getTargetPlatformData() {
+		ensureSettingsCopied();
+		return super.getTargetPlatformData();
+	}
+
+	@Override
+	public CBuildData getBuildData() {
+		ensureSettingsCopied();
+		return super.getBuildData();
+	}
+
+	@Override
+	public CConfigurationStatus getStatus() {
+		ensureSettingsCopied();
+		return super.getStatus();
+	}
+
 	@Override
 	public ICProjectDescription getProjectDescription() {
 		return fParent;
@@ -261,16 +347,18 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public ICResourceDescription getResourceDescription(IPath path, boolean exactPath) {
+		ensureSettingsCopied();
 		return fRcHolder.getResourceDescription(path, exactPath);
 	}
 
 	public ICResourceDescription[] getResourceDescriptions(int kind) {
+		ensureSettingsCopied();
 		return fRcHolder.getResourceDescriptions(kind);
 	}
 
 	@Override
 	public ICFolderDescription getRootFolderDescription() {
-		return (ICFolderDescription)fRootFolderData;
+		return (ICFolderDescription)getRootFolderData();
 	}
 
 	@Override
@@ -318,6 +406,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public ICSettingObject[] getChildSettings() {
+		ensureSettingsCopied();
 		return fChildList.toArray(new ICSettingObject[fChildList.size()]);
 	}
 
@@ -333,6 +422,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public ICResourceDescription[] getResourceDescriptions() {
+		ensureSettingsCopied();
 		return fRcHolder.getResourceDescriptions();
 	}
 
@@ -353,6 +443,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public CConfigurationSpecSettings getSpecSettings() /*throws CoreException*/{
+		ensureSettingsCopied();
 		return fSpecSettings;
 	}
 
@@ -363,6 +454,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public CConfigurationData getConfigurationData() {
+		ensureSettingsCopied();
 		return fData;
 	}
 
@@ -409,7 +501,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public boolean isReadOnly() {
-		return !fInitializing;
+		return !isInitializing();
 	}
 
 	@Override
@@ -430,11 +522,13 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public ICFileDescription[] getFileDescriptions() {
+		ensureSettingsCopied();
 		return (ICFileDescription[])fRcHolder.getResourceDescriptions(ICSettingBase.SETTING_FILE);
 	}
 
 	@Override
 	public ICFolderDescription[] getFolderDescriptions() {
+		ensureSettingsCopied();
 		return (ICFolderDescription[])fRcHolder.getResourceDescriptions(ICSettingBase.SETTING_FOLDER);
 	}
 
@@ -449,6 +543,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 	}
 
 	private void initSourceEntries(){
+		ensureSettingsCopied();
 		if(fProjSourceEntries == null){
 			IProject project = getProject();
 			fProjSourceEntries = CDataUtil.adjustEntries(fSourceEntries, true, project);
@@ -478,7 +573,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 	public ICExternalSetting createExternalSetting(String[] languageIDs,
 			String[] contentTypeIds, String[] extensions,
 			ICSettingEntry[] entries) {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 
 		return fSpecSettings.createExternalSetting(languageIDs, contentTypeIds, extensions, entries);
@@ -486,12 +581,13 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public ICExternalSetting[] getExternalSettings() {
+		ensureSettingsCopied();
 		return fSpecSettings.getExternalSettings();
 	}
 
 	@Override
 	public void removeExternalSetting(ICExternalSetting setting) {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 
 		fSpecSettings.removeExternalSetting(setting);
@@ -499,7 +595,7 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public void removeExternalSettings() {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 
 		fSpecSettings.removeExternalSettings();
@@ -518,37 +614,40 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public Object getSessionProperty(QualifiedName name) {
+		ensureSettingsCopied();
 		return fSpecSettings.getSettionProperty(name);
 	}
 
 	@Override
 	public ICdtVariablesContributor getBuildVariablesContributor() {
+		ensureSettingsCopied();
 		return fData.getBuildVariablesContributor();
 	}
 
 	@Override
 	public ICConfigExtensionReference create(String extensionPoint,
 			String extension) throws CoreException {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 		return fSpecSettings.create(extensionPoint, extension);
 	}
 
 	@Override
 	public ICConfigExtensionReference[] get(String extensionPointID) {
+		ensureSettingsCopied();
 		return fSpecSettings.get(extensionPointID);
 	}
 
 	@Override
 	public void remove(ICConfigExtensionReference ext) throws CoreException {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 		fSpecSettings.remove(ext);
 	}
 
 	@Override
 	public void remove(String extensionPoint) throws CoreException {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 		fSpecSettings.remove(extensionPoint);
 	}
@@ -559,7 +658,8 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 	}
 
 	void doneInitialization(){
-		CProjectDescriptionManager.getInstance().notifyCached(this, fData, null);
+		if (fData != null)
+			CProjectDescriptionManager.getInstance().notifyCached(this, fData, null);
 		fInitializing = false;
 		fSpecSettings.doneInitialization();
 	}
@@ -590,19 +690,20 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public String[] getExternalSettingsProviderIds() {
+		ensureSettingsCopied();
 		return fSpecSettings.getExternalSettingsProviderIds();
 	}
 
 	@Override
 	public void setExternalSettingsProviderIds(String[] ids) {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 		fSpecSettings.setExternalSettingsProviderIds(ids);
 	}
 
 	@Override
 	public void updateExternalSettingsProviders(String[] ids) {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 		fSpecSettings.updateExternalSettingsProviders(ids);
 	}
@@ -624,25 +725,27 @@ public class CConfigurationDescriptionCache extends CDefaultConfigurationData
 
 	@Override
 	public void setLanguageSettingProviders(List<? extends ILanguageSettingsProvider> providers) {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 		fSpecSettings.setLanguageSettingProviders(providers);
 	}
 
 	@Override
 	public List<ILanguageSettingsProvider> getLanguageSettingProviders() {
+		ensureSettingsCopied();
 		return fSpecSettings.getLanguageSettingProviders();
 	}
 
 	@Override
 	public void setDefaultLanguageSettingsProvidersIds(String[] ids) {
-		if(!fInitializing)
+		if(!isInitializing())
 			throw ExceptionFactory.createIsReadOnlyException();
 		fSpecSettings.setDefaultLanguageSettingsProvidersIds(ids);
 	}
 
 	@Override
 	public String[] getDefaultLanguageSettingsProvidersIds() {
+		ensureSettingsCopied();
 		return fSpecSettings.getDefaultLanguageSettingsProvidersIds();
 	}
 }
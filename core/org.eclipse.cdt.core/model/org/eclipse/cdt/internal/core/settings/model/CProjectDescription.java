@@ -39,6 +39,8 @@ public class CProjectDescription implements ICProjectDescription, ICDataProxyCon
 	private static final String SETTING_CFG = "settingConfiguration"; //$NON-NLS-1$
 	private static final QualifiedName SETTING_CFG_PROPERTY = new QualifiedName(CCorePlugin.PLUGIN_ID, SETTING_CFG);
 
+	private static final boolean LAZY_CONFIGURATIONS = Boolean.parseBoolean(System.getProperty("CDT_LAZY_CONFIGURATIONS", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+
 	private CfgIdPair fActiveCfgInfo;
 	private CfgIdPair fSettingCfgInfo;
 	private CProjectDescriptionPreferences fPrefs;
@@ -190,10 +192,18 @@ public class CProjectDescription implements ICProjectDescription, ICDataProxyCon
 		if (!fIsReadOnly || !fIsLoading)
 			return;
 
+		// Settings of configurations other than the active and the setting one are copied on demand.
+		String activeId = null;
+		String settingId = null;
+		if (LAZY_CONFIGURATIONS) {
+			activeId = fActiveCfgInfo.getId();
+			settingId = getConfigurationRelations() == CONFIGS_LINK_SETTINGS_AND_ACTIVE ? activeId : fSettingCfgInfo.getId();
+		}
 		for (Iterator<ICConfigurationDescription> iter = fCfgMap.values().iterator(); iter.hasNext();) {
 			CConfigurationDescriptionCache cache = (CConfigurationDescriptionCache) iter.next();
 			try {
-				cache.loadData();
+				String id = cache.getId();
+				cache.loadData(LAZY_CONFIGURATIONS && !id.equals(activeId) && !id.equals(settingId));
 			} catch (CoreException e) {
 				CCorePlugin.log(e);
 				iter.remove();
@@ -657,11 +657,16 @@ public class XmlProjectDescriptionStorage extends AbstractCProjectDescriptionSto
 			Element element = null;
 			InputStream stream = null;
 			if(reCreate){
+				XmlStorageSnapshot snapshot = XmlStorageSnapshot.create(container.getFile(new Path(fileName)));
 				try{
-					stream = getSharedProperty(container, fileName);
-					if(stream != null){
-						doc = builder.parse(stream);
-
+					if (snapshot != null)
+						doc = snapshot.read(builder);
+					if (doc == null) {
+						stream = getSharedProperty(container, fileName);
+						if (stream != null)
+							doc = builder.parse(stream);
+					}
+					if(doc != null){
 						// Get the first element in the project file
 						Node rootElement = doc.getFirstChild();
 
@@ -684,6 +689,8 @@ public class XmlProjectDescriptionStorage extends AbstractCProjectDescriptionSto
 						if(node.getNodeType() != Node.ELEMENT_NODE)
 							throw ExceptionFactory.createCoreException(SettingsModelMessages.getString("CProjectDescriptionManager.10")); //$NON-NLS-1$
 						element = (Element)node;
+						if (snapshot != null)
+							snapshot.write(doc);
 					} else if(!createEmptyIfNotFound){
 						throw ExceptionFactory.createCoreException(SettingsModelMessages.getString("CProjectDescriptionManager.11") + fileName); //$NON-NLS-1$
 					}
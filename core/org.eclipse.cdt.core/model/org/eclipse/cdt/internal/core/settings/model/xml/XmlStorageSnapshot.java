@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.settings.model.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+import javax.xml.parsers.DocumentBuilder;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.internal.core.BinaryMetadataCache;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Binary snapshot of a parsed project description file, e.g. the .cproject file, kept in the state
+ * location of the core plug-in. Rebuilding the document from the snapshot avoids parsing the xml
+ * when the projects are opened on start-up.
+ * <p>
+ * A snapshot is valid while the size and the modification time of the file match. When only the
+ * modification time differs the content hash is compared, such that a checkout or a copy of
+ * an unchanged file does not require parsing it again.
+ */
+final class XmlStorageSnapshot {
+	private static final String STATE_FOLDER = "projectDescriptions"; //$NON-NLS-1$
+	private static final int MAGIC = 0x43505344;
+	private static final int VERSION = 1;
+	private static final long RACY_INTERVAL = 2000;
+
+	private static final byte ELEMENT = 1;
+	private static final byte TEXT = 2;
+	private static final byte CDATA = 3;
+	private static final byte COMMENT = 4;
+	private static final byte PROCESSING_INSTRUCTION = 5;
+	private static final byte END = 0;
+
+	private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("CDT_DESCRIPTION_SNAPSHOTS", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final File fFile;
+	private final File fSnapshot;
+	private final String fKey;
+	private final long fSize;
+	private final long fModified;
+	private boolean fUpToDate;
+
+	private XmlStorageSnapshot(File file, File snapshot, String key) {
+		fFile = file;
+		fSnapshot = snapshot;
+		fKey = key;
+		fSize = file.length();
+		fModified = file.lastModified();
+	}
+
+	/**
+	 * Returns the snapshot for the given file, or <code>null</code> if snapshots are disabled or the
+	 * file is not in the local file system. The size and modification time of the file are recorded,
+	 * such that the snapshot is not written for content that changed while it was parsed.
+	 */
+	static XmlStorageSnapshot create(IFile file) {
+		if (!ENABLED)
+			return null;
+		IPath location = file.getLocation();
+		CCorePlugin plugin = CCorePlugin.getDefault();
+		if (location == null || plugin == null)
+			return null;
+		File local = location.toFile();
+		if (!local.isFile())
+			return null;
+		String key = file.getFullPath().toString();
+		CRC32 crc = new CRC32();
+		crc.update(key.getBytes(StandardCharsets.UTF_8));
+		File snapshot;
+		try {
+			snapshot = plugin.getStateLocation().append(STATE_FOLDER)
+					.append(Long.toHexString(crc.getValue()) + ".bin").toFile(); //$NON-NLS-1$
+		} catch (IllegalStateException e) {
+			return null;
+		}
+		return new XmlStorageSnapshot(local, snapshot, key);
+	}
+
+	/**
+	 * Returns the document stored in the snapshot, or <code>null</code> if there is no valid one.
+	 */
+	Document read(DocumentBuilder builder) {
+		if (!fSnapshot.isFile())
+			return null;
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(fSnapshot.toPath()));
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				return null;
+			long size = buffer.getLong();
+			long modified = buffer.getLong();
+			long hash = buffer.getLong();
+			if (!fKey.equals(BinaryMetadataCache.getString(buffer)) || size != fSize)
+				return null;
+			if (modified != fModified) {
+				if (hash != hash(Files.readAllBytes(fFile.toPath())) || !isUnchanged())
+					return null;
+				// Update the time stamp, such that the content is not hashed again.
+				buffer.putLong(16, fModified);
+				writeAtomic(buffer.array());
+			}
+			Document doc = builder.newDocument();
+			readChildren(buffer, doc, doc);
+			fUpToDate = true;
+			return doc;
+		} catch (IOException | BufferUnderflowException | IllegalArgumentException | DOMException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the document parsed from the file, unless it was read from this snapshot or the file
+	 * was modified in the meantime or just now. Failures are logged, the file is parsed again next
+	 * time.
+	 */
+	void write(Document doc) {
+		if (fUpToDate)
+			return;
+		// With a coarse time stamp resolution the file could still change without changing its time stamp.
+		if (System.currentTimeMillis() - fModified < RACY_INTERVAL)
+			return;
+		try {
+			byte[] content = Files.readAllBytes(fFile.toPath());
+			if (content.length != fSize || !isUnchanged())
+				return;
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) fSize);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fSize);
+			out.writeLong(fModified);
+			out.writeLong(hash(content));
+			BinaryMetadataCache.putString(out, fKey);
+			writeChildren(out, doc);
+			out.flush();
+			writeAtomic(bytes.toByteArray());
+			fUpToDate = true;
+		} catch (IOException e) {
+			CCorePlugin.log(e);
+		}
+	}
+
+	private boolean isUnchanged() {
+		return fFile.length() == fSize && fFile.lastModified() == fModified;
+	}
+
+	private void writeAtomic(byte[] data) throws IOException {
+		File folder = fSnapshot.getParentFile();
+		folder.mkdirs();
+		File tmp = File.createTempFile("snapshot", ".tmp", folder); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			Files.write(tmp.toPath(), data);
+			Files.move(tmp.toPath(), fSnapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tmp.delete();
+		}
+	}
+
+	private static long hash(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return crc.getValue();
+	}
+
+	private static void writeChildren(DataOutputStream out, Node parent) throws IOException {
+		NodeList children = parent.getChildNodes();
+		for (int i = 0; i < children.getLength(); i++) {
+			Node node = children.item(i);
+			switch (node.getNodeType()) {
+			case Node.ELEMENT_NODE:
+				out.writeByte(ELEMENT);
+				BinaryMetadataCache.putString(out, node.getNodeName());
+				NamedNodeMap attributes = node.getAttributes();
+				out.writeInt(attributes.getLength());
+				for (int j = 0; j < attributes.getLength(); j++) {
+					Attr attr = (Attr) attributes.item(j);
+					BinaryMetadataCache.putString(out, attr.getName());
+					BinaryMetadataCache.putString(out, attr.getValue());
+				}
+				writeChildren(out, node);
+				break;
+			case Node.TEXT_NODE:
+				out.writeByte(TEXT);
+				BinaryMetadataCache.putString(out, node.getNodeValue());
+				break;
+			case Node.CDATA_SECTION_NODE:
+				out.writeByte(CDATA);
+				BinaryMetadataCache.putString(out, node.getNodeValue());
+				break;
+			case Node.COMMENT_NODE:
+				out.writeByte(COMMENT);
+				BinaryMetadataCache.putString(out, node.getNodeValue());
+				break;
+			case Node.PROCESSING_INSTRUCTION_NODE:
+				out.writeByte(PROCESSING_INSTRUCTION);
+				BinaryMetadataCache.putString(out, node.getNodeName());
+				BinaryMetadataCache.putString(out, node.getNodeValue());
+				break;
+			default:
+				// Document types and entity references are not used by project descriptions.
+				throw new IOException("Unsupported node type: " + node.getNodeType()); //$NON-NLS-1$
+			}
+		}
+		out.writeByte(END);
+	}
+
+	private static void readChildren(ByteBuffer buffer, Document doc, Node parent) {
+		for (byte type = buffer.get(); type != END; type = buffer.get()) {
+			switch (type) {
+			case ELEMENT:
+				Element element = doc.createElement(BinaryMetadataCache.getString(buffer));
+				for (int i = buffer.getInt(); i > 0; i--) {
+					element.setAttribute(BinaryMetadataCache.getString(buffer), BinaryMetadataCache.getString(buffer));
+				}
+				parent.appendChild(element);
+				readChildren(buffer, doc, element);
+				break;
+			case TEXT:
+				parent.appendChild(doc.createTextNode(BinaryMetadataCache.getString(buffer)));
+				break;
+			case CDATA:
+				parent.appendChild(doc.createCDATASection(BinaryMetadataCache.getString(buffer)));
+				break;
+			case COMMENT:
+				parent.appendChild(doc.createComment(BinaryMetadataCache.getString(buffer)));
+				break;
+			case PROCESSING_INSTRUCTION:
+				parent.appendChild(doc.createProcessingInstruction(BinaryMetadataCache.getString(buffer),
+						BinaryMetadataCache.getString(buffer)));
+				break;
+			default:
+				throw new IllegalArgumentException();
+			}
+		}
+	}
+}
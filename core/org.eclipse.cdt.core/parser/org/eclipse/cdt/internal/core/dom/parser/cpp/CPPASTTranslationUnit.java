@@ -41,6 +41,8 @@ import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.IASTAmbiguityParent;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPInheritance.FinalOverriderMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.OverloadResolutionCache;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.TypeInterner;
 import org.eclipse.cdt.internal.core.index.IIndexScope;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 
@@ -55,6 +57,8 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 
 	// Caches.
 	private final Map<ICPPClassType, FinalOverriderMap> fFinalOverriderMapCache = new HashMap<>();
+	private final TypeInterner fTypeInterner = new TypeInterner();
+	private final OverloadResolutionCache fOverloadResolutionCache = new OverloadResolutionCache();
 
 	public CPPASTTranslationUnit() {
 		fScopeMapper= new CPPScopeMapper(this);
@@ -250,6 +254,14 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 		return fFinalOverriderMapCache;
 	}
 
+	public TypeInterner getTypeInterner() {
+		return fTypeInterner;
+	}
+
+	public OverloadResolutionCache getOverloadResolutionCache() {
+		return fOverloadResolutionCache;
+	}
+
 	public void recordPartialSpecialization(ICPPClassTemplatePartialSpecialization indexSpec,
 			ICPPClassTemplatePartialSpecialization astSpec) {
 		fScopeMapper.recordPartialSpecialization(indexSpec, astSpec);
@@ -52,6 +52,8 @@ public class CPPFunctionType implements ICPPFunctionType, ISerializableType {
 
     @Override
 	public boolean isSameType(IType o) {
+        if (o == this)
+            return true;
         if (o instanceof ITypedef)
             return o.isSameType(this);
         if (o instanceof ICPPFunctionType) {
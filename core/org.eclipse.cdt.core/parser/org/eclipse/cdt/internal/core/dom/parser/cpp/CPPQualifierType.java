@@ -33,6 +33,8 @@ public class CPPQualifierType implements IQualifierType, ITypeContainer, ISerial
 
     @Override
 	public boolean isSameType(IType o) {
+		if (o == this)
+			return true;
 		if (o instanceof ITypedef)
 			return o.isSameType(this);
 		if (!(o instanceof IQualifierType))
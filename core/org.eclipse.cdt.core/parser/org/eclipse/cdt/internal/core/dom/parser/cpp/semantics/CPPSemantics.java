@@ -2646,11 +2646,29 @@ public class CPPSemantics {
 		}
 
 		// No arguments to resolve function
-		final IASTNode lookupPoint = data.getLookupPoint();
 		if (!data.hasFunctionArguments()) {
 			return createFunctionSet(fns, data.getTemplateArguments(), lookupName);
 		}
 
+		final OverloadResolutionCache.Key cacheKey =
+				OverloadResolutionCache.createKey(data, fns, allowUDC, resolveTargetedArgumentTypes);
+		if (cacheKey == null)
+			return resolveFunctionCall(data, fns, allowUDC, resolveTargetedArgumentTypes);
+
+		final OverloadResolutionCache cache = data.getTranslationUnit().getOverloadResolutionCache();
+		IBinding result = cache.get(cacheKey);
+		if (result == null) {
+			result = resolveFunctionCall(data, fns, allowUDC, resolveTargetedArgumentTypes);
+			cache.put(cacheKey, result);
+		}
+		return result;
+	}
+
+	private static IBinding resolveFunctionCall(LookupData data, ICPPFunction[] fns, boolean allowUDC,
+			boolean resolveTargetedArgumentTypes) throws DOMException {
+		final IASTName lookupName = data.getLookupName();
+		final IASTNode lookupPoint = data.getLookupPoint();
+
 		// Reduce our set of candidate functions to only those who have the right number of parameters.
 		final IType[] argTypes = data.getFunctionArgumentTypes();
 		ICPPFunction[] tmp= selectByArgumentCount(data, fns);
@@ -244,6 +244,14 @@ public class CPPTemplates {
 		}
 	};
 
+	/**
+	 * Returns whether the current thread is in the middle of instantiating a type or a member
+	 * of a specialization. Results computed in this state may be affected by recursion guards.
+	 */
+	static boolean isInstantiationInProgress() {
+		return fTemplateInstantiationDepth.get() > 0 || !instantiationsInProgress.get().isEmpty();
+	}
+
 	/**
 	 * Instantiates a class or variable template with the given arguments. May return {@code null}.
 	 */
@@ -2596,29 +2604,52 @@ public class CPPTemplates {
 		ICPPPartialSpecialization bestMatch = null;
 		CPPTemplateParameterMap bestMap= null;
 		boolean bestMatchIsBest = true;
-		for (ICPPPartialSpecialization specialization : specializations) {
+
+		// The selection for templates from the index may be known from a previous AST.
+		PartialSpecializationCache cache= PartialSpecializationCache.getInstance();
+		IBinding selected= template instanceof IIndexBinding ? cache.get(template, specializations, args) : null;
+		if (selected == template)
+			return null;
+		if (selected instanceof ICPPPartialSpecialization) {
+			ICPPPartialSpecialization specialization = (ICPPPartialSpecialization) selected;
 			final CPPTemplateParameterMap map = new CPPTemplateParameterMap(args.length);
 			ICPPTemplateArgument[] specializationArguments = specialization.getTemplateArguments();
-			if (TemplateArgumentDeduction.fromTemplateArguments(
-					specialization.getTemplateParameters(), specializationArguments, args, map) &&
+			if (TemplateArgumentDeduction.fromTemplateArguments(specialization.getTemplateParameters(),
+					specializationArguments, args, map) &&
 					checkInstantiationOfArguments(specializationArguments, map)) {
-				int compare = orderSpecializations(bestMatch, specialization);
-				if (compare == 0) {
-					bestMatchIsBest = false;
-				} else if (compare < 0) {
-					bestMatch = specialization;
-					bestMap= map;
-					bestMatchIsBest = true;
+				bestMatch = specialization;
+				bestMap= map;
+			}
+		}
+
+		if (bestMatch == null) {
+			for (ICPPPartialSpecialization specialization : specializations) {
+				final CPPTemplateParameterMap map = new CPPTemplateParameterMap(args.length);
+				ICPPTemplateArgument[] specializationArguments = specialization.getTemplateArguments();
+				if (TemplateArgumentDeduction.fromTemplateArguments(
+						specialization.getTemplateParameters(), specializationArguments, args, map) &&
+						checkInstantiationOfArguments(specializationArguments, map)) {
+					int compare = orderSpecializations(bestMatch, specialization);
+					if (compare == 0) {
+						bestMatchIsBest = false;
+					} else if (compare < 0) {
+						bestMatch = specialization;
+						bestMap= map;
+						bestMatchIsBest = true;
+					}
 				}
 			}
-		}
 
-		// 14.5.4.1 If none of the specializations is more specialized than all the other matching
-		// specializations, then the use of the class template is ambiguous and the program is
-		// ill-formed.
-		if (!bestMatchIsBest) {
-			return new CPPTemplateDefinition.CPPTemplateProblem(CPPSemantics.getCurrentLookupPoint(),
-					IProblemBinding.SEMANTIC_AMBIGUOUS_LOOKUP, template.getNameCharArray());
+			// 14.5.4.1 If none of the specializations is more specialized than all the other matching
+			// specializations, then the use of the class template is ambiguous and the program is
+			// ill-formed.
+			if (!bestMatchIsBest) {
+				return new CPPTemplateDefinition.CPPTemplateProblem(CPPSemantics.getCurrentLookupPoint(),
+						IProblemBinding.SEMANTIC_AMBIGUOUS_LOOKUP, template.getNameCharArray());
+			}
+
+			if (template instanceof IIndexBinding)
+				cache.put(template, specializations, args, bestMatch);
 		}
 
 		if (bestMatch == null)
@@ -2152,7 +2152,7 @@ public class CPPVisitor extends ASTQueries {
 			if (isPackExpansion) {
 				type= new CPPParameterPackType(type);
 			}
-			return type;
+			return TypeInterner.intern(type, declarator);
 		} finally {
 			CPPSemantics.popLookupPoint();
 		}
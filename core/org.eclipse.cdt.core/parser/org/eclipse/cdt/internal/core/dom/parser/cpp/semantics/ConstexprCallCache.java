@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp.semantics;
+
+import static org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil.TDEF;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.cdt.core.dom.ast.IASTExpression.ValueCategory;
+import org.eclipse.cdt.core.dom.ast.IBasicType;
+import org.eclipse.cdt.core.dom.ast.IPointerType;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.dom.ast.IValue;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPFunction;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPParameter;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPReferenceType;
+import org.eclipse.cdt.internal.core.dom.parser.FloatingPointValue;
+import org.eclipse.cdt.internal.core.dom.parser.IntegralValue;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPEvaluation;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+
+/**
+ * Memo table for results of constexpr function calls. A call is memoized when it invokes
+ * a function without an implicit object, all arguments have numeric values and none of the
+ * parameters allows the function to modify state of the caller. Only numeric results of
+ * a basic type are stored, as fixed evaluations that do not refer to any AST.
+ * <p>
+ * The table is keyed weakly by the function binding, so entries of AST functions disappear
+ * together with the AST.
+ */
+public class ConstexprCallCache {
+	private static final int MAX_ENTRIES_PER_FUNCTION = 256;
+	private static final int MAX_ENTRIES = 50000;
+	private static final ConstexprCallCache INSTANCE = new ConstexprCallCache();
+
+	private final Map<ICPPFunction, Map<String, Entry>> fMap = new WeakHashMap<>();
+	private int fSize;
+	private final AtomicLong fHits = new AtomicLong();
+	private final AtomicLong fMisses = new AtomicLong();
+	private final AtomicLong fStepsSaved = new AtomicLong();
+
+	private static class Entry {
+		final EvalFixed fResult;
+		final int fSteps;
+
+		Entry(EvalFixed result, int steps) {
+			fResult = result;
+			fSteps = steps;
+		}
+	}
+
+	public static ConstexprCallCache getInstance() {
+		return INSTANCE;
+	}
+
+	private ConstexprCallCache() {
+	}
+
+	/**
+	 * Computes the key for a call of the given function, or returns {@code null} if the call
+	 * cannot be memoized.
+	 *
+	 * @param arguments the arguments of the call, the first one being the function itself
+	 * @param implicitThis the implicit object of the call, may be {@code null}
+	 */
+	static String createKey(ICPPFunction function, ICPPEvaluation[] arguments, ICPPEvaluation implicitThis) {
+		if (implicitThis != null)
+			return null;
+		for (ICPPParameter param : function.getParameters()) {
+			if (param.isParameterPack() || !isPassedByValue(param.getType()))
+				return null;
+		}
+		StringBuilder buf = new StringBuilder();
+		for (int i = 1; i < arguments.length; i++) {
+			IValue value = arguments[i].getValue();
+			if (!(value instanceof IntegralValue || value instanceof FloatingPointValue))
+				return null;
+			Number number = value.numberValue();
+			if (number == null)
+				return null;
+			buf.append(value instanceof FloatingPointValue ? 'f' : 'i').append(number).append(',');
+		}
+		return buf.toString();
+	}
+
+	private static boolean isPassedByValue(IType type) {
+		type = SemanticUtil.getNestedType(type, TDEF);
+		if (type instanceof IPointerType)
+			return false;
+		if (type instanceof ICPPReferenceType)
+			return SemanticUtil.getCVQualifier(((ICPPReferenceType) type).getType()).isConst();
+		return true;
+	}
+
+	/**
+	 * Returns the memoized result of a call, or {@code null}.
+	 */
+	ICPPEvaluation get(ICPPFunction function, String key) {
+		Entry entry;
+		synchronized (fMap) {
+			Map<String, Entry> results = fMap.get(function);
+			entry = results == null ? null : results.get(key);
+		}
+		if (entry == null) {
+			fMisses.incrementAndGet();
+			return null;
+		}
+		fHits.incrementAndGet();
+		fStepsSaved.addAndGet(entry.fSteps);
+		return entry.fResult;
+	}
+
+	/**
+	 * Memoizes the result of a call, if it is a numeric value of a basic type. The result is
+	 * stored as a fixed evaluation, the body of a function often yields an expression that is
+	 * not folded yet.
+	 *
+	 * @param steps the number of evaluation steps it took to compute the result
+	 */
+	void put(ICPPFunction function, String key, ICPPEvaluation result, int steps) {
+		IType type = result.getType();
+		if (!(type instanceof IBasicType) || result.isTypeDependent() || result.isValueDependent())
+			return;
+		IValue value = result.getValue();
+		if (!(value instanceof IntegralValue || value instanceof FloatingPointValue) || value.numberValue() == null)
+			return;
+		EvalFixed fixed = result instanceof EvalFixed ?
+				(EvalFixed) result : new EvalFixed(type, ValueCategory.PRVALUE, value);
+
+		synchronized (fMap) {
+			if (fSize >= MAX_ENTRIES) {
+				// The count does not see the tables of collected functions, take the real size.
+				fSize = 0;
+				for (Map<String, Entry> results : fMap.values()) {
+					fSize += results.size();
+				}
+				if (fSize >= MAX_ENTRIES) {
+					fMap.clear();
+					fSize = 0;
+				}
+			}
+			Map<String, Entry> results = fMap.get(function);
+			if (results == null) {
+				results = new LRUCache<>(MAX_ENTRIES_PER_FUNCTION);
+				fMap.put(function, results);
+			}
+			int size = results.size();
+			results.put(key, new Entry(fixed, steps));
+			// Accounts for the entry evicted by the table of the function.
+			fSize += results.size() - size;
+		}
+	}
+
+	public void clear() {
+		synchronized (fMap) {
+			fMap.clear();
+			fSize = 0;
+		}
+	}
+
+	public long getHits() {
+		return fHits.get();
+	}
+
+	public long getMisses() {
+		return fMisses.get();
+	}
+
+	/**
+	 * Returns the number of constexpr evaluation steps that did not have to be performed
+	 * because of memoized results.
+	 */
+	public long getStepsSaved() {
+		return fStepsSaved.get();
+	}
+}
@@ -320,8 +320,27 @@ public final class EvalFunctionCall extends CPPDependentEvaluation {
 		if (!function.isConstexpr())
 			return EvalFixed.INCOMPLETE;
 
-		ActivationRecord record = createActivationRecord(function.getParameters(), fArguments, 
-				getImplicitThis());
+		ICPPEvaluation implicitThis = getImplicitThis();
+		String memoKey = ConstexprCallCache.createKey(function, fArguments, implicitThis);
+		if (memoKey != null) {
+			ICPPEvaluation result = ConstexprCallCache.getInstance().get(function, memoKey);
+			if (result != null) {
+				context.recordStep();
+				return result;
+			}
+		}
+		int stepsBefore = context.getStepsPerformed();
+		ICPPEvaluation result = executeFunctionBody(function, implicitThis, context);
+		if (memoKey != null) {
+			ConstexprCallCache.getInstance().put(function, memoKey, result,
+					context.getStepsPerformed() - stepsBefore);
+		}
+		return result;
+	}
+
+	private ICPPEvaluation executeFunctionBody(ICPPFunction function, ICPPEvaluation implicitThis,
+			ConstexprEvaluationContext context) {
+		ActivationRecord record = createActivationRecord(function.getParameters(), fArguments, implicitThis);
 		ICPPExecution bodyExec = CPPFunction.getFunctionBodyExecution(function);
 		if (bodyExec == null) {
 			if (!(function instanceof ICPPTemplateInstance)
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp.semantics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.cdt.core.dom.ast.DOMException;
+import org.eclipse.cdt.core.dom.ast.IASTExpression.ValueCategory;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IProblemBinding;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPConstructor;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPFunction;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPMethod;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPUnknownBinding;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+
+/**
+ * Cache for the results of overload resolution for function calls within one AST. The key
+ * consists of the candidate functions, the types and value categories of the arguments, the
+ * implied object and the scope of the lookup point. Since the candidates found by argument
+ * dependent lookup are part of the candidate set, a different result of ADL yields a
+ * different key.
+ * <p>
+ * Calls with dependent or pack expansion arguments, explicit template arguments or arguments
+ * referring to overloaded function sets are not cached, neither are calls resolved during
+ * template instantiation, where recursion guards may affect the result. Only unique,
+ * non-dependent results are stored, problems found while ambiguities are being resolved
+ * are computed again.
+ * <p>
+ * An instance is kept per AST, see {@link CPPASTTranslationUnit#getOverloadResolutionCache()}.
+ */
+public class OverloadResolutionCache {
+	private static final int MAX_SIZE = 10000;
+	private static final AtomicLong fTotalHits = new AtomicLong();
+	private static final AtomicLong fTotalMisses = new AtomicLong();
+
+	private final Map<Key, IBinding> fMap = new LRUCache<>(MAX_SIZE);
+	private int fHits;
+	private int fMisses;
+
+	static final class Key {
+		private final int fFlags;
+		private final Object[] fParts;
+		private final int fHash;
+
+		Key(int flags, Object[] parts) {
+			fFlags = flags;
+			fParts = parts;
+			int hash = flags;
+			for (Object part : parts) {
+				hash = hash * 31 + System.identityHashCode(part);
+			}
+			fHash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return fHash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			if (fHash != other.fHash || fFlags != other.fFlags || fParts.length != other.fParts.length)
+				return false;
+			for (int i = 0; i < fParts.length; i++) {
+				if (fParts[i] != other.fParts[i])
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Computes the key for resolving a function call, or returns {@code null} if the result
+	 * of the resolution must not be cached.
+	 */
+	static Key createKey(LookupData data, ICPPFunction[] fns, boolean allowUDC,
+			boolean resolveTargetedArgumentTypes) throws DOMException {
+		CPPASTTranslationUnit tu = data.getTranslationUnit();
+		IASTNode lookupPoint = data.getLookupPoint();
+		if (tu == null || lookupPoint == null || CPPTemplates.isInstantiationInProgress()
+				|| CPPSemantics.isUsingPromiscuousBindingResolution()
+				|| data.getTemplateArguments() != null || data.getFunctionArgumentPackExpansionCount() != 0) {
+			return null;
+		}
+
+		IType[] argTypes = data.getFunctionArgumentTypes();
+		ValueCategory[] valueCategories = data.getFunctionArgumentValueCategories();
+		for (IType argType : argTypes) {
+			if (argType == null || argType instanceof FunctionSetType || CPPTemplates.isDependentType(argType)) {
+				return null;
+			}
+		}
+
+		boolean needsImpliedObject = false;
+		for (ICPPFunction fn : fns) {
+			if (fn instanceof ICPPUnknownBinding)
+				return null;
+			if (fn instanceof ICPPMethod && !(fn instanceof ICPPConstructor))
+				needsImpliedObject = true;
+		}
+
+		TypeInterner interner = tu.getTypeInterner();
+		Object[] parts = new Object[fns.length + 2 * argTypes.length + 3];
+		int i = 0;
+		parts[i++] = CPPVisitor.getContainingScope(lookupPoint);
+		for (ICPPFunction fn : fns) {
+			parts[i++] = fn;
+		}
+		for (int j = 0; j < argTypes.length; j++) {
+			parts[i++] = interner.internType(argTypes[j]);
+			parts[i++] = valueCategories[j];
+		}
+		if (needsImpliedObject && !data.argsContainImpliedObject) {
+			IType impliedObjectType = data.getImpliedObjectType();
+			if (impliedObjectType != null && CPPTemplates.isDependentType(impliedObjectType))
+				return null;
+			parts[i++] = interner.internType(impliedObjectType);
+			parts[i++] = data.getImpliedObjectValueCategory();
+		}
+		int flags = fns.length;
+		flags = flags << 1 | (allowUDC ? 1 : 0);
+		flags = flags << 1 | (resolveTargetedArgumentTypes ? 1 : 0);
+		flags = flags << 1 | (data.argsContainImpliedObject ? 1 : 0);
+		flags = flags << 1 | (data.fNoNarrowing ? 1 : 0);
+		return new Key(flags, parts);
+	}
+
+	/**
+	 * Returns the cached result of a function call resolution, or {@code null}.
+	 */
+	synchronized IBinding get(Key key) {
+		IBinding result = fMap.get(key);
+		if (result == null) {
+			fMisses++;
+			fTotalMisses.incrementAndGet();
+		} else {
+			fHits++;
+			fTotalHits.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Caches the result of a function call resolution, if it is a unique, non-dependent function.
+	 */
+	synchronized void put(Key key, IBinding result) {
+		if (result instanceof ICPPFunction && !(result instanceof IProblemBinding)
+				&& !(result instanceof ICPPUnknownBinding)) {
+			fMap.put(key, result);
+		}
+	}
+
+	public synchronized int size() {
+		return fMap.size();
+	}
+
+	public synchronized int getHits() {
+		return fHits;
+	}
+
+	public synchronized int getMisses() {
+		return fMisses;
+	}
+
+	/**
+	 * Returns the number of cache hits across all ASTs.
+	 */
+	public static long getTotalHits() {
+		return fTotalHits.get();
+	}
+
+	/**
+	 * Returns the number of cache misses across all ASTs.
+	 */
+	public static long getTotalMisses() {
+		return fTotalMisses.get();
+	}
+}
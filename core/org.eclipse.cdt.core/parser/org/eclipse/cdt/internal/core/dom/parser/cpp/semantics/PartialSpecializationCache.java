@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp.semantics;
+
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.ast.DOMException;
+import org.eclipse.cdt.core.dom.ast.IArrayType;
+import org.eclipse.cdt.core.dom.ast.IBasicType;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.dom.ast.IValue;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassType;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPPartialSpecialization;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateDefinition;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.internal.core.dom.parser.ITypeContainer;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentBinding;
+import org.eclipse.cdt.internal.core.index.IIndexType;
+import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
+import org.eclipse.cdt.internal.core.index.composite.CompositeIndexBinding;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Size-bounded cache of the partial specializations selected for instances of templates from
+ * the index. The selection is the expensive part of instantiating a class or variable template
+ * with many partial specializations, it is repeated for every AST and every composite index
+ * created for an editor.
+ * <p>
+ * Entries are keyed by the fragment, linkage and record of the template in the index, the
+ * records of the partial specializations visible in the index the template was found in and the
+ * canonical signature of the template arguments. They store the fragment, linkage and record of
+ * the selected partial specialization. Neither ASTs nor composite indexes are referenced.
+ * Selections are only cached if all the partial specializations and arguments come from the
+ * index, and if the selection is not ambiguous.
+ * <p>
+ * Since the partial specializations are part of the key, files added to the index don't affect
+ * the cached selections. The cache is cleared when the content of an index fragment is removed
+ * or replaced, see {@link #handleChange(PDOM.ChangeEvent)}.
+ */
+public class PartialSpecializationCache {
+	/** Stored if none of the partial specializations matches the arguments. */
+	private static final Object PRIMARY = new Object();
+
+	private static final int MAX_SIZE = 5000;
+	private static final PartialSpecializationCache INSTANCE = new PartialSpecializationCache();
+
+	private final Map<Object, Object> fMap = new LRUCache<>(MAX_SIZE);
+	private final AtomicLong fHits = new AtomicLong();
+	private final AtomicLong fMisses = new AtomicLong();
+
+	public static PartialSpecializationCache getInstance() {
+		return INSTANCE;
+	}
+
+	private PartialSpecializationCache() {
+	}
+
+	/**
+	 * Returns the partial specialization previously selected for the arguments, the template
+	 * itself if the primary template was selected, or {@code null} if the selection is not known.
+	 */
+	IBinding get(ICPPTemplateDefinition template, ICPPPartialSpecialization[] specializations,
+			ICPPTemplateArgument[] args) {
+		Key key = createKey(template, specializations, args);
+		if (key == null)
+			return null;
+
+		Object selected;
+		synchronized (fMap) {
+			selected = fMap.get(key);
+		}
+		IBinding result = null;
+		if (selected == PRIMARY) {
+			result = template;
+		} else if (selected != null) {
+			for (ICPPPartialSpecialization specialization : specializations) {
+				if (selected.equals(createRecordKey(specialization))) {
+					result = specialization;
+					break;
+				}
+			}
+		}
+		if (result == null) {
+			fMisses.incrementAndGet();
+		} else {
+			fHits.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the partial specialization selected for the arguments.
+	 *
+	 * @param selected the selected partial specialization, or {@code null} for the primary template
+	 */
+	void put(ICPPTemplateDefinition template, ICPPPartialSpecialization[] specializations,
+			ICPPTemplateArgument[] args, ICPPPartialSpecialization selected) {
+		Key key = createKey(template, specializations, args);
+		if (key == null)
+			return;
+		Object value = selected == null ? PRIMARY : createRecordKey(selected);
+		if (value == null)
+			return;
+		synchronized (fMap) {
+			fMap.put(key, value);
+		}
+	}
+
+	/**
+	 * Clears the cache if the change of an index fragment removed or replaced content.
+	 */
+	public void handleChange(PDOM.ChangeEvent event) {
+		if (event.isContentRemoved()) {
+			clear();
+		}
+	}
+
+	public void clear() {
+		synchronized (fMap) {
+			fMap.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (fMap) {
+			return fMap.size();
+		}
+	}
+
+	public long getHits() {
+		return fHits.get();
+	}
+
+	public long getMisses() {
+		return fMisses.get();
+	}
+
+	public void resetCounters() {
+		fHits.set(0);
+		fMisses.set(0);
+	}
+
+	private static Key createKey(ICPPTemplateDefinition template, ICPPPartialSpecialization[] specializations,
+			ICPPTemplateArgument[] args) {
+		for (ICPPPartialSpecialization specialization : specializations) {
+			if (!(specialization instanceof IIndexBinding))
+				return null;  // Declared in the AST.
+		}
+		RecordKey templateKey = createRecordKey(template);
+		if (templateKey == null || CPPTemplates.hasDependentArgument(args) || !isIndependentOfAST(args))
+			return null;
+
+		// The visible partial specializations depend on the fragments of the index.
+		Set<RecordKey> specializationKeys = new HashSet<>();
+		for (ICPPPartialSpecialization specialization : specializations) {
+			RecordKey specializationKey = createRecordKey(specialization);
+			if (specializationKey == null)
+				return null;
+			specializationKeys.add(specializationKey);
+		}
+
+		try {
+			return new Key(templateKey, specializationKeys, IndexCPPSignatureUtil.getTemplateArgString(args, true));
+		} catch (CoreException e) {
+			CCorePlugin.log(e);
+		} catch (DOMException e) {
+		}
+		return null;
+	}
+
+	private static RecordKey createRecordKey(IBinding binding) {
+		if (binding instanceof CompositeIndexBinding)
+			binding = ((CompositeIndexBinding) binding).getRawBinding();
+		if (!(binding instanceof IIndexFragmentBinding))
+			return null;
+		IIndexFragmentBinding fragmentBinding = (IIndexFragmentBinding) binding;
+		return new RecordKey(fragmentBinding.getFragment(), fragmentBinding.getLinkage().getLinkageID(),
+				fragmentBinding.getBindingID());
+	}
+
+	private static boolean isIndependentOfAST(ICPPTemplateArgument[] args) {
+		for (ICPPTemplateArgument arg : args) {
+			if (arg.isTypeValue()) {
+				if (!isIndependentOfAST(arg.getTypeValue()))
+					return false;
+			} else {
+				IValue value = arg.getNonTypeValue();
+				if (value == null || value.numberValue() == null)
+					return false;
+				if (!isIndependentOfAST(arg.getTypeOfNonTypeValue()))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isIndependentOfAST(IType type) {
+		while (true) {
+			if (type instanceof IIndexType || type instanceof IBasicType)
+				return true;
+			if (type instanceof ICPPTemplateInstance && type instanceof ICPPClassType) {
+				ICPPTemplateInstance inst = (ICPPTemplateInstance) type;
+				return inst.getTemplateDefinition() instanceof IIndexBinding
+						&& isIndependentOfAST(inst.getTemplateArguments());
+			}
+			if (type instanceof IBinding || !(type instanceof ITypeContainer))
+				return false;  // AST typedefs, function types and the like.
+			if (type instanceof IArrayType) {
+				IValue size = ((IArrayType) type).getSize();
+				if (size != null && size.numberValue() == null)
+					return false;
+			}
+			type = ((ITypeContainer) type).getType();
+		}
+	}
+
+	/**
+	 * Identifies a binding by its record in an index fragment. The fragment is referenced weakly,
+	 * such that the cache does not keep the database of a closed project.
+	 */
+	private static final class RecordKey {
+		private final WeakReference<IIndexFragment> fFragment;
+		private final int fFragmentHash;
+		private final int fLinkageID;
+		private final long fRecord;
+
+		RecordKey(IIndexFragment fragment, int linkageID, long record) {
+			fFragment = new WeakReference<>(fragment);
+			fFragmentHash = System.identityHashCode(fragment);
+			fLinkageID = linkageID;
+			fRecord = record;
+		}
+
+		@Override
+		public int hashCode() {
+			return ((int) (fRecord ^ (fRecord >>> 32)) * 31 + fLinkageID) * 31 + fFragmentHash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof RecordKey))
+				return false;
+			RecordKey other = (RecordKey) obj;
+			if (fRecord != other.fRecord || fLinkageID != other.fLinkageID)
+				return false;
+			IIndexFragment fragment = fFragment.get();
+			return fragment != null && fragment == other.fFragment.get();
+		}
+	}
+
+	private static final class Key {
+		private final RecordKey fTemplate;
+		private final Set<RecordKey> fSpecializations;
+		private final String fSignature;
+
+		Key(RecordKey template, Set<RecordKey> specializations, String signature) {
+			fTemplate = template;
+			fSpecializations = specializations;
+			fSignature = signature;
+		}
+
+		@Override
+		public int hashCode() {
+			return (fTemplate.hashCode() * 31 + fSpecializations.hashCode()) * 31 + fSignature.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return fTemplate.equals(other.fTemplate) && fSignature.equals(other.fSignature)
+					&& fSpecializations.equals(other.fSpecializations);
+		}
+	}
+}
@@ -421,7 +421,7 @@ public class SemanticUtil {
 
 		type = (ITypeContainer) type.clone();
 		type.setType(newNestedType);
-		return type;
+		return TypeInterner.intern(type);
 	}
 
 	/**
@@ -468,7 +468,8 @@ public class SemanticUtil {
 				return result;
 			if (!(t instanceof ITypeContainer))
 				return null;
-			containerType = (ITypeContainer) t;
+			// Modify the clone, the original type may be shared.
+			containerType = (ITypeContainer) newType;
 		}
 	}
 
@@ -646,7 +647,7 @@ public class SemanticUtil {
 			if (baseType instanceof IQualifierType) {
 				IQualifierType qt= (IQualifierType) baseType;
 				if ((cnst && !qt.isConst()) || (vol && !qt.isVolatile())) {
-					return new CPPQualifierType(qt.getType(), cnst || qt.isConst(), vol || qt.isVolatile());
+					return TypeInterner.intern(new CPPQualifierType(qt.getType(), cnst || qt.isConst(), vol || qt.isVolatile()));
 				}
 				return baseType;
 			} else if (baseType instanceof ICPPPointerToMemberType) {
@@ -661,8 +662,8 @@ public class SemanticUtil {
 				IPointerType pt= (IPointerType) baseType;
 				if ((cnst && !pt.isConst()) || (vol && !pt.isVolatile())
 						|| (restrict && !pt.isRestrict())) {
-					return new CPPPointerType(pt.getType(),
-							cnst || pt.isConst(), vol || pt.isVolatile(), restrict || pt.isRestrict());
+					return TypeInterner.intern(new CPPPointerType(pt.getType(),
+							cnst || pt.isConst(), vol || pt.isVolatile(), restrict || pt.isRestrict()));
 				}
 				return baseType;
 			} else if (baseType instanceof IArrayType) {
@@ -679,7 +680,7 @@ public class SemanticUtil {
 				return null;
 			}
 
-			return new CPPQualifierType(baseType, cnst, vol);
+			return TypeInterner.intern(new CPPQualifierType(baseType, cnst, vol));
 		}
 		return baseType;
 	}
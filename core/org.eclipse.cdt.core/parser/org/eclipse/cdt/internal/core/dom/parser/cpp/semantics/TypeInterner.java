@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp.semantics;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPBasicType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPFunctionType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPPointerType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPQualifierType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPReferenceType;
+
+/**
+ * Hash-consing of the structural types created for an AST. Interning a type returns the
+ * representative of all types with the same structure, so that types built independently for
+ * different declarators are often identical objects and {@link IType#isSameType(IType)}
+ * succeeds with a reference comparison.
+ * <p>
+ * Two types have the same structure when they are of the same class, carry the same
+ * qualifiers and flags and their nested types are interned to the same object. Bindings and
+ * types not handled here are used as they are. Pointer, reference, qualifier and function
+ * types as well as basic types without an associated value are interned. Interned types must
+ * not be modified; types are cloned before their nested type is replaced.
+ * <p>
+ * The table references the interned types weakly. An instance is kept per AST, see
+ * {@link CPPASTTranslationUnit#getTypeInterner()}.
+ */
+public class TypeInterner {
+	private final Map<Key, Ref> fTable = new HashMap<>();
+	private final ReferenceQueue<IType> fQueue = new ReferenceQueue<>();
+	private int fHits;
+	private int fMisses;
+
+	private static final class Key {
+		private final Class<?> fClass;
+		private final int fFlags;
+		private final Object[] fParts;
+		private final int fHash;
+
+		Key(Class<?> clazz, int flags, Object... parts) {
+			fClass = clazz;
+			fFlags = flags;
+			fParts = parts;
+			int hash = clazz.hashCode() * 31 + flags;
+			for (Object part : parts) {
+				hash = hash * 31 + System.identityHashCode(part);
+			}
+			fHash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return fHash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			if (fHash != other.fHash || fClass != other.fClass || fFlags != other.fFlags
+					|| fParts.length != other.fParts.length) {
+				return false;
+			}
+			for (int i = 0; i < fParts.length; i++) {
+				if (fParts[i] != other.fParts[i])
+					return false;
+			}
+			return true;
+		}
+	}
+
+	private static final class Ref extends WeakReference<IType> {
+		final Key fKey;
+
+		Ref(IType type, Key key, ReferenceQueue<IType> queue) {
+			super(type, queue);
+			fKey = key;
+		}
+	}
+
+	/**
+	 * Interns the given type with the interner of the AST containing the given node.
+	 * Returns the type unchanged if the node does not belong to a C++ AST.
+	 */
+	public static IType intern(IType type, IASTNode node) {
+		if (node == null)
+			return type;
+		IASTTranslationUnit ast = node.getTranslationUnit();
+		if (!(ast instanceof CPPASTTranslationUnit))
+			return type;
+		return ((CPPASTTranslationUnit) ast).getTypeInterner().internType(type);
+	}
+
+	/**
+	 * Interns the given type with the interner of the AST of the current lookup point.
+	 */
+	public static IType intern(IType type) {
+		return intern(type, CPPSemantics.getCurrentLookupPoint());
+	}
+
+	/**
+	 * Returns the representative of all types with the structure of the given type.
+	 */
+	public synchronized IType internType(IType type) {
+		purgeCollected();
+		return doIntern(type);
+	}
+
+	private IType doIntern(IType type) {
+		if (type == null)
+			return null;
+		final Class<?> clazz = type.getClass();
+		if (clazz == CPPPointerType.class) {
+			CPPPointerType pt = (CPPPointerType) type;
+			IType nested = doIntern(pt.getType());
+			int flags = flags(pt.isConst(), pt.isVolatile(), pt.isRestrict());
+			Key key = new Key(clazz, flags, nested);
+			IType result = lookup(key);
+			if (result == null) {
+				result = nested == pt.getType() ?
+						pt : new CPPPointerType(nested, pt.isConst(), pt.isVolatile(), pt.isRestrict());
+				store(key, result);
+			}
+			return result;
+		}
+		if (clazz == CPPReferenceType.class) {
+			CPPReferenceType rt = (CPPReferenceType) type;
+			IType nested = doIntern(rt.getType());
+			Key key = new Key(clazz, flags(rt.isRValueReference()), nested);
+			IType result = lookup(key);
+			if (result == null) {
+				result = nested == rt.getType() ? rt : new CPPReferenceType(nested, rt.isRValueReference());
+				store(key, result);
+			}
+			return result;
+		}
+		if (clazz == CPPQualifierType.class) {
+			CPPQualifierType qt = (CPPQualifierType) type;
+			IType nested = doIntern(qt.getType());
+			Key key = new Key(clazz, flags(qt.isConst(), qt.isVolatile()), nested);
+			IType result = lookup(key);
+			if (result == null) {
+				result = nested == qt.getType() ? qt : new CPPQualifierType(nested, qt.isConst(), qt.isVolatile());
+				store(key, result);
+			}
+			return result;
+		}
+		if (clazz == CPPFunctionType.class) {
+			CPPFunctionType ft = (CPPFunctionType) type;
+			IType[] params = ft.getParameterTypes();
+			IType[] newParams = params;
+			for (int i = 0; i < params.length; i++) {
+				IType param = doIntern(params[i]);
+				if (param != params[i]) {
+					if (newParams == params)
+						newParams = params.clone();
+					newParams[i] = param;
+				}
+			}
+			IType returnType = doIntern(ft.getReturnType());
+			Object[] parts = Arrays.copyOf(newParams, newParams.length + 1, Object[].class);
+			parts[newParams.length] = returnType;
+			int flags = flags(ft.isConst(), ft.isVolatile(), ft.hasRefQualifier(), ft.isRValueReference(),
+					ft.takesVarArgs());
+			Key key = new Key(clazz, flags, parts);
+			IType result = lookup(key);
+			if (result == null) {
+				result = newParams == params && returnType == ft.getReturnType() ? ft :
+						new CPPFunctionType(returnType, newParams, ft.isConst(), ft.isVolatile(),
+								ft.hasRefQualifier(), ft.isRValueReference(), ft.takesVarArgs());
+				store(key, result);
+			}
+			return result;
+		}
+		if (clazz == CPPBasicType.class) {
+			CPPBasicType bt = (CPPBasicType) type;
+			if (bt.getAssociatedNumericalValue() != null || bt.isFromStringLiteral())
+				return bt;
+			Key key = new Key(clazz, bt.getModifiers(), bt.getKind());
+			IType result = lookup(key);
+			if (result == null) {
+				result = bt;
+				store(key, result);
+			}
+			return result;
+		}
+		return type;
+	}
+
+	private IType lookup(Key key) {
+		Ref ref = fTable.get(key);
+		IType result = ref == null ? null : ref.get();
+		if (result == null) {
+			fMisses++;
+		} else {
+			fHits++;
+		}
+		return result;
+	}
+
+	private void store(Key key, IType type) {
+		fTable.put(key, new Ref(type, key, fQueue));
+	}
+
+	private void purgeCollected() {
+		Ref ref;
+		while ((ref = (Ref) fQueue.poll()) != null) {
+			if (fTable.get(ref.fKey) == ref)
+				fTable.remove(ref.fKey);
+		}
+	}
+
+	private static int flags(boolean... bits) {
+		int flags = 0;
+		for (int i = 0; i < bits.length; i++) {
+			if (bits[i])
+				flags |= 1 << i;
+		}
+		return flags;
+	}
+
+	/**
+	 * Returns the number of types currently held by the table.
+	 */
+	public synchronized int size() {
+		purgeCollected();
+		return fTable.size();
+	}
+
+	/**
+	 * Returns the number of interning requests that returned an existing representative.
+	 */
+	public synchronized int getHits() {
+		return fHits;
+	}
+
+	/**
+	 * Returns the number of interning requests that added a new representative.
+	 */
+	public synchronized int getMisses() {
+		return fMisses;
+	}
+}
@@ -105,27 +105,8 @@ public class CIndex implements IIndex {
 		if (SPECIALCASE_SINGLES && fFragments.length == 1) {
 			return fFragments[0].findBindings(patterns, isFullyQualified, filter, monitor);
 		} else {
-			List<IIndexBinding[]> result = new ArrayList<>();
-			ILinkage[] linkages = Linkage.getIndexerLinkages();
-			for (ILinkage linkage : linkages) {
-				if (filter.acceptLinkage(linkage)) {
-					IIndexFragmentBinding[][] fragmentBindings = new IIndexFragmentBinding[fFragments.length][];
-					for (int i = 0; i < fFragments.length; i++) {
-						try {
-							IBinding[] part = fFragments[i].findBindings(patterns, isFullyQualified,
-									retargetFilter(linkage, filter), monitor);
-							fragmentBindings[i] = new IIndexFragmentBinding[part.length];
-							System.arraycopy(part, 0, fragmentBindings[i], 0, part.length);
-						} catch (CoreException e) {
-							CCorePlugin.log(e);
-							fragmentBindings[i] = IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
-						}
-					}
-					ICompositesFactory factory = getCompositesFactory(linkage.getLinkageID());
-					result.add(factory.getCompositeBindings(fragmentBindings));
-				}
-			}
-			return flatten(result);
+			return findCompositeBindings(filter, SubMonitor.convert(monitor),
+					(fragment, linkageFilter, m) -> fragment.findBindings(patterns, isFullyQualified, linkageFilter, m));
 		}
 	}
 
@@ -135,27 +116,8 @@ public class CIndex implements IIndex {
 		if (SPECIALCASE_SINGLES && fFragments.length == 1) {
 			 return fFragments[0].findMacroContainers(pattern, filter, monitor);
 		} else {
-			List<IIndexBinding[]> result = new ArrayList<>();
-			ILinkage[] linkages = Linkage.getIndexerLinkages();
-			for (ILinkage linkage : linkages) {
-				if (filter.acceptLinkage(linkage)) {
-					IIndexFragmentBinding[][] fragmentBindings = new IIndexFragmentBinding[fFragments.length][];
-					for (int i = 0; i < fFragments.length; i++) {
-						try {
-							IBinding[] part = fFragments[i].findMacroContainers(pattern,
-									retargetFilter(linkage, filter), monitor);
-							fragmentBindings[i] = new IIndexFragmentBinding[part.length];
-							System.arraycopy(part, 0, fragmentBindings[i], 0, part.length);
-						} catch (CoreException e) {
-							CCorePlugin.log(e);
-							fragmentBindings[i] = IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
-						}
-					}
-					ICompositesFactory factory = getCompositesFactory(linkage.getLinkageID());
-					result.add(factory.getCompositeBindings(fragmentBindings));
-				}
-			}
-			return flatten(result);
+			return findCompositeBindings(filter, SubMonitor.convert(monitor),
+					(fragment, linkageFilter, m) -> fragment.findMacroContainers(pattern, linkageFilter, m));
 		}
 	}
 
@@ -183,21 +145,23 @@ public class CIndex implements IIndex {
 		// Read only fragments can be superseded by what the indexer writes into
 		// a writable fragment. Therefore names from a read-only fragment are
 		// ignored if there is a match in a writable fragment.
+		final IBinding target= binding;
+		IIndexFragmentName[][] fragmentNames= new IIndexFragmentName[fFragments.length][];
+		FragmentQueryExecutor.run(fFragments, (fragment, monitor) -> fragment.findNames(target, flags),
+				fragmentNames, useParallelQueries(), SubMonitor.convert(null));
 		HashSet<NameKey> encounteredNames = new HashSet<>();
-		for (IIndexFragment fragment : fFragments) {
-			if (fragment instanceof IWritableIndexFragment) {
-				final IIndexFragmentName[] names = fragment.findNames(binding, flags);
-				for (IIndexFragmentName name : names) {
+		for (int i = 0; i < fFragments.length; i++) {
+			if (fFragments[i] instanceof IWritableIndexFragment) {
+				for (IIndexFragmentName name : fragmentNames[i]) {
 					if (encounteredNames.add(new NameKey(name, true))) {
 						result.add(name);
 					}
 				}
 			}
 		}
-		for (IIndexFragment fragment : fFragments) {
-			if (!(fragment instanceof IWritableIndexFragment)) {
-				final IIndexFragmentName[] names = fragment.findNames(binding, flags);
-				for (IIndexFragmentName name : names) {
+		for (int i = 0; i < fFragments.length; i++) {
+			if (!(fFragments[i] instanceof IWritableIndexFragment)) {
+				for (IIndexFragmentName name : fragmentNames[i]) {
 					if (encounteredNames.add(new NameKey(name, false))) {
 						result.add(name);
 					}
@@ -314,15 +278,21 @@ public class CIndex implements IIndex {
 
 	@Override
 	public IIndexInclude[] findIncludedBy(IIndexFile file, int depth) throws CoreException {
+		if (depth < 0) {
+			return findIncludedByTransitively((IIndexFragmentFile) file);
+		}
 		List<IIndexInclude> result= new ArrayList<>();
 		Collection<IIndexFile> in = Collections.singletonList(file);
 		Set<FileContentKey> handled = new HashSet<>();
+		boolean parallel= useParallelQueries();
+		IIndexInclude[][] fragmentIncludes= new IIndexInclude[fFragments.length][];
 		while (true) {
 			Collection<IIndexFile> nextLevel= depth != 0 ? new ArrayDeque<IIndexFile>() : null;
 			for (IIndexFile indexFile : in) {
-				IIndexFragmentFile file1 = (IIndexFragmentFile) indexFile;
-				for (IIndexFragment fragment : fFragments) {
-					IIndexInclude[] includedBy= fragment.findIncludedBy(file1);
+				final IIndexFragmentFile file1 = (IIndexFragmentFile) indexFile;
+				FragmentQueryExecutor.run(fFragments, (fragment, monitor) -> fragment.findIncludedBy(file1),
+						fragmentIncludes, parallel, SubMonitor.convert(null));
+				for (IIndexInclude[] includedBy : fragmentIncludes) {
 					for (IIndexInclude include : includedBy) {
 						final IIndexFile includer = include.getIncludedBy();
 						FileContentKey key= new FileContentKey(file.getLinkageID(), includer.getLocation(), includer.getSignificantMacros());
@@ -346,6 +316,44 @@ public class CIndex implements IIndex {
 		return result.toArray(new IIndexInclude[result.size()]);
 	}
 
+	private IIndexInclude[] findIncludedByTransitively(IIndexFragmentFile file) throws CoreException {
+		if (fFragments.length == 1) {
+			// The fragment reports each includer once.
+			return fFragments[0].findIncludedByTransitively(file);
+		}
+
+		// A file found by one of the fragments may have further includers in the other ones.
+		// Each file is therefore searched for in all of the fragments except the one it was
+		// found by, which has already followed its includers.
+		List<IIndexInclude> result= new ArrayList<>();
+		Set<FileContentKey> handled= new HashSet<>();
+		List<IIndexFragmentFile> files= new ArrayList<>();
+		List<IIndexFragment> foundBy= new ArrayList<>();
+		files.add(file);
+		foundBy.add(null);
+		boolean parallel= useParallelQueries();
+		IIndexFragmentInclude[][] fragmentIncludes= new IIndexFragmentInclude[fFragments.length][];
+		for (int i = 0; i < files.size(); i++) {
+			final IIndexFragmentFile current= files.get(i);
+			final IIndexFragment source= foundBy.get(i);
+			FragmentQueryExecutor.run(fFragments, (fragment, monitor) -> fragment == source ?
+					IIndexFragmentInclude.EMPTY_FRAGMENT_INCLUDES_ARRAY : fragment.findIncludedByTransitively(current),
+					fragmentIncludes, parallel, SubMonitor.convert(null));
+			for (int j = 0; j < fFragments.length; j++) {
+				for (IIndexFragmentInclude include : fragmentIncludes[j]) {
+					final IIndexFragmentFile includer = (IIndexFragmentFile) include.getIncludedBy();
+					FileContentKey key= new FileContentKey(file.getLinkageID(), includer.getLocation(), includer.getSignificantMacros());
+					if (handled.add(key)) {
+						result.add(include);
+						files.add(includer);
+						foundBy.add(fFragments[j]);
+					}
+				}
+			}
+		}
+		return result.toArray(new IIndexInclude[result.size()]);
+	}
+
 	@Override
 	public IIndexInclude[] findIncludes(IIndexFile file) throws CoreException {
 		return findIncludes(file, 0);
@@ -452,30 +460,11 @@ public class CIndex implements IIndex {
 			if (monitor == null) {
 				monitor= new NullProgressMonitor();
 			}
-			List<IIndexBinding[]> result = new ArrayList<>();
-			ILinkage[] linkages = Linkage.getIndexerLinkages();
-			SubMonitor loopMonitor =
-					SubMonitor.convert(monitor, Messages.CIndex_FindBindingsTask_label, fFragments.length * linkages.length);
-			for (ILinkage linkage : linkages) {
-				if (filter.acceptLinkage(linkage)) {
-					IIndexFragmentBinding[][] fragmentBindings = new IIndexFragmentBinding[fFragments.length][];
-					for (int i = 0; i < fFragments.length; i++) {
-						try {
-							IBinding[] part = fFragments[i].findBindings(names,
-									retargetFilter(linkage, filter), loopMonitor.newChild(1));
-							fragmentBindings[i] = new IIndexFragmentBinding[part.length];
-							System.arraycopy(part, 0, fragmentBindings[i], 0, part.length);
-						} catch (CoreException e) {
-							CCorePlugin.log(e);
-							fragmentBindings[i] = IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
-						}
-					}
-					ICompositesFactory factory = getCompositesFactory(linkage.getLinkageID());
-					result.add(factory.getCompositeBindings(fragmentBindings));
-				}
-			}
+			SubMonitor loopMonitor = SubMonitor.convert(monitor, Messages.CIndex_FindBindingsTask_label, 1);
+			IIndexBinding[] result = findCompositeBindings(filter, loopMonitor,
+					(fragment, linkageFilter, m) -> fragment.findBindings(names, linkageFilter, m));
 			monitor.done();
-			return flatten(result);
+			return result;
 		}
 	}
 
@@ -563,17 +552,97 @@ public class CIndex implements IIndex {
 		throw new CompositingNotImplementedError("Compositing not implemented for linkage ID " + linkageID);  //$NON-NLS-1$
 	}
 
-	private IndexFilter retargetFilter(final ILinkage linkage, final IndexFilter filter) {
-		return new IndexFilter() {
-			@Override
-			public boolean acceptBinding(IBinding binding) throws CoreException {
-				return filter.acceptBinding(binding);
-			}
-			@Override
-			public boolean acceptLinkage(ILinkage other) {
-				return linkage.getLinkageID() == other.getLinkageID();
+	private interface BindingQuery {
+		IBinding[] find(IIndexFragment fragment, IndexFilter filter, IProgressMonitor monitor)
+				throws CoreException;
+	}
+
+	/**
+	 * Runs the query on all fragments for each of the linkages accepted by the filter and
+	 * returns the composite bindings for the results.
+	 */
+	private IIndexBinding[] findCompositeBindings(IndexFilter filter, SubMonitor progress,
+			BindingQuery query) throws CoreException {
+		List<IIndexBinding[]> result = new ArrayList<>();
+		ILinkage[] linkages = Linkage.getIndexerLinkages();
+		progress.setWorkRemaining(fFragments.length * linkages.length);
+		boolean parallel = useParallelQueries();
+		for (ILinkage linkage : linkages) {
+			if (filter.acceptLinkage(linkage)) {
+				final IndexFilter linkageFilter = retargetFilter(linkage, filter);
+				IIndexFragmentBinding[][] fragmentBindings = new IIndexFragmentBinding[fFragments.length][];
+				FragmentQueryExecutor.run(fFragments, (fragment, monitor) -> {
+					try {
+						IBinding[] part = query.find(fragment, linkageFilter, monitor);
+						IIndexFragmentBinding[] bindings = new IIndexFragmentBinding[part.length];
+						System.arraycopy(part, 0, bindings, 0, part.length);
+						return bindings;
+					} catch (CoreException e) {
+						CCorePlugin.log(e);
+						return IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
+					}
+				}, fragmentBindings, parallel, progress);
+				ICompositesFactory factory = getCompositesFactory(linkage.getLinkageID());
+				result.add(factory.getCompositeBindings(fragmentBindings));
 			}
-		};
+		}
+		return flatten(result);
+	}
+
+	/**
+	 * Returns whether queries may be distributed across the fragments in parallel. This requires
+	 * the caller to hold the read lock, which prevents writers from modifying any of the fragments
+	 * while the query is running.
+	 */
+	private boolean useParallelQueries() {
+		return FragmentQueryExecutor.isApplicable(fFragments.length) && getReadLockCount() > 0;
+	}
+
+	private IndexFilter retargetFilter(final ILinkage linkage, final IndexFilter filter) {
+		return new RetargetedFilter(linkage.getLinkageID(), filter);
+	}
+
+	/**
+	 * Restricts a filter to a single linkage. Two such filters are equal if they restrict
+	 * equal filters to the same linkage.
+	 */
+	public static final class RetargetedFilter extends IndexFilter {
+		private final int fLinkageID;
+		private final IndexFilter fDelegate;
+
+		RetargetedFilter(int linkageID, IndexFilter delegate) {
+			fLinkageID= linkageID;
+			fDelegate= delegate;
+		}
+
+		public IndexFilter getDelegate() {
+			return fDelegate;
+		}
+
+		@Override
+		public boolean acceptBinding(IBinding binding) throws CoreException {
+			return fDelegate.acceptBinding(binding);
+		}
+
+		@Override
+		public boolean acceptLinkage(ILinkage other) {
+			return fLinkageID == other.getLinkageID();
+		}
+
+		@Override
+		public int hashCode() {
+			return fLinkageID * 31 + fDelegate.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof RetargetedFilter))
+				return false;
+			RetargetedFilter other= (RetargetedFilter) obj;
+			return fLinkageID == other.fLinkageID && fDelegate.equals(other.fDelegate);
+		}
 	}
 
 	@Override
@@ -582,27 +651,8 @@ public class CIndex implements IIndex {
 		if (SPECIALCASE_SINGLES && fFragments.length == 1) {
 			return fFragments[0].findBindingsForPrefix(prefix, filescope, filter, monitor);
 		} else {
-			List<IIndexBinding[]> result = new ArrayList<>();
-			ILinkage[] linkages = Linkage.getIndexerLinkages();
-			for (ILinkage linkage : linkages) {
-				if (filter.acceptLinkage(linkage)) {
-					IIndexFragmentBinding[][] fragmentBindings = new IIndexFragmentBinding[fFragments.length][];
-					for (int i = 0; i < fFragments.length; i++) {
-						try {
-							IBinding[] part = fFragments[i].findBindingsForPrefix(prefix, filescope,
-									retargetFilter(linkage, filter), monitor);
-							fragmentBindings[i] = new IIndexFragmentBinding[part.length];
-							System.arraycopy(part, 0, fragmentBindings[i], 0, part.length);
-						} catch (CoreException e) {
-							CCorePlugin.log(e);
-							fragmentBindings[i] = IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
-						}
-					}
-					ICompositesFactory factory = getCompositesFactory(linkage.getLinkageID());
-					result.add(factory.getCompositeBindings(fragmentBindings));
-				}
-			}
-			return flatten(result);
+			return findCompositeBindings(filter, SubMonitor.convert(monitor),
+					(fragment, linkageFilter, m) -> fragment.findBindingsForPrefix(prefix, filescope, linkageFilter, m));
 		}
 	}
 
@@ -612,27 +662,8 @@ public class CIndex implements IIndex {
 		if (SPECIALCASE_SINGLES && fFragments.length == 1) {
 			return fFragments[0].findBindingsForContentAssist(prefix, filescope, filter, monitor);
 		} else {
-			List<IIndexBinding[]> result = new ArrayList<>();
-			ILinkage[] linkages = Linkage.getIndexerLinkages();
-			for (ILinkage linkage : linkages) {
-				if (filter.acceptLinkage(linkage)) {
-					IIndexFragmentBinding[][] fragmentBindings = new IIndexFragmentBinding[fFragments.length][];
-					for (int i = 0; i < fFragments.length; i++) {
-						try {
-							IBinding[] part = fFragments[i].findBindingsForContentAssist(prefix,
-									filescope, retargetFilter(linkage, filter), monitor);
-							fragmentBindings[i] = new IIndexFragmentBinding[part.length];
-							System.arraycopy(part, 0, fragmentBindings[i], 0, part.length);
-						} catch (CoreException e) {
-							CCorePlugin.log(e);
-							fragmentBindings[i] = IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
-						}
-					}
-					ICompositesFactory factory = getCompositesFactory(linkage.getLinkageID());
-					result.add(factory.getCompositeBindings(fragmentBindings));
-				}
-			}
-			return flatten(result);
+			return findCompositeBindings(filter, SubMonitor.convert(monitor),
+					(fragment, linkageFilter, m) -> fragment.findBindingsForContentAssist(prefix, filescope, linkageFilter, m));
 		}
 	}
 
@@ -642,27 +673,8 @@ public class CIndex implements IIndex {
 		if (SPECIALCASE_SINGLES && fFragments.length == 1) {
 			return fFragments[0].findBindings(name, filescope, filter, monitor);
 		} else {
-			List<IIndexBinding[]> result = new ArrayList<>();
-			ILinkage[] linkages = Linkage.getIndexerLinkages();
-			for (ILinkage linkage : linkages) {
-				if (filter.acceptLinkage(linkage)) {
-					IIndexFragmentBinding[][] fragmentBindings = new IIndexFragmentBinding[fFragments.length][];
-					for (int i = 0; i < fFragments.length; i++) {
-						try {
-							IBinding[] part = fFragments[i].findBindings(name, filescope,
-									retargetFilter(linkage, filter), monitor);
-							fragmentBindings[i] = new IIndexFragmentBinding[part.length];
-							System.arraycopy(part, 0, fragmentBindings[i], 0, part.length);
-						} catch (CoreException e) {
-							CCorePlugin.log(e);
-							fragmentBindings[i] = IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
-						}
-					}
-					ICompositesFactory factory = getCompositesFactory(linkage.getLinkageID());
-					result.add(factory.getCompositeBindings(fragmentBindings));
-				}
-			}
-			return flatten(result);
+			return findCompositeBindings(filter, SubMonitor.convert(monitor),
+					(fragment, linkageFilter, m) -> fragment.findBindings(name, filescope, linkageFilter, m));
 		}
 	}
 
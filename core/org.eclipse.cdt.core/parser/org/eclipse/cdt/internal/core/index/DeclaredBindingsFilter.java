@@ -63,6 +63,22 @@ public class DeclaredBindingsFilter extends IndexFilter {
 		return fAcceptImplicit || !isImplicit(binding);	
 	}
 
+	@Override
+	public int hashCode() {
+		return (fLinkageID * 31 + (fAcceptImplicit ? 1 : 0)) * 31 + (fAllowInstances ? 1 : 0);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || obj.getClass() != getClass())
+			return false;
+		DeclaredBindingsFilter other= (DeclaredBindingsFilter) obj;
+		return fLinkageID == other.fLinkageID && fAcceptImplicit == other.fAcceptImplicit
+				&& fAllowInstances == other.fAllowInstances;
+	}
+
 	private boolean isImplicit(IBinding binding) {
 		if (binding instanceof ICPPSpecialization)
 			return true;
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.index;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Runs a query on each fragment of a {@link CIndex}, optionally fanning the fragments out
+ * to a small pool of worker threads. The result for the i-th fragment is always stored at
+ * index i, so merging the results yields the same outcome as querying the fragments one after
+ * the other.
+ * <p>
+ * The workers do not acquire read locks of their own. Read locks on index fragments are
+ * counted rather than owned by a thread, therefore the lock held by the thread submitting
+ * the query protects the workers as well, provided that the submitting thread does not return
+ * before all of them are done. {@link #run} never returns early, not even when interrupted.
+ * <p>
+ * Parallel queries are disabled by default, they are enabled by setting the system property
+ * {@code CDT_INDEX_PARALLEL_QUERIES} to {@code true}.
+ */
+public final class FragmentQueryExecutor {
+	/** Minimum number of fragments for a query to be worth distributing. */
+	static final int MIN_FRAGMENTS = 3;
+	private static final int MAX_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+	private static final long KEEP_ALIVE_SECONDS = 10;
+
+	private static volatile boolean sEnabled = Boolean.getBoolean("CDT_INDEX_PARALLEL_QUERIES"); //$NON-NLS-1$
+	private static ThreadPoolExecutor sExecutor;
+
+	public interface FragmentQuery<T> {
+		T run(IIndexFragment fragment, IProgressMonitor monitor) throws CoreException;
+	}
+
+	private static class Worker extends Thread {
+		Worker(Runnable runnable, int number) {
+			super(runnable, "CDT Index Query " + number); //$NON-NLS-1$
+			setDaemon(true);
+		}
+	}
+
+	/**
+	 * Delegates cancellation to the monitor of the submitting thread. Progress is not reported
+	 * by the workers, since progress monitors are not meant to be used from multiple threads.
+	 */
+	private static class CancellationMonitor extends NullProgressMonitor {
+		private final IProgressMonitor fDelegate;
+
+		CancellationMonitor(IProgressMonitor delegate) {
+			fDelegate= delegate;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return fDelegate.isCanceled();
+		}
+	}
+
+	private FragmentQueryExecutor() {
+	}
+
+	/**
+	 * Enables or disables parallel queries, for use by tests and benchmarks.
+	 */
+	public static void setEnabled(boolean enabled) {
+		sEnabled= enabled;
+	}
+
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	/**
+	 * Returns whether a query on the given number of fragments should be distributed. Queries
+	 * issued from a worker thread, e.g. by an index filter, are always run sequentially.
+	 */
+	public static boolean isApplicable(int fragmentCount) {
+		return sEnabled && MAX_THREADS > 1 && fragmentCount >= MIN_FRAGMENTS
+				&& !(Thread.currentThread() instanceof Worker);
+	}
+
+	/**
+	 * Runs the query on all fragments and stores the result for {@code fragments[i]} in
+	 * {@code results[i]}.
+	 *
+	 * @param parallel whether the fragments may be queried in parallel. The caller has to hold
+	 *     a read lock on all of the fragments when passing {@code true}.
+	 * @param progress monitor for reporting progress, one unit of work is consumed per fragment.
+	 * @throws CoreException the exception thrown by the query for the first fragment that failed.
+	 */
+	public static <T> void run(IIndexFragment[] fragments, FragmentQuery<T> query, T[] results,
+			boolean parallel, SubMonitor progress) throws CoreException {
+		if (!parallel || fragments.length < 2) {
+			for (int i = 0; i < fragments.length; i++) {
+				results[i]= query.run(fragments[i], progress.newChild(1));
+			}
+			return;
+		}
+
+		IProgressMonitor monitor= new CancellationMonitor(progress);
+		@SuppressWarnings("unchecked")
+		FutureTask<T>[] tasks= new FutureTask[fragments.length];
+		ThreadPoolExecutor executor= getExecutor();
+		for (int i = 1; i < fragments.length; i++) {
+			final IIndexFragment fragment= fragments[i];
+			tasks[i]= new FutureTask<>(() -> query.run(fragment, monitor));
+			executor.execute(tasks[i]);
+		}
+		tasks[0]= new FutureTask<>(() -> query.run(fragments[0], monitor));
+
+		Throwable failure= null;
+		boolean interrupted= false;
+		for (int i = 0; i < tasks.length; i++) {
+			// Run tasks that no worker has picked up yet on this thread. This is a no-op for tasks
+			// that are already running or done.
+			tasks[i].run();
+			while (true) {
+				try {
+					results[i]= tasks[i].get();
+					break;
+				} catch (InterruptedException e) {
+					// The read lock must not be released before all workers are done.
+					interrupted= true;
+				} catch (ExecutionException e) {
+					if (failure == null)
+						failure= e.getCause();
+					break;
+				}
+			}
+			progress.worked(1);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure instanceof CoreException)
+			throw (CoreException) failure;
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		if (sExecutor == null) {
+			ThreadPoolExecutor executor= new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+					KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						private int fCount;
+
+						@Override
+						public synchronized Thread newThread(Runnable runnable) {
+							return new Worker(runnable, ++fCount);
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			sExecutor= executor;
+		}
+		return sExecutor;
+	}
+}
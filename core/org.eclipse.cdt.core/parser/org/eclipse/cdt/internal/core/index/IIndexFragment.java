@@ -152,6 +152,18 @@ public interface IIndexFragment {
 	 */
 	IIndexFragmentInclude[] findIncludedBy(IIndexFragmentFile file) throws CoreException;
 
+	/**
+	 * Returns the include directives that point to the given file, directly or indirectly via
+	 * other files managed by this fragment. Only the first include directive found for each of
+	 * the including files is returned, in breadth first order. The input file may belong to
+	 * another fragment. All of the include directives returned must belong to files managed by
+	 * this fragment.
+	 * @param file a file to search for includes pointing to it
+	 * @return an array of include directives managed by this fragment
+	 * @throws CoreException
+	 */
+	IIndexFragmentInclude[] findIncludedByTransitively(IIndexFragmentFile file) throws CoreException;
+
 	/**
 	 * Looks for a binding matching the given one. May return <code>null</code>, if no
 	 * such binding exists. The binding may belong to an AST or another index fragment.
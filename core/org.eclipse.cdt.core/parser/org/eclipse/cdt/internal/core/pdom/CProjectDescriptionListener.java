@@ -11,18 +11,28 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.eclipse.cdt.core.index.IndexerSetupParticipant;
 import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
 import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
+import org.eclipse.cdt.core.settings.model.ICDescriptionDelta;
 import org.eclipse.cdt.core.settings.model.ICProjectDescription;
 import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
+import org.eclipse.cdt.core.settings.model.ICSettingObject;
 import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
 import org.eclipse.cdt.internal.core.settings.model.CProjectDescriptionManager;
 import org.eclipse.core.resources.IProject;
 
 public class CProjectDescriptionListener implements	ICProjectDescriptionListener {
+	/** Changes of a configuration that leave its index up to date. */
+	private static final int NON_INDEX_CHANGE_FLAGS= ICDescriptionDelta.ACTIVE_CFG | ICDescriptionDelta.INDEX_CFG
+			| ICDescriptionDelta.NAME | ICDescriptionDelta.DESCRIPTION
+			| ICDescriptionDelta.ERROR_PARSER_IDS | ICDescriptionDelta.BINARY_PARSER_IDS;
+
 	private PDOMManager fIndexManager;
 	private IndexerSetupParticipant fIndexerSetupParticipant;
 
@@ -51,17 +61,60 @@ public class CProjectDescriptionListener implements	ICProjectDescriptionListener
 				if (project != null) {
 					fIndexerSetupParticipant.notifyIndexerSetup(project);
 				}
-			} else if (old != null && changedDefaultSettingConfiguration(old, act)) {
-				ICProject project= getProject(event);
-				if (project != null) {
-					if (IndexerPreferences.getReindexOnConfigChange(project.getProject())) {
-						fIndexManager.reindex(project);
+			} else if (old != null) {
+				Set<String> changedIds= removeChangedConfigurationSnapshots(event);
+				if (changedDefaultSettingConfiguration(old, act)) {
+					ICProject project= getProject(event);
+					if (project != null) {
+						if (IndexerPreferences.getReindexOnConfigChange(project.getProject())) {
+							String oldId= old.getDefaultSettingConfiguration().getId();
+							// The index of the old configuration is outdated if it changed as well.
+							fIndexManager.switchConfiguration(project, changedIds.contains(oldId) ? null : oldId,
+									act.getDefaultSettingConfiguration().getId());
+						}
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Deletes the index snapshots of the configurations changed or removed by the event, the
+	 * update of a snapshot only checks the timestamps of the files. Changes that do not affect
+	 * the index, like switching the active configuration or renaming one, keep the snapshots.
+	 * @return the ids of the changed configurations.
+	 */
+	private Set<String> removeChangedConfigurationSnapshots(CProjectDescriptionEvent event) {
+		Set<String> ids= new HashSet<>();
+		ICDescriptionDelta delta= event.getProjectDelta();
+		IProject project= event.getProject();
+		if (delta != null && project != null) {
+			for (ICDescriptionDelta child : delta.getChildren()) {
+				ICSettingObject setting= child.getSetting();
+				if (setting instanceof ICConfigurationDescription && affectsIndex(child)) {
+					ids.add(setting.getId());
+				}
+			}
+			if (project.isOpen()) {
+				fIndexManager.removeConfigurationSnapshots(project, ids);
+			}
+		}
+		return ids;
+	}
+
+	private static boolean affectsIndex(ICDescriptionDelta delta) {
+		if (delta.getDeltaKind() != ICDescriptionDelta.CHANGED
+				|| (delta.getChangeFlags() & ~NON_INDEX_CHANGE_FLAGS) != 0) {
+			return true;
+		}
+		for (ICDescriptionDelta child : delta.getChildren()) {
+			if (affectsIndex(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private boolean changedDefaultSettingConfiguration(ICProjectDescription old, ICProjectDescription act) {
 		ICConfigurationDescription oldConfig= old.getDefaultSettingConfiguration();
 		ICConfigurationDescription newConfig= act.getDefaultSettingConfiguration();
@@ -10,7 +10,9 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.cdt.core.CCorePlugin;
@@ -55,12 +57,20 @@ public class LanguageSettingsChangeListener implements ILanguageSettingsChangeLi
 				ICConfigurationDescription cfgDescription = prjDescription.getDefaultSettingConfiguration();
 				String indexedId = cfgDescription.getId();
 
+				boolean reindex= false;
+				List<String> outdated= new ArrayList<String>();
 				for (String id : event.getConfigurationDescriptionIds()) {
 					if (id.equals(indexedId)) {
-						reindex(id, event);
-						return;
+						reindex= true;
+					} else {
+						// The snapshot of the index for the configuration is outdated.
+						outdated.add(id);
 					}
 				}
+				fManager.removeConfigurationSnapshots(project, outdated);
+				if (reindex) {
+					reindex(indexedId, event);
+				}
 			}
 		}
 	}
@@ -18,6 +18,7 @@ package org.eclipse.cdt.internal.core.pdom;
 
 import java.io.File;
 import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -94,8 +95,10 @@ import org.eclipse.cdt.internal.core.pdom.dom.PDOMMacro;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMMacroContainer;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMMacroReferenceName;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMName;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMNameTrigramIndex;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMNamedNode;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMNode;
+import org.eclipse.cdt.internal.core.pdom.dom.cpp.IPDOMCPPClassType;
 import org.eclipse.cdt.internal.core.pdom.tag.PDOMTagIndex;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -293,10 +296,12 @@ public class PDOM extends PlatformObject implements IPDOM {
 	 *  CDT 9.5 development (version not supported on the 9.4.x branch)
 	 *  212.0 - C++ constexpr if and if init-statement evaluation
 	 *  213.0 - C++ switch init-statement evaluation
+	 *  214.0 - Index of trigrams of binding names for pattern searches
+	 *  215.0 - Packed storage for the references to bindings with many references
 	 */
-	private static final int MIN_SUPPORTED_VERSION= version(213, 0);
-	private static final int MAX_SUPPORTED_VERSION= version(213, Short.MAX_VALUE);
-	private static final int DEFAULT_VERSION = version(213, 0);
+	private static final int MIN_SUPPORTED_VERSION= version(215, 0);
+	private static final int MAX_SUPPORTED_VERSION= version(215, Short.MAX_VALUE);
+	private static final int DEFAULT_VERSION = version(215, 0);
 
 	private static int version(int major, int minor) {
 		return (major << 16) + minor;
@@ -344,11 +349,13 @@ public class PDOM extends PlatformObject implements IPDOM {
 		private boolean fCleared;
 		private boolean fReloaded;
 		private boolean fNewFiles;
+		private boolean fContentRemoved;
 
 		private void setCleared() {
 			fCleared= true;
 			fReloaded= false;
 			fNewFiles= false;
+			fContentRemoved= false;
 
 			fClearedFiles.clear();
 			fFilesWritten.clear();
@@ -374,6 +381,20 @@ public class PDOM extends PlatformObject implements IPDOM {
 			return fNewFiles;
 		}
 
+		/**
+		 * Records that the content of a file was cleared or replaced.
+		 */
+		public void setContentRemoved() {
+			fContentRemoved= true;
+		}
+
+		/**
+		 * Returns whether bindings or names may have been removed or changed, rather than only added.
+		 */
+		public boolean isContentRemoved() {
+			return fCleared || fReloaded || fContentRemoved;
+		}
+
 		public boolean isTrivial() {
 			return !fCleared && !fReloaded && !fNewFiles && fClearedFiles.isEmpty() &&
 					fFilesWritten.isEmpty();
@@ -404,6 +425,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private final Map<String, IPDOMLinkageFactory> fPDOMLinkageFactoryCache;
 	private final HashMap<Object, Object> fResultCache= new HashMap<>();
 	private final Map<Long, WeakReference<IValue>> fVariableResultCache= new HashMap<>();
+	private final PDOMQueryResultCache fQueryResultCache= new PDOMQueryResultCache();
+	private final PDOMIncludedByCache fIncludedByCache= new PDOMIncludedByCache();
 	private List<IListener> listeners;
 	protected ChangeEvent fEvent= new ChangeEvent();
 
@@ -654,6 +677,15 @@ public class PDOM extends PlatformObject implements IPDOM {
 	}
 
 	void reloadFromFile(File file) throws CoreException {
+		reloadFromFile(file, true);
+	}
+
+	/**
+	 * Switches to the database in the given file, which is created if it does not exist.
+	 * @param deleteOldFile whether to delete the file of the database used so far, otherwise
+	 *     it is flushed and kept.
+	 */
+	void reloadFromFile(File file, boolean deleteOldFile) throws CoreException {
 		assert lockCount < 0;	// must have write lock.
 		File oldFile= fPath;
 		clearCaches();
@@ -664,7 +696,9 @@ public class PDOM extends PlatformObject implements IPDOM {
 		}
 		loadDatabase(file, db.getChunkCache());
 		db.setExclusiveLock();
-		oldFile.delete();
+		if (deleteOldFile) {
+			oldFile.delete();
+		}
 		fEvent.fReloaded= true;
 	}
 
@@ -767,6 +801,73 @@ public class PDOM extends PlatformObject implements IPDOM {
 			}
 		}
 
+		/**
+		 * Adds the candidates found via the index of name trigrams, that would be found when
+		 * visiting the linkage.
+		 */
+		public void checkCandidates(PDOMLinkage linkage, long[] candidates) throws CoreException {
+			final int lastIdx = pattern.length-1;
+			for (int i = 0; i < candidates.length; i++) {
+				if (i % CANCELLATION_CHECK_INTERVAL == 0 && monitor.isCanceled())
+					throw new CoreException(Status.OK_STATUS);
+
+				PDOMNode node= PDOMNode.load(linkage.getPDOM(), candidates[i]);
+				if (node instanceof PDOMNamedNode && node instanceof IBinding) {
+					PDOMNamedNode nnode= (PDOMNamedNode) node;
+					if (pattern[lastIdx].matcher(new String(nnode.getNameCharArray())).matches()
+							&& isVisitedWithMatch(linkage, nnode, lastIdx)
+							&& filter.acceptBinding((IBinding) nnode)) {
+						bindings.add(nnode);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Checks whether visiting the linkage reaches the node with a match of the patterns up
+		 * to the given level, i.e. whether the corresponding bit of {@link #matchesUpToLevel}
+		 * is set when the node is visited.
+		 */
+		private boolean isVisitedWithMatch(PDOMLinkage linkage, PDOMNode node, int level)
+				throws CoreException {
+			long parentRec= node.getParentNodeRec();
+			if (parentRec == linkage.getRecord())
+				return level == 0;
+			PDOMNode parent= PDOMNode.load(linkage.getPDOM(), parentRec);
+			if (!(parent instanceof PDOMNamedNode))
+				return false;
+			// Enumerators of unscoped enumerations are also children of the enclosing scope,
+			// classes visit their direct members, only.
+			if (parent instanceof IEnumeration && !(parent instanceof ICPPEnumeration
+					&& ((ICPPEnumeration) parent).isScoped())) {
+				long grandParentRec= parent.getParentNodeRec();
+				if ((grandParentRec == linkage.getRecord()
+						|| !(PDOMNode.load(linkage.getPDOM(), grandParentRec) instanceof IPDOMCPPClassType))
+						&& isVisitedWithMatch(linkage, parent, level)) {
+					return true;
+				}
+				if (pattern.length == 1)
+					return false;
+			}
+			PDOMNamedNode nparent= (PDOMNamedNode) parent;
+			if (!nparent.mayHaveChildren())
+				return false;
+			if (level == 0 && !isFullyQualified)
+				return isVisited(linkage, nparent);
+			if (level == 0)
+				return false;
+			return pattern[level-1].matcher(new String(nparent.getNameCharArray())).matches()
+					&& isVisitedWithMatch(linkage, nparent, level-1);
+		}
+
+		private boolean isVisited(PDOMLinkage linkage, PDOMNode node) throws CoreException {
+			for (int level= 0; level < pattern.length; level++) {
+				if (isVisitedWithMatch(linkage, node, level))
+					return true;
+			}
+			return false;
+		}
+
 		public IIndexFragmentBinding[] getBindings() {
 			return bindings.toArray(new IIndexFragmentBinding[bindings.size()]);
 		}
@@ -801,10 +902,17 @@ public class PDOM extends PlatformObject implements IPDOM {
 		}
 
 		BindingFinder finder = new BindingFinder(patterns, isFullyQualified, filter, monitor);
+		String[] literals= PDOMNameTrigramIndex.getRequiredLiterals(patterns[patterns.length - 1]);
 		for (PDOMLinkage linkage : getLinkageList()) {
 			if (filter.acceptLinkage(linkage)) {
 				try {
-					linkage.accept(finder);
+					PDOMNameTrigramIndex trigramIndex= linkage.getNameTrigramIndex();
+					long[] candidates= trigramIndex == null ? null : trigramIndex.findCandidates(literals);
+					if (candidates != null) {
+						finder.checkCandidates(linkage, candidates);
+					} else {
+						linkage.accept(finder);
+					}
 				} catch (CoreException e) {
 					if (e.getStatus() != Status.OK_STATUS)
 						throw e;
@@ -1087,6 +1195,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 			if (sDEBUG_LOCKS)
 				timeWriteLockAcquired = System.currentTimeMillis();
 			db.setExclusiveLock();
+			fQueryResultCache.beginWrite();
+			fIncludedByCache.beginWrite();
 		}
 		if (monitor != null)
 			monitor.subTask(""); //$NON-NLS-1$
@@ -1102,6 +1212,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 		if (establishReadLocks == 0) {
 			clearResultCache();
 		}
+		fQueryResultCache.endWrite(fEvent.isCleared() || fEvent.isReloaded());
+		fIncludedByCache.endWrite();
 		try {
 			db.giveUpExclusiveLock(flush);
 		} catch (CoreException e) {
@@ -1213,6 +1325,11 @@ public class PDOM extends PlatformObject implements IPDOM {
 		IIndexFragmentBinding myBinding= adaptBinding(binding);
 		if (myBinding instanceof PDOMBinding) {
 			PDOMBinding pdomBinding = (PDOMBinding) myBinding;
+			PDOMQueryResultCache.Key key= PDOMQueryResultCache.forNames(pdomBinding.getNameCharArray(),
+					pdomBinding.getRecord(), options);
+			IIndexFragmentName[] cached= fQueryResultCache.get(key);
+			if (cached != null)
+				return cached;
 			findNamesForMyBinding(pdomBinding, options, names);
 			if ((options & SEARCH_ACROSS_LANGUAGE_BOUNDARIES) != 0) {
 				PDOMBinding[] xlangBindings= getCrossLanguageBindings(binding);
@@ -1220,6 +1337,9 @@ public class PDOM extends PlatformObject implements IPDOM {
 					findNamesForMyBinding(xlangBinding, options, names);
 				}
 			}
+			IIndexFragmentName[] result= names.toArray(new IIndexFragmentName[names.size()]);
+			fQueryResultCache.put(key, result);
+			return result;
 		} else if (myBinding instanceof PDOMMacroContainer) {
 			final PDOMMacroContainer macroContainer = (PDOMMacroContainer) myBinding;
 			findNamesForMyBinding(macroContainer, options, names);
@@ -1252,17 +1372,56 @@ public class PDOM extends PlatformObject implements IPDOM {
 			}
 		}
 		if ((options & FIND_REFERENCES) != 0) {
-			for (name = pdomBinding.getFirstReference(); name != null; name= name.getNextInBinding()) {
-				if (isCommitted(name) && !name.isPotentialMatch()) {
+			findReferences(pdomBinding, null, names);
+		}
+	}
+
+	/**
+	 * Adds the references to the binding to the list, or only the ones in the given file
+	 * if it is not {@code null}.
+	 */
+	private void findReferences(PDOMBinding pdomBinding, PDOMFile file, List<IIndexFragmentName> names)
+			throws CoreException {
+		long fileRecord= file != null ? file.getRecord() : 0;
+		PDOMName name;
+		if (pdomBinding.hasPackedReferences()) {
+			// The packed references do not include potential matches.
+			PDOMLinkage linkage= pdomBinding.getLinkage();
+			for (long record : linkage.getReferenceIndex().getReferences(pdomBinding.getRecord(), fileRecord)) {
+				name= new PDOMName(linkage, record);
+				if (isCommitted(name)) {
 					names.add(name);
 				}
 			}
-			for (IPDOMIterator<PDOMName> iterator = pdomBinding.getExternalReferences(); iterator.hasNext();) {
-				name = iterator.next();
-				if (isCommitted(name) && !name.isPotentialMatch())
+		} else {
+			for (name = pdomBinding.getFirstReference(); name != null; name= name.getNextInBinding()) {
+				if ((fileRecord == 0 || name.getFileRecord() == fileRecord) && isCommitted(name)
+						&& !name.isPotentialMatch()) {
 					names.add(name);
+				}
 			}
 		}
+		for (IPDOMIterator<PDOMName> iterator = pdomBinding.getExternalReferences(); iterator.hasNext();) {
+			name = iterator.next();
+			if ((fileRecord == 0 || name.getFileRecord() == fileRecord) && isCommitted(name)
+					&& !name.isPotentialMatch())
+				names.add(name);
+		}
+	}
+
+	/**
+	 * Returns the references to the binding in the given file. For bindings with many
+	 * references, only the references in the file are read from the database.
+	 */
+	public IIndexFragmentName[] findReferences(IBinding binding, IIndexFragmentFile file)
+			throws CoreException {
+		IIndexFragmentBinding myBinding= adaptBinding(binding);
+		PDOMFile pdomFile= adaptFile(file);
+		if (!(myBinding instanceof PDOMBinding) || pdomFile == null)
+			return IIndexFragmentName.EMPTY_NAME_ARRAY;
+		List<IIndexFragmentName> names= new ArrayList<>();
+		findReferences((PDOMBinding) myBinding, pdomFile, names);
+		return names.toArray(new IIndexFragmentName[names.size()]);
 	}
 
 	private void findNamesForMyBinding(PDOMMacroContainer container, int options, ArrayList<IIndexFragmentName> names)
@@ -1310,17 +1469,75 @@ public class PDOM extends PlatformObject implements IPDOM {
 	public IIndexFragmentInclude[] findIncludedBy(IIndexFragmentFile file) throws CoreException {
 		PDOMFile pdomFile= adaptFile(file);
 		if (pdomFile != null) {
-			List<PDOMInclude> result = new ArrayList<>();
-			for (PDOMInclude i= pdomFile.getFirstIncludedBy(); i != null; i= i.getNextInIncludedBy()) {
-				if (i.getIncludedBy().getTimestamp() > 0) {
-					result.add(i);
-				}
+			PDOMLinkage linkage= getLinkage(pdomFile.getLinkageID());
+			long[] includedBy= getIncludedBy(linkage, pdomFile.getRecord());
+			PDOMInclude[] result= new PDOMInclude[includedBy.length / 2];
+			for (int i = 0; i < result.length; i++) {
+				result[i]= new PDOMInclude(linkage, includedBy[2 * i]);
 			}
-			return result.toArray(new PDOMInclude[result.size()]);
+			return result;
 		}
 		return new PDOMInclude[0];
 	}
 
+	@Override
+	public IIndexFragmentInclude[] findIncludedByTransitively(IIndexFragmentFile file)
+			throws CoreException {
+		PDOMFile pdomFile= adaptFile(file);
+		if (pdomFile == null)
+			return new PDOMInclude[0];
+
+		// Breadth first search on the records of the files, such that no locations need to be
+		// read from the database.
+		PDOMLinkage linkage= getLinkage(pdomFile.getLinkageID());
+		List<PDOMInclude> result= new ArrayList<>();
+		Set<Long> handled= new HashSet<>();
+		ArrayDeque<Long> queue= new ArrayDeque<>();
+		queue.add(pdomFile.getRecord());
+		while (!queue.isEmpty()) {
+			long[] includedBy= getIncludedBy(linkage, queue.remove());
+			for (int i = 0; i < includedBy.length; i += 2) {
+				if (handled.add(includedBy[i + 1])) {
+					result.add(new PDOMInclude(linkage, includedBy[i]));
+					queue.add(includedBy[i + 1]);
+				}
+			}
+		}
+		return result.toArray(new PDOMInclude[result.size()]);
+	}
+
+	/**
+	 * Returns the records of the include directives of committed files pointing to the file with
+	 * the given record, each followed by the record of the file containing it.
+	 */
+	private long[] getIncludedBy(PDOMLinkage linkage, long fileRecord) throws CoreException {
+		long[] result= fIncludedByCache.get(fileRecord);
+		if (result == null) {
+			result= new long[8];
+			int length= 0;
+			PDOMFile file= new PDOMFile(linkage, fileRecord);
+			for (PDOMInclude i= file.getFirstIncludedBy(); i != null; i= i.getNextInIncludedBy()) {
+				PDOMFile includer= (PDOMFile) i.getIncludedBy();
+				if (includer.getTimestamp() > 0) {
+					if (length == result.length)
+						result= Arrays.copyOf(result, 2 * length);
+					result[length++]= i.getRecord();
+					result[length++]= includer.getRecord();
+				}
+			}
+			result= Arrays.copyOf(result, length);
+			fIncludedByCache.put(fileRecord, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cache for the includers of files.
+	 */
+	public PDOMIncludedByCache getIncludedByCache() {
+		return fIncludedByCache;
+	}
+
 	private PDOMFile adaptFile(IIndexFragmentFile file) throws CoreException {
 		if (file.getIndexFragment() == this && file instanceof PDOMFile) {
 			return (PDOMFile) file;
@@ -1353,6 +1570,13 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private IIndexFragmentBinding[] findBindingsForPrefixOrContentAssist(char[] prefix, boolean filescope,
 			boolean isContentAssist, boolean caseSensitive, IndexFilter filter, IProgressMonitor monitor)
 			throws CoreException {
+		PDOMQueryResultCache.Key key=
+				PDOMQueryResultCache.forPrefix(prefix, filescope, isContentAssist, caseSensitive, filter);
+		if (key != null) {
+			IIndexFragmentBinding[] cached= fQueryResultCache.get(key);
+			if (cached != null)
+				return cached;
+		}
 		ArrayList<IIndexFragmentBinding> result= new ArrayList<>();
 		for (PDOMLinkage linkage : getLinkageList()) {
 			if (filter.acceptLinkage(linkage)) {
@@ -1376,7 +1600,26 @@ public class PDOM extends PlatformObject implements IPDOM {
 				}
 			}
 		}
-		return result.toArray(new IIndexFragmentBinding[result.size()]);
+		return cacheResult(key, result.toArray(new IIndexFragmentBinding[result.size()]), monitor);
+	}
+
+	/**
+	 * Stores the result of a query in the query result cache, unless the query was cancelled
+	 * and may therefore be incomplete.
+	 */
+	private IIndexFragmentBinding[] cacheResult(PDOMQueryResultCache.Key key, IIndexFragmentBinding[] result,
+			IProgressMonitor monitor) {
+		if (key != null && (monitor == null || !monitor.isCanceled())) {
+			fQueryResultCache.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cache for the results of name based queries.
+	 */
+	public PDOMQueryResultCache getQueryResultCache() {
+		return fQueryResultCache;
 	}
 
 	@Override
@@ -1387,6 +1630,13 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	public IIndexFragmentBinding[] findBindings(char[] name, boolean filescope,
 			boolean isCaseSensitive, IndexFilter filter, IProgressMonitor monitor) throws CoreException {
+		PDOMQueryResultCache.Key key=
+				PDOMQueryResultCache.forBindings(name, filescope, isCaseSensitive, filter);
+		if (key != null) {
+			IIndexFragmentBinding[] cached= fQueryResultCache.get(key);
+			if (cached != null)
+				return cached;
+		}
 		ArrayList<IIndexFragmentBinding> result= new ArrayList<>();
 		try {
 			for (PDOMLinkage linkage : getLinkageList()) {
@@ -1422,8 +1672,9 @@ public class PDOM extends PlatformObject implements IPDOM {
 				}
 			}
 		} catch (OperationCanceledException e) {
+			return result.toArray(new IIndexFragmentBinding[result.size()]);
 		}
-		return result.toArray(new IIndexFragmentBinding[result.size()]);
+		return cacheResult(key, result.toArray(new IIndexFragmentBinding[result.size()]), monitor);
 	}
 
 	public IIndexFragmentBinding[] findMacroContainers(char[] prefix, boolean isPrefix, boolean isCaseSensitive,
@@ -1496,6 +1747,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 		indexOfFiledWithUnresolvedIncludes= null;
 		fLinkageIDCache.clear();
 		clearResultCache();
+		fQueryResultCache.clear();
+		fIncludedByCache.clear();
 	}
 
 	@Override
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memory resident copy of the reverse include graph of a {@link PDOM}, filled on demand.
+ * For each file that has been queried, the cache holds the records of the include directives
+ * pointing to the file along with the records of the files containing them. This allows for
+ * following chains of includes without reading the linked lists of includes from the
+ * database over and over again, such that transitive queries take time proportional to the
+ * size of their result once the part of the graph they cover has been visited.
+ * <p>
+ * The entry of a file is invalidated by the PDOM whenever the chain of directives including
+ * the file changes, a directive in it is redirected or moved to another includer, or an
+ * includer is committed. Thus writing a file invalidates only the files it includes and the
+ * files it is replacing, the includers of all other files stay cached across indexing steps.
+ * While the PDOM is write-locked the cache is bypassed, such that states of files that are
+ * not committed yet are not cached.
+ */
+public final class PDOMIncludedByCache {
+	/** Maximum number of records held by the cache, two per include directive. */
+	private static final int MAX_RECORDS = 1 << 20;
+
+	private final Map<Long, long[]> fIncludedBy= new HashMap<>();
+	private int fRecordCount;
+	private boolean fSuspended;
+
+	private long fHits;
+	private long fMisses;
+
+	/**
+	 * Returns the include directives pointing to the file with the given record, or
+	 * {@code null} if they are not cached. The result holds the record of each directive
+	 * followed by the record of the file containing it.
+	 */
+	public synchronized long[] get(long fileRecord) {
+		if (fSuspended)
+			return null;
+		long[] result= fIncludedBy.get(fileRecord);
+		if (result == null) {
+			fMisses++;
+		} else {
+			fHits++;
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the include directives pointing to the file with the given record, in the format
+	 * returned by {@link #get(long)}. The array must not be modified afterwards.
+	 */
+	public synchronized void put(long fileRecord, long[] includedBy) {
+		if (fSuspended || fRecordCount + includedBy.length > MAX_RECORDS)
+			return;
+		long[] old= fIncludedBy.put(fileRecord, includedBy);
+		if (old != null)
+			fRecordCount -= old.length;
+		fRecordCount += includedBy.length;
+	}
+
+	/**
+	 * Called when the PDOM is write-locked. The cache is bypassed until {@link #endWrite()}
+	 * is called.
+	 */
+	public synchronized void beginWrite() {
+		fSuspended= true;
+	}
+
+	/**
+	 * Called when the write lock is released.
+	 */
+	public synchronized void endWrite() {
+		fSuspended= false;
+	}
+
+	/**
+	 * Discards the include directives cached for the file with the given record.
+	 */
+	public synchronized void invalidate(long fileRecord) {
+		if (fIncludedBy.isEmpty())
+			return;
+		long[] old= fIncludedBy.remove(fileRecord);
+		if (old != null)
+			fRecordCount -= old.length;
+	}
+
+	public synchronized void clear() {
+		fIncludedBy.clear();
+		fRecordCount= 0;
+	}
+
+	public synchronized int size() {
+		return fIncludedBy.size();
+	}
+
+	public synchronized long getHits() {
+		return fHits;
+	}
+
+	public synchronized long getMisses() {
+		return fMisses;
+	}
+}
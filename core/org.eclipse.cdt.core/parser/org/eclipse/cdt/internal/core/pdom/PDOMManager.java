@@ -26,6 +26,8 @@ import java.io.OutputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -63,8 +65,11 @@ import org.eclipse.cdt.core.model.ILanguageMappingChangeListener;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.core.model.LanguageManager;
 import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
+import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
+import org.eclipse.cdt.core.settings.model.ICProjectDescription;
 import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
 import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.PartialSpecializationCache;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
@@ -107,6 +112,7 @@ import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
@@ -139,6 +145,32 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 	}
 
 	private static final QualifiedName dbNameProperty= new QualifiedName(CCorePlugin.PLUGIN_ID, "pdomName"); //$NON-NLS-1$
+	/** Prefix of the properties storing the database names of the snapshots, followed by the configuration id */
+	private static final String SNAPSHOT_PROPERTY_PREFIX= "pdomSnapshot:"; //$NON-NLS-1$
+	/** Property of a project database storing the id of the configuration it is indexed for */
+	private static final String CONFIGURATION_ID_PROPERTY= CCorePlugin.PLUGIN_ID + ".pdom.configuration"; //$NON-NLS-1$
+
+	/**
+	 * Serializes the jobs switching or removing the index snapshots of a project.
+	 */
+	private static final class ConfigurationSnapshotRule implements ISchedulingRule {
+		private final IProject fProject;
+
+		ConfigurationSnapshotRule(IProject project) {
+			fProject= project;
+		}
+
+		@Override
+		public boolean contains(ISchedulingRule rule) {
+			return isConflicting(rule);
+		}
+
+		@Override
+		public boolean isConflicting(ISchedulingRule rule) {
+			return rule instanceof ConfigurationSnapshotRule
+					&& fProject.equals(((ConfigurationSnapshotRule) rule).fProject);
+		}
+	}
 
 	public static final int[] IDS_FOR_LINKAGES_TO_INDEX = {
 		ILinkage.CPP_LINKAGE_ID, ILinkage.C_LINKAGE_ID, ILinkage.FORTRAN_LINKAGE_ID
@@ -287,6 +319,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			jobToCancel.cancelJobs(null, true);
 		}
 		Job.getJobManager().removeJobChangeListener(fJobChangeListener);
+		PartialSpecializationCache.getInstance().clear();
 	}
 
 	protected void onPreferenceChange(PreferenceChangeEvent event) {
@@ -895,6 +928,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			stopIndexer(indexer);
 		}
     	unregisterPreferenceListener(cproject);
+    	final List<File> snapshots= delete ? getConfigurationSnapshots(rproject) : Collections.<File>emptyList();
     	Object pdom= null;
     	synchronized (fProjectToPDOM) {
     		pdom = fProjectToPDOM.remove(rproject);
@@ -915,6 +949,9 @@ public class PDOMManager implements IWritableIndexManager, IListener {
         					finalpdom.close();
         					if (delete) {
         						finalpdom.getDB().getLocation().delete();
+        						for (File snapshot : snapshots) {
+        							snapshot.delete();
+        						}
         					}
         				} catch (CoreException e) {
         					CCorePlugin.log(e);
@@ -928,6 +965,10 @@ public class PDOMManager implements IWritableIndexManager, IListener {
     		};
     		job.setSystem(true);
     		job.schedule();
+    	} else {
+    		for (File snapshot : snapshots) {
+    			snapshot.delete();
+    		}
     	}
 
 		synchronized (fUpdatePolicies) {
@@ -1024,6 +1065,237 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		job.schedule();
 	}
 
+	/**
+	 * Switches the index of the project to another build configuration. The index of the old
+	 * configuration is kept as a snapshot, the snapshot of the new configuration is updated if there
+	 * is one, otherwise the index is rebuilt. The index is kept only if it was built for the old
+	 * configuration.
+	 * @param oldConfigId the configuration to keep the index for, or {@code null} if the index
+	 *     is outdated.
+	 * @see CCorePreferenceConstants#INDEX_CONFIG_SNAPSHOTS_MAX_COUNT
+	 */
+	public void switchConfiguration(final ICProject project, final String oldConfigId, final String newConfigId) {
+		if (getMaxConfigurationSnapshots() <= 0) {
+			reindex(project);
+			return;
+		}
+		Job job= new Job(Messages.PDOMManager_notifyJob_label) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				IPDOMIndexer indexer= null;
+				synchronized (fUpdatePolicies) {
+					indexer= getIndexer(project);
+					if (indexer == null) {
+						createPolicy(project).requestInitialReindex();
+						return Status.OK_STATUS;
+					}
+				}
+				// Don't attempt to hold lock on indexerMutex while canceling.
+				cancelIndexerJobs(indexer);
+
+				boolean update= false;
+				try {
+					update= swapConfigurationSnapshot(project, oldConfigId, newConfigId, monitor);
+				} catch (CoreException e) {
+					CCorePlugin.log(e);
+				}
+				synchronized (fUpdatePolicies) {
+					indexer= getIndexer(project);
+					if (indexer != null) {
+						createPolicy(project).clearTUs();
+						if (update) {
+							if (fTraceIndexerSetup)
+								System.out.println("Indexer: Updating snapshot of " + newConfigId + " for project " + project.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+							enqueue(new PDOMUpdateTask(indexer,
+									IIndexManager.UPDATE_CHECK_TIMESTAMPS | IIndexManager.UPDATE_CHECK_CONTENTS_HASH));
+						} else {
+							enqueue(new PDOMRebuildTask(indexer));
+						}
+					}
+				}
+				return Status.OK_STATUS;
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return family == PDOMManager.this;
+			}
+		};
+		job.setRule(new ConfigurationSnapshotRule(project.getProject()));
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	/**
+	 * Stores the database of the project as the snapshot of the old configuration and switches to
+	 * the snapshot of the new one, or to an empty database if there is none.
+	 * @return whether the database was switched to a snapshot, which needs to be updated only.
+	 */
+	private boolean swapConfigurationSnapshot(ICProject cproject, String oldConfigId, String newConfigId,
+			IProgressMonitor monitor) throws CoreException {
+		IProject project= cproject.getProject();
+		WritablePDOM pdom= getOrCreatePDOM(cproject, monitor);
+		QualifiedName newProperty= getSnapshotProperty(newConfigId);
+		String dbName= project.getPersistentProperty(newProperty);
+		File dbFile= null;
+		if (dbName != null) {
+			dbFile= fileFromDatabaseName(dbName);
+			synchronized (fProjectToPDOM) {
+				if (!dbFile.isFile() || fFileToProject.containsKey(dbFile)) {
+					dbFile= null;
+				}
+			}
+		}
+		boolean fromSnapshot= dbFile != null;
+		if (!fromSnapshot) {
+			dbName= createNewDatabaseName(cproject);
+			dbFile= fileFromDatabaseName(dbName);
+		}
+
+		try {
+			pdom.acquireWriteLock(monitor);
+		} catch (InterruptedException e) {
+			throw new CoreException(CCorePlugin.createStatus(Messages.PDOMManager_creationOfIndexInterrupted, e));
+		}
+		try {
+			String oldName= project.getPersistentProperty(dbNameProperty);
+			File oldFile= pdom.getDB().getLocation();
+			// Don't rely on the event, the database may have been built for another configuration.
+			boolean keepOld= oldName != null && oldConfigId != null
+					&& oldConfigId.equals(pdom.getProperty(CONFIGURATION_ID_PROPERTY));
+			pdom.reloadFromFile(dbFile, !keepOld);
+			if (!fromSnapshot || !pdom.isSupportedVersion()
+					|| !newConfigId.equals(pdom.getProperty(CONFIGURATION_ID_PROPERTY))) {
+				// Incomplete, written by another version or for another configuration.
+				pdom.clear();
+				writeProjectPDOMProperties(pdom, project);
+				fromSnapshot= false;
+			}
+			pdom.setProperty(CONFIGURATION_ID_PROPERTY, newConfigId);
+			synchronized (fProjectToPDOM) {
+				fFileToProject.remove(oldFile);
+				fFileToProject.put(dbFile, cproject);
+			}
+			storeDatabaseName(project, dbName);
+			project.setPersistentProperty(newProperty, null);
+			if (keepOld) {
+				oldFile.setLastModified(System.currentTimeMillis());
+				project.setPersistentProperty(getSnapshotProperty(oldConfigId), oldName);
+			}
+		} finally {
+			pdom.releaseWriteLock();
+		}
+		evictConfigurationSnapshots(project);
+		return fromSnapshot;
+	}
+
+	/**
+	 * Deletes the snapshots of the index for configurations that are not active, e.g. because
+	 * their settings changed.
+	 */
+	public void removeConfigurationSnapshots(final IProject project, final Collection<String> configIds) {
+		if (configIds.isEmpty())
+			return;
+		Job job= new Job(Messages.PDOMManager_notifyJob_label) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					for (String configId : configIds) {
+						QualifiedName property= getSnapshotProperty(configId);
+						String dbName= project.getPersistentProperty(property);
+						if (dbName != null) {
+							project.setPersistentProperty(property, null);
+							deleteSnapshotFile(fileFromDatabaseName(dbName));
+						}
+					}
+				} catch (CoreException e) {
+					// The project is closed or deleted.
+				}
+				return Status.OK_STATUS;
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return family == PDOMManager.this;
+			}
+		};
+		// Runs after the pending switches of the configuration.
+		job.setRule(new ConfigurationSnapshotRule(project));
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	/**
+	 * Deletes the least recently used snapshots of the project exceeding the configured count and
+	 * disk space.
+	 */
+	private void evictConfigurationSnapshots(IProject project) throws CoreException {
+		IPreferencesService prefs = Platform.getPreferencesService();
+		int maxCount= getMaxConfigurationSnapshots();
+		long maxSize= prefs.getLong(CCorePlugin.PLUGIN_ID, CCorePreferenceConstants.INDEX_CONFIG_SNAPSHOTS_MAX_SIZE_MB,
+				1024, null) * 1024L * 1024L;
+
+		List<QualifiedName> properties= new ArrayList<>();
+		final Map<QualifiedName, File> files= new HashMap<>();
+		for (Map.Entry<QualifiedName, String> entry : project.getPersistentProperties().entrySet()) {
+			if (isSnapshotProperty(entry.getKey())) {
+				properties.add(entry.getKey());
+				files.put(entry.getKey(), fileFromDatabaseName(entry.getValue()));
+			}
+		}
+		properties.sort((p1, p2) -> Long.compare(files.get(p2).lastModified(), files.get(p1).lastModified()));
+
+		int count= 0;
+		long size= 0;
+		for (QualifiedName property : properties) {
+			File file= files.get(property);
+			size+= file.length();
+			if (++count > maxCount || size > maxSize || !file.isFile()) {
+				if (fTraceIndexerSetup)
+					System.out.println("Indexer: Evicting snapshot " + property.getLocalName() + " for project " + project.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+				project.setPersistentProperty(property, null);
+				deleteSnapshotFile(file);
+			}
+		}
+	}
+
+	private List<File> getConfigurationSnapshots(IProject project) {
+		List<File> files= new ArrayList<>();
+		try {
+			for (Map.Entry<QualifiedName, String> entry : project.getPersistentProperties().entrySet()) {
+				if (isSnapshotProperty(entry.getKey())) {
+					files.add(fileFromDatabaseName(entry.getValue()));
+				}
+			}
+		} catch (CoreException e) {
+			// The project is closed or deleted.
+		}
+		return files;
+	}
+
+	private void deleteSnapshotFile(File file) {
+		synchronized (fProjectToPDOM) {
+			// A copied project may refer to the same file.
+			if (!fFileToProject.containsKey(file)) {
+				file.delete();
+			}
+		}
+	}
+
+	private int getMaxConfigurationSnapshots() {
+		IPreferencesService prefs = Platform.getPreferencesService();
+		return prefs.getInt(CCorePlugin.PLUGIN_ID, CCorePreferenceConstants.INDEX_CONFIG_SNAPSHOTS_MAX_COUNT, 3, null);
+	}
+
+	private static QualifiedName getSnapshotProperty(String configId) {
+		return new QualifiedName(CCorePlugin.PLUGIN_ID, SNAPSHOT_PROPERTY_PREFIX + configId);
+	}
+
+	private static boolean isSnapshotProperty(QualifiedName property) {
+		return CCorePlugin.PLUGIN_ID.equals(property.getQualifier())
+				&& property.getLocalName().startsWith(SNAPSHOT_PROPERTY_PREFIX);
+	}
+
 	@Override
 	public void addIndexChangeListener(IIndexChangeListener listener) {
 		fChangeListeners.add(listener);
@@ -1111,6 +1383,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 
 	@Override
 	public void handleChange(PDOM pdom, final PDOM.ChangeEvent e) {
+		PartialSpecializationCache.getInstance().handleChange(e);
 		if (fChangeListeners.isEmpty()) {
 			return;
 		}
@@ -1404,6 +1677,13 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		String DELIM = "\0"; //$NON-NLS-1$
 		String id= CCorePlugin.PLUGIN_ID + ".pdom.project." + DELIM + project.getName() + DELIM; //$NON-NLS-1$
 		pdom.setProperty(IIndexFragment.PROPERTY_FRAGMENT_ID, id);
+
+		// The configuration the index is built for, see switchConfiguration().
+		ICProjectDescription description= CCorePlugin.getDefault().getProjectDescription(project, false);
+		ICConfigurationDescription config= description != null ? description.getDefaultSettingConfiguration() : null;
+		if (config != null) {
+			pdom.setProperty(CONFIGURATION_ID_PROPERTY, config.getId());
+		}
 	}
 
 	@Override
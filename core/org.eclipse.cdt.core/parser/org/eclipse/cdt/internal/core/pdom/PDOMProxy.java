@@ -142,6 +142,15 @@ public class PDOMProxy implements IPDOM {
 		return new IIndexFragmentInclude[0];
 	}
 
+	@Override
+	public synchronized IIndexFragmentInclude[] findIncludedByTransitively(IIndexFragmentFile file)
+			throws CoreException {
+		if (fDelegate != null)
+			return fDelegate.findIncludedByTransitively(file);
+
+		return new IIndexFragmentInclude[0];
+	}
+
 	@Override
 	public synchronized IIndexFragmentName[] findNames(IBinding binding, int flags)
 			throws CoreException {
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.internal.core.index.CIndex;
+import org.eclipse.cdt.internal.core.index.DeclaredBindingsFilter;
+import org.eclipse.cdt.internal.core.parser.util.ContentAssistMatcherFactory;
+
+/**
+ * Bounded cache for the results of name based queries on a {@link PDOM}, like the ones issued
+ * for content assist, hovers and semantic highlighting.
+ * <p>
+ * Unlike the general result cache of the PDOM, which may hold on to AST objects and is cleared
+ * whenever a read lock is released, the entries of this cache survive until a write to the
+ * PDOM affects them. While the PDOM is write-locked the cache is bypassed and the names of all
+ * bindings that are added, removed, or gain or lose a name are recorded. When the write lock is
+ * released, exactly the entries whose name or prefix matches one of the recorded names are
+ * discarded.
+ * <p>
+ * Only queries with filters that are known to be stateless are cached, see
+ * {@link #isCacheable(IndexFilter)}.
+ */
+public final class PDOMQueryResultCache {
+	private static final int MAX_ENTRIES = 256;
+	/** Maximum total length of the cached result arrays. */
+	private static final int MAX_RESULTS = 20000;
+
+	private static final int FIND_BINDINGS = 0;
+	private static final int FIND_BINDINGS_FOR_PREFIX = 1;
+	private static final int FIND_BINDINGS_FOR_CONTENT_ASSIST = 2;
+	private static final int FIND_NAMES = 3;
+
+	private static final int FILESCOPE = 0x1;
+	private static final int CASE_SENSITIVE = 0x2;
+	private static final int CAMEL_CASE = 0x4;
+
+	/**
+	 * Identifies a query by its kind, its arguments and its filter.
+	 */
+	public static final class Key {
+		final int fKind;
+		final char[] fName;
+		final long fRecord;
+		final int fOptions;
+		final IndexFilter fFilter;
+		/** Lower case name or prefix used for invalidation. */
+		final String fMatch;
+		final boolean fIsPrefix;
+
+		private Key(int kind, char[] name, long record, int options, IndexFilter filter, char[] match,
+				boolean isPrefix) {
+			fKind= kind;
+			fName= name;
+			fRecord= record;
+			fOptions= options;
+			fFilter= filter;
+			fMatch= toLowerCase(match);
+			fIsPrefix= isPrefix;
+		}
+
+		@Override
+		public int hashCode() {
+			int result= fKind;
+			result= 31 * result + Arrays.hashCode(fName);
+			result= 31 * result + (int) (fRecord ^ (fRecord >>> 32));
+			result= 31 * result + fOptions;
+			result= 31 * result + (fFilter == null ? 0 : fFilter.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fKind == other.fKind && fRecord == other.fRecord && fOptions == other.fOptions
+					&& Arrays.equals(fName, other.fName)
+					&& (fFilter == null ? other.fFilter == null : fFilter.equals(other.fFilter));
+		}
+	}
+
+	private final LinkedHashMap<Key, Object[]> fEntries= new LinkedHashMap<>(16, 0.75f, true);
+	private int fResultCount;
+	private boolean fSuspended;
+	private TreeSet<String> fChangedNames;
+	private boolean fAllChanged;
+
+	private long fHits;
+	private long fMisses;
+	private long fEvictions;
+	private long fInvalidations;
+
+	/**
+	 * Returns whether results of queries with the given filter may be cached. This is the case
+	 * for filters that depend on nothing but the binding they are asked to accept, and that
+	 * implement {@link Object#equals(Object)} accordingly.
+	 */
+	public static boolean isCacheable(IndexFilter filter) {
+		if (filter == IndexFilter.ALL || filter.getClass() == DeclaredBindingsFilter.class)
+			return true;
+		if (filter instanceof CIndex.RetargetedFilter)
+			return isCacheable(((CIndex.RetargetedFilter) filter).getDelegate());
+		return false;
+	}
+
+	/**
+	 * Returns the key for a search for bindings by name, or {@code null} if the query cannot be
+	 * cached.
+	 */
+	public static Key forBindings(char[] name, boolean filescope, boolean caseSensitive,
+			IndexFilter filter) {
+		if (!isCacheable(filter))
+			return null;
+		int options= (filescope ? FILESCOPE : 0) | (caseSensitive ? CASE_SENSITIVE : 0);
+		return new Key(FIND_BINDINGS, name.clone(), 0, options, filter, name, false);
+	}
+
+	/**
+	 * Returns the key for a search for bindings by prefix, or {@code null} if the query cannot be
+	 * cached.
+	 */
+	public static Key forPrefix(char[] prefix, boolean filescope, boolean isContentAssist,
+			boolean caseSensitive, IndexFilter filter) {
+		if (!isCacheable(filter))
+			return null;
+		if (isContentAssist) {
+			// The matching rules depend on a preference, the results are invalidated based on
+			// the prefix all matches have in common.
+			ContentAssistMatcherFactory factory= ContentAssistMatcherFactory.getInstance();
+			int options= (filescope ? FILESCOPE : 0) | (factory.getShowCamelCaseMatches() ? CAMEL_CASE : 0);
+			char[] match= factory.createMatcher(prefix).getPrefixForBinarySearch();
+			return new Key(FIND_BINDINGS_FOR_CONTENT_ASSIST, prefix.clone(), 0, options, filter,
+					match, true);
+		}
+		int options= (filescope ? FILESCOPE : 0) | (caseSensitive ? CASE_SENSITIVE : 0);
+		return new Key(FIND_BINDINGS_FOR_PREFIX, prefix.clone(), 0, options, filter, prefix, true);
+	}
+
+	/**
+	 * Returns the key for a search for the names of a binding.
+	 */
+	public static Key forNames(char[] bindingName, long bindingRecord, int options) {
+		return new Key(FIND_NAMES, null, bindingRecord, options, null, bindingName, false);
+	}
+
+	/**
+	 * Returns a copy of the cached result for the query, or {@code null} if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> T[] get(Key key) {
+		if (fSuspended)
+			return null;
+		Object[] result= fEntries.get(key);
+		if (result == null) {
+			fMisses++;
+			return null;
+		}
+		fHits++;
+		return (T[]) result.clone();
+	}
+
+	/**
+	 * Stores a copy of the result of the query.
+	 */
+	public synchronized void put(Key key, Object[] result) {
+		if (fSuspended || result.length > MAX_RESULTS / 4)
+			return;
+		Object[] old= fEntries.put(key, result.clone());
+		if (old != null)
+			fResultCount -= old.length;
+		fResultCount += result.length;
+		// Evict the least recently used entries.
+		for (Iterator<Object[]> it = fEntries.values().iterator();
+				fEntries.size() > MAX_ENTRIES || fResultCount > MAX_RESULTS;) {
+			fResultCount -= it.next().length;
+			it.remove();
+			fEvictions++;
+		}
+	}
+
+	/**
+	 * Called when the PDOM is write-locked. The cache is bypassed until {@link #endWrite(boolean)}
+	 * is called.
+	 */
+	public synchronized void beginWrite() {
+		fSuspended= true;
+		fAllChanged= false;
+		// Nothing needs to be recorded for an empty cache, it stays empty while suspended.
+		fChangedNames= fEntries.isEmpty() ? null : new TreeSet<String>();
+	}
+
+	/**
+	 * Records that a binding with the given name was added or removed, or that a name of such a
+	 * binding was added or removed.
+	 */
+	public synchronized void bindingChanged(char[] name) {
+		if (fChangedNames != null) {
+			fChangedNames.add(toLowerCase(name));
+		}
+	}
+
+	/**
+	 * Returns whether changes to bindings need to be reported.
+	 */
+	public synchronized boolean isRecordingChanges() {
+		return fChangedNames != null;
+	}
+
+	/**
+	 * Called when the write lock is released. Discards the entries affected by the changes
+	 * recorded since {@link #beginWrite()} and resumes caching.
+	 *
+	 * @param allChanged whether the entire content of the PDOM may have changed.
+	 */
+	public synchronized void endWrite(boolean allChanged) {
+		if (allChanged || fAllChanged) {
+			invalidateAll();
+		} else if (fChangedNames != null && !fChangedNames.isEmpty()) {
+			for (Iterator<Map.Entry<Key, Object[]>> it = fEntries.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<Key, Object[]> entry = it.next();
+				if (isAffected(entry.getKey())) {
+					fResultCount -= entry.getValue().length;
+					fInvalidations++;
+					it.remove();
+				}
+			}
+		}
+		fChangedNames= null;
+		fAllChanged= false;
+		fSuspended= false;
+	}
+
+	private boolean isAffected(Key key) {
+		if (key.fIsPrefix) {
+			String candidate= fChangedNames.ceiling(key.fMatch);
+			return candidate != null && candidate.startsWith(key.fMatch);
+		}
+		return fChangedNames.contains(key.fMatch);
+	}
+
+	/**
+	 * Discards all entries.
+	 */
+	public synchronized void clear() {
+		if (fSuspended) {
+			fAllChanged= true;
+		}
+		invalidateAll();
+	}
+
+	private void invalidateAll() {
+		fInvalidations += fEntries.size();
+		fEntries.clear();
+		fResultCount= 0;
+	}
+
+	public synchronized int size() {
+		return fEntries.size();
+	}
+
+	public synchronized long getHits() {
+		return fHits;
+	}
+
+	public synchronized long getMisses() {
+		return fMisses;
+	}
+
+	/**
+	 * Returns the ratio of hits to lookups, or 0 if there were no lookups.
+	 */
+	public synchronized double getHitRate() {
+		long lookups= fHits + fMisses;
+		return lookups == 0 ? 0 : (double) fHits / lookups;
+	}
+
+	public synchronized long getEvictions() {
+		return fEvictions;
+	}
+
+	public synchronized long getInvalidations() {
+		return fInvalidations;
+	}
+
+	public synchronized void resetCounters() {
+		fHits= fMisses= fEvictions= fInvalidations= 0;
+	}
+
+	private static String toLowerCase(char[] chars) {
+		char[] lower= new char[chars.length];
+		for (int i = 0; i < chars.length; i++) {
+			lower[i]= Character.toLowerCase(chars[i]);
+		}
+		return new String(lower);
+	}
+}
@@ -106,6 +106,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 			if (fileBeingUpdated.hasUnresolvedInclude())
 				unresolvedIncludeStateChange -= 1;
 			fileBeingUpdated.replaceContentsFrom(uncommittedFile);
+			fEvent.setContentRemoved();
 			file = fileBeingUpdated;
 			fileBeingUpdated = null;
 		}
@@ -179,6 +180,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 		}
 
 		fEvent.fClearedFiles.add(location);
+		fEvent.setContentRemoved();
 	}
 
 	@Override
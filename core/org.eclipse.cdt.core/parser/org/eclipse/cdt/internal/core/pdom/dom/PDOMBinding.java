@@ -49,9 +49,13 @@ public abstract class PDOMBinding extends PDOMNamedNode implements IPDOMBinding
 	private static final int FIRST_REF = FIRST_DEF + Database.PTR_SIZE; // size 4
 	private static final int LOCAL_TO_FILE = FIRST_REF + Database.PTR_SIZE; // size 4
 	private static final int FIRST_EXTREF = LOCAL_TO_FILE + Database.PTR_SIZE; // size 4
+	private static final int REFERENCE_COUNT = FIRST_EXTREF + Database.PTR_SIZE; // size 4
 
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = FIRST_EXTREF + + Database.PTR_SIZE;
+	protected static final int RECORD_SIZE = REFERENCE_COUNT + 4;
+
+	/** Flag in the reference count, set when the references are stored in packed form. */
+	private static final int PACKED_REFERENCES = 0x80000000;
 
 	private byte hasDeclaration= -1;
 
@@ -147,6 +151,54 @@ public abstract class PDOMBinding extends PDOMNamedNode implements IPDOMBinding
 			name.setNextInBinding(first);
 		}
 		setFirstReference(name);
+
+		Database db = getDB();
+		int value = db.getInt(record + REFERENCE_COUNT);
+		int count = (value & ~PACKED_REFERENCES) + 1;
+		if ((value & PACKED_REFERENCES) != 0) {
+			getLinkage().getReferenceIndex().add(name);
+		} else if (count >= PDOMReferenceIndex.PACK_THRESHOLD) {
+			getLinkage().getReferenceIndex().pack(this);
+			value |= PACKED_REFERENCES;
+		}
+		db.putInt(record + REFERENCE_COUNT, (value & PACKED_REFERENCES) | count);
+	}
+
+	/**
+	 * Called before a reference to this binding is deleted.
+	 */
+	final void removeReference(PDOMName name) throws CoreException {
+		if (!getLinkage().equals(name.getLinkage()))
+			return;
+
+		Database db = getDB();
+		int value = db.getInt(record + REFERENCE_COUNT);
+		int count = (value & ~PACKED_REFERENCES) - 1;
+		if ((value & PACKED_REFERENCES) != 0) {
+			if (count < PDOMReferenceIndex.UNPACK_THRESHOLD) {
+				getLinkage().getReferenceIndex().unpack(this);
+				value &= ~PACKED_REFERENCES;
+			} else {
+				getLinkage().getReferenceIndex().remove(name);
+			}
+		}
+		db.putInt(record + REFERENCE_COUNT, (value & PACKED_REFERENCES) | Math.max(count, 0));
+	}
+
+	/**
+	 * Returns the number of references to this binding from names of the same linkage,
+	 * including potential matches.
+	 */
+	public final int getReferenceCount() throws CoreException {
+		return getDB().getInt(record + REFERENCE_COUNT) & ~PACKED_REFERENCES;
+	}
+
+	/**
+	 * Returns whether the references to this binding from names of the same linkage are stored
+	 * in the {@link PDOMReferenceIndex} of the linkage.
+	 */
+	public final boolean hasPackedReferences() throws CoreException {
+		return (getDB().getInt(record + REFERENCE_COUNT) & PACKED_REFERENCES) != 0;
 	}
 
 	public PDOMName getFirstDeclaration() throws CoreException {
@@ -315,6 +315,10 @@ public class PDOMFile implements IIndexFragmentFile {
 	public void setTimestamp(long timestamp) throws CoreException {
 		Database db= fLinkage.getDB();
 		db.putLong(record + TIME_STAMP, timestamp);
+		// Only committed files are cached as includers of the files they include.
+		for (PDOMInclude include= getFirstInclude(); include != null; include= include.getNextInIncludes()) {
+			include.invalidateIncludedByCache();
+		}
 	}
 
 	@Override
@@ -424,6 +428,7 @@ public class PDOMFile implements IIndexFragmentFile {
 	public void setFirstIncludedBy(PDOMInclude includedBy) throws CoreException {
 		long rec = includedBy != null ? includedBy.getRecord() : 0;
 		fLinkage.getDB().putRecPtr(record + FIRST_INCLUDED_BY, rec);
+		getPDOM().getIncludedByCache().invalidate(record);
 	}
 
 	public PDOMMacro getFirstMacro() throws CoreException {
@@ -631,6 +636,7 @@ public class PDOMFile implements IIndexFragmentFile {
 		if (locRecord != 0)
 			db.getString(locRecord).delete();
 
+		getPDOM().getIncludedByCache().invalidate(record);
 		db.free(record);
 	}
 
@@ -145,8 +145,19 @@ public class PDOMInclude implements IIndexFragmentInclude {
 	}
 
 	void setIncludes(PDOMFile includedFile) throws CoreException {
+		invalidateIncludedByCache();
 		long rec = includedFile != null ? includedFile.getRecord() : 0;
 		linkage.getDB().putRecPtr(record + INCLUDED_FILE, rec);
+		invalidateIncludedByCache();
+	}
+
+	/**
+	 * Invalidates the cached includers of the file included by this directive.
+	 */
+	void invalidateIncludedByCache() throws CoreException {
+		long rec = linkage.getDB().getRecPtr(record + INCLUDED_FILE);
+		if (rec != 0)
+			linkage.getPDOM().getIncludedByCache().invalidate(rec);
 	}
 
 	/**
@@ -178,6 +189,7 @@ public class PDOMInclude implements IIndexFragmentInclude {
 	void setIncludedBy(PDOMFile includedBy) throws CoreException {
 		long rec = includedBy != null ? includedBy.getRecord() : 0;
 		linkage.getDB().putRecPtr(record + INCLUDED_BY, rec);
+		invalidateIncludedByCache();
 	}
 
 	public PDOMInclude getNextInIncludes() throws CoreException {
@@ -198,6 +210,7 @@ public class PDOMInclude implements IIndexFragmentInclude {
 	public void setNextInIncludedBy(PDOMInclude include) throws CoreException {
 		long rec = include != null ? include.getRecord() : 0;
 		linkage.getDB().putRecPtr(record + INCLUDED_BY_NEXT, rec);
+		invalidateIncludedByCache();
 	}
 
 	public PDOMInclude getPrevInIncludedBy() throws CoreException {
@@ -212,6 +225,7 @@ public class PDOMInclude implements IIndexFragmentInclude {
 	public void setPrevInIncludedBy(PDOMInclude include) throws CoreException {
 		long rec = include != null ? include.getRecord() : 0;
 		linkage.getDB().putRecPtr(record + INCLUDED_BY_PREV, rec);
+		invalidateIncludedByCache();
 	}
 
 	@Override
@@ -308,6 +322,7 @@ public class PDOMInclude implements IIndexFragmentInclude {
 				db.putRecPtr(record + INCLUDE_NAME_OR_LENGTH, rec);
 				setFlag((byte) (flag & ~FLAG_DEDUCIBLE_NAME));
 			}
+			invalidateIncludedByCache();
 			db.putRecPtr(record + INCLUDED_FILE, 0);
 		}
 	}
@@ -46,6 +46,7 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPExecution;
 import org.eclipse.cdt.internal.core.index.IIndexBindingConstants;
 import org.eclipse.cdt.internal.core.index.IIndexScope;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.PDOMQueryResultCache;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
 import org.eclipse.cdt.internal.core.pdom.db.BTree;
 import org.eclipse.cdt.internal.core.pdom.db.Database;
@@ -68,9 +69,11 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	private static final int INDEX_OFFSET = PDOMNamedNode.RECORD_SIZE + 8;
 	private static final int NESTED_BINDINGS_INDEX = PDOMNamedNode.RECORD_SIZE + 12;
 	private static final int MACRO_BTREE = PDOMNamedNode.RECORD_SIZE + 16;
+	private static final int NAME_TRIGRAM_INDEX = PDOMNamedNode.RECORD_SIZE + 20;
+	private static final int REFERENCE_INDEX = PDOMNamedNode.RECORD_SIZE + 24;
 
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 20;
+	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 28;
 	protected static final long[] FILE_LOCAL_REC_DUMMY = new long[] { 0 };
 
 	private BTree fMacroIndex= null;  // No need for volatile, all fields of BTree are final.
@@ -290,6 +293,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	 * @since 4.0
 	 */
 	public void onCreateName(PDOMFile file, IASTName name, PDOMName pdomName) throws CoreException {
+		onChangeName(pdomName);
 		IASTNode parentNode= name.getParent();
 		if (parentNode instanceof IASTDeclSpecifier) {
 			IASTDeclSpecifier ds= (IASTDeclSpecifier) parentNode;
@@ -309,6 +313,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	 * @since 4.0
 	 */
 	public void onDeleteName(PDOMName name) throws CoreException {
+		onChangeName(name);
 	}
 
 	/**
@@ -335,6 +340,63 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		}
 	}
 
+	/**
+	 * Returns whether the linkage adds all of its bindings to the index of name trigrams.
+	 * @see #insertIntoNameTrigramIndex(PDOMBinding)
+	 */
+	protected boolean maintainsNameTrigramIndex() {
+		return false;
+	}
+
+	/**
+	 * Returns the index of the trigrams of binding names, or {@code null} if the linkage
+	 * does not maintain such an index.
+	 */
+	public PDOMNameTrigramIndex getNameTrigramIndex() {
+		if (!maintainsNameTrigramIndex())
+			return null;
+		return new PDOMNameTrigramIndex(fDatabase, record + NAME_TRIGRAM_INDEX);
+	}
+
+	/**
+	 * Returns the packed storage for the references to bindings with many references.
+	 */
+	public PDOMReferenceIndex getReferenceIndex() {
+		return new PDOMReferenceIndex(fDatabase, record + REFERENCE_INDEX);
+	}
+
+	/**
+	 * Call-back informing the linkage that a binding has been added. Used to index the trigrams
+	 * of binding names.
+	 */
+	protected final void insertIntoNameTrigramIndex(PDOMBinding pdomBinding) throws CoreException {
+		PDOMNameTrigramIndex index= getNameTrigramIndex();
+		if (index != null) {
+			index.add(pdomBinding);
+		}
+	}
+
+	/**
+	 * Call-back informing the linkage that a binding has been added. Used to invalidate cached
+	 * query results.
+	 */
+	protected final void onChangeBinding(PDOMBinding pdomBinding) throws CoreException {
+		PDOMQueryResultCache cache= fPDOM.getQueryResultCache();
+		if (cache.isRecordingChanges()) {
+			cache.bindingChanged(pdomBinding.getNameCharArray());
+		}
+	}
+
+	private void onChangeName(PDOMName name) throws CoreException {
+		PDOMQueryResultCache cache= fPDOM.getQueryResultCache();
+		if (cache.isRecordingChanges()) {
+			PDOMBinding binding= name.getBinding();
+			if (binding != null) {
+				cache.bindingChanged(binding.getNameCharArray());
+			}
+		}
+	}
+
 	public ICPPUsingDirective[] getUsingDirectives(PDOMFile file) throws CoreException {
 		return ICPPUsingDirective.EMPTY_ARRAY;
 	}
@@ -81,6 +81,10 @@ public final class PDOMName implements IIndexFragmentName {
 		flags |= binding.getAdditionalNameFlags(flags, name);
 		db.putByte(record + FLAGS, (byte) flags);
 
+		db.putRecPtr(record + BINDING_REC_OFFSET, binding.getRecord());
+
+		db.putRecPtr(record + FILE_REC_OFFSET, file.getRecord());
+
 		// Hook us up to the binding
 		switch (flags & DECL_DEF_REF_MASK) {
 		case IS_DEFINITION:
@@ -93,10 +97,6 @@ public final class PDOMName implements IIndexFragmentName {
 			binding.addReference(this);
 			break;
 		}
-
-		db.putRecPtr(record + BINDING_REC_OFFSET, binding.getRecord());
-
-		db.putRecPtr(record + FILE_REC_OFFSET, file.getRecord());
 		if (caller != null) {
 			db.putRecPtr(record + CALLER_REC_OFFSET, caller.getRecord());
 		}
@@ -148,6 +148,10 @@ public final class PDOMName implements IIndexFragmentName {
 		return linkage.getBinding(bindingrec);
 	}
 
+	long getBindingRecord() throws CoreException {
+		return getRecField(BINDING_REC_OFFSET);
+	}
+
 	public void setBinding(PDOMBinding binding) throws CoreException {
 		long bindingrec = binding != null ? binding.getRecord() : 0;
 		setRecField(BINDING_REC_OFFSET, bindingrec);
@@ -190,7 +194,26 @@ public final class PDOMName implements IIndexFragmentName {
 	}
 
 	void setFile(PDOMFile file) throws CoreException {
+		// The packed references of a binding are sorted by file.
+		PDOMBinding binding= getBindingWithPackedReference();
+		if (binding != null)
+			linkage.getReferenceIndex().remove(this);
 		linkage.getDB().putRecPtr(record + FILE_REC_OFFSET, file != null ? file.getRecord() : 0);
+		if (binding != null)
+			linkage.getReferenceIndex().add(this);
+	}
+
+	/**
+	 * Returns the binding of this name if the name is a reference that is stored in the
+	 * packed references of the binding, or {@code null} otherwise.
+	 */
+	private PDOMBinding getBindingWithPackedReference() throws CoreException {
+		if (getFlags(DECL_DEF_REF_MASK | IS_POTENTIAL_MATCH) != IS_REFERENCE)
+			return null;
+		PDOMBinding binding= getBinding();
+		if (binding == null || !binding.getLinkage().equals(linkage) || !binding.hasPackedReferences())
+			return null;
+		return binding;
 	}
 
 	public static long getFileRecord(Database db, long record) throws CoreException {
@@ -389,6 +412,13 @@ public final class PDOMName implements IIndexFragmentName {
 	}
 
 	public void delete() throws CoreException {
+		if (getFlags(DECL_DEF_REF_MASK) == IS_REFERENCE) {
+			PDOMBinding binding= getBinding();
+			if (binding != null) {
+				binding.removeReference(this);
+			}
+		}
+
 		// Delete from the binding chain
 		PDOMName prevName = getPrevInBinding();
 		PDOMName nextName = getNextInBinding();
@@ -0,0 +1,374 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.dom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Inverted index from the trigrams of binding names to the bindings of a linkage. Used to
+ * narrow down the candidates for regular expression searches, which cannot make use of the
+ * index sorted by name.
+ * <p>
+ * Trigrams are computed from the lower case characters of a name, such that the index can be
+ * used for case sensitive and case insensitive patterns. The index is a b-tree of entries
+ * with the layout below, each of them referencing a list of chunks with the records of the
+ * bindings. Chunks grow in size as the list of bindings for a trigram gets longer.
+ * <pre>
+ * entry: trigram (int), number of bindings (int), first chunk (pointer)
+ * chunk: next chunk (pointer), number of records (short), capacity (short), records
+ * </pre>
+ */
+public class PDOMNameTrigramIndex {
+	private static final int ENTRY_TRIGRAM = 0;
+	private static final int ENTRY_SIZE = 4;
+	private static final int ENTRY_FIRST_CHUNK = 8;
+	private static final int ENTRY_RECORD_SIZE = 8 + Database.PTR_SIZE;
+
+	private static final int CHUNK_NEXT = 0;
+	private static final int CHUNK_COUNT = Database.PTR_SIZE;
+	private static final int CHUNK_CAPACITY = Database.PTR_SIZE + 2;
+	private static final int CHUNK_RECORDS = Database.PTR_SIZE + 4;
+
+	private static final int MIN_CHUNK_CAPACITY = 2;
+	private static final int MAX_CHUNK_CAPACITY = 256;
+
+	/**
+	 * Intersecting with another list of bindings is skipped when the list is larger than
+	 * this factor times the number of remaining candidates.
+	 */
+	private static final int INTERSECTION_LIMIT_FACTOR = 8;
+
+	private static final long[] NO_RECORDS = {};
+
+	private final Database fDatabase;
+	private final BTree fBTree;
+
+	public PDOMNameTrigramIndex(Database db, long rootPointer) {
+		fDatabase = db;
+		fBTree = new BTree(db, rootPointer, new IBTreeComparator() {
+			@Override
+			public int compare(long record1, long record2) throws CoreException {
+				return Integer.compare(fDatabase.getInt(record1 + ENTRY_TRIGRAM),
+						fDatabase.getInt(record2 + ENTRY_TRIGRAM));
+			}
+		});
+	}
+
+	/**
+	 * Adds a binding to the lists of all trigrams of its name.
+	 */
+	public void add(PDOMBinding binding) throws CoreException {
+		for (int trigram : getTrigrams(binding.getNameCharArray())) {
+			addRecord(trigram, binding.getRecord());
+		}
+	}
+
+	private void addRecord(int trigram, long record) throws CoreException {
+		long entry = findEntry(trigram);
+		if (entry == 0) {
+			entry = fDatabase.malloc(ENTRY_RECORD_SIZE);
+			fDatabase.putInt(entry + ENTRY_TRIGRAM, trigram);
+			fBTree.insert(entry);
+		}
+		long chunk = fDatabase.getRecPtr(entry + ENTRY_FIRST_CHUNK);
+		int count = 0;
+		int capacity = 0;
+		if (chunk != 0) {
+			count = fDatabase.getShort(chunk + CHUNK_COUNT) & 0xffff;
+			capacity = fDatabase.getShort(chunk + CHUNK_CAPACITY) & 0xffff;
+		}
+		if (count == capacity) {
+			capacity = Math.min(Math.max(MIN_CHUNK_CAPACITY, 2 * capacity), MAX_CHUNK_CAPACITY);
+			long newChunk = fDatabase.malloc(CHUNK_RECORDS + capacity * Database.PTR_SIZE);
+			fDatabase.putRecPtr(newChunk + CHUNK_NEXT, chunk);
+			fDatabase.putShort(newChunk + CHUNK_CAPACITY, (short) capacity);
+			fDatabase.putRecPtr(entry + ENTRY_FIRST_CHUNK, newChunk);
+			chunk = newChunk;
+			count = 0;
+		}
+		fDatabase.putRecPtr(chunk + CHUNK_RECORDS + count * Database.PTR_SIZE, record);
+		fDatabase.putShort(chunk + CHUNK_COUNT, (short) (count + 1));
+		fDatabase.putInt(entry + ENTRY_SIZE, fDatabase.getInt(entry + ENTRY_SIZE) + 1);
+	}
+
+	private long findEntry(final int trigram) throws CoreException {
+		final long[] result = { 0 };
+		fBTree.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return Integer.compare(fDatabase.getInt(record + ENTRY_TRIGRAM), trigram);
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				result[0] = record;
+				return false;
+			}
+		});
+		return result[0];
+	}
+
+	/**
+	 * Returns the sorted records of the bindings with names that may contain all of the given
+	 * literals, ignoring case. The result may contain bindings with names not containing the
+	 * literals, but never misses a binding with a name that does. Returns {@code null} if none
+	 * of the literals is long enough to narrow down the search.
+	 */
+	public long[] findCandidates(String[] literals) throws CoreException {
+		List<Integer> trigrams = new ArrayList<>();
+		for (String literal : literals) {
+			for (int trigram : getTrigrams(literal.toCharArray())) {
+				if (!trigrams.contains(trigram))
+					trigrams.add(trigram);
+			}
+		}
+		if (trigrams.isEmpty())
+			return null;
+
+		long[] entries = new long[trigrams.size()];
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = findEntry(trigrams.get(i));
+			if (entries[i] == 0)
+				return NO_RECORDS;
+		}
+		// Start with the shortest lists.
+		long[] order = new long[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			order[i] = (long) getSize(entries[i]) << 32 | i;
+		}
+		Arrays.sort(order);
+
+		long[] candidates = getRecords(entries[(int) order[0]]);
+		for (int i = 1; i < order.length && candidates.length > 0; i++) {
+			long entry = entries[(int) order[i]];
+			if (getSize(entry) > INTERSECTION_LIMIT_FACTOR * candidates.length)
+				break;
+			candidates = intersect(candidates, getRecords(entry));
+		}
+		return candidates;
+	}
+
+	private int getSize(long entry) throws CoreException {
+		return fDatabase.getInt(entry + ENTRY_SIZE);
+	}
+
+	private long[] getRecords(long entry) throws CoreException {
+		long[] result = new long[getSize(entry)];
+		int i = 0;
+		for (long chunk = fDatabase.getRecPtr(entry + ENTRY_FIRST_CHUNK); chunk != 0;
+				chunk = fDatabase.getRecPtr(chunk + CHUNK_NEXT)) {
+			int count = fDatabase.getShort(chunk + CHUNK_COUNT) & 0xffff;
+			for (int j = 0; j < count && i < result.length; j++) {
+				result[i++] = fDatabase.getRecPtr(chunk + CHUNK_RECORDS + j * Database.PTR_SIZE);
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	private static long[] intersect(long[] sorted1, long[] sorted2) {
+		long[] result = new long[Math.min(sorted1.length, sorted2.length)];
+		int k = 0;
+		for (int i = 0, j = 0; i < sorted1.length && j < sorted2.length;) {
+			if (sorted1[i] < sorted2[j]) {
+				i++;
+			} else if (sorted1[i] > sorted2[j]) {
+				j++;
+			} else {
+				result[k++] = sorted1[i++];
+				j++;
+			}
+		}
+		return k == result.length ? result : Arrays.copyOf(result, k);
+	}
+
+	/**
+	 * Returns the distinct trigrams of the given characters.
+	 */
+	static int[] getTrigrams(char[] chars) {
+		if (chars.length < 3)
+			return new int[0];
+		int[] result = new int[chars.length - 2];
+		int n = 0;
+		char c1 = Character.toLowerCase(chars[0]);
+		char c2 = Character.toLowerCase(chars[1]);
+		for (int i = 2; i < chars.length; i++) {
+			char c3 = Character.toLowerCase(chars[i]);
+			int trigram = trigram(c1, c2, c3);
+			boolean found = false;
+			for (int j = 0; j < n; j++) {
+				if (result[j] == trigram) {
+					found = true;
+					break;
+				}
+			}
+			if (!found)
+				result[n++] = trigram;
+			c1 = c2;
+			c2 = c3;
+		}
+		return n == result.length ? result : Arrays.copyOf(result, n);
+	}
+
+	private static int trigram(char c1, char c2, char c3) {
+		if (c1 < 0x80 && c2 < 0x80 && c3 < 0x80)
+			return c1 << 14 | c2 << 7 | c3;
+		// Collisions are harmless, the candidates are checked against the pattern.
+		return (((c1 * 31) + c2) * 31 + c3) & 0x3fffffff | 0x40000000;
+	}
+
+	/**
+	 * Returns literals that must be contained in any name fully matching the given pattern,
+	 * or an empty array if no such literals can be determined.
+	 */
+	public static String[] getRequiredLiterals(Pattern pattern) {
+		final int flags = pattern.flags();
+		final String regex = pattern.pattern();
+		if ((flags & Pattern.LITERAL) != 0)
+			return new String[] { regex };
+		if ((flags & Pattern.COMMENTS) != 0)
+			return new String[0];
+
+		List<String> result = new ArrayList<>();
+		StringBuilder run = new StringBuilder();
+		final int len = regex.length();
+		for (int i = 0; i < len; i++) {
+			char c = regex.charAt(i);
+			switch (c) {
+			case '|':
+				// Alternatives on the top level, nothing is required.
+				return new String[0];
+			case '*':
+			case '?':
+				// The preceding character is optional.
+				if (run.length() > 0)
+					run.setLength(run.length() - 1);
+				addLiteral(result, run);
+				break;
+			case '{':
+				if (run.length() > 0)
+					run.setLength(run.length() - 1);
+				addLiteral(result, run);
+				i = regex.indexOf('}', i);
+				if (i < 0)
+					return new String[0];
+				break;
+			case '[':
+				addLiteral(result, run);
+				i = skipCharacterClass(regex, i);
+				if (i < 0)
+					return new String[0];
+				break;
+			case '(':
+				addLiteral(result, run);
+				if (regex.startsWith("(?", i) && hasCommentsFlag(regex, i + 2)) //$NON-NLS-1$
+					return new String[0];
+				i = skipGroup(regex, i);
+				if (i < 0)
+					return new String[0];
+				break;
+			case '\\':
+				if (i + 1 >= len)
+					return new String[0];
+				char escaped = regex.charAt(++i);
+				if (Character.isLetterOrDigit(escaped)) {
+					// Character classes, back references, quotations and the like.
+					if (escaped == 'Q' || escaped == 'p' || escaped == 'P' || escaped == 'x'
+							|| escaped == 'u' || escaped == 'c' || escaped == 'k' || escaped == '0') {
+						return new String[0];
+					}
+					addLiteral(result, run);
+				} else {
+					run.append(escaped);
+				}
+				break;
+			case '+':
+			case '.':
+			case '^':
+			case '$':
+			case ')':
+			case ']':
+			case '}':
+				addLiteral(result, run);
+				break;
+			default:
+				run.append(c);
+				break;
+			}
+		}
+		addLiteral(result, run);
+		return result.toArray(new String[result.size()]);
+	}
+
+	private static void addLiteral(List<String> result, StringBuilder run) {
+		if (run.length() >= 3)
+			result.add(run.toString());
+		run.setLength(0);
+	}
+
+	private static boolean hasCommentsFlag(String regex, int i) {
+		for (; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+			if (c == 'x')
+				return true;
+			if (c != '-' && !Character.isLetter(c))
+				return false;
+		}
+		return false;
+	}
+
+	private static int skipCharacterClass(String regex, int i) {
+		int depth = 0;
+		for (int j = i; j < regex.length(); j++) {
+			char c = regex.charAt(j);
+			if (c == '\\') {
+				j++;
+			} else if (c == '[') {
+				depth++;
+				// A closing bracket at the start of a class is a literal.
+				if (j + 1 < regex.length() && regex.charAt(j + 1) == '^')
+					j++;
+				if (j + 1 < regex.length() && regex.charAt(j + 1) == ']')
+					j++;
+			} else if (c == ']') {
+				if (--depth == 0)
+					return j;
+			}
+		}
+		return -1;
+	}
+
+	private static int skipGroup(String regex, int i) {
+		int depth = 0;
+		for (int j = i; j < regex.length(); j++) {
+			char c = regex.charAt(j);
+			if (c == '\\') {
+				j++;
+			} else if (c == '[') {
+				j = skipCharacterClass(regex, j);
+				if (j < 0)
+					return -1;
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				if (--depth == 0)
+					return j;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,364 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.dom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Packed storage for the references to bindings of a linkage that are referenced very often,
+ * like logging functions or common types. The references to a binding form a linked list
+ * running through the names, reading all of them, or the ones in a particular file, thus
+ * touches as many places of the database as there are references.
+ * <p>
+ * Once a binding has {@link #PACK_THRESHOLD} references, the file and name records of its
+ * references are additionally stored in blocks, sorted by file and name. The blocks of a
+ * binding form a doubly linked list and are indexed by a b-tree, which is sorted by binding
+ * and by the first entry of the blocks. Reading the references of a binding, or its
+ * references in a given file, thus reads consecutive entries of a few blocks, without
+ * touching the names. Potential matches are never reported as references, they are not
+ * stored in the blocks.
+ * <pre>
+ * block: binding (pointer), prev block (pointer), next block (pointer), count (short),
+ *        padding (short), entries: file (pointer), name (pointer)
+ * </pre>
+ * The linked lists of references are maintained as before. The blocks of a binding are
+ * discarded when the number of its references drops below {@link #UNPACK_THRESHOLD}.
+ */
+public class PDOMReferenceIndex {
+	/** Number of references at which the references to a binding are packed. */
+	public static final int PACK_THRESHOLD = 256;
+	/** Number of references below which packed references are discarded. */
+	public static final int UNPACK_THRESHOLD = PACK_THRESHOLD / 2;
+
+	private static final int BLOCK_BINDING = 0;
+	private static final int BLOCK_PREV = 4;
+	private static final int BLOCK_NEXT = 8;
+	private static final int BLOCK_COUNT = 12;
+	private static final int BLOCK_ENTRIES = 16;
+
+	private static final int ENTRY_FILE = 0;
+	private static final int ENTRY_NAME = Database.PTR_SIZE;
+	private static final int ENTRY_SIZE = 2 * Database.PTR_SIZE;
+
+	// 125 entries yield a 1024-byte block.
+	private static final int BLOCK_CAPACITY = 125;
+	private static final int BLOCK_SIZE = BLOCK_ENTRIES + BLOCK_CAPACITY * ENTRY_SIZE;
+	/** Number of entries per block when packing, leaves room for additional references. */
+	private static final int BLOCK_FILL = BLOCK_CAPACITY * 3 / 4;
+
+	private static final long[] NO_RECORDS = {};
+
+	private final Database fDatabase;
+	private final BTree fBTree;
+
+	public PDOMReferenceIndex(Database db, long rootPointer) {
+		fDatabase = db;
+		fBTree = new BTree(db, rootPointer, new IBTreeComparator() {
+			@Override
+			public int compare(long block1, long block2) throws CoreException {
+				int cmp = Long.compare(getBinding(block1), getBinding(block2));
+				if (cmp == 0) {
+					cmp = compareEntry(block1, 0, getFile(block2, 0), getName(block2, 0));
+				}
+				return cmp;
+			}
+		});
+	}
+
+	/**
+	 * Stores the references to a binding in blocks. Called when the binding reaches
+	 * {@link #PACK_THRESHOLD} references.
+	 */
+	void pack(PDOMBinding binding) throws CoreException {
+		List<long[]> entries = new ArrayList<>();
+		for (PDOMName name = binding.getFirstReference(); name != null; name = name.getNextInBinding()) {
+			if (!name.isPotentialMatch()) {
+				entries.add(new long[] { name.getFileRecord(), name.getRecord() });
+			}
+		}
+		entries.sort((e1, e2) -> {
+			int cmp = Long.compare(e1[0], e2[0]);
+			return cmp != 0 ? cmp : Long.compare(e1[1], e2[1]);
+		});
+
+		long prev = 0;
+		for (int i = 0; i < entries.size(); i += BLOCK_FILL) {
+			int count = Math.min(BLOCK_FILL, entries.size() - i);
+			long block = createBlock(binding.getRecord(), prev, 0);
+			for (int j = 0; j < count; j++) {
+				long[] entry = entries.get(i + j);
+				putEntry(block, j, entry[0], entry[1]);
+			}
+			fDatabase.putShort(block + BLOCK_COUNT, (short) count);
+			fBTree.insert(block);
+			prev = block;
+		}
+	}
+
+	/**
+	 * Discards the blocks of a binding.
+	 */
+	void unpack(PDOMBinding binding) throws CoreException {
+		long block = findFirstBlock(binding.getRecord(), 0);
+		while (block != 0) {
+			long next = fDatabase.getRecPtr(block + BLOCK_NEXT);
+			fBTree.delete(block);
+			fDatabase.free(block);
+			block = next;
+		}
+	}
+
+	/**
+	 * Adds a reference to a packed binding. The binding and the file of the name have to be set.
+	 */
+	void add(PDOMName name) throws CoreException {
+		if (name.isPotentialMatch())
+			return;
+		final long binding = name.getBindingRecord();
+		final long file = name.getFileRecord();
+		final long record = name.getRecord();
+
+		// Find the first block with a last entry not less than the new one, or the last block.
+		final long[] result = { 0 };
+		fBTree.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long block) throws CoreException {
+				int cmp = Long.compare(getBinding(block), binding);
+				if (cmp == 0 && fDatabase.getRecPtr(block + BLOCK_NEXT) != 0
+						&& compareEntry(block, getCount(block) - 1, file, record) < 0) {
+					cmp = -1;
+				}
+				return cmp;
+			}
+
+			@Override
+			public boolean visit(long block) throws CoreException {
+				result[0] = block;
+				return false;
+			}
+		});
+
+		long block = result[0];
+		if (block == 0) {
+			block = createBlock(binding, 0, 0);
+			putEntry(block, 0, file, record);
+			fDatabase.putShort(block + BLOCK_COUNT, (short) 1);
+			fBTree.insert(block);
+			return;
+		}
+
+		int count = getCount(block);
+		int pos = findPosition(block, count, file, record);
+		if (count == BLOCK_CAPACITY) {
+			// Move the upper half of the entries to a new block following this one.
+			long next = fDatabase.getRecPtr(block + BLOCK_NEXT);
+			long newBlock = createBlock(binding, block, next);
+			if (next != 0) {
+				fDatabase.putRecPtr(next + BLOCK_PREV, newBlock);
+			}
+			int half = count / 2;
+			for (int i = half; i < count; i++) {
+				putEntry(newBlock, i - half, getFile(block, i), getName(block, i));
+			}
+			fDatabase.putShort(newBlock + BLOCK_COUNT, (short) (count - half));
+			fDatabase.putShort(block + BLOCK_COUNT, (short) half);
+			fBTree.insert(newBlock);
+			if (pos > half) {
+				block = newBlock;
+				pos -= half;
+			}
+			count = getCount(block);
+		}
+		// Changing the first entry of a block keeps the order of the b-tree intact, since the
+		// new entry is greater than the entries of the previous block.
+		for (int i = count; i > pos; i--) {
+			putEntry(block, i, getFile(block, i - 1), getName(block, i - 1));
+		}
+		putEntry(block, pos, file, record);
+		fDatabase.putShort(block + BLOCK_COUNT, (short) (count + 1));
+	}
+
+	/**
+	 * Removes a reference from a packed binding. Has to be called before the binding or the
+	 * file of the name is changed.
+	 */
+	void remove(PDOMName name) throws CoreException {
+		if (name.isPotentialMatch())
+			return;
+		final long binding = name.getBindingRecord();
+		final long file = name.getFileRecord();
+		final long record = name.getRecord();
+
+		final long[] result = { 0 };
+		fBTree.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long block) throws CoreException {
+				int cmp = Long.compare(getBinding(block), binding);
+				if (cmp == 0) {
+					if (compareEntry(block, getCount(block) - 1, file, record) < 0) {
+						cmp = -1;
+					} else if (compareEntry(block, 0, file, record) > 0) {
+						cmp = 1;
+					}
+				}
+				return cmp;
+			}
+
+			@Override
+			public boolean visit(long block) throws CoreException {
+				result[0] = block;
+				return false;
+			}
+		});
+
+		long block = result[0];
+		if (block == 0)
+			return;
+		int count = getCount(block);
+		int pos = findPosition(block, count, file, record);
+		if (pos == count || getName(block, pos) != record)
+			return;
+
+		if (count == 1) {
+			fBTree.delete(block);
+			long prev = fDatabase.getRecPtr(block + BLOCK_PREV);
+			long next = fDatabase.getRecPtr(block + BLOCK_NEXT);
+			if (prev != 0) {
+				fDatabase.putRecPtr(prev + BLOCK_NEXT, next);
+			}
+			if (next != 0) {
+				fDatabase.putRecPtr(next + BLOCK_PREV, prev);
+			}
+			fDatabase.free(block);
+			return;
+		}
+		for (int i = pos + 1; i < count; i++) {
+			putEntry(block, i - 1, getFile(block, i), getName(block, i));
+		}
+		fDatabase.putShort(block + BLOCK_COUNT, (short) (count - 1));
+	}
+
+	/**
+	 * Returns the records of the references to a packed binding, sorted by file.
+	 */
+	public long[] getReferences(long bindingRecord) throws CoreException {
+		return getReferences(bindingRecord, 0);
+	}
+
+	/**
+	 * Returns the records of the references to a packed binding in the file with the given
+	 * record, or in all files if {@code fileRecord} is 0.
+	 */
+	public long[] getReferences(long bindingRecord, long fileRecord) throws CoreException {
+		long[] result = NO_RECORDS;
+		int length = 0;
+		for (long block = findFirstBlock(bindingRecord, fileRecord); block != 0;
+				block = fDatabase.getRecPtr(block + BLOCK_NEXT)) {
+			int count = getCount(block);
+			if (fileRecord != 0 && getFile(block, 0) > fileRecord)
+				break;
+			for (int i = 0; i < count; i++) {
+				if (fileRecord == 0 || getFile(block, i) == fileRecord) {
+					if (length == result.length) {
+						result = Arrays.copyOf(result, Math.max(16, 2 * length));
+					}
+					result[length++] = getName(block, i);
+				}
+			}
+		}
+		return Arrays.copyOf(result, length);
+	}
+
+	/**
+	 * Returns the first block of the binding with entries for the given file, or for any file
+	 * if {@code fileRecord} is 0.
+	 */
+	private long findFirstBlock(final long bindingRecord, final long fileRecord) throws CoreException {
+		final long[] result = { 0 };
+		fBTree.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long block) throws CoreException {
+				int cmp = Long.compare(getBinding(block), bindingRecord);
+				if (cmp == 0 && fileRecord != 0 && getFile(block, getCount(block) - 1) < fileRecord) {
+					cmp = -1;
+				}
+				return cmp;
+			}
+
+			@Override
+			public boolean visit(long block) throws CoreException {
+				result[0] = block;
+				return false;
+			}
+		});
+		return result[0];
+	}
+
+	private long createBlock(long binding, long prev, long next) throws CoreException {
+		long block = fDatabase.malloc(BLOCK_SIZE);
+		fDatabase.putRecPtr(block + BLOCK_BINDING, binding);
+		fDatabase.putRecPtr(block + BLOCK_PREV, prev);
+		fDatabase.putRecPtr(block + BLOCK_NEXT, next);
+		if (prev != 0) {
+			fDatabase.putRecPtr(prev + BLOCK_NEXT, block);
+		}
+		return block;
+	}
+
+	/**
+	 * Returns the index of the first entry of the block that is not less than the given one.
+	 */
+	private int findPosition(long block, int count, long file, long name) throws CoreException {
+		int lower = 0;
+		int upper = count;
+		while (lower < upper) {
+			int middle = (lower + upper) >>> 1;
+			if (compareEntry(block, middle, file, name) < 0) {
+				lower = middle + 1;
+			} else {
+				upper = middle;
+			}
+		}
+		return lower;
+	}
+
+	private int compareEntry(long block, int index, long file, long name) throws CoreException {
+		int cmp = Long.compare(getFile(block, index), file);
+		return cmp != 0 ? cmp : Long.compare(getName(block, index), name);
+	}
+
+	private long getBinding(long block) throws CoreException {
+		return fDatabase.getRecPtr(block + BLOCK_BINDING);
+	}
+
+	private int getCount(long block) throws CoreException {
+		return fDatabase.getShort(block + BLOCK_COUNT);
+	}
+
+	private long getFile(long block, int index) throws CoreException {
+		return fDatabase.getRecPtr(block + BLOCK_ENTRIES + index * ENTRY_SIZE + ENTRY_FILE);
+	}
+
+	private long getName(long block, int index) throws CoreException {
+		return fDatabase.getRecPtr(block + BLOCK_ENTRIES + index * ENTRY_SIZE + ENTRY_NAME);
+	}
+
+	private void putEntry(long block, int index, long file, long name) throws CoreException {
+		long entry = block + BLOCK_ENTRIES + index * ENTRY_SIZE;
+		fDatabase.putRecPtr(entry + ENTRY_FILE, file);
+		fDatabase.putRecPtr(entry + ENTRY_NAME, name);
+	}
+}
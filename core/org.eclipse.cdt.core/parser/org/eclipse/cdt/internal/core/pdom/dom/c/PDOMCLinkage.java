@@ -78,6 +78,11 @@ class PDOMCLinkage extends PDOMLinkage implements IIndexCBindingConstants {
 		return C_LINKAGE_ID;
 	}
 
+	@Override
+	protected boolean maintainsNameTrigramIndex() {
+		return true;
+	}
+
 	private PDOMBinding addBinding(final IBinding inputBinding, IASTName fromName) throws CoreException {
 		if (cannotAdapt(inputBinding)) {
 			return null;
@@ -176,6 +181,8 @@ class PDOMCLinkage extends PDOMLinkage implements IIndexCBindingConstants {
 			if (parent != this && insertIntoIndex != this) {
 				insertIntoNestedBindingsIndex(pdomBinding);
 			}
+			insertIntoNameTrigramIndex(pdomBinding);
+			onChangeBinding(pdomBinding);
 		}
 		return pdomBinding;
 	}
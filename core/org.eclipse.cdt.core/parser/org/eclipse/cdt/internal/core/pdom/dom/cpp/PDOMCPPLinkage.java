@@ -213,6 +213,11 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 		return CPP_LINKAGE_ID;
 	}
 
+	@Override
+	protected boolean maintainsNameTrigramIndex() {
+		return true;
+	}
+
 	@Override
 	protected int getRecordSize() {
 		return RECORD_SIZE;
@@ -887,6 +892,8 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 			if (parent != this && parent2 != this) {
 				insertIntoNestedBindingsIndex(pdomBinding);
 			}
+			insertIntoNameTrigramIndex(pdomBinding);
+			onChangeBinding(pdomBinding);
 		}
 
 		return pdomBinding;
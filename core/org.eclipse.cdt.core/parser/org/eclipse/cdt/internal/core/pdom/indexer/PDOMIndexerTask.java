@@ -29,6 +29,9 @@ import org.eclipse.cdt.core.index.IIndexManager;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.core.parser.IncludeExportPatterns;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.ConstexprCallCache;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.OverloadResolutionCache;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.PartialSpecializationCache;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
 import org.eclipse.cdt.internal.core.model.CProject;
@@ -320,6 +323,22 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 					+ hits + " hits, "      //$NON-NLS-1$
 					+ misses + "(" + nfPercent.format(missPct) + ") misses.");      //$NON-NLS-1$ //$NON-NLS-2$
 
+			PartialSpecializationCache specializationCache= PartialSpecializationCache.getInstance();
+			System.out.println(indent + " Partial specialization selections: "    //$NON-NLS-1$
+					+ specializationCache.getHits() + " hits, "      //$NON-NLS-1$
+					+ specializationCache.getMisses() + " misses, "      //$NON-NLS-1$
+					+ specializationCache.size() + " cached.");      //$NON-NLS-1$
+
+			ConstexprCallCache constexprCache= ConstexprCallCache.getInstance();
+			System.out.println(indent + " Constexpr calls: "    //$NON-NLS-1$
+					+ constexprCache.getHits() + " memoized, "      //$NON-NLS-1$
+					+ constexprCache.getMisses() + " evaluated, "      //$NON-NLS-1$
+					+ constexprCache.getStepsSaved() + " steps saved.");      //$NON-NLS-1$
+
+			System.out.println(indent + " Overload resolution: "    //$NON-NLS-1$
+					+ OverloadResolutionCache.getTotalHits() + " cached, "      //$NON-NLS-1$
+					+ OverloadResolutionCache.getTotalMisses() + " computed.");      //$NON-NLS-1$
+
 			if (Boolean.parseBoolean(System.getProperty("SHOW_COMPRESSED_INDEXER_INFO"))) {    //$NON-NLS-1$
 				Calendar cal = Calendar.getInstance();
 				NumberFormat twoDigits= NumberFormat.getNumberInstance();
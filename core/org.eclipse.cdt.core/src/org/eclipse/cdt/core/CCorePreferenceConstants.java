@@ -131,6 +131,33 @@ public class CCorePreferenceConstants {
 	 */
 	public static final String DEFAULT_MAX_INDEX_DB_CACHE_SIZE_MB = "256"; //$NON-NLS-1$
 
+	/**
+	 * Maximum number of index snapshots kept per project for configurations that are not active.
+	 * Switching to a configuration with a snapshot updates the snapshot instead of rebuilding the index.
+	 * A value of zero disables the snapshots.
+	 * @since 6.5
+	 */
+	public static final String INDEX_CONFIG_SNAPSHOTS_MAX_COUNT = CCorePlugin.PLUGIN_ID + ".indexConfigSnapshotsMaxCount"; //$NON-NLS-1$
+
+	/**
+	 * Default maximum number of index snapshots kept per project.
+	 * @since 6.5
+	 */
+	public static final String DEFAULT_INDEX_CONFIG_SNAPSHOTS_MAX_COUNT = "3"; //$NON-NLS-1$
+
+	/**
+	 * Maximum disk space in megabytes used by the index snapshots of a project, the least recently
+	 * used snapshots are deleted first.
+	 * @since 6.5
+	 */
+	public static final String INDEX_CONFIG_SNAPSHOTS_MAX_SIZE_MB = CCorePlugin.PLUGIN_ID + ".indexConfigSnapshotsMaxSizeMB"; //$NON-NLS-1$
+
+	/**
+	 * Default maximum disk space in megabytes used by the index snapshots of a project.
+	 * @since 6.5
+	 */
+	public static final String DEFAULT_INDEX_CONFIG_SNAPSHOTS_MAX_SIZE_MB = "1024"; //$NON-NLS-1$
+
 	/**
 	 * Boolean preference controlling whether paths of non-workspace files are stored in index in canonical
 	 * form or not. Canonicalization is performed by calling {@link java.io.File#getCanonicalPath()}.
@@ -10,7 +10,6 @@ package org.eclipse.cdt.core.build;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -118,6 +117,8 @@ public abstract class CBuildConfiguration extends PlatformObject
 
 	private final Map<IResource, List<IScannerInfoChangeListener>> scannerInfoListeners = new HashMap<>();
 	private ScannerInfoCache scannerInfoCache;
+	// scanner info jobs not finished yet by command, guarded by scannerInfoLock
+	private final Map<List<String>, ScannerInfoJob> scannerInfoJobs = new HashMap<>();
 
 	protected CBuildConfiguration(IBuildConfiguration config, String name) throws CoreException {
 		this.config = config;
@@ -625,6 +626,14 @@ public abstract class CBuildConfiguration extends PlatformObject
 	}
 
 	private File getScannerInfoCacheFile() {
+		return CCorePlugin.getDefault().getStateLocation().append("infoCache") //$NON-NLS-1$
+				.append(getProject().getName()).append(name + ".bin").toFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * The file the cache was written to by previous versions, it is read when there is no binary cache yet.
+	 */
+	private File getLegacyScannerInfoCacheFile() {
 		return CCorePlugin.getDefault().getStateLocation().append("infoCache") //$NON-NLS-1$
 				.append(getProject().getName()).append(name + ".json").toFile(); //$NON-NLS-1$
 	}
@@ -693,8 +702,17 @@ public abstract class CBuildConfiguration extends PlatformObject
 		synchronized (scannerInfoLock) {
 			if (scannerInfoCache == null) {
 				File cacheFile = getScannerInfoCacheFile();
+				File legacyCacheFile = getLegacyScannerInfoCacheFile();
 				if (cacheFile.exists()) {
-					try (FileReader reader = new FileReader(cacheFile)) {
+					try {
+						scannerInfoCache = ScannerInfoCache.load(cacheFile);
+					} catch (IOException e) {
+						CCorePlugin.log(e);
+						scannerInfoCache = new ScannerInfoCache();
+						scannerInfoCache.initCache();
+					}
+				} else if (legacyCacheFile.exists()) {
+					try (FileReader reader = new FileReader(legacyCacheFile)) {
 						GsonBuilder gsonBuilder = new GsonBuilder();
 						gsonBuilder.registerTypeAdapter(IExtendedScannerInfo.class,
 								new IExtendedScannerInfoCreator());
@@ -704,10 +722,11 @@ public abstract class CBuildConfiguration extends PlatformObject
 						CCorePlugin.log(e);
 						scannerInfoCache = new ScannerInfoCache();
 					}
+					scannerInfoCache.initCache();
 				} else {
 					scannerInfoCache = new ScannerInfoCache();
+					scannerInfoCache.initCache();
 				}
-				scannerInfoCache.initCache();
 			}
 		}
 	}
@@ -726,11 +745,14 @@ public abstract class CBuildConfiguration extends PlatformObject
 			}
 		}
 
-		try (FileWriter writer = new FileWriter(getScannerInfoCacheFile())) {
-			Gson gson = new Gson();
+		try {
 			synchronized (scannerInfoLock) {
-				gson.toJson(scannerInfoCache, writer);
+				if (scannerInfoCache == null) {
+					return;
+				}
+				scannerInfoCache.save(cacheFile);
 			}
+			getLegacyScannerInfoCacheFile().delete();
 		} catch (IOException e) {
 			CCorePlugin.log(e);
 		}
@@ -979,6 +1001,8 @@ public abstract class CBuildConfiguration extends PlatformObject
 		private List<String> commandStrings;
 		private IResource resource;
 		private URI buildDirectoryURI;
+		// resources compiled with the same command, guarded by scannerInfoLock
+		private List<IResource> resources = new ArrayList<>();
 		
 		public ScannerInfoJob(String msg, IToolChain toolchain, List<String> command, IResource resource,
 				URI buildDirectoryURI, List<String> commandStrings) {
@@ -988,22 +1012,34 @@ public abstract class CBuildConfiguration extends PlatformObject
 			this.commandStrings = commandStrings;
 			this.resource = resource;
 			this.buildDirectoryURI = buildDirectoryURI;
+			this.resources.add(resource);
 		}
 		
 		@Override
 		protected IStatus run(IProgressMonitor monitor) {
-			IExtendedScannerInfo info = toolchain.getScannerInfo(getBuildConfiguration(),
-					command, null, resource, buildDirectoryURI);
-			synchronized (scannerInfoLock) {
-				scannerInfoCache.addScannerInfo(commandStrings, info, resource);
-				infoChanged = true;
+			try {
+				IExtendedScannerInfo info = toolchain.getScannerInfo(getBuildConfiguration(),
+						command, null, resource, buildDirectoryURI);
+				synchronized (scannerInfoLock) {
+					for (IResource rc : resources) {
+						scannerInfoCache.addScannerInfo(commandStrings, info, rc);
+					}
+					infoChanged = true;
+				}
+			} finally {
+				// resources seen from now on find the command in the cache
+				synchronized (scannerInfoLock) {
+					scannerInfoJobs.remove(commandStrings);
+				}
 			}
 			return Status.OK_STATUS;
 		}
 	}
 	
 	/**
-	 * Process a compile line for Scanner info in a separate job
+	 * Process a compile line for Scanner info in a separate job. The compiler is run
+	 * once for all resources compiled with the same command, the job started for the
+	 * first resource provides the scanner info for the others.
 	 * 
 	 * @param line - line to process
 	 * @param jobsArray - array of Jobs to keep track of open scanner info jobs
@@ -1068,15 +1104,23 @@ public abstract class CBuildConfiguration extends PlatformObject
 								infoChanged = true;
 							}
 						} else {
-							hasCommand = false;
+							ScannerInfoJob pendingJob = scannerInfoJobs.get(commandStrings);
+							if (pendingJob != null) {
+								pendingJob.resources.add(resource);
+							} else {
+								hasCommand = false;
+							}
 						}
 					}
 					if (!hasCommand) {
 						Path commandPath = findCommand(command.get(0));
 						if (commandPath != null) {
 							command.set(0, commandPath.toString());
-							Job job = new ScannerInfoJob(String.format(Messages.CBuildConfiguration_RunningScannerInfo, resource), 
+							ScannerInfoJob job = new ScannerInfoJob(String.format(Messages.CBuildConfiguration_RunningScannerInfo, resource), 
 									getToolChain(), command, resource, getBuildDirectoryURI(), commandStrings);
+							synchronized (scannerInfoLock) {
+								scannerInfoJobs.put(commandStrings, job);
+							}
 							job.schedule();
 							jobsArray.add(job);
 						}
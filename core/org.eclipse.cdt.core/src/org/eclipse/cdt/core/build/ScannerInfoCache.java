@@ -7,25 +7,65 @@
  *******************************************************************************/
 package org.eclipse.cdt.core.build;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
+import org.eclipse.cdt.core.parser.ExtendedScannerInfo;
 import org.eclipse.cdt.core.parser.IExtendedScannerInfo;
+import org.eclipse.cdt.core.parser.IncludeExportPatterns;
+import org.eclipse.cdt.internal.core.BinaryMetadataCache;
+import org.eclipse.cdt.internal.core.parser.ParserSettings2;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.Platform;
 
 /**
  * Scanner info for a given build configuration.
- * 
+ * <p>
+ * The cache is stored in a binary file, see {@link #load(File)} and {@link #save(File)}. Each distinct
+ * list of paths and set of macros is stored once and referred to by id from the commands. The changes
+ * made after loading are appended to the file, which is rewritten when most of it is outdated.
+ *
  * @since 6.1
  */
 public class ScannerInfoCache {
+	private static final int MAGIC = 0x43534943;
+	private static final int VERSION = 1;
+	private static final boolean USE_MAPPING = !Platform.OS_WIN32.equals(Platform.getOS());
+
+	// Records of the binary file: type, length and content
+	private static final byte STRINGS = 1;
+	private static final byte SYMBOLS = 2;
+	private static final byte COMMAND = 3;
+	private static final byte RESOURCE = 4;
+	private static final byte REMOVE_RESOURCE = 5;
+	private static final byte REMOVE_COMMAND = 6;
+	private static final int NONE = -1;
+	private static final int MIN_GARBAGE = 1024;
 
 	private static class Command {
 		public List<String> command;
 		public IExtendedScannerInfo info;
-		public List<String> resourcePaths;
+		public Set<String> resourcePaths;
+		// id in the binary file and position of the info not read from the file yet
+		public transient int id;
+		public transient int infoOffset = NONE;
 	}
 
 	private List<Command> commands;
@@ -33,6 +73,21 @@ public class ScannerInfoCache {
 	private transient Map<List<String>, Command> commandMap = new HashMap<>();
 	private transient Map<String, Command> resourceMap = new HashMap<>();
 
+	// State of the binary file
+	private transient File file;
+	private transient long fileLength;
+	private transient ByteBuffer buffer;
+	private transient Map<Integer, Command> commandIds = new HashMap<>();
+	private transient Map<Integer, Integer> tableOffsets = new HashMap<>();
+	private transient Map<Integer, Object> tables = new HashMap<>();
+	private transient Map<Object, Integer> tableIds = new HashMap<>();
+	private transient int nextId;
+	private transient int garbage;
+	private transient ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private transient ByteArrayOutputStream record = new ByteArrayOutputStream();
+	private transient DataOutputStream recordOut = new DataOutputStream(record);
+	private transient boolean rewrite = true;
+
 	/**
 	 * Initialize the cache of scanner info. Call this after loading this info
 	 * using Gson.
@@ -43,6 +98,8 @@ public class ScannerInfoCache {
 		}
 
 		for (Command command : commands) {
+			command.id = nextId++;
+			commandIds.put(command.id, command);
 			commandMap.put(command.command, command);
 			for (String resourcePath : command.resourcePaths) {
 				resourceMap.put(resourcePath, command);
@@ -53,12 +110,12 @@ public class ScannerInfoCache {
 	public IExtendedScannerInfo getScannerInfo(IResource resource) {
 		String resourcePath = resource.getLocation().toOSString();
 		Command command = resourceMap.get(resourcePath);
-		return command != null ? command.info : null;
+		return command != null ? getInfo(command) : null;
 	}
 
 	public IExtendedScannerInfo getScannerInfo(List<String> commandStrings) {
 		Command command = commandMap.get(commandStrings);
-		return command != null ? command.info : null;
+		return command != null ? getInfo(command) : null;
 	}
 
 	public boolean hasCommand(List<String> commandStrings) {
@@ -66,39 +123,40 @@ public class ScannerInfoCache {
 	}
 
 	public void addScannerInfo(List<String> commandStrings, IExtendedScannerInfo info, IResource resource) {
-		// Do I need to remove the resource from an existing command?
 		String resourcePath = resource.getLocation().toOSString();
 		Command oldCommand = resourceMap.get(resourcePath);
-		if (oldCommand != null) {
-			if (oldCommand.command.equals(commandStrings)) {
-				// duplicate
-				return;
-			} else {
-				oldCommand.resourcePaths.remove(resourcePath);
-				if (oldCommand.resourcePaths.isEmpty()) {
-					// unused, remove
-					commandMap.remove(oldCommand.command);
-					commands.remove(oldCommand);
-					resourceMap.remove(resourcePath);
-				}
-			}
+		if (oldCommand != null && oldCommand.command.equals(commandStrings)) {
+			// duplicate
+			return;
 		}
 
 		Command command = commandMap.get(commandStrings);
 		if (command != null) {
-			command.info = info;
-			command.resourcePaths.add(resourcePath);
-			resourceMap.put(resourcePath, command);
+			garbage++;
 		} else {
 			command = new Command();
 			command.command = commandStrings;
-			command.info = info;
-			command.resourcePaths = new ArrayList<>();
-			command.resourcePaths.add(resourcePath);
+			command.resourcePaths = new LinkedHashSet<>();
+			command.id = nextId++;
 			commands.add(command);
 			commandMap.put(commandStrings, command);
-			resourceMap.put(resourcePath, command);
+			commandIds.put(command.id, command);
 		}
+		command.info = info;
+		command.infoOffset = NONE;
+		try {
+			writeCommand(command);
+		} catch (IOException e) {
+			rewrite = true;
+		}
+		putResource(resourcePath, command);
+	}
+
+	/**
+	 * @since 6.5
+	 */
+	public boolean hasResource(String resourcePath) {
+		return resourceMap.containsKey(resourcePath);
 	}
 
 	/**
@@ -116,22 +174,11 @@ public class ScannerInfoCache {
 	public void addResource(List<String> commandStrings, IResource resource) {
 		String resourcePath = resource.getLocation().toOSString();
 		Command command = commandMap.get(commandStrings);
-		Command current = resourceMap.get(resourcePath);
-		if (current != null) {
-			if (!current.equals(command)) {
-				// remove from old command
-				current.resourcePaths.remove(resourcePath);
-				if (current.resourcePaths.isEmpty()) {
-					commands.remove(current);
-					commandMap.remove(current.command);
-				}
-			} else {
-				// we're already there
-				return;
-			}
+		if (resourceMap.get(resourcePath) == command) {
+			// we're already there
+			return;
 		}
-		command.resourcePaths.add(resource.getLocation().toOSString());
-		resourceMap.put(resourcePath, command);
+		putResource(resourcePath, command);
 	}
 
 	/**
@@ -139,14 +186,13 @@ public class ScannerInfoCache {
 	 */
 	public void removeResource(IResource resource) {
 		String resourcePath = resource.getLocation().toOSString();
-		Command command = resourceMap.get(resourcePath);
-		if (command != null) {
-			command.resourcePaths.remove(resourcePath);
-			if (command.resourcePaths.isEmpty()) {
-				commands.remove(command);
-				commandMap.remove(command.command);
+		if (doRemoveResource(resourcePath)) {
+			try {
+				BinaryMetadataCache.putString(startRecord(), resourcePath);
+				endRecord(REMOVE_RESOURCE);
+			} catch (IOException e) {
+				rewrite = true;
 			}
-			resourceMap.remove(resourcePath);
 		}
 	}
 
@@ -154,16 +200,443 @@ public class ScannerInfoCache {
 	 * @since 6.4
 	 */
 	public void removeCommand(List<String> commandStrings) {
-		Command command = commandMap.remove(commandStrings);
+		Command command = commandMap.get(commandStrings);
 		if (command != null) {
+			doRemoveCommand(command);
+			try {
+				startRecord().writeInt(command.id);
+				endRecord(REMOVE_COMMAND);
+			} catch (IOException e) {
+				rewrite = true;
+			}
+		}
+	}
+
+	/**
+	 * Assign the resource to the command, removing it from the command it was assigned to.
+	 */
+	private void putResource(String resourcePath, Command command) {
+		doPutResource(resourcePath, command);
+		try {
+			writeResource(resourcePath, command);
+		} catch (IOException e) {
+			rewrite = true;
+		}
+	}
+
+	private void doPutResource(String resourcePath, Command command) {
+		Command current = resourceMap.get(resourcePath);
+		if (current != null) {
+			garbage++;
+			current.resourcePaths.remove(resourcePath);
+			if (current.resourcePaths.isEmpty()) {
+				// unused, remove
+				commands.remove(current);
+				commandMap.remove(current.command);
+				commandIds.remove(current.id);
+				garbage++;
+			}
+		}
+		command.resourcePaths.add(resourcePath);
+		resourceMap.put(resourcePath, command);
+	}
+
+	private boolean doRemoveResource(String resourcePath) {
+		Command command = resourceMap.remove(resourcePath);
+		if (command == null) {
+			return false;
+		}
+		garbage += 2;
+		command.resourcePaths.remove(resourcePath);
+		if (command.resourcePaths.isEmpty()) {
 			commands.remove(command);
-			for (String resourcePath : command.resourcePaths) {
-				Command current = resourceMap.get(resourcePath);
-				if (current.equals(command)) {
-					resourceMap.remove(resourcePath);
+			commandMap.remove(command.command);
+			commandIds.remove(command.id);
+			garbage++;
+		}
+		return true;
+	}
+
+	private void doRemoveCommand(Command command) {
+		commandMap.remove(command.command);
+		commandIds.remove(command.id);
+		commands.remove(command);
+		garbage += 2;
+		for (String resourcePath : command.resourcePaths) {
+			Command current = resourceMap.get(resourcePath);
+			if (current.equals(command)) {
+				resourceMap.remove(resourcePath);
+				garbage++;
+			}
+		}
+	}
+
+	/**
+	 * Loads the cache from a file written by {@link #save(File)}. A cache that does not match the
+	 * format of this version is returned empty, the file is rewritten when the cache is saved.
+	 * <p>
+	 * The scanner info of the commands is read from the file when it is asked for.
+	 *
+	 * @param file - the file to load.
+	 * @return the cache read from the file.
+	 * @throws IOException if the file cannot be read.
+	 * @since 6.5
+	 */
+	public static ScannerInfoCache load(File file) throws IOException {
+		ScannerInfoCache cache = new ScannerInfoCache();
+		cache.commands = new ArrayList<>();
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length > Integer.MAX_VALUE) {
+				return cache;
+			}
+			if (USE_MAPPING) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			} else {
+				buffer = ByteBuffer.allocate((int) length);
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// Read until the end of the file is reached.
+				}
+				buffer.flip();
+			}
+		}
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return cache;
+			}
+			while (buffer.remaining() >= 5) {
+				byte type = buffer.get();
+				int length = buffer.getInt();
+				if (length < 0 || length > buffer.remaining()) {
+					break;
 				}
+				int end = buffer.position() + length;
+				cache.readRecord(type, buffer);
+				buffer.position(end);
 			}
+			cache.rewrite = buffer.hasRemaining();
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			// Incomplete record, keep the records before it and rewrite the file.
 		}
+		cache.file = file;
+		cache.fileLength = buffer.limit();
+		cache.buffer = buffer;
+		return cache;
 	}
 
+	private void readRecord(byte type, ByteBuffer buffer) {
+		switch (type) {
+		case STRINGS:
+		case SYMBOLS: {
+			int id = buffer.getInt();
+			tableOffsets.put(id, buffer.position() - 9);
+			nextId = Math.max(nextId, id + 1);
+			break;
+		}
+		case COMMAND: {
+			int id = buffer.getInt();
+			List<String> commandStrings = getStrings(buffer);
+			Command command = commandIds.get(id);
+			if (command != null) {
+				garbage++;
+			} else {
+				command = new Command();
+				command.command = commandStrings;
+				command.resourcePaths = new LinkedHashSet<>();
+				command.id = id;
+				commands.add(command);
+				commandMap.put(commandStrings, command);
+				commandIds.put(id, command);
+				nextId = Math.max(nextId, id + 1);
+			}
+			command.info = null;
+			command.infoOffset = buffer.position();
+			break;
+		}
+		case RESOURCE: {
+			String resourcePath = BinaryMetadataCache.getString(buffer);
+			Command command = commandIds.get(buffer.getInt());
+			if (command == null) {
+				throw new IllegalArgumentException();
+			}
+			doPutResource(resourcePath, command);
+			break;
+		}
+		case REMOVE_RESOURCE:
+			doRemoveResource(BinaryMetadataCache.getString(buffer));
+			break;
+		case REMOVE_COMMAND: {
+			Command command = commandIds.get(buffer.getInt());
+			if (command != null) {
+				doRemoveCommand(command);
+			}
+			break;
+		}
+		default:
+			throw new IllegalArgumentException();
+		}
+	}
+
+	/**
+	 * Saves the cache to the file. The changes are appended when the cache was loaded from or last saved
+	 * to the same file, otherwise the whole file is written.
+	 *
+	 * @param file - the file to save to.
+	 * @throws IOException if the file cannot be written.
+	 * @since 6.5
+	 */
+	public void save(File file) throws IOException {
+		if (rewrite || !file.equals(this.file) || file.length() != fileLength
+				|| garbage > Math.max(commandMap.size() + resourceMap.size(), MIN_GARBAGE)) {
+			writeAll(file);
+		} else if (pending.size() > 0) {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				ByteBuffer data = ByteBuffer.wrap(pending.toByteArray());
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+			} catch (IOException e) {
+				rewrite = true;
+				throw e;
+			}
+			fileLength += pending.size();
+			pending.reset();
+		}
+	}
+
+	private void writeAll(File file) throws IOException {
+		// The tables and infos are written again, read them from the old file first.
+		for (Command command : commands) {
+			getInfo(command);
+		}
+		buffer = null;
+		tableOffsets.clear();
+		tableIds.clear();
+		tables.clear();
+		pending.reset();
+		garbage = 0;
+		for (Command command : commands) {
+			writeCommand(command);
+		}
+		for (Map.Entry<String, Command> entry : resourceMap.entrySet()) {
+			writeResource(entry.getKey(), entry.getValue());
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(pending.size() + 8);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		pending.writeTo(out);
+		out.flush();
+		pending.reset();
+
+		File folder = file.getParentFile();
+		folder.mkdirs();
+		File tmp = File.createTempFile("infoCache", ".tmp", folder); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			Files.write(tmp.toPath(), bytes.toByteArray());
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tmp.delete();
+		}
+		this.file = file;
+		fileLength = bytes.size();
+		rewrite = false;
+	}
+
+	private DataOutputStream startRecord() {
+		record.reset();
+		return recordOut;
+	}
+
+	private void endRecord(byte type) throws IOException {
+		recordOut.flush();
+		DataOutputStream out = new DataOutputStream(pending);
+		out.writeByte(type);
+		out.writeInt(record.size());
+		record.writeTo(out);
+		out.flush();
+	}
+
+	private void writeResource(String resourcePath, Command command) throws IOException {
+		DataOutputStream out = startRecord();
+		BinaryMetadataCache.putString(out, resourcePath);
+		out.writeInt(command.id);
+		endRecord(RESOURCE);
+	}
+
+	private void writeCommand(Command command) throws IOException {
+		IExtendedScannerInfo info = command.info;
+		int symbolsId = NONE;
+		int[] pathsIds = null;
+		String[] exportPatterns = null;
+		if (info != null) {
+			// tables go first, they are referred to by the command
+			symbolsId = writeTable(info.getDefinedSymbols());
+			pathsIds = new int[] { writeTable(info.getIncludePaths()), writeTable(info.getLocalIncludePath()),
+					writeTable(info.getMacroFiles()), writeTable(info.getIncludeFiles()) };
+			if (info instanceof ExtendedScannerInfo
+					&& ((ExtendedScannerInfo) info).getIncludeExportPatterns() != null) {
+				IncludeExportPatterns patterns = ((ExtendedScannerInfo) info).getIncludeExportPatterns();
+				exportPatterns = new String[] { getPattern(patterns.getIncludeExportPattern()),
+						getPattern(patterns.getIncludeBeginExportsPattern()),
+						getPattern(patterns.getIncludeEndExportsPattern()) };
+			}
+		}
+
+		DataOutputStream out = startRecord();
+		out.writeInt(command.id);
+		putStrings(out, command.command);
+		out.writeBoolean(info != null);
+		if (info != null) {
+			out.writeInt(symbolsId);
+			for (int id : pathsIds) {
+				out.writeInt(id);
+			}
+			out.writeBoolean(exportPatterns != null);
+			if (exportPatterns != null) {
+				for (String pattern : exportPatterns) {
+					BinaryMetadataCache.putString(out, pattern);
+				}
+			}
+		}
+		endRecord(COMMAND);
+	}
+
+	private static String getPattern(Pattern pattern) {
+		return pattern != null ? pattern.pattern() : null;
+	}
+
+	/**
+	 * Returns the id of the table with the given paths or macros, writing the table if it is new.
+	 */
+	private int writeTable(Object content) throws IOException {
+		Object key;
+		if (content instanceof String[]) {
+			key = Arrays.asList((String[]) content);
+		} else {
+			key = content;
+		}
+		if (buffer != null && !tableOffsets.isEmpty()) {
+			// Read the tables of the file, such that no table is written twice.
+			for (Integer id : new ArrayList<>(tableOffsets.keySet())) {
+				getTable(id);
+			}
+		}
+		Integer id = tableIds.get(key);
+		if (id != null) {
+			return id;
+		}
+
+		id = nextId++;
+		DataOutputStream out = startRecord();
+		out.writeInt(id);
+		if (content instanceof String[]) {
+			putStrings(out, (List<?>) key);
+			endRecord(STRINGS);
+		} else {
+			@SuppressWarnings("unchecked")
+			Map<String, String> symbols = (Map<String, String>) content;
+			out.writeInt(symbols.size());
+			for (Map.Entry<String, String> symbol : symbols.entrySet()) {
+				BinaryMetadataCache.putString(out, symbol.getKey());
+				BinaryMetadataCache.putString(out, symbol.getValue());
+			}
+			endRecord(SYMBOLS);
+		}
+		tables.put(id, content);
+		tableIds.put(key, id);
+		return id;
+	}
+
+	private static void putStrings(DataOutputStream out, List<?> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (Object str : strings) {
+			BinaryMetadataCache.putString(out, (String) str);
+		}
+	}
+
+	private static List<String> getStrings(ByteBuffer buffer) {
+		int count = buffer.getInt();
+		if (count < 0 || count > buffer.remaining() / 4) {
+			throw new IllegalArgumentException();
+		}
+		List<String> strings = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			strings.add(BinaryMetadataCache.getString(buffer));
+		}
+		return strings;
+	}
+
+	/**
+	 * Returns the paths or the macros of a table, reading them from the file when asked for the first time.
+	 */
+	private Object getTable(int id) {
+		if (id == NONE) {
+			return null;
+		}
+		Object table = tables.get(id);
+		if (table == null) {
+			Integer offset = tableOffsets.remove(id);
+			if (offset == null || buffer == null) {
+				throw new IllegalArgumentException();
+			}
+			ByteBuffer data = buffer.duplicate();
+			data.position(offset);
+			byte type = data.get();
+			data.getInt();
+			data.getInt();
+			Object key;
+			if (type == STRINGS) {
+				List<String> strings = getStrings(data);
+				table = strings.toArray(new String[strings.size()]);
+				key = strings;
+			} else {
+				int count = data.getInt();
+				Map<String, String> symbols = new HashMap<>();
+				for (int i = 0; i < count; i++) {
+					symbols.put(BinaryMetadataCache.getString(data), BinaryMetadataCache.getString(data));
+				}
+				table = Collections.unmodifiableMap(symbols);
+				key = table;
+			}
+			tables.put(id, table);
+			tableIds.put(key, id);
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the scanner info of the command, reading it from the file when asked for the first time.
+	 * A command with an info that cannot be read has no info.
+	 */
+	@SuppressWarnings("unchecked")
+	private IExtendedScannerInfo getInfo(Command command) {
+		if (command.infoOffset != NONE) {
+			ByteBuffer data = buffer.duplicate();
+			data.position(command.infoOffset);
+			command.infoOffset = NONE;
+			try {
+				if (data.get() != 0) {
+					Map<String, String> symbols = (Map<String, String>) getTable(data.getInt());
+					String[] includePaths = (String[]) getTable(data.getInt());
+					String[] localIncludePaths = (String[]) getTable(data.getInt());
+					String[] macroFiles = (String[]) getTable(data.getInt());
+					String[] includeFiles = (String[]) getTable(data.getInt());
+					ExtendedScannerInfo info = new ExtendedScannerInfo(symbols, includePaths, macroFiles,
+							includeFiles, localIncludePaths);
+					if (data.get() != 0) {
+						info.setIncludeExportPatterns(new IncludeExportPatterns(BinaryMetadataCache.getString(data),
+								BinaryMetadataCache.getString(data), BinaryMetadataCache.getString(data)));
+					}
+					info.setParserSettings(new ParserSettings2());
+					command.info = info;
+				}
+			} catch (BufferUnderflowException | IllegalArgumentException | ClassCastException e) {
+				rewrite = true;
+			}
+		}
+		return command.info;
+	}
 }
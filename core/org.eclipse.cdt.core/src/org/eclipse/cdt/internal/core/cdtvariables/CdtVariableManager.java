@@ -119,11 +119,23 @@ public class CdtVariableManager implements ICdtVariableManager {
 			String listDelimiter, ICConfigurationDescription cfg)
 			throws CdtVariableException {
 
+		VariableResolutionCache cache = getResolutionCache();
+		Object key = null;
+		if(cache != null && cache.isActive(cfg)){
+			key = VariableResolutionCache.key("resolveValue", value, nonexistentMacrosValue, listDelimiter); //$NON-NLS-1$
+			Object cached = cache.get(cfg, key);
+			if(cached != VariableResolutionCache.NOT_FOUND)
+				return (String)cached;
+		}
+
+		String result = null;
 		IVariableContextInfo info = getMacroContextInfo(getContextType(cfg),cfg);
 		if(info != null)
-			return CdtVariableResolver.resolveToString(value,
+			result = CdtVariableResolver.resolveToString(value,
 					getMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter));
-		return null;
+		if(key != null)
+			cache.put(cfg, key, result);
+		return result;
 	}
 
 	/* (non-Javadoc)
@@ -134,10 +146,22 @@ public class CdtVariableManager implements ICdtVariableManager {
 			String nonexistentMacrosValue, String listDelimiter,
 			ICConfigurationDescription cfg) throws CdtVariableException {
 
+		VariableResolutionCache cache = getResolutionCache();
+		Object key = null;
+		if(cache != null && cache.isActive(cfg)){
+			key = VariableResolutionCache.key("resolveStringListValue", value, nonexistentMacrosValue, listDelimiter); //$NON-NLS-1$
+			Object cached = cache.get(cfg, key);
+			if(cached != VariableResolutionCache.NOT_FOUND)
+				return cached != null ? ((String[])cached).clone() : null;
+		}
+
+		String[] result = null;
 		IVariableContextInfo info = getMacroContextInfo(getContextType(cfg),cfg);
 		if(info != null)
-			return CdtVariableResolver.resolveToStringList(value,getMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter));
-		return null;
+			result = CdtVariableResolver.resolveToStringList(value,getMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter));
+		if(key != null)
+			cache.put(cfg, key, result != null ? result.clone() : null);
+		return result;
 	}
 
 	/* (non-Javadoc)
@@ -175,6 +199,14 @@ public class CdtVariableManager implements ICdtVariableManager {
 			CdtVariableResolver.checkIntegrity(info,subst);
 	}
 
+	/**
+	 * @return the cache of resolved values, or <code>null</code> for managers that
+	 * use other variable suppliers than the default one
+	 */
+	private VariableResolutionCache getResolutionCache(){
+		return this == fDefault ? VariableResolutionCache.getDefault() : null;
+	}
+
 	private int getContextType(ICConfigurationDescription des){
 		if(des != null)
 			return ICoreVariableContextInfo.CONTEXT_CONFIGURATION;
@@ -190,11 +222,23 @@ public class CdtVariableManager implements ICdtVariableManager {
 	 */
 	@Override
 	public String[] resolveStringListValues(String[] value, String nonexistentMacrosValue, String listDelimiter, ICConfigurationDescription cfg) throws CdtVariableException {
+		VariableResolutionCache cache = getResolutionCache();
+		Object key = null;
+		if(cache != null && value != null && cache.isActive(cfg)){
+			key = VariableResolutionCache.key("resolveStringListValues", value.clone(), nonexistentMacrosValue, listDelimiter); //$NON-NLS-1$
+			Object cached = cache.get(cfg, key);
+			if(cached != VariableResolutionCache.NOT_FOUND)
+				return cached != null ? ((String[])cached).clone() : null;
+		}
+
+		String[] result = null;
 		IVariableContextInfo info = getMacroContextInfo(getContextType(cfg),cfg);
 		if(info != null)
-			return CdtVariableResolver.resolveStringListValues(value,
+			result = CdtVariableResolver.resolveStringListValues(value,
 					getMacroSubstitutor(info,nonexistentMacrosValue, listDelimiter), true);
-		return null;
+		if(key != null)
+			cache.put(cfg, key, result != null ? result.clone() : null);
+		return result;
 	}
 
 	@Override
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.cdtvariables;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
+import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
+import org.eclipse.cdt.internal.core.envvar.EnvironmentVariableManager;
+import org.eclipse.cdt.utils.envvar.IEnvironmentChangeEvent;
+import org.eclipse.cdt.utils.envvar.IEnvironmentChangeListener;
+import org.eclipse.core.variables.IValueVariable;
+import org.eclipse.core.variables.IValueVariableListener;
+import org.eclipse.core.variables.VariablesPlugin;
+
+/**
+ * Memoizes the resolution of build variables and of the build environment for a configuration
+ * while it is being built, such that the same <code>${...}</code> expressions and environment
+ * variables are resolved once instead of for every option, tool and file.
+ * <p>
+ * Results are only kept while a resolution session is open for the configuration, see
+ * {@link #begin(Object...)} and {@link #end(Object...)}. All the objects passed to one call of
+ * {@link #begin(Object...)}, e.g. a configuration and its configuration description, share the
+ * same results. The results are dropped when a project description is applied, when the
+ * user-defined variables or the workspace environment change and when an Eclipse value
+ * variable changes.
+ * <p>
+ * The cache can be disabled by setting the system property
+ * <code>CDT_VARIABLE_RESOLUTION_CACHE</code> to <code>false</code>.
+ */
+public final class VariableResolutionCache {
+	private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("CDT_VARIABLE_RESOLUTION_CACHE", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final Object NULL = new Object();
+
+	/** Returned by {@link #get(Object, Object)} if there is no result for the key. */
+	public static final Object NOT_FOUND = new Object();
+
+	private static VariableResolutionCache sDefault;
+
+	private static class Scope {
+		final Map<Object, Object> fValues = new HashMap<>();
+		int fSessions;
+	}
+
+	private final Map<Object, Scope> fScopes = new IdentityHashMap<>();
+	private boolean fListening;
+	private long fHits;
+	private long fMisses;
+	private long fInvalidations;
+
+	/**
+	 * Creates a cache that is not invalidated by changes of the workspace.
+	 */
+	public VariableResolutionCache() {
+	}
+
+	/**
+	 * Returns the cache shared by the variable and environment managers, or <code>null</code> if
+	 * the cache is disabled.
+	 */
+	public static synchronized VariableResolutionCache getDefault() {
+		if (!ENABLED)
+			return null;
+		if (sDefault == null) {
+			sDefault = new VariableResolutionCache();
+			sDefault.fListening = true;
+		}
+		return sDefault;
+	}
+
+	/**
+	 * Opens a resolution session for the given objects. Sessions may be nested, the results are
+	 * kept until the matching number of {@link #end(Object...)} calls.
+	 *
+	 * @param keys - the configuration objects sharing the results, <code>null</code> elements
+	 *     are ignored.
+	 */
+	public void begin(Object... keys) {
+		addListeners();
+		synchronized (this) {
+			Scope scope = null;
+			for (Object key : keys) {
+				if (key != null && scope == null) {
+					scope = fScopes.get(key);
+				}
+			}
+			if (scope == null) {
+				scope = new Scope();
+			}
+			scope.fSessions++;
+			for (Object key : keys) {
+				if (key != null) {
+					fScopes.put(key, scope);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes a resolution session opened by {@link #begin(Object...)} with the same objects.
+	 */
+	public synchronized void end(Object... keys) {
+		Scope scope = null;
+		for (Object key : keys) {
+			if (key != null && scope == null) {
+				scope = fScopes.get(key);
+			}
+		}
+		if (scope == null || --scope.fSessions > 0)
+			return;
+		for (Object key : keys) {
+			if (key != null && fScopes.get(key) == scope) {
+				fScopes.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a resolution session is open for the given object.
+	 */
+	public synchronized boolean isActive(Object scopeKey) {
+		return scopeKey != null && fScopes.containsKey(scopeKey);
+	}
+
+	/**
+	 * Returns the result stored for the key in the session of the given object.
+	 *
+	 * @param scopeKey - the configuration object.
+	 * @param key - the key of the result, see {@link #key(Object...)}.
+	 * @return the stored result, which may be <code>null</code>, or {@link #NOT_FOUND} if there
+	 *     is no session or no result.
+	 */
+	public synchronized Object get(Object scopeKey, Object key) {
+		Scope scope = scopeKey != null ? fScopes.get(scopeKey) : null;
+		if (scope == null)
+			return NOT_FOUND;
+		Object value = scope.fValues.get(key);
+		if (value == null) {
+			fMisses++;
+			return NOT_FOUND;
+		}
+		fHits++;
+		return value == NULL ? null : value;
+	}
+
+	/**
+	 * Stores the result for the key in the session of the given object. Has no effect if there is
+	 * no session for the object.
+	 */
+	public synchronized void put(Object scopeKey, Object key, Object value) {
+		Scope scope = scopeKey != null ? fScopes.get(scopeKey) : null;
+		if (scope != null) {
+			scope.fValues.put(key, value == null ? NULL : value);
+		}
+	}
+
+	/**
+	 * Creates a key from the arguments of a resolution, arrays are compared by their elements.
+	 */
+	public static Object key(Object... parts) {
+		for (int i = 0; i < parts.length; i++) {
+			if (parts[i] instanceof Object[]) {
+				parts[i] = Arrays.asList((Object[]) parts[i]);
+			}
+		}
+		return Arrays.asList(parts);
+	}
+
+	/**
+	 * Drops the results of all open sessions, the sessions stay open.
+	 */
+	public synchronized void invalidate() {
+		for (Scope scope : fScopes.values()) {
+			scope.fValues.clear();
+		}
+		fInvalidations++;
+	}
+
+	/**
+	 * Returns the number of lookups answered from the cache.
+	 */
+	public synchronized long getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * Returns the number of lookups in an open session that had to be resolved.
+	 */
+	public synchronized long getMissCount() {
+		return fMisses;
+	}
+
+	/**
+	 * Returns how often the results were dropped because of a change.
+	 */
+	public synchronized long getInvalidationCount() {
+		return fInvalidations;
+	}
+
+	/**
+	 * Returns the number of results stored in the open sessions.
+	 */
+	public synchronized int getEntryCount() {
+		// A scope shared by several objects is counted once.
+		Map<Scope, Scope> distinct = new IdentityHashMap<>();
+		for (Scope scope : fScopes.values()) {
+			distinct.put(scope, scope);
+		}
+		int count = 0;
+		for (Scope scope : distinct.keySet()) {
+			count += scope.fValues.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Resets the hit, miss and invalidation counts.
+	 */
+	public synchronized void resetStatistics() {
+		fHits = 0;
+		fMisses = 0;
+		fInvalidations = 0;
+	}
+
+	private void addListeners() {
+		synchronized (VariableResolutionCache.class) {
+			if (!fListening)
+				return;
+			fListening = false;
+		}
+		Listener listener = new Listener();
+		CCorePlugin plugin = CCorePlugin.getDefault();
+		if (plugin != null) {
+			plugin.getProjectDescriptionManager().addCProjectDescriptionListener(listener, CProjectDescriptionEvent.APPLIED);
+			EnvironmentVariableManager.fUserSupplier.registerEnvironmentChangeListener(listener);
+		}
+		UserDefinedVariableSupplier.getInstance().addListener(listener);
+		VariablesPlugin variables = VariablesPlugin.getDefault();
+		if (variables != null) {
+			variables.getStringVariableManager().addValueVariableListener(listener);
+		}
+	}
+
+	private class Listener implements ICProjectDescriptionListener, IEnvironmentChangeListener,
+			ICdtVariableChangeListener, IValueVariableListener {
+		@Override
+		public void handleEvent(CProjectDescriptionEvent event) {
+			invalidate();
+		}
+
+		@Override
+		public void handleEvent(IEnvironmentChangeEvent event) {
+			invalidate();
+		}
+
+		@Override
+		public void variablesChanged(VariableChangeEvent event) {
+			invalidate();
+		}
+
+		@Override
+		public void variablesAdded(IValueVariable[] variables) {
+			invalidate();
+		}
+
+		@Override
+		public void variablesRemoved(IValueVariable[] variables) {
+			invalidate();
+		}
+
+		@Override
+		public void variablesChanged(IValueVariable[] variables) {
+			invalidate();
+		}
+	}
+}
@@ -26,6 +26,7 @@ import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
 import org.eclipse.cdt.internal.core.cdtvariables.DefaultVariableContextInfo;
 import org.eclipse.cdt.internal.core.cdtvariables.EnvironmentVariableSupplier;
 import org.eclipse.cdt.internal.core.cdtvariables.ICoreVariableContextInfo;
+import org.eclipse.cdt.internal.core.cdtvariables.VariableResolutionCache;
 import org.eclipse.cdt.utils.cdtvariables.ICdtVariableSupplier;
 import org.eclipse.cdt.utils.cdtvariables.IVariableContextInfo;
 import org.eclipse.cdt.utils.cdtvariables.IVariableSubstitutor;
@@ -182,13 +183,25 @@ public class EnvironmentVariableManager implements IEnvironmentVariableManager {
 		if (variableName == null || variableName.isEmpty())
 			return null;
 
+		VariableResolutionCache cache = getResolutionCache();
+		Object key = null;
+		if (cache != null && cache.isActive(cfg)) {
+			key = VariableResolutionCache.key("getVariable", variableName, resolveMacros); //$NON-NLS-1$
+			Object cached = cache.get(cfg, key);
+			if (cached != VariableResolutionCache.NOT_FOUND)
+				return (IEnvironmentVariable) cached;
+		}
+
+		IEnvironmentVariable result = null;
 		IEnvironmentContextInfo info = getContextInfo(cfg);
 		EnvVarDescriptor var = getVariable(variableName,info,true);
 
 		if (var != null && var.getOperation() != IEnvironmentVariable.ENVVAR_REMOVE) {
-			return resolveMacros ? calculateResolvedVariable(var,info) : var;
+			result = resolveMacros ? calculateResolvedVariable(var,info) : var;
 		}
-		return null;
+		if (key != null)
+			cache.put(cfg, key, result);
+		return result;
 	}
 
 	@Override
@@ -206,6 +219,14 @@ public class EnvironmentVariableManager implements IEnvironmentVariableManager {
 		}
 	}
 	
+	/**
+	 * @return the cache of resolved variables, or {@code null} for managers that
+	 * use other environment suppliers than the default one
+	 */
+	private VariableResolutionCache getResolutionCache() {
+		return this == fInstance ? VariableResolutionCache.getDefault() : null;
+	}
+
 	IEnvironmentContextInfo getDefaultContextInfo(Object level) {
 		DefaultEnvironmentContextInfo info = new DefaultEnvironmentContextInfo(level);
 		if (info.getSuppliers() == null)
@@ -293,6 +314,22 @@ public class EnvironmentVariableManager implements IEnvironmentVariableManager {
 
 	@Override
 	public IEnvironmentVariable[] getVariables(ICConfigurationDescription cfg, boolean resolveMacros) {
+		VariableResolutionCache cache = getResolutionCache();
+		Object key = null;
+		if (cache != null && cache.isActive(cfg)) {
+			key = VariableResolutionCache.key("getVariables", resolveMacros); //$NON-NLS-1$
+			Object cached = cache.get(cfg, key);
+			if (cached != VariableResolutionCache.NOT_FOUND)
+				return ((IEnvironmentVariable[]) cached).clone();
+		}
+
+		IEnvironmentVariable[] result = calculateVariables(cfg, resolveMacros);
+		if (key != null)
+			cache.put(cfg, key, result.clone());
+		return result;
+	}
+
+	private IEnvironmentVariable[] calculateVariables(ICConfigurationDescription cfg, boolean resolveMacros) {
 		IEnvironmentContextInfo info = getContextInfo(cfg);
 		EnvVarCollector varSet = getVariables(info,true);
 
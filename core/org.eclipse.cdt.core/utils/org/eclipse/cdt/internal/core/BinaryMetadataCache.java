@@ -0,0 +1,365 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Persistent cache for metadata parsed from binaries, like symbols or the names of source files.
+ * There is one file per binary which holds named sections of data in the format chosen by the
+ * client. An entry is valid as long as the size and the modification time of the binary match.
+ * When only the modification time differs, e.g. after a rebuild or a checkout, the content hash
+ * of the binary is compared and the entry is reused when it did not change.
+ * <p>
+ * Clients take a {@link Stamp} of the binary before they read it and pass it to
+ * {@link #put(String, Stamp, String, byte[])}, such that data parsed from a binary that changed
+ * in the meantime is not stored. Counts read from the stored data should be checked with
+ * {@link #getCount(ByteBuffer, int)}, a corrupt entry is treated like a missing one.
+ * <p>
+ * The cache can be disabled by setting the system property <code>CDT_BINARY_CACHE</code> to
+ * <code>false</code>.
+ */
+public class BinaryMetadataCache {
+	private static final String STATE_FOLDER = "binaryCache"; //$NON-NLS-1$
+	private static final String SUFFIX = ".bin"; //$NON-NLS-1$
+	private static final int MAGIC = 0x43444d43;
+	private static final int VERSION = 1;
+	private static final int MAX_ENTRIES = 1000;
+	private static final int HASH_CHUNK = 16 * 1024 * 1024;
+	private static final boolean USE_MAPPING = !Platform.OS_WIN32.equals(Platform.getOS());
+
+	private static volatile boolean sEnabled = Boolean.parseBoolean(System.getProperty("CDT_BINARY_CACHE", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+	private static BinaryMetadataCache sDefault;
+
+	/**
+	 * State of a binary at the time it was read, or at the time an entry was stored.
+	 */
+	public static final class Stamp {
+		final long fSize;
+		final long fModified;
+		final long fHash;
+
+		Stamp(long size, long modified, long hash) {
+			fSize= size;
+			fModified= modified;
+			fHash= hash;
+		}
+
+		boolean matches(long size, long modified) {
+			return fSize == size && fModified == modified;
+		}
+	}
+
+	private final File fFolder;
+	/** Content hashes computed for size and modification time, such that sections are stored without rehashing. */
+	private final Map<String, Stamp> fHashes= new LinkedHashMap<String, Stamp>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Stamp> eldest) {
+			return size() > 64;
+		}
+	};
+
+	/**
+	 * Creates a cache storing its entries in the given folder.
+	 */
+	public BinaryMetadataCache(File folder) {
+		fFolder= folder;
+	}
+
+	/**
+	 * Returns the cache in the state location of the core plug-in, or <code>null</code> if the
+	 * cache is disabled or the plug-in is not running.
+	 */
+	public static synchronized BinaryMetadataCache getDefault() {
+		if (!sEnabled)
+			return null;
+		if (sDefault == null) {
+			CCorePlugin plugin= CCorePlugin.getDefault();
+			if (plugin == null)
+				return null;
+			try {
+				sDefault= new BinaryMetadataCache(plugin.getStateLocation().append(STATE_FOLDER).toFile());
+			} catch (IllegalStateException e) {
+				return null;
+			}
+		}
+		return sDefault;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		sEnabled= enabled;
+	}
+
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	/**
+	 * Returns the data stored for the binary at the given path, or <code>null</code> if there is
+	 * none or the binary has changed since it was stored.
+	 */
+	public ByteBuffer get(String path, String section) {
+		File binary= new File(path);
+		if (!binary.isFile())
+			return null;
+		try {
+			Map<String, ByteBuffer> sections= readEntry(binary);
+			return sections == null ? null : sections.get(section);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the size and modification time of the binary at the given path, to be taken before
+	 * the binary is read. Returns <code>null</code> if there is no such file.
+	 */
+	public static Stamp getStamp(String path) {
+		File binary= new File(path);
+		if (!binary.isFile())
+			return null;
+		return new Stamp(binary.length(), binary.lastModified(), 0);
+	}
+
+	/**
+	 * Stores data for the binary at the given path, the other sections of the entry are kept as
+	 * long as the binary did not change. Nothing is stored if the binary changed since the stamp
+	 * was taken. Failures to write the entry are ignored.
+	 *
+	 * @param stamp the stamp taken by {@link #getStamp(String)} before the data was read from the
+	 *     binary, may be <code>null</code>.
+	 */
+	public synchronized void put(String path, Stamp stamp, String section, byte[] data) {
+		File binary= new File(path);
+		if (stamp == null || !binary.isFile() || !stamp.matches(binary.length(), binary.lastModified()))
+			return;
+		try {
+			Stamp hashed= computeStamp(binary);
+			if (!stamp.matches(hashed.fSize, hashed.fModified))
+				return;
+			Map<String, ByteBuffer> sections= readEntry(binary);
+			if (sections == null) {
+				sections= new LinkedHashMap<>();
+			}
+			sections.put(section, ByteBuffer.wrap(data));
+			writeEntry(binary, hashed, sections);
+		} catch (IOException e) {
+			// The entry may be in use, e.g. mapped on Windows, try again next time.
+		}
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public synchronized void clear() {
+		synchronized (fHashes) {
+			fHashes.clear();
+		}
+		File[] files= fFolder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	private File getEntryFile(File binary) {
+		String path= binary.getAbsolutePath();
+		CRC32 crc= new CRC32();
+		crc.update(path.getBytes(StandardCharsets.UTF_8));
+		return new File(fFolder, Long.toHexString(crc.getValue()) + '_' + Integer.toHexString(path.hashCode()) + SUFFIX);
+	}
+
+	private Map<String, ByteBuffer> readEntry(File binary) throws IOException {
+		File file= getEntryFile(binary);
+		if (!file.isFile())
+			return null;
+		ByteBuffer buffer;
+		try (FileChannel channel= FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long length= channel.size();
+			if (length > Integer.MAX_VALUE)
+				return null;
+			if (USE_MAPPING) {
+				buffer= channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			} else {
+				buffer= ByteBuffer.allocate((int) length);
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// Read until the end of the file is reached.
+				}
+				buffer.flip();
+			}
+		}
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				return null;
+			long size= buffer.getLong();
+			long modified= buffer.getLong();
+			long hash= buffer.getLong();
+			if (!binary.getAbsolutePath().equals(getString(buffer)))
+				return null;
+			if (size != binary.length())
+				return null;
+			Map<String, ByteBuffer> sections= new LinkedHashMap<>();
+			int count= buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				String name= getString(buffer);
+				int length= buffer.getInt();
+				if (length < 0 || length > buffer.remaining())
+					return null;
+				ByteBuffer data= buffer.slice();
+				data.limit(length);
+				buffer.position(buffer.position() + length);
+				sections.put(name, data.asReadOnlyBuffer());
+			}
+			if (modified != binary.lastModified()) {
+				// Touched but possibly not modified, compare the content.
+				Stamp stamp= computeStamp(binary);
+				if (stamp.fHash != hash)
+					return null;
+				writeEntry(binary, stamp, sections);
+			}
+			return sections;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private void writeEntry(File binary, Stamp stamp, Map<String, ByteBuffer> sections) throws IOException {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		DataOutputStream out= new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(stamp.fSize);
+		out.writeLong(stamp.fModified);
+		out.writeLong(stamp.fHash);
+		putString(out, binary.getAbsolutePath());
+		out.writeInt(sections.size());
+		for (Map.Entry<String, ByteBuffer> entry : sections.entrySet()) {
+			ByteBuffer data= entry.getValue().duplicate();
+			putString(out, entry.getKey());
+			out.writeInt(data.remaining());
+			byte[] array= new byte[data.remaining()];
+			data.get(array);
+			out.write(array);
+		}
+		out.flush();
+
+		fFolder.mkdirs();
+		File file= getEntryFile(binary);
+		File tmp= File.createTempFile("entry", ".tmp", fFolder); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			Files.write(tmp.toPath(), bytes.toByteArray());
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tmp.delete();
+		}
+		if (fFolder.list().length > MAX_ENTRIES) {
+			prune();
+		}
+	}
+
+	/**
+	 * Removes the least recently written entries, keeping three quarters of the limit.
+	 */
+	private void prune() {
+		File[] files= fFolder.listFiles();
+		if (files == null || files.length <= MAX_ENTRIES * 3 / 4)
+			return;
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (int i = 0; i < files.length - MAX_ENTRIES * 3 / 4; i++) {
+			files[i].delete();
+		}
+	}
+
+	private Stamp computeStamp(File binary) throws IOException {
+		String key= binary.getAbsolutePath();
+		long size= binary.length();
+		long modified= binary.lastModified();
+		synchronized (fHashes) {
+			Stamp stamp= fHashes.get(key);
+			if (stamp != null && stamp.matches(size, modified))
+				return stamp;
+		}
+		CRC32 crc= new CRC32();
+		try (FileChannel channel= FileChannel.open(binary.toPath(), StandardOpenOption.READ)) {
+			for (long pos = 0; pos < size; pos += HASH_CHUNK) {
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(HASH_CHUNK, size - pos)));
+			}
+		}
+		Stamp stamp= new Stamp(size, modified, crc.getValue());
+		synchronized (fHashes) {
+			fHashes.put(key, stamp);
+		}
+		return stamp;
+	}
+
+	/**
+	 * Reads the number of the elements that follow, each taking at least the given number of
+	 * bytes.
+	 *
+	 * @throws IllegalArgumentException if the count is negative or exceeds the remaining data
+	 */
+	public static int getCount(ByteBuffer buffer, int minElementSize) {
+		int count= buffer.getInt();
+		if (count < 0 || count > buffer.remaining() / minElementSize)
+			throw new IllegalArgumentException();
+		return count;
+	}
+
+	/**
+	 * Writes a string that may be <code>null</code> in the format read by {@link #getString(ByteBuffer)}.
+	 */
+	public static void putString(DataOutputStream out, String str) throws IOException {
+		if (str == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes= str.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Reads a string written by {@link #putString(DataOutputStream, String)}.
+	 */
+	public static String getString(ByteBuffer buffer) {
+		int length= buffer.getInt();
+		if (length < 0)
+			return null;
+		if (length > buffer.remaining())
+			throw new BufferUnderflowException();
+		String str;
+		if (buffer.hasArray()) {
+			str= new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+		} else {
+			byte[] bytes= new byte[length];
+			buffer.duplicate().get(bytes);
+			str= new String(bytes, StandardCharsets.UTF_8);
+		}
+		buffer.position(buffer.position() + length);
+		return str;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 QNX Software Systems and others.
+ * Copyright (c) 2000, 2018 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,6 +42,13 @@ public class Addr2line {
 		this("addr2line", file); //$NON-NLS-1$
 	}
 
+	/**
+	 * For subclasses that answer the queries without running <code>addr2line</code>.
+	 * @since 6.5
+	 */
+	protected Addr2line() {
+	}
+
 	protected void init(String command, String[] params, String file) throws IOException {
 		if (params == null || params.length == 0) {
 			args = new String[] {command, "-C", "-f", "-e", file}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -23,10 +23,13 @@ import org.eclipse.cdt.utils.spawner.ProcessFactory;
  * @noextend This class is not intended to be subclassed by clients.
  */
 public class CPPFilt {
+	private static final int CHUNK_SIZE = 4096;
+
 	private String[] args;
 	private Process cppfilt;
 	private BufferedReader stdout;
 	private BufferedWriter stdin;
+	private ItaniumDemangler demangler;
 	//private boolean isDisposed = false;
 
 	public CPPFilt(String command, String[] params) throws IOException {
@@ -41,6 +44,16 @@ public class CPPFilt {
 		this("c++filt"); //$NON-NLS-1$
 	}
 
+	/**
+	 * Creates an instance that demangles in process with the given demangler instead of
+	 * running c++filt.
+	 *
+	 * @since 6.5
+	 */
+	public CPPFilt(ItaniumDemangler demangler) {
+		this.demangler = demangler;
+	}
+
 	protected void init(String command, String[] params) throws IOException {
 		if (params == null || params.length == 0) {
 			args = new String[] {command};
@@ -55,6 +68,9 @@ public class CPPFilt {
 	}
 
 	public String getFunction(String symbol) throws IOException {
+		if (demangler != null) {
+			return demangler.demangle(symbol).trim();
+		}
 		stdin.write(symbol + "\n"); //$NON-NLS-1$
 		stdin.flush();
 		String str = stdout.readLine();
@@ -64,7 +80,50 @@ public class CPPFilt {
 		throw new IOException();
 	}
 
+	/**
+	 * Demangles the given symbols, the results are in the same order. c++filt receives the
+	 * symbols in chunks rather than one at a time.
+	 *
+	 * @since 6.5
+	 */
+	public String[] getFunctions(String[] symbols) throws IOException {
+		String[] result;
+		if (demangler != null) {
+			result = demangler.demangle(symbols);
+			for (int i = 0; i < result.length; i++) {
+				result[i] = result[i].trim();
+			}
+			return result;
+		}
+		result = new String[symbols.length];
+		int start = 0;
+		while (start < symbols.length) {
+			// Limit the chunk such that c++filt does not block on a full output pipe.
+			int end = start;
+			int length = 0;
+			do {
+				stdin.write(symbols[end]);
+				stdin.write('\n');
+				length += symbols[end].length() + 1;
+				end++;
+			} while (end < symbols.length && length < CHUNK_SIZE);
+			stdin.flush();
+			for (int i = start; i < end; i++) {
+				String str = stdout.readLine();
+				if (str == null) {
+					throw new IOException();
+				}
+				result[i] = str.trim();
+			}
+			start = end;
+		}
+		return result;
+	}
+
 	public void dispose() {
+		if (cppfilt == null) {
+			return;
+		}
 		try {
 			//stdin.write(-1);
 			stdout.close();
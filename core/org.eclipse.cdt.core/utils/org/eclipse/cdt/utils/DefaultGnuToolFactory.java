@@ -14,6 +14,7 @@ import java.io.IOException;
 
 import org.eclipse.cdt.core.ICExtension;
 import org.eclipse.cdt.core.settings.model.ICConfigExtensionReference;
+import org.eclipse.cdt.utils.debug.dwarf.DwarfAddr2line;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 
@@ -34,6 +35,14 @@ public class DefaultGnuToolFactory implements IGnuToolFactory {
 	@Override
 	public Addr2line getAddr2line(IPath path) {
 		IPath addr2LinePath = getAddr2linePath();
+		// An addr2line configured for the binary parser is used as it is.
+		if (DwarfAddr2line.isEnabled() && isDefaultTool(addr2LinePath, "addr2line")) { //$NON-NLS-1$
+			try {
+				return new DwarfAddr2line(path.toOSString());
+			} catch (IOException e) {
+				// Not an ELF binary or no line information, use addr2line.
+			}
+		}
 		Addr2line addr2line = null;
 		if (addr2LinePath != null && !addr2LinePath.isEmpty()) {
 			try {
@@ -50,6 +59,10 @@ public class DefaultGnuToolFactory implements IGnuToolFactory {
 	@Override
 	public CPPFilt getCPPFilt() {
 		IPath cppFiltPath = getCPPFiltPath();
+		// A c++filt configured for the binary parser is used as it is.
+		if (ItaniumDemangler.isEnabled() && isDefaultTool(cppFiltPath, "c++filt")) { //$NON-NLS-1$
+			return new CPPFilt(new ItaniumDemangler());
+		}
 		CPPFilt cppfilt = null;
 		if (cppFiltPath != null && ! cppFiltPath.isEmpty()) {
 			try {
@@ -94,6 +107,14 @@ public class DefaultGnuToolFactory implements IGnuToolFactory {
 		return nm;
 	}
 
+	/**
+	 * Returns whether the path of a tool is not configured or is the tool of the given name
+	 * found on the path.
+	 */
+	private static boolean isDefaultTool(IPath toolPath, String name) {
+		return toolPath == null || toolPath.isEmpty() || toolPath.toString().equals(name);
+	}
+
 	protected IPath getAddr2linePath() {
 		ICConfigExtensionReference ref = fExtension.getConfigExtensionReference();
 		String value =  ref.getExtensionData("addr2line"); //$NON-NLS-1$
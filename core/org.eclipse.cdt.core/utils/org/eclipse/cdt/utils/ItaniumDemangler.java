@@ -0,0 +1,3077 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Demangles C++ symbol names mangled according to the Itanium C++ ABI, as done by GCC and
+ * Clang on most platforms, without running <code>c++filt</code>. The output follows the
+ * conventions of <code>c++filt</code> from GNU binutils, for example
+ * <code>std::vector&lt;int, std::allocator&lt;int&gt; &gt;::push_back(int const&amp;)</code>.
+ * Like <code>c++filt</code>, names that cannot be demangled are returned unchanged.
+ * <p>
+ * The results are kept in a cache shared by all instances, the binaries of a project have
+ * many symbols in common.
+ * <p>
+ * Used by the binary parsers through {@link CPPFilt#CPPFilt(ItaniumDemangler)} unless the
+ * system property <code>CDT_JAVA_DEMANGLER</code> is <code>false</code>.
+ *
+ * @since 6.5
+ */
+public class ItaniumDemangler {
+	private static volatile boolean sEnabled =
+			Boolean.parseBoolean(System.getProperty("CDT_JAVA_DEMANGLER", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/** Maximum number of names kept in each cache. */
+	private static final int CACHE_SIZE = 8192;
+
+	private static final Map<String, String> cache = createCache();
+	private static final Map<String, String> strippedCache = createCache();
+
+	private final boolean fStripUnderscore;
+
+	private static Map<String, String> createCache() {
+		return new LinkedHashMap<String, String>(CACHE_SIZE, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > CACHE_SIZE;
+			}
+		};
+	}
+
+	public ItaniumDemangler() {
+		this(false);
+	}
+
+	/**
+	 * @param stripUnderscore whether the symbols have an additional leading underscore, like
+	 *     on Mac OS X, same as <code>c++filt --strip-underscore</code>
+	 */
+	public ItaniumDemangler(boolean stripUnderscore) {
+		fStripUnderscore = stripUnderscore;
+	}
+
+	/**
+	 * Enables or disables the use of this class instead of running <code>c++filt</code>.
+	 */
+	public static void setEnabled(boolean enabled) {
+		sEnabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	private Map<String, String> getCache() {
+		return fStripUnderscore ? strippedCache : cache;
+	}
+
+	/**
+	 * Returns the demangled form of the given symbol, or the symbol itself if it is not a
+	 * mangled name.
+	 */
+	public String demangle(String symbol) {
+		Map<String, String> cache = getCache();
+		String result;
+		synchronized (cache) {
+			result = cache.get(symbol);
+		}
+		if (result == null) {
+			result = demangleLine(symbol, fStripUnderscore);
+			synchronized (cache) {
+				cache.put(symbol, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Demangles the given symbols, the results are returned in the same order. Equivalent to
+	 * calling {@link #demangle(String)} for each of them, but takes the lock of the cache once
+	 * for all lookups.
+	 */
+	public String[] demangle(String[] symbols) {
+		Map<String, String> cache = getCache();
+		String[] result = new String[symbols.length];
+		int missing = 0;
+		synchronized (cache) {
+			for (int i = 0; i < symbols.length; i++) {
+				result[i] = cache.get(symbols[i]);
+				if (result[i] == null)
+					missing++;
+			}
+		}
+		if (missing == 0)
+			return result;
+		for (int i = 0; i < symbols.length; i++) {
+			if (result[i] == null)
+				result[i] = demangleLine(symbols[i], fStripUnderscore);
+		}
+		synchronized (cache) {
+			for (int i = 0; i < symbols.length; i++) {
+				cache.put(symbols[i], result[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Demangles the words of the line the way <code>c++filt</code> does when reading from its
+	 * input: sequences of letters, digits, '_', '$' and '.' are demangled, anything else is
+	 * copied.
+	 */
+	static String demangleLine(String line, boolean stripUnderscore) {
+		int length = line.length();
+		int start = 0;
+		while (start < length && isSymbolChar(line.charAt(start)))
+			start++;
+		if (start == length)
+			return length == 0 ? line : demangleWord(line, stripUnderscore);
+		StringBuilder result = new StringBuilder(length + 16);
+		start = 0;
+		while (start < length) {
+			int end = start;
+			while (end < length && isSymbolChar(line.charAt(end)))
+				end++;
+			if (end > start) {
+				result.append(demangleWord(line.substring(start, end), stripUnderscore));
+			}
+			if (end < length)
+				result.append(line.charAt(end++));
+			start = end;
+		}
+		return result.toString();
+	}
+
+	private static boolean isSymbolChar(char c) {
+		return isDigit(c) || isLower(c) || isUpper(c) || c == '_' || c == '$' || c == '.';
+	}
+
+	private static String demangleWord(String word, boolean stripUnderscore) {
+		int skip = 0;
+		if (word.charAt(0) == '.' || word.charAt(0) == '$')
+			skip++;
+		if (stripUnderscore && skip < word.length() && word.charAt(skip) == '_')
+			skip++;
+		String result = demangleSymbol(word.substring(skip));
+		if (result == null)
+			return word;
+		return word.charAt(0) == '.' ? '.' + result : result;
+	}
+
+	/**
+	 * Returns the demangled form of a single symbol, or <code>null</code>.
+	 */
+	static String demangleSymbol(String symbol) {
+		Parser parser = new Parser(symbol);
+		Node node;
+		try {
+			if (symbol.startsWith("_Z")) { //$NON-NLS-1$
+				node = parser.parseMangledName(true);
+				if (parser.pos != symbol.length())
+					return null;
+			} else if (symbol.length() > 10 && symbol.startsWith("_GLOBAL_") //$NON-NLS-1$
+					&& (symbol.charAt(8) == '.' || symbol.charAt(8) == '_' || symbol.charAt(8) == '$')
+					&& (symbol.charAt(9) == 'D' || symbol.charAt(9) == 'I') && symbol.charAt(10) == '_') {
+				parser.pos = 11;
+				Node child;
+				if (parser.peek() == '_' && parser.peek(1) == 'Z') {
+					parser.pos += 2;
+					child = parser.parseEncoding(false);
+				} else {
+					child = new Name(symbol.substring(11));
+				}
+				node = new SpecialName(symbol.charAt(9) == 'I' ? "global constructors keyed to " //$NON-NLS-1$
+						: "global destructors keyed to ", child); //$NON-NLS-1$
+			} else {
+				return null;
+			}
+			Printer printer = new Printer();
+			node.print(printer);
+			return printer.toString();
+		} catch (DemangleException e) {
+			return null;
+		} catch (StackOverflowError e) {
+			return null;
+		}
+	}
+
+	static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	static boolean isLower(char c) {
+		return c >= 'a' && c <= 'z';
+	}
+
+	static boolean isUpper(char c) {
+		return c >= 'A' && c <= 'Z';
+	}
+
+	/** Thrown when the input is not a valid mangled name, shared and without stack trace. */
+	private static final class DemangleException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		DemangleException() {
+			super(null, null, false, false);
+		}
+	}
+
+	private static final DemangleException FAILURE = new DemangleException();
+
+	private static final Node[] NO_NODES = {};
+
+	// Print kinds of builtin types, used for literals.
+	private static final int DEFAULT = 0;
+	private static final int INT = 1;
+	private static final int UNSIGNED = 2;
+	private static final int LONG = 3;
+	private static final int UNSIGNED_LONG = 4;
+	private static final int LONG_LONG = 5;
+	private static final int UNSIGNED_LONG_LONG = 6;
+	private static final int BOOL = 7;
+	private static final int FLOAT = 8;
+	private static final int VOID = 9;
+
+	/** The builtin types by their code 'a' to 'z', <code>null</code> where none. */
+	private static final BuiltinType[] BUILTIN_TYPES = new BuiltinType[26];
+	private static final BuiltinType DECLTYPE_NULLPTR = new BuiltinType("decltype(nullptr)", DEFAULT); //$NON-NLS-1$
+
+	private static void builtin(char code, String name, int kind) {
+		BUILTIN_TYPES[code - 'a'] = new BuiltinType(name, kind);
+	}
+
+	static {
+		builtin('a', "signed char", DEFAULT); //$NON-NLS-1$
+		builtin('b', "bool", BOOL); //$NON-NLS-1$
+		builtin('c', "char", DEFAULT); //$NON-NLS-1$
+		builtin('d', "double", FLOAT); //$NON-NLS-1$
+		builtin('e', "long double", FLOAT); //$NON-NLS-1$
+		builtin('f', "float", FLOAT); //$NON-NLS-1$
+		builtin('g', "__float128", FLOAT); //$NON-NLS-1$
+		builtin('h', "unsigned char", DEFAULT); //$NON-NLS-1$
+		builtin('i', "int", INT); //$NON-NLS-1$
+		builtin('j', "unsigned int", UNSIGNED); //$NON-NLS-1$
+		builtin('l', "long", LONG); //$NON-NLS-1$
+		builtin('m', "unsigned long", UNSIGNED_LONG); //$NON-NLS-1$
+		builtin('n', "__int128", DEFAULT); //$NON-NLS-1$
+		builtin('o', "unsigned __int128", DEFAULT); //$NON-NLS-1$
+		builtin('s', "short", DEFAULT); //$NON-NLS-1$
+		builtin('t', "unsigned short", DEFAULT); //$NON-NLS-1$
+		builtin('v', "void", VOID); //$NON-NLS-1$
+		builtin('w', "wchar_t", DEFAULT); //$NON-NLS-1$
+		builtin('x', "long long", LONG_LONG); //$NON-NLS-1$
+		builtin('y', "unsigned long long", UNSIGNED_LONG_LONG); //$NON-NLS-1$
+		builtin('z', "...", DEFAULT); //$NON-NLS-1$
+	}
+
+	private static final class Operator {
+		final String code;
+		final String name;
+		/** The number of operands, -1 where only the name of the operator is supported. */
+		final int arity;
+
+		Operator(String code, String name, int arity) {
+			this.code = code;
+			this.name = name;
+			this.arity = arity;
+		}
+	}
+
+	private static final Map<String, Operator> OPERATORS = new HashMap<>();
+
+	private static void operator(String code, String name, int arity) {
+		OPERATORS.put(code, new Operator(code, name, arity));
+	}
+
+	static {
+		operator("aN", "&=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("aS", "=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("aa", "&&", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ad", "&", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("an", "&", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("at", "alignof ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("aw", "co_await ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("az", "alignof ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("cc", "const_cast", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("cl", "()", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("cm", ",", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("co", "~", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("dV", "/=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("da", "delete[] ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("dc", "dynamic_cast", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("de", "*", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("di", "=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("dl", "delete ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ds", ".*", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("dt", ".", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("dv", "/", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("dX", "[...]=", -1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("dx", "]=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("eO", "^=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("eo", "^", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("eq", "==", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("fL", "...", -1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("fR", "...", -1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("fl", "...", -1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("fr", "...", -1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ge", ">=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("gs", "::", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("gt", ">", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ix", "[]", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("lS", "<<=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("le", "<=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("li", "operator\"\" ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ls", "<<", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("lt", "<", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("mI", "-=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("mL", "*=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("mi", "-", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ml", "*", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("mm", "--", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("na", "new[]", 3); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ne", "!=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ng", "-", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("nt", "!", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("nw", "new", 3); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("oR", "|=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("oo", "||", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("or", "|", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("pL", "+=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("pl", "+", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("pm", "->*", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("pp", "++", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ps", "+", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("pt", "->", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("qu", "?", 3); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("rM", "%=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("rS", ">>=", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("rc", "reinterpret_cast", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("rm", "%", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("rs", ">>", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("sP", "sizeof...", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("sZ", "sizeof...", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("sc", "static_cast", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("ss", "<=>", 2); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("st", "sizeof ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("sz", "sizeof ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("tr", "throw", 0); //$NON-NLS-1$ //$NON-NLS-2$
+		operator("tw", "throw ", 1); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static boolean isNewCast(String code) {
+		return code.equals("sc") || code.equals("dc") || code.equals("cc") || code.equals("rc"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	private static final FnQualifier CONST = new FnQualifier(" const", null); //$NON-NLS-1$
+	private static final FnQualifier VOLATILE = new FnQualifier(" volatile", null); //$NON-NLS-1$
+	private static final FnQualifier RESTRICT = new FnQualifier(" restrict", null); //$NON-NLS-1$
+
+	/**
+	 * A recursive descent parser for the grammar of mangled names. It builds the same trees as
+	 * the demangler of libiberty, which <code>c++filt</code> uses, such that the output
+	 * matches including the choice of substitution candidates.
+	 */
+	private static final class Parser {
+		private static final int MAX_DEPTH = 512;
+
+		final String s;
+		int pos;
+		private final List<Node> subs = new ArrayList<>();
+		private Node lastName;
+		private boolean isExpression;
+		private boolean isConversion;
+		private int depth;
+
+		Parser(String s) {
+			this.s = s;
+		}
+
+		char peek() {
+			return pos < s.length() ? s.charAt(pos) : 0;
+		}
+
+		char peek(int offset) {
+			return pos + offset < s.length() ? s.charAt(pos + offset) : 0;
+		}
+
+		char next() {
+			if (pos >= s.length())
+				return 0;
+			return s.charAt(pos++);
+		}
+
+		boolean consume(char c) {
+			if (peek() != c)
+				return false;
+			pos++;
+			return true;
+		}
+
+		void expect(char c) {
+			if (!consume(c))
+				throw FAILURE;
+		}
+
+		private void enter() {
+			if (++depth > MAX_DEPTH)
+				throw FAILURE;
+		}
+
+		private void addSubstitution(Node node) {
+			if (subs.size() > s.length())
+				throw FAILURE;
+			subs.add(node);
+		}
+
+		/** Returns the number, negative if prefixed by 'n', or -1 on overflow. */
+		int parseNumber() {
+			boolean negative = consume('n');
+			int result = 0;
+			while (isDigit(peek())) {
+				int digit = peek() - '0';
+				if (result > (Integer.MAX_VALUE - digit) / 10)
+					return -1;
+				result = result * 10 + digit;
+				pos++;
+			}
+			return negative ? -result : result;
+		}
+
+		/** Returns the number of a <code>[&lt;number&gt;] _</code>, or -1. */
+		int parseCompactNumber() {
+			int number;
+			if (peek() == '_')
+				number = 0;
+			else if (peek() == 'n')
+				return -1;
+			else
+				number = parseNumber() + 1;
+			if (number < 0 || !consume('_'))
+				return -1;
+			return number;
+		}
+
+		void parseDiscriminator() {
+			if (!consume('_'))
+				return;
+			boolean twoUnderscores = consume('_');
+			int number = parseNumber();
+			if (number < 0)
+				throw FAILURE;
+			if (twoUnderscores && number >= 10)
+				expect('_');
+		}
+
+		Node parseMangledName(boolean topLevel) {
+			if (!consume('_') && topLevel)
+				throw FAILURE;
+			expect('Z');
+			Node result = parseEncoding(topLevel);
+			if (topLevel) {
+				while (peek() == '.' && (isLower(peek(1)) || peek(1) == '_' || isDigit(peek(1)))) {
+					result = parseCloneSuffix(result);
+				}
+			}
+			return result;
+		}
+
+		private Node parseCloneSuffix(Node encoding) {
+			int start = pos;
+			int end = pos;
+			if (s.charAt(end) == '.' && end + 1 < s.length()
+					&& (isLower(s.charAt(end + 1)) || isDigit(s.charAt(end + 1)) || s.charAt(end + 1) == '_')) {
+				end += 2;
+				while (end < s.length() && (isLower(s.charAt(end)) || isDigit(s.charAt(end)) || s.charAt(end) == '_'))
+					end++;
+			}
+			while (end + 1 < s.length() && s.charAt(end) == '.' && isDigit(s.charAt(end + 1))) {
+				end += 2;
+				while (end < s.length() && isDigit(s.charAt(end)))
+					end++;
+			}
+			pos = end;
+			return new CloneSuffix(encoding, s.substring(start, end));
+		}
+
+		Node parseEncoding(boolean topLevel) {
+			enter();
+			char c = peek();
+			if (c == 'G' || c == 'T') {
+				Node result = parseSpecialName();
+				depth--;
+				return result;
+			}
+			Node name = parseName(false);
+			c = peek();
+			if (c == 0 || c == 'E') {
+				depth--;
+				return name;
+			}
+			boolean hasReturnType = hasReturnType(name);
+			if (consume('J'))
+				hasReturnType = true;
+			Node ret = hasReturnType ? parseType() : null;
+			Node[] params = parseParams();
+
+			// The qualifiers of a member function are printed after the parameters.
+			Node[] quals = NO_NODES;
+			int ref = 0;
+			if (name instanceof MethodQualified) {
+				MethodQualified qualified = (MethodQualified) name;
+				name = qualified.name;
+				quals = qualified.quals;
+				ref = qualified.ref;
+			} else if (name instanceof LocalName && ((LocalName) name).entity instanceof MethodQualified) {
+				LocalName local = (LocalName) name;
+				MethodQualified qualified = (MethodQualified) local.entity;
+				name = new LocalName(local.encoding, qualified.name);
+				quals = qualified.quals;
+				ref = qualified.ref;
+			}
+			FunctionEncoding result = new FunctionEncoding(ret, name, params, quals, ref);
+			if (!topLevel && name instanceof LocalName)
+				result.ret = null;
+			depth--;
+			return result;
+		}
+
+		private static boolean hasReturnType(Node name) {
+			if (name instanceof LocalName)
+				return hasReturnType(((LocalName) name).entity);
+			if (name instanceof MethodQualified)
+				return hasReturnType(((MethodQualified) name).name);
+			if (name instanceof TemplateName)
+				return !isCtorDtorOrConversion(((TemplateName) name).name);
+			return false;
+		}
+
+		private static boolean isCtorDtorOrConversion(Node name) {
+			if (name instanceof QualifiedName)
+				return isCtorDtorOrConversion(((QualifiedName) name).name);
+			if (name instanceof LocalName)
+				return isCtorDtorOrConversion(((LocalName) name).entity);
+			return name instanceof CtorDtorName || name instanceof ConversionOperator;
+		}
+
+		private Node parseSpecialName() {
+			if (consume('T')) {
+				switch (next()) {
+				case 'V':
+					return new SpecialName("vtable for ", parseType()); //$NON-NLS-1$
+				case 'T':
+					return new SpecialName("VTT for ", parseType()); //$NON-NLS-1$
+				case 'I':
+					return new SpecialName("typeinfo for ", parseType()); //$NON-NLS-1$
+				case 'S':
+					return new SpecialName("typeinfo name for ", parseType()); //$NON-NLS-1$
+				case 'h':
+					parseCallOffset('h');
+					return new SpecialName("non-virtual thunk to ", parseEncoding(false)); //$NON-NLS-1$
+				case 'v':
+					parseCallOffset('v');
+					return new SpecialName("virtual thunk to ", parseEncoding(false)); //$NON-NLS-1$
+				case 'c':
+					parseCallOffset((char) 0);
+					parseCallOffset((char) 0);
+					return new SpecialName("covariant return thunk to ", parseEncoding(false)); //$NON-NLS-1$
+				case 'C': {
+					Node derived = parseType();
+					if (parseNumber() < 0)
+						throw FAILURE;
+					expect('_');
+					Node base = parseType();
+					return new ConstructionVtable(base, derived);
+				}
+				case 'F':
+					return new SpecialName("typeinfo fn for ", parseType()); //$NON-NLS-1$
+				case 'J':
+					return new SpecialName("java Class for ", parseType()); //$NON-NLS-1$
+				case 'H':
+					return new SpecialName("TLS init function for ", parseName(false)); //$NON-NLS-1$
+				case 'W':
+					return new SpecialName("TLS wrapper function for ", parseName(false)); //$NON-NLS-1$
+				case 'A':
+					return new SpecialName("template parameter object for ", parseTemplateArg()); //$NON-NLS-1$
+				default:
+					throw FAILURE;
+				}
+			}
+			expect('G');
+			switch (next()) {
+			case 'V':
+				return new SpecialName("guard variable for ", parseName(false)); //$NON-NLS-1$
+			case 'R': {
+				Node name = parseName(false);
+				return new ReferenceTemporary(name, parseNumber());
+			}
+			case 'A':
+				return new SpecialName("hidden alias for ", parseEncoding(false)); //$NON-NLS-1$
+			case 'T':
+				if (next() == 'n')
+					return new SpecialName("non-transaction clone for ", parseEncoding(false)); //$NON-NLS-1$
+				return new SpecialName("transaction clone for ", parseEncoding(false)); //$NON-NLS-1$
+			default:
+				throw FAILURE;
+			}
+		}
+
+		private void parseCallOffset(char c) {
+			if (c == 0)
+				c = next();
+			if (c == 'h') {
+				parseNumber();
+			} else if (c == 'v') {
+				parseNumber();
+				expect('_');
+				parseNumber();
+			} else {
+				throw FAILURE;
+			}
+			expect('_');
+		}
+
+		Node parseName(boolean substable) {
+			enter();
+			Node result = null;
+			boolean subst = false;
+			switch (peek()) {
+			case 'N':
+				result = parseNestedName();
+				break;
+			case 'Z':
+				result = parseLocalName();
+				break;
+			case 'U':
+				result = parseUnqualifiedName(null);
+				break;
+			default:
+				if (peek() == 'S') {
+					if (peek(1) == 't') {
+						pos += 2;
+						result = new Name("std"); //$NON-NLS-1$
+					}
+					if (peek() == 'S') {
+						Node sub = parseSubstitution();
+						if (result != null)
+							throw FAILURE;
+						subst = true;
+						result = sub;
+					}
+				}
+				if (!subst)
+					result = parseUnqualifiedName(result);
+				if (peek() == 'I') {
+					// An unscoped template name is a substitution candidate.
+					if (!subst)
+						addSubstitution(result);
+					result = new TemplateName(result, parseTemplateArgs());
+					subst = false;
+				}
+				break;
+			}
+			if (substable && !subst)
+				addSubstitution(result);
+			depth--;
+			return result;
+		}
+
+		private Node parseNestedName() {
+			expect('N');
+			List<Node> quals = new ArrayList<>(3);
+			while (true) {
+				char c = peek();
+				if (c == 'r')
+					quals.add(0, RESTRICT);
+				else if (c == 'V')
+					quals.add(0, VOLATILE);
+				else if (c == 'K')
+					quals.add(0, CONST);
+				else
+					break;
+				pos++;
+			}
+			int ref = parseRefQualifier();
+			Node result = parsePrefix();
+			expect('E');
+			if (!quals.isEmpty() || ref != 0)
+				result = new MethodQualified(result, quals.toArray(NO_NODES), ref);
+			return result;
+		}
+
+		private int parseRefQualifier() {
+			if (consume('R'))
+				return 1;
+			if (consume('O'))
+				return 2;
+			return 0;
+		}
+
+		private Node parsePrefix() {
+			Node result = null;
+			while (true) {
+				char c = peek();
+				if (c == 'D' && (peek(1) == 'T' || peek(1) == 't')) {
+					if (result != null)
+						throw FAILURE;
+					result = parseType();
+				} else if (c == 'I') {
+					if (result == null)
+						throw FAILURE;
+					result = new TemplateName(result, parseTemplateArgs());
+				} else if (c == 'T') {
+					if (result != null)
+						throw FAILURE;
+					result = parseTemplateParam();
+				} else if (c == 'M') {
+					// Initializer scope of a lambda, already a substitution candidate.
+					pos++;
+					continue;
+				} else if (c == 'S') {
+					if (result != null)
+						throw FAILURE;
+					result = parseSubstitution();
+					continue;
+				} else {
+					result = parseUnqualifiedName(result);
+				}
+				if (peek() == 'E')
+					break;
+				addSubstitution(result);
+			}
+			return result;
+		}
+
+		private Node parseUnqualifiedName(Node scope) {
+			char c = peek();
+			Node result;
+			if (isDigit(c)) {
+				result = parseSourceName();
+			} else if (isLower(c)) {
+				boolean wasExpression = isExpression;
+				if (c == 'o' && peek(1) == 'n') {
+					// An operator name in an expression, 'cv' names a conversion operator.
+					pos += 2;
+					isExpression = false;
+				}
+				result = parseOperatorName();
+				isExpression = wasExpression;
+				if (result instanceof OperatorName && ((OperatorName) result).op.code.equals("li")) //$NON-NLS-1$
+					result = new Unary(result, parseSourceName(), false);
+			} else if (c == 'D' && peek(1) == 'C') {
+				pos += 2;
+				List<Node> names = new ArrayList<>();
+				do {
+					names.add(parseSourceName());
+				} while (peek() != 'E');
+				pos++;
+				result = new StructuredBinding(names.toArray(NO_NODES));
+			} else if (c == 'C' || c == 'D') {
+				result = parseCtorDtorName();
+			} else if (c == 'L') {
+				pos++;
+				result = parseSourceName();
+				parseDiscriminator();
+			} else if (c == 'U') {
+				if (peek(1) == 'l')
+					result = parseLambda();
+				else if (peek(1) == 't')
+					result = parseUnnamedType();
+				else
+					throw FAILURE;
+			} else {
+				throw FAILURE;
+			}
+			if (peek() == 'B')
+				result = parseAbiTags(result);
+			if (scope != null)
+				result = new QualifiedName(scope, result);
+			return result;
+		}
+
+		private Node parseSourceName() {
+			int length = parseNumber();
+			if (length <= 0 || s.length() - pos < length)
+				throw FAILURE;
+			String identifier = s.substring(pos, pos + length);
+			pos += length;
+			Node result;
+			if (length >= 10 && identifier.startsWith("_GLOBAL_") //$NON-NLS-1$
+					&& (identifier.charAt(8) == '.' || identifier.charAt(8) == '_' || identifier.charAt(8) == '$')
+					&& identifier.charAt(9) == 'N') {
+				result = new Name("(anonymous namespace)"); //$NON-NLS-1$
+			} else {
+				result = new Name(identifier);
+			}
+			lastName = result;
+			return result;
+		}
+
+		private Node parseAbiTags(Node result) {
+			Node hold = lastName;
+			while (consume('B')) {
+				result = new AbiTagged(result, parseSourceName());
+			}
+			lastName = hold;
+			return result;
+		}
+
+		private Node parseCtorDtorName() {
+			if (consume('C')) {
+				boolean inheriting = consume('I');
+				char kind = next();
+				if (kind < '1' || kind > '5')
+					throw FAILURE;
+				if (inheriting) {
+					// The base class is not shown, c++filt accepts a missing one.
+					int savedDepth = depth;
+					try {
+						parseType();
+					} catch (DemangleException e) {
+						depth = savedDepth;
+					}
+				}
+				if (lastName == null)
+					throw FAILURE;
+				return new CtorDtorName(lastName, false);
+			}
+			expect('D');
+			char kind = next();
+			if (kind != '0' && kind != '1' && kind != '2' && kind != '4' && kind != '5')
+				throw FAILURE;
+			if (lastName == null)
+				throw FAILURE;
+			return new CtorDtorName(lastName, true);
+		}
+
+		private Node parseOperatorName() {
+			char c1 = next();
+			char c2 = next();
+			if (c1 == 'v' && isDigit(c2))
+				return new ExtendedOperator(c2 - '0', parseSourceName());
+			if (c1 == 'c' && c2 == 'v') {
+				boolean wasConversion = isConversion;
+				isConversion = !isExpression;
+				Node type = parseType();
+				Node result = isConversion ? new ConversionOperator(type) : new CastOperator(type);
+				isConversion = wasConversion;
+				return result;
+			}
+			Operator op = OPERATORS.get(new String(new char[] { c1, c2 }));
+			if (op == null)
+				throw FAILURE;
+			return new OperatorName(op);
+		}
+
+		private Node parseLambda() {
+			pos += 2;
+			Node[] params = parseParams();
+			expect('E');
+			int number = parseCompactNumber();
+			if (number < 0)
+				throw FAILURE;
+			return new LambdaName(params, number);
+		}
+
+		private Node parseUnnamedType() {
+			pos += 2;
+			int number = parseCompactNumber();
+			if (number < 0)
+				throw FAILURE;
+			Node result = new UnnamedType(number);
+			addSubstitution(result);
+			return result;
+		}
+
+		private Node parseLocalName() {
+			expect('Z');
+			Node encoding = parseEncoding(false);
+			expect('E');
+			Node entity;
+			if (consume('s')) {
+				parseDiscriminator();
+				entity = new Name("string literal"); //$NON-NLS-1$
+			} else {
+				int number = -1;
+				if (consume('d')) {
+					number = parseCompactNumber();
+					if (number < 0)
+						throw FAILURE;
+				}
+				entity = parseName(false);
+				if (!(entity instanceof LambdaName) && !(entity instanceof UnnamedType))
+					parseDiscriminator();
+				if (number >= 0)
+					entity = new DefaultArg(number, entity);
+			}
+			// The return type of the enclosing function would be confused with the one of the entity.
+			if (encoding instanceof FunctionEncoding)
+				((FunctionEncoding) encoding).ret = null;
+			return new LocalName(encoding, entity);
+		}
+
+		private Node parseSubstitution() {
+			expect('S');
+			char c = next();
+			if (c == '_' || isDigit(c) || isUpper(c)) {
+				long id = 0;
+				if (c != '_') {
+					do {
+						if (isDigit(c))
+							id = id * 36 + c - '0';
+						else if (isUpper(c))
+							id = id * 36 + c - 'A' + 10;
+						else
+							throw FAILURE;
+						if (id > Integer.MAX_VALUE)
+							throw FAILURE;
+						c = next();
+					} while (c != '_');
+					id++;
+				}
+				if (id >= subs.size())
+					throw FAILURE;
+				return subs.get((int) id);
+			}
+			String expansion;
+			String last;
+			switch (c) {
+			case 't':
+				expansion = "std"; //$NON-NLS-1$
+				last = null;
+				break;
+			case 'a':
+				expansion = "std::allocator"; //$NON-NLS-1$
+				last = "allocator"; //$NON-NLS-1$
+				break;
+			case 'b':
+				expansion = "std::basic_string"; //$NON-NLS-1$
+				last = "basic_string"; //$NON-NLS-1$
+				break;
+			case 's':
+				expansion = "std::basic_string<char, std::char_traits<char>, std::allocator<char> >"; //$NON-NLS-1$
+				last = "basic_string"; //$NON-NLS-1$
+				break;
+			case 'i':
+				expansion = "std::basic_istream<char, std::char_traits<char> >"; //$NON-NLS-1$
+				last = "basic_istream"; //$NON-NLS-1$
+				break;
+			case 'o':
+				expansion = "std::basic_ostream<char, std::char_traits<char> >"; //$NON-NLS-1$
+				last = "basic_ostream"; //$NON-NLS-1$
+				break;
+			case 'd':
+				expansion = "std::basic_iostream<char, std::char_traits<char> >"; //$NON-NLS-1$
+				last = "basic_iostream"; //$NON-NLS-1$
+				break;
+			default:
+				throw FAILURE;
+			}
+			if (last != null)
+				lastName = new StdSubstitution(last);
+			Node result = new StdSubstitution(expansion);
+			if (peek() == 'B') {
+				// A standard substitution with ABI tags becomes a substitution candidate.
+				result = parseAbiTags(result);
+				addSubstitution(result);
+			}
+			return result;
+		}
+
+		TemplateArgs parseTemplateArgs() {
+			char c = peek();
+			if (c != 'I' && c != 'J')
+				throw FAILURE;
+			pos++;
+			return parseTemplateArgsRest();
+		}
+
+		private TemplateArgs parseTemplateArgsRest() {
+			// The arguments must not change the name used by constructors and destructors.
+			Node hold = lastName;
+			if (consume('E'))
+				return new TemplateArgs(NO_NODES);
+			List<Node> args = new ArrayList<>();
+			do {
+				args.add(parseTemplateArg());
+			} while (!consume('E'));
+			lastName = hold;
+			return new TemplateArgs(args.toArray(NO_NODES));
+		}
+
+		private Node parseTemplateArg() {
+			switch (peek()) {
+			case 'X': {
+				pos++;
+				Node result = parseExpression();
+				expect('E');
+				return result;
+			}
+			case 'L':
+				return parseExprPrimary();
+			case 'I':
+			case 'J':
+				return parseTemplateArgs();
+			default:
+				return parseType();
+			}
+		}
+
+		private Node parseTemplateParam() {
+			expect('T');
+			int index = parseCompactNumber();
+			if (index < 0)
+				throw FAILURE;
+			return new TemplateParam(index);
+		}
+
+		private Node[] parseParams() {
+			List<Node> params = new ArrayList<>();
+			while (true) {
+				char c = peek();
+				if (c == 0 || c == 'E' || c == '.' || c == 'Q')
+					break;
+				if ((c == 'R' || c == 'O') && peek(1) == 'E')
+					break; // A ref-qualifier of the function.
+				params.add(parseType());
+			}
+			if (params.isEmpty())
+				throw FAILURE;
+			if (params.size() == 1 && params.get(0) instanceof BuiltinType
+					&& ((BuiltinType) params.get(0)).kind == VOID)
+				return NO_NODES;
+			return params.toArray(NO_NODES);
+		}
+
+		private boolean isTypeQualifier() {
+			char c = peek();
+			if (c == 'r' || c == 'V' || c == 'K')
+				return true;
+			if (c == 'D') {
+				c = peek(1);
+				return c == 'x' || c == 'o' || c == 'O' || c == 'w';
+			}
+			return false;
+		}
+
+		Node parseType() {
+			enter();
+			Node result = parseType0();
+			depth--;
+			return result;
+		}
+
+		private Node parseType0() {
+			if (isTypeQualifier()) {
+				// The qualifiers are printed in the reverse order.
+				List<Node> quals = new ArrayList<>(3);
+				boolean functionOnly = false;
+				while (isTypeQualifier()) {
+					char c = next();
+					if (c == 'r') {
+						quals.add(0, RESTRICT);
+					} else if (c == 'V') {
+						quals.add(0, VOLATILE);
+					} else if (c == 'K') {
+						quals.add(0, CONST);
+					} else {
+						functionOnly = true;
+						c = next();
+						if (c == 'x') {
+							quals.add(0, new FnQualifier(" transaction_safe", null)); //$NON-NLS-1$
+						} else if (c == 'o') {
+							quals.add(0, new FnQualifier(" noexcept", null)); //$NON-NLS-1$
+						} else if (c == 'O') {
+							Node expression = parseExpression();
+							expect('E');
+							quals.add(0, new FnQualifier(" noexcept", new Node[] { expression })); //$NON-NLS-1$
+						} else {
+							Node[] types = parseParams();
+							expect('E');
+							quals.add(0, new FnQualifier(" throw", types)); //$NON-NLS-1$
+						}
+					}
+				}
+				Node result;
+				if (peek() == 'F') {
+					// The qualifiers of a function type apply to 'this', only the qualified
+					// type is a substitution candidate.
+					FunctionType function = parseFunctionType();
+					result = new FunctionType(function.ret, function.params, quals.toArray(NO_NODES), function.ref);
+				} else {
+					if (functionOnly)
+						throw FAILURE;
+					Node type = parseType();
+					StringBuilder text = new StringBuilder();
+					for (int i = 0; i < quals.size(); i++) {
+						// Repeated qualifiers are shown once.
+						if (quals.indexOf(quals.get(i)) == i)
+							text.append(((FnQualifier) quals.get(i)).text);
+					}
+					result = new QualType(type, text.toString());
+				}
+				addSubstitution(result);
+				return result;
+			}
+
+			boolean canSubstitute = true;
+			Node result;
+			char c = peek();
+			switch (c) {
+			case 'a': case 'b': case 'c': case 'd': case 'e': case 'f': case 'g': case 'h': case 'i': case 'j':
+			case 'l': case 'm': case 'n': case 'o': case 's': case 't': case 'v': case 'w': case 'x': case 'y':
+			case 'z':
+				pos++;
+				result = BUILTIN_TYPES[c - 'a'];
+				canSubstitute = false;
+				break;
+			case 'u':
+				pos++;
+				result = parseSourceName();
+				break;
+			case 'F':
+				result = parseFunctionType();
+				break;
+			case 'A':
+				result = parseArrayType();
+				break;
+			case 'M': {
+				pos++;
+				Node cls = parseType();
+				Node member = parseType();
+				result = new MemberPointerType(cls, member);
+				break;
+			}
+			case 'T':
+				result = parseTemplateParam();
+				if (peek() == 'I') {
+					if (!isConversion) {
+						addSubstitution(result);
+						result = new TemplateName(result, parseTemplateArgs());
+					} else {
+						// In the type of a conversion operator the arguments may belong to the
+						// operator, they are those of the template parameter only if the
+						// operator has arguments as well.
+						int checkpoint = pos;
+						int checkpointSubs = subs.size();
+						TemplateArgs args = parseTemplateArgs();
+						if (peek() == 'I') {
+							addSubstitution(result);
+							result = new TemplateName(result, args);
+						} else {
+							pos = checkpoint;
+							subs.subList(checkpointSubs, subs.size()).clear();
+						}
+					}
+				}
+				break;
+			case 'O':
+				pos++;
+				result = new ReferenceType(parseType(), true);
+				break;
+			case 'P':
+				pos++;
+				result = new PointerType(parseType());
+				break;
+			case 'R':
+				pos++;
+				result = new ReferenceType(parseType(), false);
+				break;
+			case 'C':
+				pos++;
+				result = new SuffixType(parseType(), " _Complex"); //$NON-NLS-1$
+				break;
+			case 'G':
+				pos++;
+				result = new SuffixType(parseType(), " _Imaginary"); //$NON-NLS-1$
+				break;
+			case 'U': {
+				pos++;
+				Node qualifier = parseSourceName();
+				if (peek() == 'I')
+					qualifier = new TemplateName(qualifier, parseTemplateArgs());
+				result = new VendorQualType(parseType(), qualifier);
+				break;
+			}
+			case 'D':
+				canSubstitute = false;
+				pos++;
+				switch (next()) {
+				case 'T':
+				case 't':
+					result = new Decltype(parseExpression());
+					expect('E');
+					canSubstitute = true;
+					break;
+				case 'p':
+					result = new PackExpansion(parseType());
+					canSubstitute = true;
+					break;
+				case 'a':
+					result = new Name("auto"); //$NON-NLS-1$
+					break;
+				case 'c':
+					result = new Name("decltype(auto)"); //$NON-NLS-1$
+					break;
+				case 'f':
+					result = new BuiltinType("decimal32", DEFAULT); //$NON-NLS-1$
+					break;
+				case 'd':
+					result = new BuiltinType("decimal64", DEFAULT); //$NON-NLS-1$
+					break;
+				case 'e':
+					result = new BuiltinType("decimal128", DEFAULT); //$NON-NLS-1$
+					break;
+				case 'h':
+					result = new BuiltinType("half", FLOAT); //$NON-NLS-1$
+					break;
+				case 'u':
+					result = new BuiltinType("char8_t", DEFAULT); //$NON-NLS-1$
+					break;
+				case 's':
+					result = new BuiltinType("char16_t", DEFAULT); //$NON-NLS-1$
+					break;
+				case 'i':
+					result = new BuiltinType("char32_t", DEFAULT); //$NON-NLS-1$
+					break;
+				case 'n':
+					result = DECLTYPE_NULLPTR;
+					break;
+				case 'F': {
+					int bits = parseNumber();
+					if (bits <= 0)
+						throw FAILURE;
+					if (bits == 16 && consume('b'))
+						result = new BuiltinType("std::bfloat16_t", FLOAT); //$NON-NLS-1$
+					else if (consume('x'))
+						result = new BuiltinType("_Float" + bits + 'x', FLOAT); //$NON-NLS-1$
+					else if (consume('_'))
+						result = new BuiltinType("_Float" + bits, FLOAT); //$NON-NLS-1$
+					else
+						throw FAILURE;
+					break;
+				}
+				case 'v': {
+					Node dimension;
+					if (consume('_'))
+						dimension = parseExpression();
+					else
+						dimension = new Name(Integer.toString(parseNumber()));
+					expect('_');
+					result = new VectorType(parseType(), dimension);
+					canSubstitute = true;
+					break;
+				}
+				default:
+					throw FAILURE;
+				}
+				break;
+			default:
+				return parseName(true);
+			}
+			if (canSubstitute)
+				addSubstitution(result);
+			return result;
+		}
+
+		private FunctionType parseFunctionType() {
+			expect('F');
+			consume('Y'); // extern "C" is not shown
+			consume('J');
+			Node ret = parseType();
+			Node[] params = parseParams();
+			int ref = parseRefQualifier();
+			expect('E');
+			return new FunctionType(ret, params, NO_NODES, ref);
+		}
+
+		private Node parseArrayType() {
+			expect('A');
+			Node dimension;
+			char c = peek();
+			if (c == '_') {
+				dimension = null;
+			} else if (isDigit(c)) {
+				int start = pos;
+				while (isDigit(peek()))
+					pos++;
+				dimension = new Name(s.substring(start, pos));
+			} else {
+				dimension = parseExpression();
+			}
+			expect('_');
+			return new ArrayType(parseType(), dimension);
+		}
+
+		Node parseExpression() {
+			boolean wasExpression = isExpression;
+			isExpression = true;
+			Node result = parseExpression1();
+			isExpression = wasExpression;
+			return result;
+		}
+
+		private Node parseExpression1() {
+			enter();
+			Node result = parseExpression2();
+			depth--;
+			return result;
+		}
+
+		private Node parseExpression2() {
+			char c = peek();
+			if (c == 'L')
+				return parseExprPrimary();
+			if (c == 'T')
+				return parseTemplateParam();
+			if (c == 's' && peek(1) == 'r') {
+				pos += 2;
+				Node type = parseType();
+				Node name = parseUnqualifiedName(null);
+				if (peek() == 'I')
+					name = new TemplateName(name, parseTemplateArgs());
+				return new QualifiedName(type, name);
+			}
+			if (c == 's' && peek(1) == 'p') {
+				pos += 2;
+				return new PackExpansion(parseExpression1());
+			}
+			if (c == 'f' && peek(1) == 'p') {
+				pos += 2;
+				if (consume('T'))
+					return new FunctionParam(0);
+				int index = parseCompactNumber();
+				if (index < 0)
+					throw FAILURE;
+				return new FunctionParam(index + 1);
+			}
+			if (isDigit(c) || (c == 'o' && peek(1) == 'n')) {
+				Node name = parseUnqualifiedName(null);
+				if (peek() == 'I')
+					return new TemplateName(name, parseTemplateArgs());
+				return name;
+			}
+			if ((c == 'i' || c == 't') && peek(1) == 'l') {
+				pos += 2;
+				Node type = c == 't' ? parseType() : null;
+				if (peek() == 0 || peek(1) == 0)
+					throw FAILURE;
+				return new InitializerList(type, parseExprList('E'));
+			}
+
+			Node op = parseOperatorName();
+			String code = null;
+			int arity;
+			if (op instanceof OperatorName) {
+				code = ((OperatorName) op).op.code;
+				if (code.equals("st")) //$NON-NLS-1$
+					return new Unary(op, parseType(), false);
+				arity = ((OperatorName) op).op.arity;
+			} else if (op instanceof ExtendedOperator) {
+				arity = ((ExtendedOperator) op).arity;
+			} else if (op instanceof CastOperator) {
+				arity = 1;
+			} else {
+				throw FAILURE;
+			}
+			switch (arity) {
+			case 0:
+				return new Nullary(op);
+			case 1: {
+				boolean suffix = false;
+				if (code != null && (code.equals("pp") || code.equals("mm"))) //$NON-NLS-1$ //$NON-NLS-2$
+					suffix = !consume('_'); // pp_ and mm_ are the prefix forms
+				Node operand;
+				if (op instanceof CastOperator && consume('_'))
+					operand = parseExprList('E');
+				else if ("sP".equals(code)) //$NON-NLS-1$
+					operand = parseTemplateArgsRest();
+				else
+					operand = parseExpression1();
+				return new Unary(op, operand, suffix);
+			}
+			case 2: {
+				if (code == null)
+					throw FAILURE;
+				Node left;
+				if (isNewCast(code))
+					left = parseType();
+				else if (code.equals("di")) //$NON-NLS-1$
+					left = parseUnqualifiedName(null);
+				else
+					left = parseExpression1();
+				Node right;
+				if (code.equals("cl")) { //$NON-NLS-1$
+					right = parseExprList('E');
+				} else if (code.equals("dt") || code.equals("pt")) { //$NON-NLS-1$ //$NON-NLS-2$
+					right = parseUnqualifiedName(null);
+					if (peek() == 'I')
+						right = new TemplateName(right, parseTemplateArgs());
+				} else {
+					right = parseExpression1();
+				}
+				return new Binary(((OperatorName) op).op, left, right);
+			}
+			case 3: {
+				if (code == null)
+					throw FAILURE;
+				if (code.equals("qu")) { //$NON-NLS-1$
+					Node first = parseExpression1();
+					Node second = parseExpression1();
+					Node third = parseExpression1();
+					return new Conditional(first, second, third);
+				}
+				// A new-expression.
+				ExprList placement = parseExprList('_');
+				Node type = parseType();
+				Node initializer;
+				if (consume('E')) {
+					initializer = null;
+				} else if (peek() == 'p' && peek(1) == 'i') {
+					pos += 2;
+					initializer = parseExprList('E');
+				} else if (peek() == 'i' && peek(1) == 'l') {
+					initializer = parseExpression1();
+				} else {
+					throw FAILURE;
+				}
+				return new NewExpression(placement, type, initializer);
+			}
+			default:
+				throw FAILURE;
+			}
+		}
+
+		private ExprList parseExprList(char terminator) {
+			if (consume(terminator))
+				return new ExprList(NO_NODES);
+			List<Node> list = new ArrayList<>();
+			do {
+				list.add(parseExpression1());
+			} while (!consume(terminator));
+			return new ExprList(list.toArray(NO_NODES));
+		}
+
+		private Node parseExprPrimary() {
+			expect('L');
+			Node result;
+			if (peek() == '_' || peek() == 'Z') {
+				result = parseMangledName(false);
+			} else {
+				Node type = parseType();
+				if (type == DECLTYPE_NULLPTR && consume('E'))
+					return type;
+				boolean negative = consume('n');
+				int start = pos;
+				while (peek() != 'E') {
+					if (peek() == 0)
+						throw FAILURE;
+					pos++;
+				}
+				if (pos == start)
+					throw FAILURE;
+				result = new Literal(type, s.substring(start, pos), negative);
+			}
+			expect('E');
+			return result;
+		}
+	}
+
+	/** The template whose arguments are referenced by template parameters. */
+	private static final class Templates {
+		final TemplateName decl;
+		final Templates next;
+
+		Templates(TemplateName decl, Templates next) {
+			this.decl = decl;
+			this.next = next;
+		}
+	}
+
+	private static final class Printer {
+		/** Protects against names whose substitutions expand exponentially. */
+		private static final int MAX_LENGTH = 1 << 20;
+
+		private final StringBuilder out = new StringBuilder();
+		/** The last character appended, not changed by {@link #truncate(int)}. */
+		private char last;
+		Templates templates;
+		TemplateName currentTemplate;
+		int packIndex;
+		int lambdaArgs;
+
+		/** The type whose qualifiers need not be repeated, and these qualifiers. */
+		Node qualifiedType;
+		String outerQuals;
+		/** The templates of the references to template parameters printed so far. */
+		final Map<Node, Templates> savedScopes = new IdentityHashMap<>();
+
+		Printer append(String text) {
+			if (text.isEmpty())
+				return this;
+			out.append(text);
+			last = text.charAt(text.length() - 1);
+			if (out.length() > MAX_LENGTH)
+				throw FAILURE;
+			return this;
+		}
+
+		Printer append(char c) {
+			out.append(c);
+			last = c;
+			return this;
+		}
+
+		char last() {
+			return last;
+		}
+
+		int length() {
+			return out.length();
+		}
+
+		void truncate(int length) {
+			out.setLength(length);
+		}
+
+		@Override
+		public String toString() {
+			return out.toString();
+		}
+	}
+
+	/**
+	 * A node of the tree of a mangled name. Types are printed in two parts, such that the
+	 * declarator of pointers to functions and arrays can go in between.
+	 */
+	private static abstract class Node {
+		void printLeft(Printer p) {
+		}
+
+		void printRight(Printer p) {
+		}
+
+		final void print(Printer p) {
+			printLeft(p);
+			printRight(p);
+		}
+
+		boolean hasFunction(Printer p) {
+			return false;
+		}
+
+		boolean hasArray(Printer p) {
+			return false;
+		}
+
+		/** Returns whether {@link #printRight(Printer)} prints something. */
+		boolean hasRightPart(Printer p) {
+			return false;
+		}
+
+		/** Returns the first argument pack referenced by a template parameter in this node. */
+		TemplateArgs findPack(Printer p) {
+			return null;
+		}
+
+		/** Returns whether the node needs no parentheses as an operand. */
+		boolean isSimpleOperand() {
+			return false;
+		}
+	}
+
+	private static TemplateArgs findPack(Printer p, Node... nodes) {
+		for (Node node : nodes) {
+			if (node != null) {
+				TemplateArgs pack = node.findPack(p);
+				if (pack != null)
+					return pack;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Prints the items separated by commas. When the remaining items print nothing, like empty
+	 * argument packs, the last comma is removed.
+	 */
+	private static void printList(Printer p, Node[] items) {
+		if (items.length == 0)
+			return;
+		items[0].print(p);
+		if (items.length == 1)
+			return;
+		int[] marks = new int[items.length];
+		for (int i = 1; i < items.length; i++) {
+			p.append(", "); //$NON-NLS-1$
+			marks[i] = p.length();
+			items[i].print(p);
+		}
+		for (int i = items.length - 1; i > 0 && p.length() == marks[i]; i--) {
+			p.truncate(marks[i] - 2);
+		}
+	}
+
+	private static void printSubexpr(Printer p, Node node) {
+		boolean simple = node.isSimpleOperand();
+		if (!simple)
+			p.append('(');
+		node.print(p);
+		if (!simple)
+			p.append(')');
+	}
+
+	/** Prints the type of a conversion operator or cast, in the scope of the current template. */
+	private static void printConversion(Printer p, Node type) {
+		Templates hold = p.templates;
+		if (p.currentTemplate != null)
+			p.templates = new Templates(p.currentTemplate, hold);
+		if (!(type instanceof TemplateName)) {
+			type.print(p);
+			p.templates = hold;
+		} else {
+			TemplateName template = (TemplateName) type;
+			template.name.print(p);
+			p.templates = hold;
+			template.printArgs(p);
+		}
+	}
+
+	private static class Name extends Node {
+		final String name;
+
+		Name(String name) {
+			this.name = name;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append(name);
+		}
+
+		@Override
+		boolean isSimpleOperand() {
+			return true;
+		}
+	}
+
+	private static final class StdSubstitution extends Node {
+		final String name;
+
+		StdSubstitution(String name) {
+			this.name = name;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append(name);
+		}
+	}
+
+	private static final class BuiltinType extends Node {
+		final String name;
+		final int kind;
+
+		BuiltinType(String name, int kind) {
+			this.name = name;
+			this.kind = kind;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append(name);
+		}
+	}
+
+	private static final class QualifiedName extends Node {
+		final Node scope;
+		final Node name;
+
+		QualifiedName(Node scope, Node name) {
+			this.scope = scope;
+			this.name = name;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			scope.print(p);
+			p.append("::"); //$NON-NLS-1$
+			name.print(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, scope, name);
+		}
+
+		@Override
+		boolean isSimpleOperand() {
+			return true;
+		}
+	}
+
+	private static final class TemplateName extends Node {
+		final Node name;
+		final TemplateArgs args;
+
+		TemplateName(Node name, TemplateArgs args) {
+			this.name = name;
+			this.args = args;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			TemplateName hold = p.currentTemplate;
+			p.currentTemplate = this;
+			name.print(p);
+			printArgs(p);
+			p.currentTemplate = hold;
+		}
+
+		void printArgs(Printer p) {
+			if (p.last() == '<')
+				p.append(' ');
+			p.append('<');
+			args.print(p);
+			if (p.last() == '>')
+				p.append(' ');
+			p.append('>');
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, name, args);
+		}
+	}
+
+	/** A list of template arguments, or an argument pack. */
+	private static final class TemplateArgs extends Node {
+		final Node[] items;
+
+		TemplateArgs(Node[] items) {
+			this.items = items;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			printList(p, items);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, items);
+		}
+	}
+
+	private static final class ExprList extends Node {
+		final Node[] items;
+
+		ExprList(Node[] items) {
+			this.items = items;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			printList(p, items);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, items);
+		}
+	}
+
+	private static final class TemplateParam extends Node {
+		final int index;
+
+		TemplateParam(int index) {
+			this.index = index;
+		}
+
+		/** Returns the argument of the parameter, an argument pack is not indexed. */
+		Node lookup(Printer p) {
+			if (p.templates == null)
+				throw FAILURE;
+			Node[] args = p.templates.decl.args.items;
+			if (index >= args.length)
+				throw FAILURE;
+			return args[index];
+		}
+
+		Node resolve(Printer p) {
+			Node arg = lookup(p);
+			if (arg instanceof TemplateArgs) {
+				Node[] items = ((TemplateArgs) arg).items;
+				if (p.packIndex >= items.length)
+					throw FAILURE;
+				arg = items[p.packIndex];
+			}
+			return arg;
+		}
+
+		/**
+		 * Makes the enclosing templates current, the argument may refer to parameters of an
+		 * outer template.
+		 */
+		private Templates enter(Printer p) {
+			Templates hold = p.templates;
+			p.templates = hold.next;
+			return hold;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			if (p.lambdaArgs > 0) {
+				// Generic lambdas show their parameters like the compiler does.
+				p.append("auto:").append(Integer.toString(index + 1)); //$NON-NLS-1$
+				return;
+			}
+			Node arg = resolve(p);
+			if (p.qualifiedType == this)
+				p.qualifiedType = arg;
+			Templates hold = enter(p);
+			arg.printLeft(p);
+			p.templates = hold;
+		}
+
+		@Override
+		void printRight(Printer p) {
+			if (p.lambdaArgs > 0)
+				return;
+			Node arg = resolve(p);
+			Templates hold = enter(p);
+			arg.printRight(p);
+			p.templates = hold;
+		}
+
+		@Override
+		boolean hasFunction(Printer p) {
+			if (p.lambdaArgs > 0)
+				return false;
+			Node arg = resolve(p);
+			Templates hold = enter(p);
+			boolean result = arg.hasFunction(p);
+			p.templates = hold;
+			return result;
+		}
+
+		@Override
+		boolean hasArray(Printer p) {
+			if (p.lambdaArgs > 0)
+				return false;
+			Node arg = resolve(p);
+			Templates hold = enter(p);
+			boolean result = arg.hasArray(p);
+			p.templates = hold;
+			return result;
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			if (p.lambdaArgs > 0)
+				return false;
+			Node arg = resolve(p);
+			Templates hold = enter(p);
+			boolean result = arg.hasRightPart(p);
+			p.templates = hold;
+			return result;
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			if (p.lambdaArgs > 0)
+				return null;
+			Node arg = lookup(p);
+			return arg instanceof TemplateArgs ? (TemplateArgs) arg : null;
+		}
+	}
+
+	private static final class PackExpansion extends Node {
+		final Node pattern;
+
+		PackExpansion(Node pattern) {
+			this.pattern = pattern;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			TemplateArgs pack = pattern.findPack(p);
+			if (pack == null) {
+				// Only function parameter packs are involved.
+				printSubexpr(p, pattern);
+				p.append("..."); //$NON-NLS-1$
+				return;
+			}
+			int length = pack.items.length;
+			for (int i = 0; i < length; i++) {
+				p.packIndex = i;
+				pattern.print(p);
+				if (i < length - 1)
+					p.append(", "); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private static final class AbiTagged extends Node {
+		final Node base;
+		final Node tag;
+
+		AbiTagged(Node base, Node tag) {
+			this.base = base;
+			this.tag = tag;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			base.print(p);
+			p.append("[abi:"); //$NON-NLS-1$
+			tag.print(p);
+			p.append(']');
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return base.findPack(p);
+		}
+	}
+
+	private static final class CtorDtorName extends Node {
+		final Node name;
+		final boolean destructor;
+
+		CtorDtorName(Node name, boolean destructor) {
+			this.name = name;
+			this.destructor = destructor;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			if (destructor)
+				p.append('~');
+			name.print(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return name.findPack(p);
+		}
+	}
+
+	private static final class OperatorName extends Node {
+		final Operator op;
+
+		OperatorName(Operator op) {
+			this.op = op;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			String name = op.name;
+			p.append("operator"); //$NON-NLS-1$
+			if (isLower(name.charAt(0)))
+				p.append(' ');
+			if (name.endsWith(" ")) //$NON-NLS-1$
+				name = name.substring(0, name.length() - 1);
+			p.append(name);
+		}
+	}
+
+	private static final class ExtendedOperator extends Node {
+		final int arity;
+		final Node name;
+
+		ExtendedOperator(int arity, Node name) {
+			this.arity = arity;
+			this.name = name;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("operator "); //$NON-NLS-1$
+			name.print(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return name.findPack(p);
+		}
+	}
+
+	private static final class ConversionOperator extends Node {
+		final Node type;
+
+		ConversionOperator(Node type) {
+			this.type = type;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("operator "); //$NON-NLS-1$
+			printConversion(p, type);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return type.findPack(p);
+		}
+	}
+
+	private static final class CastOperator extends Node {
+		final Node type;
+
+		CastOperator(Node type) {
+			this.type = type;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			printConversion(p, type);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return type.findPack(p);
+		}
+	}
+
+	private static final class LambdaName extends Node {
+		final Node[] params;
+		final int number;
+
+		LambdaName(Node[] params, int number) {
+			this.params = params;
+			this.number = number;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("{lambda("); //$NON-NLS-1$
+			p.lambdaArgs++;
+			printList(p, params);
+			p.lambdaArgs--;
+			p.append(")#").append(Integer.toString(number + 1)).append('}'); //$NON-NLS-1$
+		}
+	}
+
+	private static final class UnnamedType extends Node {
+		final int number;
+
+		UnnamedType(int number) {
+			this.number = number;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("{unnamed type#").append(Integer.toString(number + 1)).append('}'); //$NON-NLS-1$
+		}
+	}
+
+	private static final class StructuredBinding extends Node {
+		final Node[] names;
+
+		StructuredBinding(Node[] names) {
+			this.names = names;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append('[');
+			printList(p, names);
+			p.append(']');
+		}
+	}
+
+	private static final class LocalName extends Node {
+		final Node encoding;
+		final Node entity;
+
+		LocalName(Node encoding, Node entity) {
+			this.encoding = encoding;
+			this.entity = entity;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			encoding.print(p);
+			p.append("::"); //$NON-NLS-1$
+			entity.print(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, encoding, entity);
+		}
+	}
+
+	private static final class DefaultArg extends Node {
+		final int number;
+		final Node name;
+
+		DefaultArg(int number, Node name) {
+			this.number = number;
+			this.name = name;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("{default arg#").append(Integer.toString(number + 1)).append("}::"); //$NON-NLS-1$ //$NON-NLS-2$
+			name.print(p);
+		}
+	}
+
+	/** A qualifier of a function, printed after the parameters. */
+	private static final class FnQualifier extends Node {
+		final String text;
+		final Node[] args;
+
+		FnQualifier(String text, Node[] args) {
+			this.text = text;
+			this.args = args;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append(text);
+			if (args != null) {
+				p.append('(');
+				printList(p, args);
+				p.append(')');
+			}
+		}
+	}
+
+	private static void printQualifiers(Printer p, Node[] quals, int ref) {
+		for (Node qual : quals) {
+			qual.print(p);
+		}
+		if (ref == 1)
+			p.append(" &"); //$NON-NLS-1$
+		else if (ref == 2)
+			p.append(" &&"); //$NON-NLS-1$
+	}
+
+	/** A nested name with the qualifiers of a member function. */
+	private static final class MethodQualified extends Node {
+		final Node name;
+		final Node[] quals;
+		final int ref;
+
+		MethodQualified(Node name, Node[] quals, int ref) {
+			this.name = name;
+			this.quals = quals;
+			this.ref = ref;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			name.print(p);
+			printQualifiers(p, quals, ref);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return name.findPack(p);
+		}
+	}
+
+	private static final class FunctionEncoding extends Node {
+		Node ret;
+		final Node name;
+		final Node[] params;
+		final Node[] quals;
+		final int ref;
+
+		FunctionEncoding(Node ret, Node name, Node[] params, Node[] quals, int ref) {
+			this.ret = ret;
+			this.name = name;
+			this.params = params;
+			this.quals = quals;
+			this.ref = ref;
+		}
+
+		/**
+		 * Makes the arguments of a function template current, for the template parameters in
+		 * the signature.
+		 */
+		private Templates enter(Printer p) {
+			Templates hold = p.templates;
+			Node template = name;
+			if (template instanceof LocalName) {
+				template = ((LocalName) template).entity;
+				if (template instanceof DefaultArg)
+					template = ((DefaultArg) template).name;
+			}
+			if (template instanceof TemplateName)
+				p.templates = new Templates((TemplateName) template, hold);
+			return hold;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			Templates hold = enter(p);
+			if (ret != null) {
+				ret.printLeft(p);
+				if (!ret.hasRightPart(p))
+					p.append(' ');
+			}
+			name.print(p);
+			p.templates = hold;
+		}
+
+		@Override
+		void printRight(Printer p) {
+			Templates hold = enter(p);
+			p.append('(');
+			printList(p, params);
+			p.append(')');
+			if (ret != null)
+				ret.printRight(p);
+			printQualifiers(p, quals, ref);
+			p.templates = hold;
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			TemplateArgs pack = ItaniumDemangler.findPack(p, ret, name);
+			return pack != null ? pack : ItaniumDemangler.findPack(p, params);
+		}
+	}
+
+	private static final class SpecialName extends Node {
+		final String prefix;
+		final Node child;
+
+		SpecialName(String prefix, Node child) {
+			this.prefix = prefix;
+			this.child = child;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append(prefix);
+			child.print(p);
+		}
+	}
+
+	private static final class ConstructionVtable extends Node {
+		final Node base;
+		final Node derived;
+
+		ConstructionVtable(Node base, Node derived) {
+			this.base = base;
+			this.derived = derived;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("construction vtable for "); //$NON-NLS-1$
+			base.print(p);
+			p.append("-in-"); //$NON-NLS-1$
+			derived.print(p);
+		}
+	}
+
+	private static final class ReferenceTemporary extends Node {
+		final Node name;
+		final int number;
+
+		ReferenceTemporary(Node name, int number) {
+			this.name = name;
+			this.number = number;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("reference temporary #").append(Integer.toString(number)).append(" for "); //$NON-NLS-1$ //$NON-NLS-2$
+			name.print(p);
+		}
+	}
+
+	private static final class CloneSuffix extends Node {
+		final Node encoding;
+		final String suffix;
+
+		CloneSuffix(Node encoding, String suffix) {
+			this.encoding = encoding;
+			this.suffix = suffix;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			encoding.print(p);
+			p.append(" [clone ").append(suffix).append(']'); //$NON-NLS-1$
+		}
+	}
+
+	private static final class QualType extends Node {
+		final Node child;
+		final String quals;
+
+		QualType(Node child, String quals) {
+			this.child = child;
+			this.quals = quals;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			// The argument of a template parameter may have qualifiers of the parameter.
+			String outer = p.qualifiedType == this ? p.outerQuals : ""; //$NON-NLS-1$
+			Node holdType = p.qualifiedType;
+			String holdQuals = p.outerQuals;
+			p.qualifiedType = child;
+			p.outerQuals = outer + quals;
+			child.printLeft(p);
+			p.qualifiedType = holdType;
+			p.outerQuals = holdQuals;
+			if (outer.isEmpty()) {
+				p.append(quals);
+				return;
+			}
+			for (Node qual : new Node[] { CONST, VOLATILE, RESTRICT }) {
+				String text = ((FnQualifier) qual).text;
+				if (quals.contains(text) && !outer.contains(text))
+					p.append(text);
+			}
+		}
+
+		@Override
+		void printRight(Printer p) {
+			child.printRight(p);
+		}
+
+		@Override
+		boolean hasFunction(Printer p) {
+			return child.hasFunction(p);
+		}
+
+		@Override
+		boolean hasArray(Printer p) {
+			return child.hasArray(p);
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			return child.hasRightPart(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return child.findPack(p);
+		}
+	}
+
+	/** A type followed by a suffix, like <code>_Complex</code>. */
+	private static final class SuffixType extends Node {
+		final Node child;
+		final String suffix;
+
+		SuffixType(Node child, String suffix) {
+			this.child = child;
+			this.suffix = suffix;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			child.printLeft(p);
+			p.append(suffix);
+		}
+
+		@Override
+		void printRight(Printer p) {
+			child.printRight(p);
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			return child.hasRightPart(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return child.findPack(p);
+		}
+	}
+
+	private static final class VendorQualType extends Node {
+		final Node child;
+		final Node qualifier;
+
+		VendorQualType(Node child, Node qualifier) {
+			this.child = child;
+			this.qualifier = qualifier;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			child.printLeft(p);
+			p.append(' ');
+			qualifier.print(p);
+		}
+
+		@Override
+		void printRight(Printer p) {
+			child.printRight(p);
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			return child.hasRightPart(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, child, qualifier);
+		}
+	}
+
+	private static final class VectorType extends Node {
+		final Node element;
+		final Node dimension;
+
+		VectorType(Node element, Node dimension) {
+			this.element = element;
+			this.dimension = dimension;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			element.printLeft(p);
+			p.append(" __vector("); //$NON-NLS-1$
+			dimension.print(p);
+			p.append(')');
+		}
+
+		@Override
+		void printRight(Printer p) {
+			element.printRight(p);
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			return element.hasRightPart(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, dimension, element);
+		}
+	}
+
+	private static final class PointerType extends Node {
+		final Node pointee;
+
+		PointerType(Node pointee) {
+			this.pointee = pointee;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			pointee.printLeft(p);
+			boolean array = pointee.hasArray(p);
+			if (array)
+				p.append(' ');
+			if (array || pointee.hasFunction(p)) {
+				// The declarator of a returned pointer to function is not separated.
+				if (!array && p.last() != ' ' && p.last() != '(' && p.last() != '*')
+					p.append(' ');
+				p.append('(');
+			}
+			p.append('*');
+		}
+
+		@Override
+		void printRight(Printer p) {
+			if (pointee.hasArray(p) || pointee.hasFunction(p))
+				p.append(')');
+			pointee.printRight(p);
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			return pointee.hasRightPart(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return pointee.findPack(p);
+		}
+	}
+
+	private static final class ReferenceType extends Node {
+		final Node pointee;
+		final boolean rvalue;
+
+		ReferenceType(Node pointee, boolean rvalue) {
+			this.pointee = pointee;
+			this.rvalue = rvalue;
+		}
+
+		/** Returns the reference to print, references to references collapse. */
+		private ReferenceType collapse(Printer p) {
+			Node arg = pointee;
+			if (pointee instanceof TemplateParam && p.lambdaArgs == 0)
+				arg = ((TemplateParam) pointee).resolve(p);
+			if (arg instanceof ReferenceType) {
+				ReferenceType inner = (ReferenceType) arg;
+				if (!inner.rvalue || inner.rvalue == rvalue)
+					return inner;
+				return new ReferenceType(inner.pointee, false);
+			}
+			return this;
+		}
+
+		/**
+		 * Makes the templates current that were current when the reference was printed first,
+		 * a reference to a template parameter keeps its meaning when it is substituted later.
+		 */
+		private Templates enter(Printer p) {
+			Templates hold = p.templates;
+			if (pointee instanceof TemplateParam && p.lambdaArgs == 0) {
+				if (p.savedScopes.containsKey(pointee))
+					p.templates = p.savedScopes.get(pointee);
+				else
+					p.savedScopes.put(pointee, hold);
+			}
+			return hold;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			Templates hold = enter(p);
+			ReferenceType ref = collapse(p);
+			if (ref != this) {
+				ref.printLeft(p);
+				p.templates = hold;
+				return;
+			}
+			Node target = pointee;
+			target.printLeft(p);
+			boolean array = target.hasArray(p);
+			if (array)
+				p.append(' ');
+			if (array || target.hasFunction(p)) {
+				if (!array && p.last() != ' ' && p.last() != '(' && p.last() != '*')
+					p.append(' ');
+				p.append('(');
+			}
+			p.append(rvalue ? "&&" : "&"); //$NON-NLS-1$ //$NON-NLS-2$
+			p.templates = hold;
+		}
+
+		@Override
+		void printRight(Printer p) {
+			Templates hold = enter(p);
+			ReferenceType ref = collapse(p);
+			if (ref != this) {
+				ref.printRight(p);
+			} else {
+				if (pointee.hasArray(p) || pointee.hasFunction(p))
+					p.append(')');
+				pointee.printRight(p);
+			}
+			p.templates = hold;
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			Templates hold = enter(p);
+			ReferenceType ref = collapse(p);
+			boolean result = ref != this ? ref.hasRightPart(p) : pointee.hasRightPart(p);
+			p.templates = hold;
+			return result;
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return pointee.findPack(p);
+		}
+	}
+
+	private static final class MemberPointerType extends Node {
+		final Node cls;
+		final Node member;
+
+		MemberPointerType(Node cls, Node member) {
+			this.cls = cls;
+			this.member = member;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			member.printLeft(p);
+			if (member.hasArray(p) || member.hasFunction(p)) {
+				if (p.last() != ' ')
+					p.append(' ');
+				p.append('(');
+			} else {
+				p.append(' ');
+			}
+			cls.print(p);
+			p.append("::*"); //$NON-NLS-1$
+		}
+
+		@Override
+		void printRight(Printer p) {
+			if (member.hasArray(p) || member.hasFunction(p))
+				p.append(')');
+			member.printRight(p);
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			return member.hasRightPart(p);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, cls, member);
+		}
+	}
+
+	private static final class ArrayType extends Node {
+		final Node element;
+		final Node dimension;
+
+		ArrayType(Node element, Node dimension) {
+			this.element = element;
+			this.dimension = dimension;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			element.printLeft(p);
+		}
+
+		@Override
+		void printRight(Printer p) {
+			if (p.last() != ']')
+				p.append(' ');
+			p.append('[');
+			if (dimension != null)
+				dimension.print(p);
+			p.append(']');
+			element.printRight(p);
+		}
+
+		@Override
+		boolean hasArray(Printer p) {
+			return true;
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			return true;
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, dimension, element);
+		}
+	}
+
+	private static final class FunctionType extends Node {
+		final Node ret;
+		final Node[] params;
+		final Node[] quals;
+		final int ref;
+
+		FunctionType(Node ret, Node[] params, Node[] quals, int ref) {
+			this.ret = ret;
+			this.params = params;
+			this.quals = quals;
+			this.ref = ref;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			ret.printLeft(p);
+			if (!ret.hasRightPart(p))
+				p.append(' ');
+		}
+
+		@Override
+		void printRight(Printer p) {
+			p.append('(');
+			printList(p, params);
+			p.append(')');
+			ret.printRight(p);
+			printQualifiers(p, quals, ref);
+		}
+
+		@Override
+		boolean hasFunction(Printer p) {
+			return true;
+		}
+
+		@Override
+		boolean hasRightPart(Printer p) {
+			return true;
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			TemplateArgs pack = ret.findPack(p);
+			return pack != null ? pack : ItaniumDemangler.findPack(p, params);
+		}
+	}
+
+	private static final class Decltype extends Node {
+		final Node expression;
+
+		Decltype(Node expression) {
+			this.expression = expression;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("decltype ("); //$NON-NLS-1$
+			expression.print(p);
+			p.append(')');
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return expression.findPack(p);
+		}
+	}
+
+	private static final class FunctionParam extends Node {
+		final int index;
+
+		FunctionParam(int index) {
+			this.index = index;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			if (index == 0)
+				p.append("this"); //$NON-NLS-1$
+			else
+				p.append("{parm#").append(Integer.toString(index)).append('}'); //$NON-NLS-1$
+		}
+
+		@Override
+		boolean isSimpleOperand() {
+			return true;
+		}
+	}
+
+	private static final class Literal extends Node {
+		final Node type;
+		final String value;
+		final boolean negative;
+
+		Literal(Node type, String value, boolean negative) {
+			this.type = type;
+			this.value = value;
+			this.negative = negative;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			int kind = type instanceof BuiltinType ? ((BuiltinType) type).kind : DEFAULT;
+			switch (kind) {
+			case INT:
+			case UNSIGNED:
+			case LONG:
+			case UNSIGNED_LONG:
+			case LONG_LONG:
+			case UNSIGNED_LONG_LONG:
+				if (negative)
+					p.append('-');
+				p.append(value);
+				switch (kind) {
+				case UNSIGNED:
+					p.append('u');
+					break;
+				case LONG:
+					p.append('l');
+					break;
+				case UNSIGNED_LONG:
+					p.append("ul"); //$NON-NLS-1$
+					break;
+				case LONG_LONG:
+					p.append("ll"); //$NON-NLS-1$
+					break;
+				case UNSIGNED_LONG_LONG:
+					p.append("ull"); //$NON-NLS-1$
+					break;
+				default:
+					break;
+				}
+				return;
+			case BOOL:
+				if (!negative && value.equals("0")) { //$NON-NLS-1$
+					p.append("false"); //$NON-NLS-1$
+					return;
+				}
+				if (!negative && value.equals("1")) { //$NON-NLS-1$
+					p.append("true"); //$NON-NLS-1$
+					return;
+				}
+				break;
+			default:
+				break;
+			}
+			p.append('(');
+			type.print(p);
+			p.append(')');
+			if (negative)
+				p.append('-');
+			if (kind == FLOAT)
+				p.append('[');
+			p.append(value);
+			if (kind == FLOAT)
+				p.append(']');
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return type.findPack(p);
+		}
+	}
+
+	private static final class InitializerList extends Node {
+		final Node type;
+		final Node list;
+
+		InitializerList(Node type, Node list) {
+			this.type = type;
+			this.list = list;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			if (type != null)
+				type.print(p);
+			p.append('{');
+			list.print(p);
+			p.append('}');
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, type, list);
+		}
+
+		@Override
+		boolean isSimpleOperand() {
+			return true;
+		}
+	}
+
+	private static void printOperator(Printer p, Node op) {
+		if (op instanceof OperatorName)
+			p.append(((OperatorName) op).op.name);
+		else
+			op.print(p);
+	}
+
+	private static final class Nullary extends Node {
+		final Node op;
+
+		Nullary(Node op) {
+			this.op = op;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			printOperator(p, op);
+		}
+	}
+
+	private static final class Unary extends Node {
+		final Node op;
+		final Node operand;
+		final boolean suffix;
+
+		Unary(Node op, Node operand, boolean suffix) {
+			this.op = op;
+			this.operand = operand;
+			this.suffix = suffix;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			String code = op instanceof OperatorName ? ((OperatorName) op).op.code : null;
+			Node operand = this.operand;
+			if ("ad".equals(code) && operand instanceof FunctionEncoding //$NON-NLS-1$
+					&& ((FunctionEncoding) operand).name instanceof QualifiedName) {
+				// The address of a function is shown without the parameters.
+				operand = ((FunctionEncoding) operand).name;
+			}
+			if (suffix) {
+				printSubexpr(p, operand);
+				printOperator(p, op);
+				return;
+			}
+			if ("sZ".equals(code)) { //$NON-NLS-1$
+				TemplateArgs pack = operand.findPack(p);
+				p.append(Integer.toString(pack == null ? 0 : pack.items.length));
+				return;
+			}
+			if ("sP".equals(code)) { //$NON-NLS-1$
+				int length = 0;
+				for (Node arg : ((TemplateArgs) operand).items) {
+					if (arg instanceof PackExpansion) {
+						TemplateArgs pack = ((PackExpansion) arg).pattern.findPack(p);
+						length += pack == null ? 0 : pack.items.length;
+					} else {
+						length++;
+					}
+				}
+				p.append(Integer.toString(length));
+				return;
+			}
+			if (op instanceof CastOperator) {
+				p.append('(');
+				op.print(p);
+				p.append(')');
+			} else {
+				printOperator(p, op);
+			}
+			if ("gs".equals(code)) { //$NON-NLS-1$
+				operand.print(p);
+			} else if ("st".equals(code)) { //$NON-NLS-1$
+				p.append('(');
+				operand.print(p);
+				p.append(')');
+			} else {
+				printSubexpr(p, operand);
+			}
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, op, operand);
+		}
+	}
+
+	private static final class Binary extends Node {
+		final Operator op;
+		final Node left;
+		final Node right;
+
+		Binary(Operator op, Node left, Node right) {
+			this.op = op;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			String code = op.code;
+			if (isNewCast(code)) {
+				p.append(op.name).append('<');
+				left.print(p);
+				p.append(">("); //$NON-NLS-1$
+				right.print(p);
+				p.append(')');
+				return;
+			}
+			if (code.equals("di") || code.equals("dx")) { //$NON-NLS-1$ //$NON-NLS-2$
+				// A designated initializer.
+				boolean field = code.equals("di"); //$NON-NLS-1$
+				p.append(field ? '.' : '[');
+				left.print(p);
+				if (!field)
+					p.append(']');
+				p.append('=');
+				printSubexpr(p, right);
+				return;
+			}
+			// Greater-than is parenthesized to not end a template argument list.
+			boolean greater = op.name.equals(">"); //$NON-NLS-1$
+			if (greater)
+				p.append('(');
+			if (code.equals("cl") && left instanceof FunctionEncoding) //$NON-NLS-1$
+				printSubexpr(p, ((FunctionEncoding) left).name);
+			else
+				printSubexpr(p, left);
+			if (code.equals("ix")) { //$NON-NLS-1$
+				p.append('[');
+				right.print(p);
+				p.append(']');
+			} else {
+				if (!code.equals("cl")) //$NON-NLS-1$
+					p.append(op.name);
+				printSubexpr(p, right);
+			}
+			if (greater)
+				p.append(')');
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, left, right);
+		}
+	}
+
+	private static final class Conditional extends Node {
+		final Node condition;
+		final Node then;
+		final Node otherwise;
+
+		Conditional(Node condition, Node then, Node otherwise) {
+			this.condition = condition;
+			this.then = then;
+			this.otherwise = otherwise;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			printSubexpr(p, condition);
+			p.append('?');
+			printSubexpr(p, then);
+			p.append(" : "); //$NON-NLS-1$
+			printSubexpr(p, otherwise);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, condition, then, otherwise);
+		}
+	}
+
+	private static final class NewExpression extends Node {
+		final ExprList placement;
+		final Node type;
+		final Node initializer;
+
+		NewExpression(ExprList placement, Node type, Node initializer) {
+			this.placement = placement;
+			this.type = type;
+			this.initializer = initializer;
+		}
+
+		@Override
+		void printLeft(Printer p) {
+			p.append("new "); //$NON-NLS-1$
+			if (placement.items.length > 0) {
+				printSubexpr(p, placement);
+				p.append(' ');
+			}
+			type.print(p);
+			if (initializer != null)
+				printSubexpr(p, initializer);
+		}
+
+		@Override
+		TemplateArgs findPack(Printer p) {
+			return ItaniumDemangler.findPack(p, placement, type, initializer);
+		}
+	}
+}
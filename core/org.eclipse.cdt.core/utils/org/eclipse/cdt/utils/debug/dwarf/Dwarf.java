@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 QNX Software Systems and others.
+ * Copyright (c) 2000, 2018 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -41,6 +41,7 @@ public class Dwarf {
 	final static String DWARF_DEBUG_ABBREV = ".debug_abbrev"; //$NON-NLS-1$
 	final static String DWARF_DEBUG_ARANGES = ".debug_aranges"; //$NON-NLS-1$
 	final static String DWARF_DEBUG_LINE = ".debug_line"; //$NON-NLS-1$
+	final static String DWARF_DEBUG_LINE_STR = ".debug_line_str"; //$NON-NLS-1$
 	final static String DWARF_DEBUG_FRAME = ".debug_frame"; //$NON-NLS-1$
 	final static String DWARF_EH_FRAME = ".eh_frame"; //$NON-NLS-1$
 	final static String DWARF_DEBUG_LOC = ".debug_loc"; //$NON-NLS-1$
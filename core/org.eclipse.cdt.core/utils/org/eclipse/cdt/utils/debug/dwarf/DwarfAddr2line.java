@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils.debug.dwarf;
+
+import java.io.IOException;
+
+import org.eclipse.cdt.core.IAddress;
+import org.eclipse.cdt.utils.Addr2line;
+import org.eclipse.cdt.utils.ItaniumDemangler;
+import org.eclipse.cdt.utils.elf.Elf;
+import org.eclipse.cdt.utils.elf.ElfSymbolTable;
+
+/**
+ * Answers the queries of {@link Addr2line} from the {@link DwarfLineTable} of an ELF binary,
+ * without running <code>addr2line</code>. Like <code>addr2line -C -f</code>, the function of an
+ * address is the function symbol whose range contains the address, its name is demangled by
+ * an {@link ItaniumDemangler}.
+ * <p>
+ * Used by {@link org.eclipse.cdt.utils.DefaultGnuToolFactory} unless the system property
+ * <code>CDT_DWARF_ADDR2LINE</code> is <code>false</code>.
+ *
+ * @since 6.5
+ */
+public class DwarfAddr2line extends Addr2line {
+	private static volatile boolean sEnabled =
+			Boolean.parseBoolean(System.getProperty("CDT_DWARF_ADDR2LINE", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final String UNKNOWN = "??"; //$NON-NLS-1$
+
+	private final DwarfLineTable fLineTable;
+	private final ElfSymbolTable fSymbols;
+	/** The function symbols of {@link #fSymbols} ordered by their address. */
+	private final int[] fFunctions;
+	private final ItaniumDemangler fDemangler = new ItaniumDemangler();
+
+	/**
+	 * @param file the path of an ELF binary
+	 * @throws IOException if the file cannot be read or has no line information
+	 */
+	public DwarfAddr2line(String file) throws IOException {
+		Elf elf = new Elf(file);
+		try {
+			DwarfReader reader = new DwarfReader(elf);
+			fLineTable = reader.getLineTable();
+			if (fLineTable == null)
+				throw new IOException("No line information in " + file); //$NON-NLS-1$
+			ElfSymbolTable symbols = elf.getSymbolTable(Elf.Section.SHT_SYMTAB);
+			if (symbols == null)
+				symbols = elf.getSymbolTable(Elf.Section.SHT_DYNSYM);
+			fSymbols = symbols;
+			fFunctions = getFunctions(symbols);
+		} finally {
+			elf.dispose();
+		}
+	}
+
+	private static int[] getFunctions(ElfSymbolTable symbols) {
+		if (symbols == null)
+			return new int[0];
+		return symbols.streamByAddress().filter(i -> symbols.getType(i) == Elf.Symbol.STT_FUNC).toArray();
+	}
+
+	/**
+	 * Enables or disables the use of this class instead of running <code>addr2line</code>.
+	 */
+	public static void setEnabled(boolean enabled) {
+		sEnabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	/**
+	 * Returns the table answering the queries.
+	 */
+	public DwarfLineTable getLineTable() {
+		return fLineTable;
+	}
+
+	private static long toLong(IAddress address) {
+		return address.getValue().longValue();
+	}
+
+	@Override
+	public String getLine(IAddress address) throws IOException {
+		long value = toLong(address);
+		String fileName = fLineTable.getFileName(value);
+		if (fileName == null)
+			return UNKNOWN + ":0"; //$NON-NLS-1$
+		return fileName + ':' + fLineTable.getLineNumber(value);
+	}
+
+	@Override
+	public String getFunction(IAddress address) throws IOException {
+		long value = toLong(address);
+		int low = 0;
+		int high = fFunctions.length - 1;
+		int found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(fSymbols.getValue(fFunctions[mid]), value) <= 0) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		// Aliases share the start address, use the first one covering the address.
+		for (int i = found; i >= 0; i--) {
+			int symbol = fFunctions[i];
+			long start = fSymbols.getValue(symbol);
+			if (start != fSymbols.getValue(fFunctions[found]))
+				break;
+			if (Long.compareUnsigned(value - start, fSymbols.getSize(symbol)) < 0)
+				return fDemangler.demangle(fSymbols.getName(symbol));
+		}
+		return UNKNOWN;
+	}
+
+	@Override
+	public String getFileName(IAddress address) throws IOException {
+		String fileName = fLineTable.getFileName(toLong(address));
+		return fileName == null ? UNKNOWN : fileName;
+	}
+
+	@Override
+	public int getLineNumber(IAddress address) throws IOException {
+		// Like addr2line, try the nearest match since the symbol may not exactly align
+		// with the debug info.
+		for (int i = 0; i <= 20; i += 4, address = address.add(i)) {
+			int line = fLineTable.getLineNumber(toLong(address));
+			if (line > 0)
+				return line;
+		}
+		return -1;
+	}
+
+	@Override
+	public void dispose() {
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 QNX Software Systems and others.
+ * Copyright (c) 2000, 2018 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -208,6 +208,19 @@ public class DwarfConstants {
 	 * @since 5.7
 	 */
 	public final static int DW_FORM_ref_sig8 = 0x20;
+	/* DWARF 5 forms used in line number program headers. */
+	/**
+	 * @since 6.5
+	 */
+	public final static int DW_FORM_strx = 0x1a;
+	/**
+	 * @since 6.5
+	 */
+	public final static int DW_FORM_data16 = 0x1e;
+	/**
+	 * @since 6.5
+	 */
+	public final static int DW_FORM_line_strp = 0x1f;
 	/* Extensions for Fission. See http://gcc.gnu.org/wiki/DebugFission. */
 	/**
 	 * @since 5.7
@@ -476,6 +489,16 @@ public class DwarfConstants {
 	public final static int DW_LNE_set_address = 2;
 	public final static int DW_LNE_define_file = 3;
 
+	/* DWARF 5 line number header entry formats. */
+	/**
+	 * @since 6.5
+	 */
+	public final static int DW_LNCT_path = 1;
+	/**
+	 * @since 6.5
+	 */
+	public final static int DW_LNCT_directory_index = 2;
+
 	/* DWARF macinfo type encodings. */
 	public final static int DW_MACINFO_define = 1;
 	public final static int DW_MACINFO_undef = 2;
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils.debug.dwarf;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The rows of the line number programs in the <code>.debug_line</code> section of a binary,
+ * sorted by address and stored in primitive arrays. Maps addresses to source files and line
+ * numbers without running <code>addr2line</code>.
+ * <p>
+ * Instances are immutable and shared between readers of binaries with the same line
+ * information.
+ *
+ * @see DwarfReader#getLineTable()
+ * @since 6.5
+ */
+public class DwarfLineTable {
+	/** Maximum number of tables kept in the cache. */
+	private static final int CACHE_SIZE = 16;
+
+	private static final Map<String, SoftReference<DwarfLineTable>> cache =
+			new LinkedHashMap<String, SoftReference<DwarfLineTable>>(CACHE_SIZE, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, SoftReference<DwarfLineTable>> eldest) {
+					return size() > CACHE_SIZE;
+				}
+			};
+
+	/** The file of a row that ends a sequence, the address after the sequence has no line. */
+	static final int END_OF_SEQUENCE = -1;
+
+	private final long[] addresses;
+	private final int[] lines;
+	private final int[] files;
+	private final String[] fileNames;
+
+	/**
+	 * @param addresses the addresses of the rows in ascending order (compared unsigned)
+	 * @param lines the line numbers of the rows
+	 * @param files the indexes of the files of the rows in <code>fileNames</code>, or
+	 *     {@link #END_OF_SEQUENCE}
+	 */
+	DwarfLineTable(long[] addresses, int[] lines, int[] files, String[] fileNames) {
+		this.addresses = addresses;
+		this.lines = lines;
+		this.files = files;
+		this.fileNames = fileNames;
+	}
+
+	/**
+	 * Returns the number of rows of the table.
+	 */
+	public int getRowCount() {
+		return addresses.length;
+	}
+
+	/**
+	 * Returns the source files referenced by rows of the table.
+	 */
+	public String[] getFileNames() {
+		return fileNames.clone();
+	}
+
+	/**
+	 * Returns the row that covers the given address, or <code>-1</code>.
+	 */
+	private int findRow(long address) {
+		int low = 0;
+		int high = addresses.length - 1;
+		int result = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(addresses[mid], address) <= 0) {
+				result = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		if (result < 0 || files[result] == END_OF_SEQUENCE)
+			return -1;
+		return result;
+	}
+
+	/**
+	 * Returns the source file of the code at the given address, or <code>null</code> if the
+	 * address is not covered by the table.
+	 */
+	public String getFileName(long address) {
+		int row = findRow(address);
+		return row < 0 ? null : fileNames[files[row]];
+	}
+
+	/**
+	 * Returns the line number of the code at the given address, or <code>0</code> if the
+	 * address is not covered by the table.
+	 */
+	public int getLineNumber(long address) {
+		int row = findRow(address);
+		return row < 0 ? 0 : lines[row];
+	}
+
+	/**
+	 * Returns the table cached for the given key, or <code>null</code>.
+	 */
+	static DwarfLineTable getCached(String key) {
+		synchronized (cache) {
+			SoftReference<DwarfLineTable> ref = cache.get(key);
+			return ref == null ? null : ref.get();
+		}
+	}
+
+	static void putCached(String key, DwarfLineTable table) {
+		synchronized (cache) {
+			cache.put(key, new SoftReference<DwarfLineTable>(table));
+		}
+	}
+}
@@ -0,0 +1,518 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils.debug.dwarf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Runs the line number programs of the <code>.debug_line</code> section and collects their
+ * rows into a {@link DwarfLineTable}. The programs of the compilation units are independent of
+ * each other and run on a few threads. Supports DWARF versions 2 to 5.
+ */
+class DwarfLineTableBuilder {
+	private static final int MAX_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+	/** Sections smaller than this are processed on the calling thread. */
+	private static final int MIN_PARALLEL_SIZE = 256 * 1024;
+
+	/**
+	 * The rows of one line number program, file indexes refer to the files of the program.
+	 */
+	private static class Program {
+		final List<String> files = new ArrayList<String>();
+		long[] addresses = new long[64];
+		int[] lines = new int[64];
+		int[] fileIndexes = new int[64];
+		int rowCount;
+		/** Start rows of the sequences. */
+		final List<Integer> sequences = new ArrayList<Integer>();
+
+		void addRow(long address, int line, int file) {
+			if (rowCount == addresses.length) {
+				addresses = Arrays.copyOf(addresses, rowCount * 2);
+				lines = Arrays.copyOf(lines, rowCount * 2);
+				fileIndexes = Arrays.copyOf(fileIndexes, rowCount * 2);
+			}
+			addresses[rowCount] = address;
+			lines[rowCount] = line;
+			fileIndexes[rowCount] = file;
+			rowCount++;
+		}
+	}
+
+	private final ByteBuffer lineSection;
+	private final ByteBuffer strSection;
+	private final ByteBuffer lineStrSection;
+	private final Map<Long, String> compDirs;
+
+	/**
+	 * @param compDirs the compilation directories of the compilation units by the offset of
+	 *     their line number programs
+	 */
+	DwarfLineTableBuilder(ByteBuffer lineSection, ByteBuffer strSection, ByteBuffer lineStrSection,
+			boolean isLE, Map<Long, String> compDirs) {
+		ByteOrder order = isLE ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+		this.lineSection = lineSection.duplicate().order(order);
+		this.strSection = strSection == null ? null : strSection.duplicate().order(order);
+		this.lineStrSection = lineStrSection == null ? null : lineStrSection.duplicate().order(order);
+		this.compDirs = compDirs;
+	}
+
+	DwarfLineTable build() throws InterruptedException {
+		List<Integer> units = findUnits();
+		Program[] programs = new Program[units.size()];
+		if (lineSection.limit() < MIN_PARALLEL_SIZE || MAX_THREADS < 2) {
+			for (int i = 0; i < programs.length; i++) {
+				programs[i] = runProgram(units.get(i));
+			}
+		} else {
+			runInParallel(units, programs);
+		}
+		return merge(programs);
+	}
+
+	private void runInParallel(final List<Integer> units, final Program[] programs) throws InterruptedException {
+		final AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 0, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread(runnable, "DWARF Line Table " + threadCount.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				});
+		try {
+			final AtomicInteger next = new AtomicInteger();
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int t = 0; t < MAX_THREADS; t++) {
+				tasks.add(() -> {
+					for (int i; (i = next.getAndIncrement()) < programs.length;) {
+						programs[i] = runProgram(units.get(i));
+					}
+					return null;
+				});
+			}
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					// runProgram() does not throw.
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the offsets of the line number programs in the section.
+	 */
+	private List<Integer> findUnits() {
+		List<Integer> units = new ArrayList<Integer>();
+		ByteBuffer data = lineSection.duplicate().order(lineSection.order());
+		int offset = 0;
+		boolean aligned = false;
+		while (offset + 16 < data.limit()) {
+			long length = data.getInt(offset) & 0xffffffffL;
+			int lengthSize = 4;
+			if (length == 0xffffffffL) {
+				length = data.getLong(offset + 4);
+				lengthSize = 12;
+			}
+			int version = offset + lengthSize + 2 <= data.limit() ? data.getShort(offset + lengthSize) : 0;
+			if (length <= 0 || version < 2 || version > 5 || offset + lengthSize + length > data.limit()) {
+				// Some compilers pad the line tables to multiples of four.
+				if (aligned || (offset & 3) == 0)
+					break;
+				offset = (offset + 3) & ~3;
+				aligned = true;
+				continue;
+			}
+			aligned = false;
+			units.add(Integer.valueOf(offset));
+			offset += lengthSize + (int) length;
+		}
+		return units;
+	}
+
+	/**
+	 * Runs the line number program at the given offset, returns <code>null</code> if it cannot
+	 * be decoded.
+	 */
+	private Program runProgram(int offset) {
+		try {
+			ByteBuffer data = lineSection.duplicate().order(lineSection.order());
+			data.position(offset);
+			long length = data.getInt() & 0xffffffffL;
+			boolean dwarf64 = false;
+			if (length == 0xffffffffL) {
+				length = data.getLong();
+				dwarf64 = true;
+			}
+			int end = data.position() + (int) length;
+			int version = data.getShort();
+			if (version >= 5) {
+				data.get(); // address_size
+				data.get(); // segment_selector_size
+			}
+			long headerLength = dwarf64 ? data.getLong() : data.getInt() & 0xffffffffL;
+			int programStart = data.position() + (int) headerLength;
+			int minInstructionLength = data.get() & 0xff;
+			if (version >= 4)
+				data.get(); // maximum_operations_per_instruction, VLIW is not supported.
+			data.get(); // default_is_stmt, all rows are used, not only the recommended breakpoint locations.
+			int lineBase = data.get();
+			int lineRange = data.get() & 0xff;
+			int opcodeBase = data.get() & 0xff;
+			int[] opcodeLengths = new int[opcodeBase];
+			for (int i = 1; i < opcodeBase; i++) {
+				opcodeLengths[i] = data.get() & 0xff;
+			}
+			if (lineRange == 0)
+				return null;
+
+			String compDir = compDirs.get(Long.valueOf(offset));
+			if (compDir == null)
+				compDir = ""; //$NON-NLS-1$
+			Program program = new Program();
+			List<String> dirs = new ArrayList<String>();
+			if (version >= 5) {
+				readEntries(data, dwarf64, dirs, null, null);
+				String dir0 = dirs.isEmpty() ? compDir : dirs.get(0);
+				for (int i = 0; i < dirs.size(); i++) {
+					dirs.set(i, combine(i == 0 ? compDir : dir0, dirs.get(i)));
+				}
+				readEntries(data, dwarf64, program.files, dirs, dir0);
+			} else {
+				dirs.add(compDir);
+				for (String dir; !(dir = readString(data)).isEmpty();) {
+					dirs.add(combine(compDir, dir));
+				}
+				// File numbers start at one.
+				program.files.add(null);
+				for (String name; !(name = readString(data)).isEmpty();) {
+					int dir = (int) readUnsignedLeb128(data);
+					readUnsignedLeb128(data); // modification time
+					readUnsignedLeb128(data); // length
+					program.files.add(combine(dir < dirs.size() ? dirs.get(dir) : compDir, name));
+				}
+			}
+
+			data.position(programStart);
+			long address = 0;
+			int file = 1;
+			int line = 1;
+			boolean sequenceStart = true;
+			while (data.position() < end) {
+				int opcode = data.get() & 0xff;
+				if (opcode >= opcodeBase) {
+					int adjusted = opcode - opcodeBase;
+					address += (adjusted / lineRange) * minInstructionLength;
+					line += lineBase + adjusted % lineRange;
+					if (sequenceStart) {
+						program.sequences.add(Integer.valueOf(program.rowCount));
+						sequenceStart = false;
+					}
+					program.addRow(address, line, file);
+					continue;
+				}
+				switch (opcode) {
+				case 0: {
+					int len = (int) readUnsignedLeb128(data);
+					int next = data.position() + len;
+					int sub = len > 0 ? data.get() & 0xff : 0;
+					switch (sub) {
+					case DwarfConstants.DW_LNE_end_sequence:
+						if (!sequenceStart)
+							program.addRow(address, 0, DwarfLineTable.END_OF_SEQUENCE);
+						sequenceStart = true;
+						address = 0;
+						file = 1;
+						line = 1;
+						break;
+					case DwarfConstants.DW_LNE_set_address:
+						address = len - 1 == 8 ? data.getLong() : data.getInt() & 0xffffffffL;
+						break;
+					case DwarfConstants.DW_LNE_define_file: {
+						String name = readString(data);
+						int dir = (int) readUnsignedLeb128(data);
+						program.files.add(combine(dir < dirs.size() ? dirs.get(dir) : compDir, name));
+						break;
+					}
+					default:
+						break;
+					}
+					data.position(next);
+					break;
+				}
+				case DwarfConstants.DW_LNS_copy:
+					if (sequenceStart) {
+						program.sequences.add(Integer.valueOf(program.rowCount));
+						sequenceStart = false;
+					}
+					program.addRow(address, line, file);
+					break;
+				case DwarfConstants.DW_LNS_advance_pc:
+					address += readUnsignedLeb128(data) * minInstructionLength;
+					break;
+				case DwarfConstants.DW_LNS_advance_line:
+					line += (int) readSignedLeb128(data);
+					break;
+				case DwarfConstants.DW_LNS_set_file:
+					file = (int) readUnsignedLeb128(data);
+					break;
+				case DwarfConstants.DW_LNS_const_add_pc:
+					address += ((255 - opcodeBase) / lineRange) * minInstructionLength;
+					break;
+				case DwarfConstants.DW_LNS_fixed_advance_pc:
+					address += data.getShort() & 0xffff;
+					break;
+				case DwarfConstants.DW_LNS_negate_stmt:
+				case DwarfConstants.DW_LNS_set_basic_block:
+				case DwarfConstants.DW_LNS_set_prologue_end:
+				case DwarfConstants.DW_LNS_set_epilog_begin:
+					break;
+				default:
+					// Standard opcodes with arguments, like set_column, set_isa or unknown ones.
+					for (int i = 0; i < opcodeLengths[opcode]; i++) {
+						readUnsignedLeb128(data);
+					}
+					break;
+				}
+			}
+			return program;
+		} catch (RuntimeException e) {
+			// A malformed program, e.g. a BufferUnderflowException or an IndexOutOfBoundsException.
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the directory or file name entries of a DWARF 5 line number program header. For
+	 * file names, <code>dirs</code> holds the directories to combine them with.
+	 */
+	private void readEntries(ByteBuffer data, boolean dwarf64, List<String> result, List<String> dirs, String dir0) {
+		int formatCount = data.get() & 0xff;
+		int[] contentTypes = new int[formatCount];
+		int[] forms = new int[formatCount];
+		for (int i = 0; i < formatCount; i++) {
+			contentTypes[i] = (int) readUnsignedLeb128(data);
+			forms[i] = (int) readUnsignedLeb128(data);
+		}
+		long count = readUnsignedLeb128(data);
+		for (long n = 0; n < count; n++) {
+			String path = ""; //$NON-NLS-1$
+			int dirIndex = 0;
+			for (int i = 0; i < formatCount; i++) {
+				Object value = readForm(data, forms[i], dwarf64);
+				if (contentTypes[i] == DwarfConstants.DW_LNCT_path && value instanceof String) {
+					path = (String) value;
+				} else if (contentTypes[i] == DwarfConstants.DW_LNCT_directory_index && value instanceof Long) {
+					dirIndex = ((Long) value).intValue();
+				}
+			}
+			if (dirs == null) {
+				result.add(path);
+			} else {
+				result.add(combine(dirIndex < dirs.size() ? dirs.get(dirIndex) : dir0, path));
+			}
+		}
+	}
+
+	private Object readForm(ByteBuffer data, int form, boolean dwarf64) {
+		switch (form) {
+		case DwarfConstants.DW_FORM_string:
+			return readString(data);
+		case DwarfConstants.DW_FORM_strp:
+		case DwarfConstants.DW_FORM_line_strp: {
+			long offset = dwarf64 ? data.getLong() : data.getInt() & 0xffffffffL;
+			ByteBuffer strings = form == DwarfConstants.DW_FORM_strp ? strSection : lineStrSection;
+			if (strings == null || offset >= strings.limit())
+				return ""; //$NON-NLS-1$
+			ByteBuffer str = strings.duplicate();
+			str.position((int) offset);
+			return readString(str);
+		}
+		case DwarfConstants.DW_FORM_data1:
+			return Long.valueOf(data.get() & 0xff);
+		case DwarfConstants.DW_FORM_data2:
+			return Long.valueOf(data.getShort() & 0xffff);
+		case DwarfConstants.DW_FORM_data4:
+			return Long.valueOf(data.getInt() & 0xffffffffL);
+		case DwarfConstants.DW_FORM_data8:
+			return Long.valueOf(data.getLong());
+		case DwarfConstants.DW_FORM_udata:
+			return Long.valueOf(readUnsignedLeb128(data));
+		case DwarfConstants.DW_FORM_sdata:
+			return Long.valueOf(readSignedLeb128(data));
+		case DwarfConstants.DW_FORM_data16:
+			data.position(data.position() + 16);
+			return null;
+		case DwarfConstants.DW_FORM_block:
+			data.position(data.position() + (int) readUnsignedLeb128(data));
+			return null;
+		case DwarfConstants.DW_FORM_block1:
+			data.position(data.position() + (data.get() & 0xff));
+			return null;
+		case DwarfConstants.DW_FORM_block2:
+			data.position(data.position() + (data.getShort() & 0xffff));
+			return null;
+		case DwarfConstants.DW_FORM_block4:
+			data.position(data.position() + data.getInt());
+			return null;
+		default:
+			// E.g. DW_FORM_strx needs .debug_str_offsets, the size of the entry is unknown.
+			throw new IllegalArgumentException("Unsupported form " + form); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Combines the directory and the file name the way {@link DwarfReader} does for the list
+	 * of source files.
+	 */
+	private static String combine(String dir, String name) {
+		IPath path = new Path(name);
+		if (!path.isAbsolute() && dir != null && dir.length() > 0)
+			path = new Path(dir).append(path);
+		return path.toOSString();
+	}
+
+	private static String readString(ByteBuffer data) {
+		int start = data.position();
+		int end = start;
+		while (end < data.limit() && data.get(end) != 0)
+			end++;
+		byte[] bytes = new byte[end - start];
+		data.get(bytes);
+		if (data.hasRemaining())
+			data.get(); // the terminating zero
+		return new String(bytes);
+	}
+
+	private static long readUnsignedLeb128(ByteBuffer data) {
+		long result = 0;
+		int shift = 0;
+		while (true) {
+			byte b = data.get();
+			if (shift < 64)
+				result |= (long) (b & 0x7f) << shift;
+			shift += 7;
+			if ((b & 0x80) == 0)
+				return result;
+		}
+	}
+
+	private static long readSignedLeb128(ByteBuffer data) {
+		long result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = data.get();
+			if (shift < 64)
+				result |= (long) (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		if (shift < 64 && (b & 0x40) != 0)
+			result |= -1L << shift;
+		return result;
+	}
+
+	/**
+	 * Orders the sequences of all programs by their start address and concatenates them.
+	 */
+	private static DwarfLineTable merge(Program[] programs) {
+		Map<String, Integer> fileIndexes = new HashMap<String, Integer>();
+		List<String> fileNames = new ArrayList<String>();
+		List<long[]> sequences = new ArrayList<long[]>(); // { start address, program, first row, end row }
+		int rowCount = 0;
+		int[][] fileMaps = new int[programs.length][];
+		for (int p = 0; p < programs.length; p++) {
+			Program program = programs[p];
+			if (program == null)
+				continue;
+			int[] fileMap = new int[program.files.size()];
+			for (int i = 0; i < fileMap.length; i++) {
+				String name = program.files.get(i);
+				if (name == null) {
+					fileMap[i] = DwarfLineTable.END_OF_SEQUENCE;
+					continue;
+				}
+				Integer index = fileIndexes.get(name);
+				if (index == null) {
+					index = Integer.valueOf(fileNames.size());
+					fileIndexes.put(name, index);
+					fileNames.add(name);
+				}
+				fileMap[i] = index.intValue();
+			}
+			fileMaps[p] = fileMap;
+			for (int s = 0; s < program.sequences.size(); s++) {
+				int first = program.sequences.get(s).intValue();
+				int end = s + 1 < program.sequences.size() ? program.sequences.get(s + 1).intValue() : program.rowCount;
+				sequences.add(new long[] { program.addresses[first], p, first, end });
+				rowCount += end - first;
+			}
+		}
+		Collections.sort(sequences, (a, b) -> Long.compareUnsigned(a[0], b[0]));
+
+		long[] addresses = new long[rowCount];
+		int[] lines = new int[rowCount];
+		int[] files = new int[rowCount];
+		int row = 0;
+		boolean sorted = true;
+		for (long[] sequence : sequences) {
+			Program program = programs[(int) sequence[1]];
+			int[] fileMap = fileMaps[(int) sequence[1]];
+			for (int i = (int) sequence[2]; i < sequence[3]; i++, row++) {
+				addresses[row] = program.addresses[i];
+				lines[row] = program.lines[i];
+				int file = program.fileIndexes[i];
+				files[row] = file >= 0 && file < fileMap.length ? fileMap[file] : DwarfLineTable.END_OF_SEQUENCE;
+				if (row > 0 && Long.compareUnsigned(addresses[row - 1], addresses[row]) > 0)
+					sorted = false;
+			}
+		}
+		if (!sorted) {
+			// Overlapping sequences, e.g. in object files where all sections start at zero.
+			Integer[] order = new Integer[rowCount];
+			for (int i = 0; i < rowCount; i++) {
+				order[i] = Integer.valueOf(i);
+			}
+			final long[] unsorted = addresses;
+			Arrays.sort(order, (a, b) -> Long.compareUnsigned(unsorted[a.intValue()], unsorted[b.intValue()]));
+			long[] sortedAddresses = new long[rowCount];
+			int[] sortedLines = new int[rowCount];
+			int[] sortedFiles = new int[rowCount];
+			for (int i = 0; i < rowCount; i++) {
+				int from = order[i].intValue();
+				sortedAddresses[i] = addresses[from];
+				sortedLines[i] = lines[from];
+				sortedFiles[i] = files[from];
+			}
+			addresses = sortedAddresses;
+			lines = sortedLines;
+			files = sortedFiles;
+		}
+		return new DwarfLineTable(addresses, lines, files, fileNames.toArray(new String[fileNames.size()]));
+	}
+}
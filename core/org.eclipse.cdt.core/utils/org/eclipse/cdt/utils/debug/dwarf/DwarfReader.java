@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 Nokia and others.
+ * Copyright (c) 2007, 2018 Nokia and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,8 +14,11 @@
 
 package org.eclipse.cdt.utils.debug.dwarf;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -24,12 +27,16 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
 
 import javax.xml.bind.DatatypeConverter;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.ICompileOptionsFinder;
 import org.eclipse.cdt.core.ISymbolReader;
+import org.eclipse.cdt.internal.core.BinaryMetadataCache;
+import org.eclipse.cdt.internal.core.BinaryMetadataCache.Stamp;
 import org.eclipse.cdt.utils.coff.Coff.SectionHeader;
 import org.eclipse.cdt.utils.coff.PE;
 import org.eclipse.cdt.utils.debug.IDebugEntryRequestor;
@@ -51,20 +58,30 @@ public class DwarfReader extends Dwarf implements ISymbolReader, ICompileOptions
 		DWARF_DEBUG_LINE,
 		DWARF_DEBUG_ABBREV, 
 		DWARF_DEBUG_STR, // this is optional. Some compilers don't generate it.
-		DWARF_DEBUG_MACRO, };
+		DWARF_DEBUG_MACRO,
+		DWARF_DEBUG_LINE_STR, };
 	
 	final static String[] DWARF_ALT_SectionsToParse = { 
 		DWARF_DEBUG_STR, 
 		DWARF_DEBUG_MACRO };
 
+	// Sections of the persistent cache.
+	private static final String SOURCES_SECTION = "dwarf.sources"; //$NON-NLS-1$
+	private static final String OPTIONS_SECTION = "dwarf.options"; //$NON-NLS-1$
+
 	private final Collection<String>	m_fileCollection = new HashSet<String>();
 	private final Map<Long, String>  m_stmtFileMap = new HashMap<Long, String>();
+	private final Map<Long, String>  m_stmtCompDirMap = new HashMap<Long, String>();
 	private final Map<String, ArrayList<String>> m_compileOptionsMap = new HashMap<String, ArrayList<String>>();
 	private String[] 	m_fileNames = null;
 	private boolean		m_parsed = false;
 	private boolean		m_macros_parsed = false;
 	private final ArrayList<Integer>	m_parsedLineTableOffsets = new ArrayList<Integer>();
 	private long			m_parsedLineTableSize = 0;
+	private DwarfLineTable	m_lineTable = null;
+	// Assigned by init(), which runs before the initializers of this class.
+	private String			m_binaryPath;
+	private Stamp			m_binaryStamp;
 		
 	public DwarfReader(String file) throws IOException {
 		super(file);
@@ -89,6 +106,8 @@ public class DwarfReader extends Dwarf implements ISymbolReader, ICompileOptions
 		isLE = header.e_ident[Elf.ELFhdr.EI_DATA] == Elf.ELFhdr.ELFDATA2LSB;
 
 		IPath debugInfoPath = new Path(exe.getFilename());
+		m_binaryPath = exe.getFilename();
+		m_binaryStamp = BinaryMetadataCache.getStamp(m_binaryPath);
 		Elf.Section[] sections = exe.getSections();
 		
 		boolean have_build_id = false;
@@ -536,6 +555,25 @@ public class DwarfReader extends Dwarf implements ISymbolReader, ICompileOptions
 
 	@Override
 	public String[] getSourceFiles() {
+		if (m_fileNames == null) {
+			BinaryMetadataCache cache = getMetadataCache();
+			if (cache != null) {
+				m_fileNames = readSourceFiles(cache);
+			}
+			if (m_fileNames == null) {
+				parseSourceFiles();
+				if (cache != null) {
+					writeSourceFiles(cache);
+				}
+			}
+		}
+		return m_fileNames;
+	}
+
+	/**
+	 * Parses the compile units, which also collects their compilation directories.
+	 */
+	private void parseSourceFiles() {
 		if (!m_parsed) {
 			m_fileCollection.clear();
 
@@ -548,8 +586,38 @@ public class DwarfReader extends Dwarf implements ISymbolReader, ICompileOptions
 			m_fileNames = new String[m_fileCollection.size()];
 			m_fileCollection.toArray(m_fileNames);
 		}
+	}
 
-		return m_fileNames;
+	private BinaryMetadataCache getMetadataCache() {
+		return m_binaryPath != null ? BinaryMetadataCache.getDefault() : null;
+	}
+
+	private String[] readSourceFiles(BinaryMetadataCache cache) {
+		ByteBuffer buffer = cache.get(m_binaryPath, SOURCES_SECTION);
+		if (buffer == null)
+			return null;
+		try {
+			String[] fileNames = new String[BinaryMetadataCache.getCount(buffer, 4)];
+			for (int i = 0; i < fileNames.length; i++) {
+				fileNames[i] = BinaryMetadataCache.getString(buffer);
+			}
+			return fileNames;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private void writeSourceFiles(BinaryMetadataCache cache) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(m_fileNames.length);
+			for (String fileName : m_fileNames) {
+				BinaryMetadataCache.putString(out, fileName);
+			}
+		} catch (IOException e) {
+			return;
+		}
+		cache.put(m_binaryPath, m_binaryStamp, SOURCES_SECTION, bytes.toByteArray());
 	}
 
 	/*
@@ -643,8 +711,10 @@ public class DwarfReader extends Dwarf implements ISymbolReader, ICompileOptions
 		}
 
 		addSourceFileWithStmt(cuCompDir, cuName, stmtList);
-		if (stmtList > -1)	// this CU has "stmt_list" attribute
+		if (stmtList > -1) {	// this CU has "stmt_list" attribute
+			m_stmtCompDirMap.put(Long.valueOf(stmtList), cuCompDir);
 			parseSourceInCULineInfo(cuCompDir, stmtList);
+		}
 	}
 	
 	/**
@@ -655,6 +725,62 @@ public class DwarfReader extends Dwarf implements ISymbolReader, ICompileOptions
 		return getSourceFiles();
 	}
 
+	/**
+	 * Returns the rows of the line number programs in the <code>.debug_line</code> section,
+	 * indexed by address, or <code>null</code> if there is no such section. Tables are cached
+	 * per binary and by the content of the section and the compilation directories, such that
+	 * readers of the same or identical binaries share them.
+	 *
+	 * @since 6.5
+	 */
+	public DwarfLineTable getLineTable() {
+		if (m_lineTable == null) {
+			ByteBuffer data = dwarfSections.get(DWARF_DEBUG_LINE);
+			if (data == null)
+				return null;
+			// Look up the binary by its time stamp first, to avoid hashing the section.
+			String fileKey = null;
+			if (m_binaryPath != null) {
+				File file = new File(m_binaryPath);
+				fileKey = file.getAbsolutePath() + ':' + file.length() + ':' + file.lastModified();
+				m_lineTable = DwarfLineTable.getCached(fileKey);
+				if (m_lineTable != null)
+					return m_lineTable;
+			}
+			// The compilation directories are needed for relative file names. Units the
+			// reader fails on are left without, DWARF 5 line programs name their directory.
+			try {
+				parseSourceFiles();
+			} catch (RuntimeException e) {
+				// Unsupported unit header, e.g. DWARF 5.
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(data.duplicate());
+			StringBuilder key = new StringBuilder();
+			key.append(Long.toHexString(crc.getValue())).append(':').append(data.capacity());
+			for (Map.Entry<Long, String> entry : new TreeMap<Long, String>(m_stmtCompDirMap).entrySet()) {
+				key.append(':').append(entry.getKey()).append('=').append(entry.getValue());
+			}
+			String contentKey = key.toString();
+			m_lineTable = DwarfLineTable.getCached(contentKey);
+			if (m_lineTable == null) {
+				try {
+					m_lineTable = new DwarfLineTableBuilder(data, dwarfSections.get(DWARF_DEBUG_STR),
+							dwarfSections.get(DWARF_DEBUG_LINE_STR), isLE, m_stmtCompDirMap).build();
+					DwarfLineTable.putCached(contentKey, m_lineTable);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
+			if (fileKey != null) {
+				DwarfLineTable.putCached(fileKey, m_lineTable);
+			}
+		}
+		return m_lineTable;
+	}
+
 	private class OpcodeInfo {
 		private int numArgs;
 		private final boolean offset_size_8;
@@ -1041,8 +1167,14 @@ public class DwarfReader extends Dwarf implements ISymbolReader, ICompileOptions
 	@Override
 	public String getCompileOptions(String fileName) {
 		if (!m_macros_parsed) {
-			getSourceFiles();
-			getCommandMacrosFromMacroSection();
+			BinaryMetadataCache cache = getMetadataCache();
+			if (cache == null || !readCompileOptions(cache)) {
+				parseSourceFiles();
+				getCommandMacrosFromMacroSection();
+				if (cache != null) {
+					writeCompileOptions(cache);
+				}
+			}
 			m_macros_parsed = true;
 		}
 		ArrayList<String>macros = m_compileOptionsMap.get(fileName);
@@ -1057,4 +1189,43 @@ public class DwarfReader extends Dwarf implements ISymbolReader, ICompileOptions
 		return sb.toString();
 	}
 
+	private boolean readCompileOptions(BinaryMetadataCache cache) {
+		ByteBuffer buffer = cache.get(m_binaryPath, OPTIONS_SECTION);
+		if (buffer == null)
+			return false;
+		try {
+			Map<String, ArrayList<String>> options = new HashMap<String, ArrayList<String>>();
+			// A file name and the number of its options.
+			for (int i = BinaryMetadataCache.getCount(buffer, 8); i > 0; i--) {
+				String fileName = BinaryMetadataCache.getString(buffer);
+				int count = BinaryMetadataCache.getCount(buffer, 4);
+				ArrayList<String> macros = new ArrayList<String>(count);
+				for (int j = 0; j < count; j++) {
+					macros.add(BinaryMetadataCache.getString(buffer));
+				}
+				options.put(fileName, macros);
+			}
+			m_compileOptionsMap.putAll(options);
+			return true;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private void writeCompileOptions(BinaryMetadataCache cache) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(m_compileOptionsMap.size());
+			for (Map.Entry<String, ArrayList<String>> entry : m_compileOptionsMap.entrySet()) {
+				BinaryMetadataCache.putString(out, entry.getKey());
+				out.writeInt(entry.getValue().size());
+				for (String option : entry.getValue()) {
+					BinaryMetadataCache.putString(out, option);
+				}
+			}
+		} catch (IOException e) {
+			return;
+		}
+		cache.put(m_binaryPath, m_binaryStamp, OPTIONS_SECTION, bytes.toByteArray());
+	}
 }
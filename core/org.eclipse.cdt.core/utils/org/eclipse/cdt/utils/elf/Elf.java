@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 QNX Software Systems and others.
+ * Copyright (c) 2000, 2018 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,10 +25,13 @@ import org.eclipse.cdt.utils.Addr64;
 import org.eclipse.cdt.utils.Addr64Factory;
 import org.eclipse.cdt.utils.ERandomAccessFile;
 import org.eclipse.cdt.utils.debug.dwarf.DwarfReader;
+import org.eclipse.core.runtime.Platform;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -54,6 +57,7 @@ public class Elf {
 	private Symbol[] dynsym_symbols;
 	private Section dynsym_sym;
 	private boolean sections_mapped; // Have sections been mapped? Used to clean up properly in Elf.Dispose.
+	private long file_offset; // Offset of the ELF object in the file, non-zero for members of archives.
 
 	protected String EMPTY_STRING = ""; //$NON-NLS-1$
 
@@ -429,6 +433,11 @@ public class Elf {
 			sym_section = section;
 		}
 
+		Symbol(Section section, String name) {
+			sym_section = section;
+			this.name = name;
+		}
+
 		public int st_type() {
 			return st_info & 0xf;
 		}
@@ -663,6 +672,7 @@ public class Elf {
 		try {
 			efile = new ERandomAccessFile(file, "r"); //$NON-NLS-1$
 			efile.setFileOffset(offset);
+			file_offset = offset;
 			ehdr = new ELFhdr();
 			this.file = file;
 		} finally {
@@ -1143,6 +1153,49 @@ public class Elf {
 		return symbols;
 	}
 
+	/**
+	 * Returns a view on the first symbol table of the given type, or <code>null</code> if
+	 * there is none. Unlike {@link #loadSymbols()}, this does not create an object for every
+	 * symbol. The table and its string table are memory mapped, except on Windows, where they
+	 * are read into memory in one piece, because a mapped file cannot be deleted until the
+	 * mapping is garbage collected.
+	 *
+	 * @param type either {@link Section#SHT_SYMTAB} or {@link Section#SHT_DYNSYM}
+	 * @since 6.5
+	 */
+	public ElfSymbolTable getSymbolTable(int type) throws IOException {
+		Section[] tables = getSections(type);
+		if (tables.length == 0)
+			return null;
+		Section table = tables[0];
+		ByteBuffer strings = null;
+		if (table.sh_link > 0 && table.sh_link < sections.length) {
+			strings = readSectionData(sections[(int) table.sh_link]);
+		}
+		return new ElfSymbolTable(this, table, readSectionData(table), strings,
+				ehdr.e_ident[ELFhdr.EI_CLASS] == ELFhdr.ELFCLASS64);
+	}
+
+	private ByteBuffer readSectionData(Section section) throws IOException {
+		if (section.sh_size > Integer.MAX_VALUE || section.sh_type == Section.SHT_NOBITS)
+			throw new IOException("Cannot read section " + section); //$NON-NLS-1$
+		FileChannel channel = efile.getChannel();
+		long position = file_offset + section.sh_offset;
+		int size = (int) section.sh_size;
+		ByteBuffer buffer;
+		if (Platform.OS_WIN32.equals(Platform.getOS())) {
+			buffer = ByteBuffer.allocate(size);
+			while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+				// Read until the section is complete or the end of the file is reached.
+			}
+			buffer.flip();
+		} else {
+			buffer = channel.map(MapMode.READ_ONLY, position, size);
+		}
+		boolean isle = ehdr.e_ident[ELFhdr.EI_DATA] == ELFhdr.ELFDATA2LSB;
+		return buffer.order(isle ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+	}
+
 	public Symbol[] getDynamicSymbols() {
 		return dynsym_symbols;
 	}
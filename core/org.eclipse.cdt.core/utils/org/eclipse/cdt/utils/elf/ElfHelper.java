@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 QNX Software Systems and others.
+ * Copyright (c) 2000, 2018 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,9 +13,9 @@ package org.eclipse.cdt.utils.elf;
 import java.io.File;
 import java.io.IOException;
 import java.util.Vector;
+import java.util.function.IntPredicate;
 
 import org.eclipse.cdt.utils.elf.Elf.Dynamic;
-import org.eclipse.cdt.utils.elf.Elf.Symbol;
 
 /**
  * <code>ElfHelper</code> is a wrapper class for the <code>Elf</code> class
@@ -26,8 +26,9 @@ import org.eclipse.cdt.utils.elf.Elf.Symbol;
 public class ElfHelper {
 
 	private Elf elf;
-	private Elf.Symbol[] dynsyms;
-	private Elf.Symbol[] symbols;
+	private ElfSymbolTable dynsyms;
+	private ElfSymbolTable symbols;
+	private boolean symbols_loaded;
 	private Elf.Section[] sections;
 	private Elf.Dynamic[] dynamics;
 
@@ -53,18 +54,41 @@ public class ElfHelper {
 	}
 
 	private void loadSymbols() throws IOException {
-		if (symbols == null) {
-			elf.loadSymbols();
-			symbols = elf.getSymtabSymbols();
-			dynsyms = elf.getDynamicSymbols();
+		if (!symbols_loaded) {
+			symbols = elf.getSymbolTable(Elf.Section.SHT_SYMTAB);
+			dynsyms = elf.getSymbolTable(Elf.Section.SHT_DYNSYM);
+			symbols_loaded = true;
 
-			if (symbols.length <= 0)
+			if (symbols == null || symbols.getCount() <= 0)
 				symbols = dynsyms;
-			if (dynsyms.length <= 0)
+			if (dynsyms == null || dynsyms.getCount() <= 0)
 				dynsyms = symbols;
 		}
 	}
 
+	/**
+	 * Creates symbols for the entries of the table accepted by the filter, in the order of
+	 * their addresses. Only the accepted entries are decoded into objects.
+	 */
+	private static Elf.Symbol[] select(ElfSymbolTable table, IntPredicate filter) {
+		if (table == null)
+			return new Elf.Symbol[0];
+		return table.streamByAddress().filter(filter).mapToObj(table::createSymbol).toArray(Elf.Symbol[]::new);
+	}
+
+	/**
+	 * Returns whether the symbol has a name if its section index is processor specific,
+	 * or otherwise whether the type of its section is {@link Elf.Section#SHT_NULL} as requested.
+	 */
+	private boolean isInSection(ElfSymbolTable table, int symbol, boolean nullSection) {
+		int idx = table.getSectionIndex(symbol);
+		if (idx < Elf.Symbol.SHN_HIPROC && idx > Elf.Symbol.SHN_LOPROC) {
+			return !table.hasBlankName(symbol);
+		}
+		return idx >= 0 && idx < sections.length
+				&& (sections[idx].sh_type == Elf.Section.SHT_NULL) == nullSection;
+	}
+
 	private void loadSections() throws IOException {
 		if (sections == null)
 			sections = elf.getSections();
@@ -127,128 +151,53 @@ public class ElfHelper {
 	}
 
 	public Elf.Symbol[] getExternalFunctions() throws IOException {
-		Vector<Symbol> v = new Vector<Symbol>();
-
 		loadSymbols();
 		loadSections();
 
-		for (int i = 0; i < dynsyms.length; i++) {
-			if (dynsyms[i].st_bind() == Elf.Symbol.STB_GLOBAL && dynsyms[i].st_type() == Elf.Symbol.STT_FUNC) {
-				int idx = dynsyms[i].st_shndx;
-				if (idx < Elf.Symbol.SHN_HIPROC && idx > Elf.Symbol.SHN_LOPROC) {
-					String name = dynsyms[i].toString();
-					if (name != null && name.trim().length() > 0)
-						v.add(dynsyms[i]);
-				} else if (idx >= 0 && sections[idx].sh_type == Elf.Section.SHT_NULL) {
-					v.add(dynsyms[i]);
-				}
-			}
-		}
-
-		Elf.Symbol[] ret = v.toArray(new Elf.Symbol[v.size()]);
-		return ret;
+		final ElfSymbolTable table = dynsyms;
+		return select(table, i -> table.getBind(i) == Elf.Symbol.STB_GLOBAL && table.getType(i) == Elf.Symbol.STT_FUNC
+				&& isInSection(table, i, true));
 	}
 
 	public Elf.Symbol[] getExternalObjects() throws IOException {
-		Vector<Symbol> v = new Vector<Symbol>();
-
 		loadSymbols();
 		loadSections();
 
-		for (int i = 0; i < dynsyms.length; i++) {
-			if (dynsyms[i].st_bind() == Elf.Symbol.STB_GLOBAL && dynsyms[i].st_type() == Elf.Symbol.STT_OBJECT) {
-				int idx = dynsyms[i].st_shndx;
-				if (idx < Elf.Symbol.SHN_HIPROC && idx > Elf.Symbol.SHN_LOPROC) {
-					String name = dynsyms[i].toString();
-					if (name != null && name.trim().length() > 0)
-						v.add(dynsyms[i]);
-				} else if (idx >= 0 && sections[idx].sh_type == Elf.Section.SHT_NULL) {
-					v.add(dynsyms[i]);
-				}
-			}
-		}
-
-		Elf.Symbol[] ret = v.toArray(new Elf.Symbol[v.size()]);
-		return ret;
+		final ElfSymbolTable table = dynsyms;
+		return select(table, i -> table.getBind(i) == Elf.Symbol.STB_GLOBAL && table.getType(i) == Elf.Symbol.STT_OBJECT
+				&& isInSection(table, i, true));
 	}
 
 	public Elf.Symbol[] getUndefined() throws IOException {
-		Vector<Symbol> v = new Vector<Symbol>();
-
 		loadSymbols();
 
-		for (int i = 0; i < dynsyms.length; i++) {
-			if (dynsyms[i].st_shndx == Elf.Symbol.SHN_UNDEF)
-				v.add(dynsyms[i]);
-		}
-
-		Elf.Symbol[] ret = v.toArray(new Elf.Symbol[v.size()]);
-		return ret;
+		final ElfSymbolTable table = dynsyms;
+		return select(table, i -> table.getSectionIndex(i) == Elf.Symbol.SHN_UNDEF);
 	}
 
 	public Elf.Symbol[] getLocalFunctions() throws IOException {
-		Vector<Symbol> v = new Vector<Symbol>();
-
 		loadSymbols();
 		loadSections();
 
-		for (int i = 0; i < symbols.length; i++) {
-			if ( symbols[i].st_type() == Elf.Symbol.STT_FUNC) {
-				int idx = symbols[i].st_shndx;
-				if (idx < Elf.Symbol.SHN_HIPROC && idx > Elf.Symbol.SHN_LOPROC) {
-					String name = symbols[i].toString();
-					if (name != null && name.trim().length() > 0)
-						v.add(symbols[i]);
-				} else if (idx >= 0 && sections[idx].sh_type != Elf.Section.SHT_NULL) {
-					v.add(symbols[i]);
-				}
-			}
-		}
-
-		Elf.Symbol[] ret = v.toArray(new Elf.Symbol[v.size()]);
-		return ret;
+		final ElfSymbolTable table = symbols;
+		return select(table, i -> table.getType(i) == Elf.Symbol.STT_FUNC && isInSection(table, i, false));
 	}
 
 	public Elf.Symbol[] getLocalObjects() throws IOException {
-		Vector<Symbol> v = new Vector<Symbol>();
-
 		loadSymbols();
 		loadSections();
 
-		for (int i = 0; i < symbols.length; i++) {
-			if ( symbols[i].st_type() == Elf.Symbol.STT_OBJECT) {
-				int idx = symbols[i].st_shndx;
-				if (idx < Elf.Symbol.SHN_HIPROC && idx > Elf.Symbol.SHN_LOPROC) {
-					String name = symbols[i].toString();
-					if (name != null && name.trim().length() > 0)
-						v.add(symbols[i]);
-				} else if (idx >= 0 && sections[idx].sh_type != Elf.Section.SHT_NULL) {
-					v.add(symbols[i]);
-				}
-			}
-		}
-
-		Elf.Symbol[] ret = v.toArray(new Elf.Symbol[v.size()]);
-		return ret;
+		final ElfSymbolTable table = symbols;
+		return select(table, i -> table.getType(i) == Elf.Symbol.STT_OBJECT && isInSection(table, i, false));
 	}
 
 	public Elf.Symbol[] getCommonObjects() throws IOException {
-		Vector<Symbol> v = new Vector<Symbol>();
-
 		loadSymbols();
 		loadSections();
 
-		for (int i = 0; i < symbols.length; i++) {
-			if (symbols[i].st_bind() == Elf.Symbol.STB_GLOBAL && symbols[i].st_type() == Elf.Symbol.STT_OBJECT) {
-				int idx = symbols[i].st_shndx;
-				if (idx == Elf.Symbol.SHN_COMMON) {
-					v.add(symbols[i]);
-				}
-			}
-		}
-
-		Elf.Symbol[] ret = v.toArray(new Elf.Symbol[v.size()]);
-		return ret;
+		final ElfSymbolTable table = symbols;
+		return select(table, i -> table.getBind(i) == Elf.Symbol.STB_GLOBAL && table.getType(i) == Elf.Symbol.STT_OBJECT
+				&& table.getSectionIndex(i) == Elf.Symbol.SHN_COMMON);
 	}
 
 	public Elf.Dynamic[] getNeeded() throws IOException {
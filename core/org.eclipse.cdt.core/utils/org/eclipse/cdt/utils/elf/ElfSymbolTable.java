@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.cdt.utils.elf;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.eclipse.cdt.utils.Addr32;
+import org.eclipse.cdt.utils.Addr64;
+
+/**
+ * A view on a symbol table (<code>.symtab</code> or <code>.dynsym</code>) of an ELF file that
+ * decodes the entries from the section data on demand, rather than creating an
+ * {@link Elf.Symbol} for each of them.
+ * <p>
+ * Symbols are identified by their index in the table. Entries with an <code>st_info</code> of
+ * zero are left out, the same way {@link Elf#loadSymbols()} does. The order by address is
+ * computed on first use and kept in primitive arrays.
+ *
+ * @see Elf#getSymbolTable(int)
+ * @since 6.5
+ */
+public class ElfSymbolTable {
+	private final Elf elf;
+	private final Elf.Section section;
+	private final ByteBuffer data;
+	private final ByteBuffer strings;
+	private final boolean is64;
+	private final int entsize;
+
+	private int[] entries;
+	private int[] by_address;
+	private long[] sorted_keys;
+
+	ElfSymbolTable(Elf elf, Elf.Section section, ByteBuffer data, ByteBuffer strings, boolean is64) {
+		this.elf = elf;
+		this.section = section;
+		this.data = data;
+		this.strings = strings;
+		this.is64 = is64;
+		int size = (int) section.sh_entsize;
+		if (size == 0)
+			size = is64 ? 24 : 16;
+		this.entsize = size;
+	}
+
+	/**
+	 * Returns the section of the table.
+	 */
+	public Elf.Section getSection() {
+		return section;
+	}
+
+	private int[] getEntries() {
+		if (entries == null) {
+			int total = data.limit() / entsize;
+			int[] result = new int[total];
+			int count = 0;
+			int infoOffset = is64 ? 4 : 12;
+			for (int i = 0; i < total; i++) {
+				if (data.get(i * entsize + infoOffset) != 0)
+					result[count++] = i * entsize;
+			}
+			entries = count == total ? result : Arrays.copyOf(result, count);
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns the number of symbols in the table.
+	 */
+	public int getCount() {
+		return getEntries().length;
+	}
+
+	/**
+	 * Returns the indices of all symbols in the order of the table.
+	 */
+	public IntStream stream() {
+		return IntStream.range(0, getCount());
+	}
+
+	/**
+	 * Returns the indices of all symbols ordered by their address. Symbols with the same
+	 * address keep the order of the table.
+	 */
+	public IntStream streamByAddress() {
+		final int[] order = getAddressOrder();
+		return IntStream.range(0, order.length).map(i -> order[i]);
+	}
+
+	/** Returns <code>st_value</code> of the symbol, interpreted as an unsigned number. */
+	public long getValue(int symbol) {
+		int offset = getEntries()[symbol];
+		return is64 ? data.getLong(offset + 8) : data.getInt(offset + 4) & 0xffffffffL;
+	}
+
+	/** Returns <code>st_size</code> of the symbol. */
+	public long getSize(int symbol) {
+		int offset = getEntries()[symbol];
+		return is64 ? data.getLong(offset + 16) : data.getInt(offset + 8) & 0xffffffffL;
+	}
+
+	/** Returns <code>st_info</code> of the symbol. */
+	public int getInfo(int symbol) {
+		int offset = getEntries()[symbol];
+		return data.get(offset + (is64 ? 4 : 12)) & 0xff;
+	}
+
+	/** Returns <code>st_other</code> of the symbol. */
+	public int getOther(int symbol) {
+		int offset = getEntries()[symbol];
+		return data.get(offset + (is64 ? 5 : 13)) & 0xff;
+	}
+
+	/**
+	 * Returns <code>st_shndx</code> of the symbol, sign extended like
+	 * {@link Elf.Symbol#st_shndx}.
+	 */
+	public short getSectionIndex(int symbol) {
+		int offset = getEntries()[symbol];
+		return data.getShort(offset + (is64 ? 6 : 14));
+	}
+
+	/** @see Elf.Symbol#st_type() */
+	public int getType(int symbol) {
+		return getInfo(symbol) & 0xf;
+	}
+
+	/** @see Elf.Symbol#st_bind() */
+	public int getBind(int symbol) {
+		return (getInfo(symbol) >> 4) & 0xf;
+	}
+
+	private int getNameOffset(int symbol) {
+		return data.getInt(getEntries()[symbol]);
+	}
+
+	/**
+	 * Returns the name of the symbol, decoded from the string table.
+	 */
+	public String getName(int symbol) {
+		int start = getNameOffset(symbol);
+		if (strings == null || start < 0 || start >= strings.limit())
+			return elf.EMPTY_STRING;
+		int end = start;
+		while (end < strings.limit() && strings.get(end) != 0)
+			end++;
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = strings.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Returns whether the name of the symbol is empty or consists of white space only.
+	 */
+	public boolean hasBlankName(int symbol) {
+		int offset = getNameOffset(symbol);
+		if (strings == null || offset < 0)
+			return true;
+		for (; offset < strings.limit(); offset++) {
+			byte b = strings.get(offset);
+			if (b == 0)
+				return true;
+			if ((b & 0xff) > ' ')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the first symbol with the given name, or <code>-1</code>. The names are compared
+	 * in the string table without decoding them.
+	 */
+	public int findSymbol(String name) {
+		if (strings == null)
+			return -1;
+		byte[] bytes = name.getBytes(StandardCharsets.ISO_8859_1);
+		int count = getCount();
+		outer: for (int symbol = 0; symbol < count; symbol++) {
+			int offset = getNameOffset(symbol);
+			if (offset < 0 || offset + bytes.length >= strings.limit())
+				continue;
+			for (int i = 0; i < bytes.length; i++) {
+				if (strings.get(offset + i) != bytes[i])
+					continue outer;
+			}
+			if (strings.get(offset + bytes.length) == 0)
+				return symbol;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the symbol with the highest address that is less or equal to the given one,
+	 * or <code>-1</code> if there is none. Like {@link Elf#getSymbol(org.eclipse.cdt.core.IAddress)}
+	 * the size of the symbol is not considered.
+	 */
+	public int findSymbol(long address) {
+		int[] order = getAddressOrder();
+		long key = address ^ Long.MIN_VALUE;
+		int low = 0;
+		int high = order.length - 1;
+		int result = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (sorted_keys[mid] <= key) {
+				result = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return result < 0 ? -1 : order[result];
+	}
+
+	/**
+	 * Creates an {@link Elf.Symbol} for the given symbol, for clients of the object based API.
+	 */
+	public Elf.Symbol createSymbol(int symbol) {
+		Elf.Symbol result = elf.new Symbol(section, getName(symbol));
+		result.st_name = getNameOffset(symbol) & 0xffffffffL;
+		long value = getValue(symbol);
+		result.st_value = is64 ? new Addr64(value) : new Addr32(value);
+		result.st_size = getSize(symbol);
+		result.st_info = (byte) getInfo(symbol);
+		result.st_other = (byte) getOther(symbol);
+		result.st_shndx = getSectionIndex(symbol);
+		return result;
+	}
+
+	/**
+	 * Sorts the symbols by address with a stable merge sort on primitive arrays. The keys
+	 * are the addresses with the sign bit flipped, such that signed comparisons order them
+	 * like unsigned numbers.
+	 */
+	private int[] getAddressOrder() {
+		if (by_address == null) {
+			int count = getCount();
+			int[] order = new int[count];
+			long[] keys = new long[count];
+			for (int i = 0; i < count; i++) {
+				order[i] = i;
+				keys[i] = getValue(i) ^ Long.MIN_VALUE;
+			}
+			mergeSort(order, keys, new int[count], new long[count], 0, count);
+			sorted_keys = keys;
+			by_address = order;
+		}
+		return by_address;
+	}
+
+	private static void mergeSort(int[] order, long[] keys, int[] tmpOrder, long[] tmpKeys, int from, int to) {
+		if (to - from <= 16) {
+			for (int i = from + 1; i < to; i++) {
+				long key = keys[i];
+				int value = order[i];
+				int j = i - 1;
+				for (; j >= from && keys[j] > key; j--) {
+					keys[j + 1] = keys[j];
+					order[j + 1] = order[j];
+				}
+				keys[j + 1] = key;
+				order[j + 1] = value;
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		mergeSort(order, keys, tmpOrder, tmpKeys, from, mid);
+		mergeSort(order, keys, tmpOrder, tmpKeys, mid, to);
+		if (keys[mid - 1] <= keys[mid])
+			return;
+		System.arraycopy(order, from, tmpOrder, from, to - from);
+		System.arraycopy(keys, from, tmpKeys, from, to - from);
+		int i = from, j = mid, k = from;
+		while (i < mid && j < to) {
+			if (tmpKeys[j] < tmpKeys[i]) {
+				keys[k] = tmpKeys[j];
+				order[k++] = tmpOrder[j++];
+			} else {
+				keys[k] = tmpKeys[i];
+				order[k++] = tmpOrder[i++];
+			}
+		}
+		while (i < mid) {
+			keys[k] = tmpKeys[i];
+			order[k++] = tmpOrder[i++];
+		}
+		while (j < to) {
+			keys[k] = tmpKeys[j];
+			order[k++] = tmpOrder[j++];
+		}
+	}
+}
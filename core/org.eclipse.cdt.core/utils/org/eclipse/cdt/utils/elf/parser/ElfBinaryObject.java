@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 QNX Software Systems and others.
+ * Copyright (c) 2000, 2018 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,29 +11,45 @@
 package org.eclipse.cdt.utils.elf.parser;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.eclipse.cdt.core.IAddress;
 import org.eclipse.cdt.core.IAddressFactory;
 import org.eclipse.cdt.core.IBinaryParser;
 import org.eclipse.cdt.core.ISymbolReader;
 import org.eclipse.cdt.core.IBinaryParser.IBinaryFile;
 import org.eclipse.cdt.core.IBinaryParser.ISymbol;
+import org.eclipse.cdt.internal.core.BinaryMetadataCache;
+import org.eclipse.cdt.internal.core.BinaryMetadataCache.Stamp;
 import org.eclipse.cdt.utils.AR;
 import org.eclipse.cdt.utils.Addr32Factory;
+import org.eclipse.cdt.utils.Addr64Factory;
 import org.eclipse.cdt.utils.BinaryObjectAdapter;
 import org.eclipse.cdt.utils.Symbol;
 import org.eclipse.cdt.utils.elf.Elf;
 import org.eclipse.cdt.utils.elf.ElfHelper;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
 
 /*
  * ElfBinaryObject
  */
 public class ElfBinaryObject extends BinaryObjectAdapter {
+	private static final String INFO_SECTION = "elf.info"; //$NON-NLS-1$
+	private static final String SYMBOLS_SECTION = "elf.symbols"; //$NON-NLS-1$
 
 	private BinaryObjectInfo info;
 	private ISymbol[] symbols;
@@ -120,6 +136,12 @@ public class ElfBinaryObject extends BinaryObjectAdapter {
 	}
 
 	protected void loadAll() throws IOException {
+		BinaryMetadataCache cache = getMetadataCache();
+		String section = cache != null ? getSymbolCacheSection() : null;
+		if (section != null && readInfo(cache) && readSymbols(cache, section)) {
+			return;
+		}
+		Stamp stamp = section != null ? BinaryMetadataCache.getStamp(getPath().toOSString()) : null;
 		ElfHelper helper = null;
 		try {
 			helper = getElfHelper();
@@ -130,9 +152,18 @@ public class ElfBinaryObject extends BinaryObjectAdapter {
 				helper.dispose();
 			}
 		}
+		if (section != null) {
+			writeInfo(cache, stamp);
+			writeSymbols(cache, stamp, section);
+		}
 	}
 
 	protected void loadInfo() throws IOException {
+		BinaryMetadataCache cache = getMetadataCache();
+		if (cache != null && readInfo(cache)) {
+			return;
+		}
+		Stamp stamp = cache != null ? BinaryMetadataCache.getStamp(getPath().toOSString()) : null;
 		ElfHelper helper = null;
 		try {
 			helper = getElfHelper();
@@ -142,6 +173,9 @@ public class ElfBinaryObject extends BinaryObjectAdapter {
 				helper.dispose();
 			}
 		}
+		if (cache != null) {
+			writeInfo(cache, stamp);
+		}
 	}
 	
 	protected void loadInfo(ElfHelper helper) throws IOException {
@@ -181,21 +215,173 @@ public class ElfBinaryObject extends BinaryObjectAdapter {
 	}
 
 	protected void addSymbols(Elf.Symbol[] array, int type, List<Symbol> list) {
+		Set<IAddress> addresses = null;
+		if (type == ISymbol.FUNCTION) {
+			addresses = new HashSet<>();
+			for (Symbol s : list) {
+				addresses.add(s.getAddress());
+			}
+		}
 		for (org.eclipse.cdt.utils.elf.Elf.Symbol element : array) {
 			// Multiple function symbol entries for the same address are generated
 			// do not add duplicate symbols with 0 size to the list
-			boolean duplicateAddressFound = false;
-			if (type == ISymbol.FUNCTION && element.st_size == 0){
-				for (Symbol s : list) {
-					if (s.getAddress().equals(element.st_value)){
-						duplicateAddressFound = true;
-						break;
-					}
+			if (addresses != null) {
+				boolean duplicateAddressFound = element.st_size == 0 && addresses.contains(element.st_value);
+				addresses.add(element.st_value);
+				if (duplicateAddressFound)
+					continue;
+			}
+			list.add(new Symbol(this, element.toString(), type, element.st_value, element.st_size));
+		}
+	}
+
+	/**
+	 * Creates a symbol restored from the cache, <code>sourceFile</code> is <code>null</code>
+	 * for symbols without line information.
+	 *
+	 * @since 6.5
+	 */
+	protected Symbol createSymbol(String name, int type, IAddress addr, long size, IPath sourceFile,
+			int startLine, int endLine) {
+		if (sourceFile == null) {
+			return new Symbol(this, name, type, addr, size);
+		}
+		return new Symbol(this, name, type, addr, size, sourceFile, startLine, endLine);
+	}
+
+	/**
+	 * Returns the name under which the symbols are stored in the persistent cache, or
+	 * <code>null</code> if they depend on more than the content of the binary and must
+	 * not be cached. Members of archives are never cached.
+	 *
+	 * @since 6.5
+	 */
+	protected String getSymbolCacheSection() {
+		return SYMBOLS_SECTION;
+	}
+
+	private BinaryMetadataCache getMetadataCache() {
+		if (header != null || getPath() == null) {
+			return null;
+		}
+		return BinaryMetadataCache.getDefault();
+	}
+
+	private boolean readInfo(BinaryMetadataCache cache) {
+		ByteBuffer buffer = cache.get(getPath().toOSString(), INFO_SECTION);
+		if (buffer == null) {
+			return false;
+		}
+		try {
+			BinaryObjectInfo cached = new BinaryObjectInfo();
+			cached.bss = buffer.getLong();
+			cached.data = buffer.getLong();
+			cached.text = buffer.getLong();
+			cached.hasDebug = buffer.get() != 0;
+			cached.isLittleEndian = buffer.get() != 0;
+			cached.soname = BinaryMetadataCache.getString(buffer);
+			cached.needed = new String[BinaryMetadataCache.getCount(buffer, 4)];
+			for (int i = 0; i < cached.needed.length; i++) {
+				cached.needed[i] = BinaryMetadataCache.getString(buffer);
+			}
+			cached.cpu = BinaryMetadataCache.getString(buffer);
+			addressFactory = buffer.get() == 8 ? new Addr64Factory() : new Addr32Factory();
+			info = cached;
+			fElfAttributes = null;
+			return true;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private void writeInfo(BinaryMetadataCache cache, Stamp stamp) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeLong(info.bss);
+			out.writeLong(info.data);
+			out.writeLong(info.text);
+			out.writeBoolean(info.hasDebug);
+			out.writeBoolean(info.isLittleEndian);
+			BinaryMetadataCache.putString(out, info.soname);
+			out.writeInt(info.needed.length);
+			for (String needed : info.needed) {
+				BinaryMetadataCache.putString(out, needed);
+			}
+			BinaryMetadataCache.putString(out, info.cpu);
+			out.writeByte(addressFactory instanceof Addr64Factory ? 8 : 4);
+		} catch (IOException e) {
+			return;
+		}
+		cache.put(getPath().toOSString(), stamp, INFO_SECTION, bytes.toByteArray());
+	}
+
+	private boolean readSymbols(BinaryMetadataCache cache, String section) {
+		ByteBuffer buffer = cache.get(getPath().toOSString(), section);
+		if (buffer == null) {
+			return false;
+		}
+		try {
+			IPath[] files = new IPath[BinaryMetadataCache.getCount(buffer, 4)];
+			for (int i = 0; i < files.length; i++) {
+				String file = BinaryMetadataCache.getString(buffer);
+				files[i] = file.isEmpty() ? Path.EMPTY : new Path(file);
+			}
+			// Name, type, address, size, file, start and end line.
+			ISymbol[] cached = new ISymbol[BinaryMetadataCache.getCount(buffer, 36)];
+			for (int i = 0; i < cached.length; i++) {
+				String name = BinaryMetadataCache.getString(buffer);
+				int type = buffer.getInt();
+				long value = buffer.getLong();
+				BigInteger unsigned = BigInteger.valueOf(value);
+				if (value < 0) {
+					unsigned = unsigned.add(BigInteger.ONE.shiftLeft(64));
 				}
+				IAddress addr = addressFactory.createAddress(unsigned);
+				long size = buffer.getLong();
+				int file = buffer.getInt();
+				int startLine = buffer.getInt();
+				int endLine = buffer.getInt();
+				cached[i] = createSymbol(name, type, addr, size, file < 0 ? null : files[file], startLine, endLine);
+			}
+			symbols = cached;
+			return true;
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+				| NullPointerException e) {
+			return false;
+		}
+	}
+
+	private void writeSymbols(BinaryMetadataCache cache, Stamp stamp, String section) {
+		Map<IPath, Integer> fileIndex = new HashMap<>();
+		List<IPath> files = new ArrayList<>();
+		for (ISymbol symbol : symbols) {
+			IPath file = symbol.getFilename();
+			if (file != null && !fileIndex.containsKey(file)) {
+				fileIndex.put(file, files.size());
+				files.add(file);
+			}
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(files.size());
+			for (IPath file : files) {
+				BinaryMetadataCache.putString(out, file.toString());
+			}
+			out.writeInt(symbols.length);
+			for (ISymbol symbol : symbols) {
+				BinaryMetadataCache.putString(out, symbol.getName());
+				out.writeInt(symbol.getType());
+				out.writeLong(symbol.getAddress().getValue().longValue());
+				out.writeLong(symbol.getSize());
+				IPath file = symbol.getFilename();
+				out.writeInt(file == null ? -1 : fileIndex.get(file));
+				out.writeInt(symbol.getStartLine());
+				out.writeInt(symbol.getEndLine());
 			}
-			if (!duplicateAddressFound)	
-				list.add(new Symbol(this, element.toString(), type, element.st_value, element.st_size));
+		} catch (IOException e) {
+			return;
 		}
+		cache.put(getPath().toOSString(), stamp, section, bytes.toByteArray());
 	}
 
 	@Override
@@ -19,10 +19,13 @@ import org.eclipse.cdt.core.IAddress;
 import org.eclipse.cdt.core.IBinaryParser;
 import org.eclipse.cdt.utils.Addr2line;
 import org.eclipse.cdt.utils.CPPFilt;
+import org.eclipse.cdt.utils.DefaultGnuToolFactory;
 import org.eclipse.cdt.utils.IGnuToolFactory;
+import org.eclipse.cdt.utils.ItaniumDemangler;
 import org.eclipse.cdt.utils.Objdump;
 import org.eclipse.cdt.utils.Symbol;
 import org.eclipse.cdt.utils.AR.ARHeader;
+import org.eclipse.cdt.utils.debug.dwarf.DwarfAddr2line;
 import org.eclipse.cdt.utils.elf.Elf;
 import org.eclipse.cdt.utils.elf.ElfHelper;
 import org.eclipse.core.runtime.IPath;
@@ -32,6 +35,7 @@ import org.eclipse.core.runtime.Path;
  * GNUBinaryObject
  */
 public class GNUElfBinaryObject extends ElfBinaryObject {
+	private static final String SYMBOLS_SECTION = "gnu.symbols"; //$NON-NLS-1$
 
 	private Addr2line autoDisposeAddr2line;
 	private Addr2line symbolLoadingAddr2line;
@@ -173,16 +177,21 @@ public class GNUElfBinaryObject extends ElfBinaryObject {
 	 */
 	@Override
 	protected void addSymbols(Elf.Symbol[] array, int type, List<Symbol> list) {
-		for (org.eclipse.cdt.utils.elf.Elf.Symbol element : array) {
-			String name = element.toString();
-			if (symbolLoadingCPPFilt != null) {
-				try {
-					name = symbolLoadingCPPFilt.getFunction(name);
-				} catch (IOException e1) {
-					symbolLoadingCPPFilt.dispose();
-					symbolLoadingCPPFilt = null;
-				}
+		String[] names = new String[array.length];
+		for (int i = 0; i < array.length; i++) {
+			names[i] = array[i].toString();
+		}
+		if (symbolLoadingCPPFilt != null) {
+			try {
+				names = symbolLoadingCPPFilt.getFunctions(names);
+			} catch (IOException e1) {
+				symbolLoadingCPPFilt.dispose();
+				symbolLoadingCPPFilt = null;
 			}
+		}
+		for (int i = 0; i < array.length; i++) {
+			org.eclipse.cdt.utils.elf.Elf.Symbol element = array[i];
+			String name = names[i];
 			IAddress addr = element.st_value;
 			long size = element.st_size;
 			if (symbolLoadingAddr2line != null) {
@@ -206,6 +215,29 @@ public class GNUElfBinaryObject extends ElfBinaryObject {
 		}
 	}
 
+	@Override
+	protected Symbol createSymbol(String name, int type, IAddress addr, long size, IPath sourceFile,
+			int startLine, int endLine) {
+		if (sourceFile == null) {
+			return new GNUSymbol(this, name, type, addr, size);
+		}
+		return new GNUSymbol(this, name, type, addr, size, sourceFile, startLine, endLine);
+	}
+
+	/**
+	 * Symbols are cached only when they are demangled and mapped to source lines in process,
+	 * the output of external tools depends on their configuration.
+	 */
+	@Override
+	protected String getSymbolCacheSection() {
+		IGnuToolFactory factory = getBinaryParser().getAdapter(IGnuToolFactory.class);
+		if (factory != null && factory.getClass() == DefaultGnuToolFactory.class && ItaniumDemangler.isEnabled()
+				&& DwarfAddr2line.isEnabled()) {
+			return SYMBOLS_SECTION;
+		}
+		return null;
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T getAdapter(Class<T> adapter) {
@@ -23,6 +23,7 @@ import java.util.Set;
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.ISymbolReader;
 import org.eclipse.cdt.utils.CPPFilt;
+import org.eclipse.cdt.utils.ItaniumDemangler;
 import org.eclipse.cdt.utils.debug.stabs.StabsReader;
 import org.eclipse.cdt.utils.debug.stabs.StabConstant;
 
@@ -767,7 +768,7 @@ public class MachO64 {
 				try {
 					if (in.indexOf("__") != -1 || in.indexOf("_._") != -1) { //$NON-NLS-1$ //$NON-NLS-2$
 						if (cppFilt == null) {
-							cppFilt = new CPPFilt();
+							cppFilt = ItaniumDemangler.isEnabled() ? new CPPFilt(new ItaniumDemangler(true)) : new CPPFilt();
 						}
 						return cppFilt.getFunction(in);
 					}
@@ -17,6 +17,7 @@ import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.IBinaryParser;
 import org.eclipse.cdt.core.settings.model.ICConfigExtensionReference;
 import org.eclipse.cdt.utils.CPPFilt;
+import org.eclipse.cdt.utils.ItaniumDemangler;
 import org.eclipse.cdt.utils.macho.AR;
 import org.eclipse.cdt.utils.macho.MachO;
 import org.eclipse.cdt.utils.macho.MachO.Attribute;
@@ -114,6 +115,10 @@ public class MachOParser extends AbstractCExtension implements IBinaryParser {
 	 * @see org.eclipse.cdt.utils.IGnuToolProvider#getCPPFilt()
 	 */
 	public CPPFilt getCPPFilt() {
+		if (ItaniumDemangler.isEnabled()) {
+			// The symbols have an additional leading underscore.
+			return new CPPFilt(new ItaniumDemangler(true));
+		}
 		IPath cppFiltPath = getCPPFiltPath();
 		CPPFilt cppfilt = null;
 		if (cppFiltPath != null && ! cppFiltPath.isEmpty()) {